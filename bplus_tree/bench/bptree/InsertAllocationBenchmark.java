@@ -0,0 +1,116 @@
+package bptree;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@code InsertAllocationBenchmark} measures the number of bytes that the current thread allocates per
+ * {@code BPlusTree.insert} of a random key. The {@code BPlusTree} runs on a {@code StorageManager} that keeps
+ * references to the {@code Node}s instead of encoding them, so the figure excludes the cost of encoding and reflects
+ * only the insert path of the {@code BPlusTree}. It is run as a Java application with optional arguments for the
+ * degree and the number of insertions, and requires a JVM whose {@code ThreadMXBean} reports allocated bytes.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class InsertAllocationBenchmark {
+
+	/**
+	 * A {@code StorageManager} that keeps references to the objects given to it.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	static class ReferenceStorageManager implements StorageManager<Integer, Object> {
+
+		/**
+		 * A map that associates the name of each file with its ID.
+		 */
+		HashMap<String, Integer> fileIDs = new HashMap<String, Integer>();
+
+		/**
+		 * The objects in each file, indexed by their locations.
+		 */
+		List<List<Object>> files = new ArrayList<List<Object>>();
+
+		@Override
+		public int fileID(String fileName) {
+			Integer id = fileIDs.get(fileName);
+			if (id == null) {
+				id = files.size();
+				fileIDs.put(fileName, id);
+				List<Object> objects = new ArrayList<Object>();
+				objects.add(null); // the first location
+				files.add(objects);
+			}
+			return id;
+		}
+
+		@Override
+		public Integer first() {
+			return 0;
+		}
+
+		@Override
+		public Object get(int fileID, Integer loc) throws IOException {
+			return files.get(fileID).get(loc);
+		}
+
+		@Override
+		public Object put(int fileID, Integer loc, Object o) throws IOException {
+			return files.get(fileID).set(loc, o);
+		}
+
+		@Override
+		public Integer add(int fileID, Object o) throws IOException {
+			List<Object> objects = files.get(fileID);
+			objects.add(o);
+			return objects.size() - 1;
+		}
+
+		@Override
+		public Object remove(int fileID, Integer loc) throws IOException {
+			return files.get(fileID).set(loc, null);
+		}
+
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * 
+	 * @param args
+	 *            the degree of the {@code BPlusTree} (128 by default) and the number of insertions (1000000 by default)
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		int degree = args.length > 0 ? Integer.parseInt(args[0]) : 128;
+		int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		for (int round = 0; round < 3; round++) { // the first rounds warm up the JIT compiler
+			Integer[] keys = new Integer[n];
+			Random random = new Random(round);
+			for (int i = 0; i < n; i++)
+				keys[i] = random.nextInt();
+			BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree, new ReferenceStorageManager(),
+					"t");
+			int inserted = 0;
+			long bytes = bean.getThreadAllocatedBytes(thread);
+			long time = System.nanoTime();
+			for (Integer k : keys)
+				try {
+					tree.insert(k, k);
+					inserted++;
+				} catch (BPlusTree.InvalidInsertionException e) { // a duplicate key
+				}
+			time = System.nanoTime() - time;
+			bytes = bean.getThreadAllocatedBytes(thread) - bytes;
+			System.out.printf("round %d: degree %d, %d inserts, %.1f bytes/insert, %.0f ns/insert%n", round, degree,
+					inserted, (double) bytes / n, (double) time / n);
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package bptree;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * {@code MappedStorageManagerBenchmark} compares the lookup latency of a {@code BPlusTree} stored by a
+ * {@code MappedStorageManager} with that of the same {@code BPlusTree} stored by a {@code FileStorageManager}, which
+ * reads pages using {@code FileChannel} calls. The {@code BPlusTree} is bulk loaded once into a file, which both
+ * {@code StorageManager}s then open in turn, for each of {@code SerializationCodec} and {@code BinaryNodeCodec}. It is
+ * run as a Java application with optional arguments for the number of keys, the degree, and the number of lookups,
+ * and prints the mean and percentiles of the lookup latency.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class MappedStorageManagerBenchmark {
+
+	/**
+	 * Runs the benchmark.
+	 * 
+	 * @param args
+	 *            the number of keys (200000 by default), the degree of the {@code BPlusTree} (64 by default), and the
+	 *            number of lookups (50000 by default)
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 50000;
+		NodeCodec[] codecs = { new SerializationCodec(),
+				new BinaryNodeCodec<Integer, Integer>(Serializer.INTEGER, Serializer.INTEGER) };
+		for (NodeCodec codec : codecs) {
+			File dir = Files.createTempDirectory("lookup").toFile();
+			List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+			for (int i = 0; i < n; i++)
+				entries.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(2 * i, i));
+			FileStorageManager loader = new FileStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE, codec);
+			new BPlusTree<Integer, Integer>(degree, loader, "t").bulkLoad(entries.iterator(), 1.0);
+			loader.close();
+			String name = codec.getClass().getSimpleName();
+			for (int round = 0; round < 2; round++) { // the first round warms up the JIT compiler and the page cache
+				FileStorageManager sm = new FileStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE, codec);
+				run("FileStorageManager, " + name, new BPlusTree<Integer, Integer>(degree, sm, "t"), n, lookups);
+				sm.close();
+				sm = new MappedStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE,
+						MappedStorageManager.DEFAULT_PAGES_PER_CHUNK, codec);
+				run("MappedStorageManager, " + name, new BPlusTree<Integer, Integer>(degree, sm, "t"), n, lookups);
+				sm.close();
+			}
+			for (File f : dir.listFiles())
+				f.delete();
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Searches a {@code BPlusTree} for random keys and prints the latency of the searches.
+	 * 
+	 * @param label
+	 *            the label of the output
+	 * @param tree
+	 *            a {@code BPlusTree} that contains the even keys less than twice the specified number of keys
+	 * @param n
+	 *            the number of keys in the {@code BPlusTree}
+	 * @param lookups
+	 *            the number of searches
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void run(String label, BPlusTree<Integer, Integer> tree, int n, int lookups) throws Exception {
+		Random random = new Random(n);
+		long[] latencies = new long[lookups];
+		for (int i = 0; i < lookups; i++) {
+			int k = random.nextInt(n);
+			long time = System.nanoTime();
+			Integer p = tree.search(2 * k);
+			latencies[i] = System.nanoTime() - time;
+			if (p == null || p != k)
+				throw new AssertionError("key " + 2 * k + " not found");
+		}
+		long total = 0;
+		for (long l : latencies)
+			total += l;
+		Arrays.sort(latencies);
+		System.out.printf("%s: mean %.1f us, p50 %.1f us, p99 %.1f us%n", label, total / 1000.0 / lookups,
+				latencies[lookups / 2] / 1000.0, latencies[lookups * 99 / 100] / 1000.0);
+	}
+
+}
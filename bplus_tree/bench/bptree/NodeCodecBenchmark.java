@@ -0,0 +1,133 @@
+package bptree;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * {@code NodeCodecBenchmark} compares {@code BinaryNodeCodec} with {@code SerializationCodec}, which uses Java
+ * serialization, in terms of the throughput of encoding and decoding full {@code LeafNode}s and {@code NonLeafNode}s
+ * and the size of the encoded {@code Node}s, for {@code Integer} keys and for {@code String} keys sharing a prefix. It
+ * is run as a Java application with optional arguments for the degree and the number of {@code Node}s to encode and
+ * decode in each round.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class NodeCodecBenchmark {
+
+	/**
+	 * A value that depends on the results of encoding and decoding, which keeps the work from being optimized away.
+	 */
+	static long sink;
+
+	/**
+	 * Runs the benchmark.
+	 * 
+	 * @param args
+	 *            the degree of the {@code Node}s (64 by default) and the number of {@code Node}s to encode and decode
+	 *            in each round (200000 by default)
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		int degree = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+		int n = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+		List<Node<Integer, Integer>> integerNodes = new ArrayList<Node<Integer, Integer>>();
+		List<Node<String, Integer>> stringNodes = new ArrayList<Node<String, Integer>>();
+		for (int i = 0; i < 100; i++) {
+			integerNodes.add(leaf(degree, i, k -> k));
+			integerNodes.add(nonLeaf(degree, i, k -> k));
+			stringNodes.add(leaf(degree, i, k -> String.format("user%08d", k)));
+			stringNodes.add(nonLeaf(degree, i, k -> String.format("user%08d", k)));
+		}
+		for (int round = 0; round < 3; round++) { // the first rounds warm up the JIT compiler
+			System.out.println("round " + round);
+			run("SerializationCodec, Integer keys", new SerializationCodec(), integerNodes, n);
+			run("BinaryNodeCodec, Integer keys",
+					new BinaryNodeCodec<Integer, Integer>(Serializer.INTEGER, Serializer.INTEGER), integerNodes, n);
+			run("SerializationCodec, String keys", new SerializationCodec(), stringNodes, n);
+			run("BinaryNodeCodec, String keys",
+					new BinaryNodeCodec<String, Integer>(Serializer.STRING, Serializer.INTEGER), stringNodes, n);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+	/**
+	 * Encodes and decodes the specified {@code Node}s repeatedly using the specified {@code NodeCodec} and prints the
+	 * throughput and the mean size of the encoded {@code Node}s.
+	 * 
+	 * @param label
+	 *            the label of the output
+	 * @param codec
+	 *            a {@code NodeCodec}
+	 * @param nodes
+	 *            the {@code Node}s to encode and decode
+	 * @param n
+	 *            the number of {@code Node}s to encode and decode
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void run(String label, NodeCodec codec, List<? extends Node<?, ?>> nodes, int n) throws Exception {
+		byte[][] encoded = new byte[nodes.size()][];
+		long bytes = 0;
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = codec.encode(nodes.get(i));
+			bytes += encoded[i].length;
+		}
+		long time = System.nanoTime();
+		for (int i = 0; i < n; i++)
+			sink += codec.encode(nodes.get(i % encoded.length)).length;
+		double encodeTime = System.nanoTime() - time;
+		time = System.nanoTime();
+		for (int i = 0; i < n; i++)
+			sink += ((Node<?, ?>) codec.decode(ByteBuffer.wrap(encoded[i % encoded.length]))).keyCount();
+		double decodeTime = System.nanoTime() - time;
+		System.out.printf("%s: encode %.0f nodes/s, decode %.0f nodes/s, %d bytes/node%n", label, n / encodeTime * 1e9,
+				n / decodeTime * 1e9, bytes / encoded.length);
+	}
+
+	/**
+	 * Returns a full {@code LeafNode}.
+	 * 
+	 * @param <K>
+	 *            the type of keys
+	 * @param degree
+	 *            the degree of the {@code LeafNode}
+	 * @param seed
+	 *            the number that the keys and pointers are derived from
+	 * @param key
+	 *            the function that turns numbers into keys
+	 * @return a full {@code LeafNode}
+	 */
+	static <K extends Comparable<K>> LeafNode<K, Integer> leaf(int degree, int seed, IntFunction<K> key) {
+		LeafNode<K, Integer> l = new LeafNode<K, Integer>(degree);
+		for (int i = 0; i < degree - 1; i++)
+			l.insert(i, key.apply(seed * degree + i), seed * degree + i);
+		l.setSuccessor(seed + 1);
+		return l;
+	}
+
+	/**
+	 * Returns a full {@code NonLeafNode}.
+	 * 
+	 * @param <K>
+	 *            the type of keys
+	 * @param degree
+	 *            the degree of the {@code NonLeafNode}
+	 * @param seed
+	 *            the number that the keys and pointers are derived from
+	 * @param key
+	 *            the function that turns numbers into keys
+	 * @return a full {@code NonLeafNode}
+	 */
+	static <K extends Comparable<K>> NonLeafNode<K, Integer> nonLeaf(int degree, int seed, IntFunction<K> key) {
+		NonLeafNode<K, Integer> n = new NonLeafNode<K, Integer>(degree, seed * degree, key.apply(seed * degree + 1),
+				seed * degree + 1);
+		for (int i = 1; i < degree - 1; i++)
+			n.insert(key.apply(seed * degree + i + 1), i, seed * degree + i + 1, i + 1);
+		return n;
+	}
+
+}
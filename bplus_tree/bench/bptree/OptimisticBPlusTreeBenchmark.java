@@ -0,0 +1,264 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@code OptimisticBPlusTreeBenchmark} measures how the throughput of an {@code OptimisticBPlusTree} under a
+ * read-dominated mix of searches and updates scales from 1 to 64 threads, against a baseline {@code BPlusTree} whose
+ * searches hold the read lock and whose updates hold the write lock of a {@code ReentrantReadWriteLock}. The baseline
+ * reads references to its {@code Node}s from a thread-safe {@code StorageManager} without decoding them, so that,
+ * like the node store of the {@code OptimisticBPlusTree}, it pays nothing for a {@code Node} but the lookup. It is run
+ * as a Java application with optional arguments for the number of keys, the percentage of searches, and the duration
+ * of each measurement in milliseconds, and prints the operations per second for each number of threads, first for
+ * searches only and then for the mix.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class OptimisticBPlusTreeBenchmark {
+
+	/**
+	 * The operations whose throughput is measured.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	interface Operations {
+
+		/**
+		 * Searches for the specified key.
+		 * 
+		 * @param k
+		 *            a key
+		 * @return the pointer associated with the specified key; {@code null} if the key is not found
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		Integer search(Integer k) throws IOException;
+
+		/**
+		 * Inserts the specified key if it is absent and deletes it otherwise.
+		 * 
+		 * @param k
+		 *            a key
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		void update(Integer k) throws IOException;
+
+	}
+
+	/**
+	 * A thread-safe {@code StorageManager} that keeps references to the objects given to it.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	static class ReferenceStorageManager implements StorageManager<Integer, Object> {
+
+		/**
+		 * The objects, associated with their locations; all files share the locations.
+		 */
+		ConcurrentHashMap<Integer, Object> objects = new ConcurrentHashMap<Integer, Object>();
+
+		/**
+		 * The last location handed out.
+		 */
+		AtomicInteger last = new AtomicInteger();
+
+		@Override
+		public int fileID(String fileName) {
+			return 0;
+		}
+
+		@Override
+		public Integer first() {
+			return 0;
+		}
+
+		@Override
+		public Object get(int fileID, Integer loc) {
+			return objects.get(loc);
+		}
+
+		@Override
+		public Object put(int fileID, Integer loc, Object o) {
+			return o == null ? objects.remove(loc) : objects.put(loc, o);
+		}
+
+		@Override
+		public Integer add(int fileID, Object o) {
+			Integer loc = last.incrementAndGet();
+			if (o != null)
+				objects.put(loc, o);
+			return loc;
+		}
+
+		@Override
+		public Object remove(int fileID, Integer loc) {
+			return objects.remove(loc);
+		}
+
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * 
+	 * @param args
+	 *            the number of keys (1000000 by default), the percentage of searches in the mixed workload (95 by
+	 *            default), and the duration of each measurement in milliseconds (1000 by default)
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int searches = args.length > 1 ? Integer.parseInt(args[1]) : 95;
+		long duration = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+		System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(64, new ReferenceStorageManager(), "t");
+		fill(tree, n);
+		ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		Operations locked = new Operations() {
+
+			@Override
+			public Integer search(Integer k) throws IOException {
+				lock.readLock().lock();
+				try {
+					return tree.search(k);
+				} finally {
+					lock.readLock().unlock();
+				}
+			}
+
+			@Override
+			public void update(Integer k) throws IOException {
+				lock.writeLock().lock();
+				try {
+					OptimisticBPlusTreeBenchmark.update(tree, k);
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+
+		};
+		NodeCodec codec = new BinaryNodeCodec<Integer, Integer>(Serializer.INTEGER, Serializer.INTEGER);
+		OptimisticBPlusTree<Integer, Integer> optimisticTree = new OptimisticBPlusTree<Integer, Integer>(64,
+				new ConcurrentStorageManager(codec), "t");
+		fill(optimisticTree, n);
+		Operations optimistic = new Operations() {
+
+			@Override
+			public Integer search(Integer k) {
+				return optimisticTree.search(k);
+			}
+
+			@Override
+			public void update(Integer k) throws IOException {
+				OptimisticBPlusTreeBenchmark.update(optimisticTree, k);
+			}
+
+		};
+		run(locked, 1, n, searches, duration); // warms up the JIT compiler
+		run(optimistic, 1, n, searches, duration);
+		for (int mix : new int[] { 100, searches }) {
+			System.out.println(mix + "% searches");
+			for (int threads = 1; threads <= 64; threads *= 2)
+				System.out.printf("%2d threads: read-write lock %,.0f ops/s, optimistic %,.0f ops/s%n", threads,
+						run(locked, threads, n, mix, duration), run(optimistic, threads, n, mix, duration));
+		}
+	}
+
+	/**
+	 * Inserts the even keys less than twice the specified number into the specified {@code BPlusTree}.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param n
+	 *            the number of keys
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void fill(BPlusTree<Integer, Integer> tree, int n) throws Exception {
+		for (int i = 0; i < n; i++)
+			tree.insert(2 * i, i);
+	}
+
+	/**
+	 * Inserts the specified key into the specified {@code BPlusTree} if it is absent and deletes it otherwise.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param k
+	 *            a key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static void update(BPlusTree<Integer, Integer> tree, Integer k) throws IOException {
+		try {
+			tree.insert(k, k);
+		} catch (BPlusTree.InvalidInsertionException e) {
+			try {
+				tree.delete(k);
+			} catch (BPlusTree.InvalidDeletionException f) { // another thread has deleted the key
+			}
+		}
+	}
+
+	/**
+	 * Runs the specified number of threads that apply random searches and updates for the specified duration.
+	 * 
+	 * @param operations
+	 *            the {@code Operations} to apply
+	 * @param threads
+	 *            the number of threads
+	 * @param n
+	 *            the number of keys initially inserted
+	 * @param searches
+	 *            the percentage of searches
+	 * @param duration
+	 *            the duration in milliseconds
+	 * @return the number of operations per second
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static double run(Operations operations, int threads, int n, int searches, long duration) throws Exception {
+		AtomicLong count = new AtomicLong();
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread(() -> {
+				try {
+					start.await();
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					long deadline = System.nanoTime() + duration * 1000000;
+					long operationCount = 0;
+					for (; (operationCount & 255) != 0 || System.nanoTime() < deadline; operationCount++) {
+						Integer k = random.nextInt(2 * n);
+						if (random.nextInt(100) < searches)
+							operations.search(k);
+						else
+							operations.update(k);
+					}
+					count.addAndGet(operationCount);
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			workers[i].start();
+		}
+		long time = System.nanoTime();
+		start.countDown();
+		for (Thread t : workers)
+			t.join();
+		time = System.nanoTime() - time;
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		return count.get() * 1e9 / time;
+	}
+
+}
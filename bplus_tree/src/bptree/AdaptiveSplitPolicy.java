@@ -0,0 +1,67 @@
+package bptree;
+
+/**
+ * The {@code AdaptiveSplitPolicy} class splits an overflowing {@code Node} of a {@code BPlusTree} near its edge when
+ * the {@code Node} is the rightmost {@code Node} at its level and the new key is its largest key, or the {@code Node}
+ * is the leftmost {@code Node} at its level and the new key is its smallest key, which is what happens for every split
+ * when keys are inserted in ascending or descending order. With ascending keys, for example, the {@code Node}s left
+ * behind stay almost full rather than half full. Other overflowing {@code Node}s are split in half, so that a
+ * {@code Node} in the middle of the key space that happens to receive its largest key is not left almost full.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class AdaptiveSplitPolicy extends EvenSplitPolicy {
+
+	/**
+	 * The fraction of the keys that stay in the {@code Node} left behind by an edge split.
+	 */
+	protected double ratio;
+
+	/**
+	 * Constructs an {@code AdaptiveSplitPolicy} that keeps 90% of the keys in the {@code Node} left behind by an edge
+	 * split.
+	 */
+	public AdaptiveSplitPolicy() {
+		this(0.9);
+	}
+
+	/**
+	 * Constructs an {@code AdaptiveSplitPolicy}.
+	 * 
+	 * @param ratio
+	 *            the fraction of the keys that stay in the {@code Node} left behind by an edge split
+	 * @throws IllegalArgumentException
+	 *             if the specified ratio is not between 0.5 and 1
+	 */
+	public AdaptiveSplitPolicy(double ratio) {
+		if (ratio < 0.5 || ratio > 1)
+			throw new IllegalArgumentException("ratio: " + ratio);
+		this.ratio = ratio;
+	}
+
+	@Override
+	public int splitPoint(int degree, boolean leaf, int index, boolean leftmost, boolean rightmost) {
+		int edge = (int) Math.round(degree * ratio);
+		if (rightmost && index == degree - 1) // ascending insertion leaves the left node behind
+			return clamp(edge, degree, leaf);
+		if (leftmost && index == 0) // descending insertion leaves the right node behind
+			return clamp(degree - edge, degree, leaf);
+		return super.splitPoint(degree, leaf, index, leftmost, rightmost);
+	}
+
+	/**
+	 * Clamps the specified split point so that each of the resulting {@code Node}s has at least one key.
+	 * 
+	 * @param m
+	 *            a split point
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param leaf
+	 *            {@code true} if the overflowing {@code Node} is a {@code LeafNode}; {@code false} otherwise
+	 * @return the clamped split point
+	 */
+	protected int clamp(int m, int degree, boolean leaf) {
+		return Math.max(leaf ? 1 : 2, Math.min(m, degree - 1));
+	}
+
+}
@@ -0,0 +1,667 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@code BLinkBPlusTree} is a {@code BPlusTree} that can be used by many threads at the same time following Lehman
+ * and Yao. Every {@code Node} except the rightmost one at each level keeps a high key, the smallest key it is not
+ * responsible for, and a right link to the {@code Node} responsible for the keys from the high key on; for a
+ * {@code LeafNode}, the right link is the successor pointer. A split writes the new right sibling first and then the
+ * split {@code Node} pointing to it, so that the keys moved out are reachable through the right link before the parent
+ * knows about the new {@code Node}. A thread that reaches a {@code Node} whose high key is not above the search key
+ * thus only needs to follow right links until it finds the responsible {@code Node}. Searches and range scans take no
+ * latches at all. A writer descends in the same way, remembering the rightmost {@code Node} visited at each level, and
+ * then holds the exclusive latch of a single {@code Node} at a time: it latches the {@code LeafNode}, moves right if
+ * needed by releasing one latch before acquiring the next, updates or splits the {@code LeafNode}, releases it, and
+ * only then latches the parent to insert the key for the new sibling. When the root {@code Node} splits, the new root
+ * {@code Node} is created under the latch of the root pointer, which is never held together with a {@code Node} latch.
+ * As in Lehman and Yao, deletions do not merge or redistribute {@code Node}s, so {@code Node}s may become
+ * under-utilized until the tree is compacted or rebuilt. The {@code StorageManager} must be thread-safe, write each
+ * object atomically, and return a new object for each {@code get}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class BLinkBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K, P> {
+
+	/**
+	 * A {@code LinkingBulkLoader} is a {@code BulkLoader} that gives each {@code Node} except the rightmost one at each
+	 * level the high key and right link that it would have had if it had been split off from its left sibling, so that
+	 * exactly the rightmost {@code Node}s have no high keys. Each {@code Node} is held back until the next
+	 * {@code Node} at the same level is known.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 */
+	protected class LinkingBulkLoader extends BulkLoader<K, P> {
+
+		/**
+		 * The {@code Node} at the level being built that is not saved yet.
+		 */
+		Node<K, P> pending;
+
+		/**
+		 * The location of the {@code Node} that is not saved yet.
+		 */
+		P pendingLoc;
+
+		/**
+		 * Constructs a {@code LinkingBulkLoader}.
+		 * 
+		 * @param fillFactor
+		 *            the fraction of each {@code Node} to fill
+		 */
+		public LinkingBulkLoader(double fillFactor) {
+			super(BLinkBPlusTree.this, fillFactor);
+		}
+
+		@Override
+		protected void loadLeafNodes(Iterator<? extends Map.Entry<K, P>> entries)
+				throws InvalidInsertionException, IOException {
+			super.loadLeafNodes(entries);
+			flush();
+		}
+
+		@Override
+		protected void saveLeafNode(LeafNode<K, P> l, P loc) throws IOException {
+			if (pending != null) { // the successor pointer of the previous leaf node is already set
+				LeafNode<K, P> prev = (LeafNode<K, P>) pending;
+				prev.setHighKey(separator(prev.key(prev.keyCount() - 1), l.key(0)));
+				super.saveLeafNode(prev, pendingLoc);
+			}
+			pending = l;
+			pendingLoc = loc;
+		}
+
+		@Override
+		protected void loadNonLeafNodes() throws IOException {
+			super.loadNonLeafNodes();
+			flush();
+		}
+
+		@Override
+		protected void saveNonLeafNode(NonLeafNode<K, P> n, K lowKey) throws IOException {
+			P loc = reserve();
+			if (pending != null) {
+				pending.setHighKey(lowKey);
+				((NonLeafNode<K, P>) pending).setLink(loc);
+				sm.put(fileID, pendingLoc, pending);
+			}
+			lowKeys.add(lowKey);
+			pointers.add(loc);
+			pending = n;
+			pendingLoc = loc;
+		}
+
+		/**
+		 * Saves the rightmost {@code Node} of the level being built.
+		 * 
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		void flush() throws IOException {
+			if (pending instanceof LeafNode)
+				super.saveLeafNode((LeafNode<K, P>) pending, pendingLoc);
+			else if (pending != null)
+				sm.put(fileID, pendingLoc, pending);
+			pending = null;
+		}
+
+	}
+
+	/**
+	 * The latch that guards the pointer to the root {@code Node} and {@link #height}.
+	 */
+	protected ReentrantLock rootLatch = new ReentrantLock();
+
+	/**
+	 * A map that associates the location of each {@code Node} that has been latched with its latch.
+	 */
+	protected ConcurrentHashMap<P, ReentrantLock> latches = new ConcurrentHashMap<P, ReentrantLock>();
+
+	/**
+	 * The number of levels of this {@code BLinkBPlusTree}; -1 if not known yet.
+	 */
+	protected int height = -1;
+
+	/**
+	 * Constructs a {@code BLinkBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code BLinkBPlusTree} can have
+	 * @param sm
+	 *            a thread-safe {@code StorageManager} used for this {@code BLinkBPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code BLinkBPlusTree}
+	 */
+	public BLinkBPlusTree(int degree, StorageManager<P, Object> sm, String fileName) {
+		super(degree, sm, fileName);
+	}
+
+	/**
+	 * Constructs a {@code BLinkBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code BLinkBPlusTree} can have
+	 * @param sm
+	 *            a thread-safe {@code StorageManager} used for this {@code BLinkBPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code BLinkBPlusTree}
+	 * @param comparator
+	 *            the {@code Comparator} that orders the keys of this {@code BLinkBPlusTree}; {@code null} if the
+	 *            natural ordering of keys is used
+	 */
+	public BLinkBPlusTree(int degree, StorageManager<P, Object> sm, String fileName, Comparator<? super K> comparator) {
+		super(degree, sm, fileName, comparator);
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key in this {@code BLinkBPlusTree} without taking any latch.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the specified key is not contained in
+	 *         this {@code BLinkBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public P search(K k) throws IOException {
+		P p = rootPointer();
+		if (p == null)
+			return null;
+		Node<K, P> n = node(p);
+		while (true) {
+			while (!covers(n, k)) // the node has split since its parent was read
+				n = node(link(n));
+			if (n instanceof LeafNode)
+				return ((LeafNode<K, P>) n).get(k, comparator);
+			n = node(((NonLeafNode<K, P>) n).child(k, comparator));
+		}
+	}
+
+	/**
+	 * Returns a {@code RangeScan} over the keys within the specified range in the version of this
+	 * {@code BLinkBPlusTree} that has the specified root {@code Node}. The descent follows right links like
+	 * {@link #search(Comparable)} and the {@code RangeScan} follows the successor pointers, so no latch is taken. Each
+	 * {@code LeafNode} is read as a whole, and a split only moves keys to a {@code LeafNode} linked after it, so each key
+	 * present throughout the scan is returned exactly once and in order.
+	 * 
+	 * @param root
+	 *            a pointer to the root {@code Node}; {@code null} if the tree is empty
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @return a {@code RangeScan} over the keys within the specified range
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected RangeScan<K, P> scan(P root, K from, boolean fromInclusive, K to, boolean toInclusive)
+			throws IOException {
+		Node<K, P> n = root == null ? null : node(root);
+		List<NonLeafNode<K, P>> ancestors = usesCursor() ? new ArrayList<NonLeafNode<K, P>>() : null;
+		int[] indices = ancestors == null ? null : new int[8];
+		while (n != null) {
+			while (from != null && !covers(n, from))
+				n = node(link(n));
+			if (n instanceof LeafNode)
+				break;
+			NonLeafNode<K, P> c = (NonLeafNode<K, P>) n;
+			int i = from == null ? 0 : c.childIndex(from, comparator);
+			if (ancestors != null) { // remember the path for the LeafCursor
+				if (ancestors.size() == indices.length)
+					indices = Arrays.copyOf(indices, 2 * indices.length);
+				indices[ancestors.size()] = i;
+				ancestors.add(c);
+			}
+			n = node(c.pointer(i));
+		}
+		LeafNode<K, P> l = (LeafNode<K, P>) n;
+		int i = 0;
+		if (l != null && from != null) { // find the first key not below the lower bound
+			i = l.binarySearch(from, comparator);
+			i = i >= 0 ? (fromInclusive ? i : i + 1) : -i - 1;
+		}
+		return rangeScan(l, i, to, toInclusive,
+				ancestors == null ? null : new LeafCursor<K, P>(this, ancestors, indices, to, toInclusive));
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code BLinkBPlusTree}, holding at most one {@code Node} latch at
+	 * a time.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code BLinkBPlusTree} is attempted to be inserted again in the
+	 *             {@code BLinkBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		if (rootPointer() == null && createRoot(k, p))
+			return;
+		List<P> stack = descend(k);
+		NodePointerPair np = latch(k, stack.remove(stack.size() - 1));
+		LeafNode<K, P> l_node = (LeafNode<K, P>) np.node;
+		K separator;
+		P _lp;
+		try {
+			if (l_node.contains(k, comparator)) // no duplicate keys are allowed in the tree
+				throw new InvalidInsertionException("key: " + k);
+			if (!l_node.isFull()) { // if leaf node l has room for the specified key
+				l_node.insert(k, p, comparator);
+				save(np.pointer, l_node);
+				return;
+			}
+			LeafNode<K, P> t = new LeafNode<K, P>(degree + 1); // create a temporary leaf node t
+			t.append(l_node, 0, degree - 2); // copy everything to temporary node t
+			int i = t.findIndexL(k, comparator) + 1; // the index of the key in temporary node t
+			t.insert(i, k, p); // insert the key and pointer into temporary node t
+			// compute the split point; without low keys, only the rightmost node (no high key) is known to be an edge
+			int m = splitPolicy.splitPoint(degree, true, i, false, l_node.highKey() == null);
+			LeafNode<K, P> lp = new LeafNode<K, P>(degree); // create a new leaf node lp
+			lp.append(t, m, degree - 1); // copy the second half to leaf node lp
+			lp.setSuccessor(l_node.successor()); // lp takes over the high key and right link of l
+			lp.setHighKey(l_node.highKey());
+			_lp = save(lp); // the keys moved to lp are reachable from nowhere yet
+			separator = separator(t.key(m - 1), lp.key(0));
+			l_node.clear();
+			l_node.append(t, 0, m - 1); // copy the first half to leaf node l
+			l_node.setSuccessor(_lp);
+			l_node.setHighKey(separator);
+			save(np.pointer, l_node); // publish the split through the right link of l
+		} finally {
+			unlatch(np.pointer);
+		}
+		insertInParent(1, separator, _lp, stack);
+	}
+
+	/**
+	 * Inserts the specified keys and pointers, given in ascending key order, into this {@code BLinkBPlusTree} one at
+	 * a time.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code BLinkBPlusTree} is attempted to be inserted again or a key is
+	 *             not greater than its preceding key; the entries preceding that key remain inserted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void insertSorted(Iterator<? extends Map.Entry<K, P>> entries) throws InvalidInsertionException, IOException {
+		K last = null; // the key inserted last
+		while (entries.hasNext()) {
+			Map.Entry<K, P> e = entries.next();
+			if (last != null && compare(last, e.getKey()) >= 0)
+				throw new InvalidInsertionException("key: " + e.getKey());
+			insert(e.getKey(), e.getValue());
+			last = e.getKey();
+		}
+	}
+
+	/**
+	 * Builds this {@code BLinkBPlusTree} from the specified keys and pointers using a {@code BulkLoader} while holding
+	 * the latch of the root pointer. As after splits, every {@code Node} built except the rightmost one at each level
+	 * has a high key and a right link.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill
+	 * @throws InvalidInsertionException
+	 *             if a key is not greater than its preceding key
+	 * @throws IllegalStateException
+	 *             if this {@code BLinkBPlusTree} is not empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void bulkLoad(Iterator<? extends Map.Entry<K, P>> entries, double fillFactor)
+			throws InvalidInsertionException, IOException {
+		rootLatch.lock();
+		try {
+			super.bulkLoad(entries, fillFactor);
+			height = -1;
+		} finally {
+			rootLatch.unlock();
+		}
+	}
+
+	/**
+	 * Returns a {@code LinkingBulkLoader} for this {@code BLinkBPlusTree}.
+	 * 
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill
+	 * @return a {@code LinkingBulkLoader} for this {@code BLinkBPlusTree}
+	 */
+	@Override
+	protected BulkLoader<K, P> bulkLoader(double fillFactor) {
+		return new LinkingBulkLoader(fillFactor);
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code BLinkBPlusTree}, holding only the latch
+	 * of the {@code LeafNode}. The {@code LeafNode} is neither merged nor redistributed even if it becomes
+	 * under-utilized or empty.
+	 * 
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in a {@code BLinkBPlusTree} is attempted to be deleted from the
+	 *             {@code BLinkBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void delete(K k) throws InvalidDeletionException, IOException {
+		if (rootPointer() == null) // if the tree is empty
+			throw new InvalidDeletionException("key: " + k);
+		List<P> stack = descend(k);
+		NodePointerPair np = latch(k, stack.get(stack.size() - 1));
+		try {
+			np.node.remove(k, comparator);
+			save(np.pointer, np.node);
+		} finally {
+			unlatch(np.pointer);
+		}
+	}
+
+	/**
+	 * Inserts the specified key and pointer to a new right sibling into the parent level, latching one {@code Node}
+	 * at a time and splitting upward as needed.
+	 * 
+	 * @param level
+	 *            the level to insert into (0 for the {@code LeafNode}s)
+	 * @param k
+	 *            the high key of the {@code Node} that has split
+	 * @param np
+	 *            a pointer to the new right sibling
+	 * @param stack
+	 *            the pointers to the rightmost {@code Node}s visited at the levels from the root {@code Node} down to
+	 *            the given level, which are the first candidates for the parents
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void insertInParent(int level, K k, P np, List<P> stack) throws IOException {
+		while (true) {
+			P p = stack.isEmpty() ? parent(level, k, np) : stack.remove(stack.size() - 1);
+			if (p == null) // the new root node already points to the new sibling
+				return;
+			NodePointerPair pp = latch(k, p);
+			NonLeafNode<K, P> p_node = (NonLeafNode<K, P>) pp.node;
+			NonLeafNode<K, P> r;
+			P _r;
+			try {
+				for (int j = 0; j <= p_node.keyCount(); j++)
+					if (p_node.pointer(j).equals(np)) // inserted together with a new root node
+						return;
+				int i = p_node.childIndex(k, comparator); // the index of the node that has split
+				if (p_node.childCount() < degree) { // if parent node p has room for the new entry
+					p_node.insert(k, i, np, i + 1);
+					save(pp.pointer, p_node);
+					return;
+				}
+				NonLeafNode<K, P> t = new NonLeafNode<K, P>(degree + 1); // crate a temporary node
+				t.copy(p_node, 0, p_node.keyCount());
+				t.insert(k, i, np, i + 1);
+				// the number of children staying in p
+				int size = splitPolicy.splitPoint(degree, false, i, false, p_node.highKey() == null);
+				r = new NonLeafNode<K, P>(degree);
+				r.copy(t, size, degree);
+				r.setHighKey(p_node.highKey()); // r takes over the high key and right link of p
+				r.setLink(p_node.link());
+				_r = save(r);
+				k = t.key(size - 1); // the key between p and r moves up
+				p_node.copy(t, 0, size - 1);
+				p_node.setHighKey(k);
+				p_node.setLink(_r);
+				save(pp.pointer, p_node); // publish the split through the right link of p
+			} finally {
+				unlatch(pp.pointer);
+			}
+			np = _r;
+			level++;
+		}
+	}
+
+	/**
+	 * Finds the {@code Node} at the specified level that must be responsible for the specified key when the
+	 * {@code Node}s remembered from the descent do not reach that level. If the root {@code Node} is below that level,
+	 * a new root {@code Node} is created over the root {@code Node} and its right siblings instead.
+	 * 
+	 * @param level
+	 *            a level (0 for the {@code LeafNode}s)
+	 * @param k
+	 *            a key
+	 * @param np
+	 *            a pointer to the {@code Node} whose key is to be inserted at the specified level
+	 * @return a pointer to the {@code Node} at the specified level; {@code null} if a new root {@code Node} has been
+	 *         created pointing to the specified {@code Node}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected P parent(int level, K k, P np) throws IOException {
+		P p;
+		int h;
+		rootLatch.lock();
+		try {
+			p = rootPointer();
+			h = height();
+			if (h == level) { // the root node has split
+				Node<K, P> n = node(p);
+				NonLeafNode<K, P> r = new NonLeafNode<K, P>(degree);
+				r.pointers[0] = p;
+				boolean found = false;
+				while (link(n) != null && r.childCount() < degree) { // collect the root and its right siblings
+					P s = link(n);
+					r.insert(n.highKey(), r.keyCount(), s, r.keyCount() + 1);
+					found |= s.equals(np);
+					n = node(s);
+				}
+				p = save(r);
+				setRoot(p);
+				height = h + 1;
+				if (found)
+					return null;
+				h++; // the new root node is the parent
+			}
+		} finally {
+			rootLatch.unlock();
+		}
+		Node<K, P> n = node(p);
+		for (int l = h - 1;; l--) { // descend from the root node to the specified level
+			while (!covers(n, k)) {
+				p = link(n);
+				n = node(p);
+			}
+			if (l == level)
+				return p;
+			p = ((NonLeafNode<K, P>) n).child(k, comparator);
+			n = node(p);
+		}
+	}
+
+	/**
+	 * Creates the root {@code Node} containing the specified key and pointer unless another thread has done so.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 * @return {@code true} if the root {@code Node} has been created; {@code false} if this {@code BLinkBPlusTree} is
+	 *         no longer empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected boolean createRoot(K k, P p) throws IOException {
+		rootLatch.lock();
+		try {
+			if (rootPointer() != null)
+				return false;
+			LeafNode<K, P> l = new LeafNode<K, P>(degree);
+			l.insert(k, p, comparator);
+			saveAsRoot(l);
+			height = 1;
+			return true;
+		} finally {
+			rootLatch.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of levels of this {@code BLinkBPlusTree}, counting them if not known yet. The caller must hold
+	 * the latch of the root pointer.
+	 * 
+	 * @return the number of levels of this {@code BLinkBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected int height() throws IOException {
+		if (height < 0) {
+			P p = rootPointer();
+			height = 0;
+			Node<K, P> n = p == null ? null : node(p);
+			while (n != null) { // descend along the leftmost children
+				height++;
+				n = n instanceof LeafNode ? null : node(n.pointer(0));
+			}
+		}
+		return height;
+	}
+
+	/**
+	 * Descends from the root {@code Node} to the {@code LeafNode} that must be responsible for the specified key
+	 * without taking any latch, following right links where needed.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointers to the {@code Node}s responsible for the specified key at the levels from the root
+	 *         {@code Node} down to the {@code LeafNode}, as found during the descent
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected List<P> descend(K k) throws IOException {
+		List<P> stack = new ArrayList<P>();
+		P p = rootPointer();
+		Node<K, P> n = node(p);
+		while (true) {
+			while (!covers(n, k)) {
+				p = link(n);
+				n = node(p);
+			}
+			stack.add(p);
+			if (n instanceof LeafNode)
+				return stack;
+			p = ((NonLeafNode<K, P>) n).child(k, comparator);
+			n = node(p);
+		}
+	}
+
+	/**
+	 * Latches the {@code Node} responsible for the specified key, starting from the specified {@code Node} and moving
+	 * right by releasing the latch of each {@code Node} before latching its right sibling.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer to a {@code Node} at or to the left of the {@code Node} responsible for the key
+	 * @return a {@code NodePointerPair} referencing the latched {@code Node}, read after it was latched
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected NodePointerPair latch(K k, P p) throws IOException {
+		latch(p).lock();
+		try {
+			Node<K, P> n = node(p);
+			while (!covers(n, k)) {
+				P r = link(n);
+				latch(p).unlock();
+				p = r;
+				latch(p).lock();
+				n = node(p);
+			}
+			return new NodePointerPair(n, p);
+		} catch (IOException | RuntimeException e) {
+			latch(p).unlock();
+			throw e;
+		}
+	}
+
+	/**
+	 * Releases the latch of the specified {@code Node}.
+	 * 
+	 * @param p
+	 *            a pointer to a latched {@code Node}
+	 */
+	protected void unlatch(P p) {
+		latch(p).unlock();
+	}
+
+	/**
+	 * Returns the latch of the {@code Node} at the specified location, creating it if needed.
+	 * 
+	 * @param p
+	 *            a pointer to a {@code Node}
+	 * @return the latch of the {@code Node} at the specified location
+	 */
+	protected ReentrantLock latch(P p) {
+		ReentrantLock l = latches.get(p);
+		if (l == null) {
+			ReentrantLock n = new ReentrantLock();
+			l = latches.putIfAbsent(p, n);
+			if (l == null)
+				l = n;
+		}
+		return l;
+	}
+
+	/**
+	 * Determines whether or not the specified {@code Node} is responsible for the specified key, that is, whether the
+	 * key is below the high key of the {@code Node}.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @param k
+	 *            a key
+	 * @return {@code true} if the specified {@code Node} is responsible for the specified key; {@code false} if the key
+	 *         has moved to a right sibling
+	 */
+	protected boolean covers(Node<K, P> n, K k) {
+		return n.highKey() == null || compare(k, n.highKey()) < 0;
+	}
+
+	/**
+	 * Returns the right link of the specified {@code Node}.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @return the successor pointer of a {@code LeafNode} or the right link of a {@code NonLeafNode}
+	 */
+	protected P link(Node<K, P> n) {
+		return n instanceof LeafNode ? ((LeafNode<K, P>) n).successor() : ((NonLeafNode<K, P>) n).link();
+	}
+
+}
@@ -1,7 +1,13 @@
 package bptree;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -22,7 +28,7 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 * be inserted again in the {@code BPlusTree}.
 	 * 
 	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
-	 *
+	 * 
 	 */
 	public static class InvalidInsertionException extends Exception {
 
@@ -42,7 +48,7 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 * deleted from the {@code BPlusTree}.
 	 * 
 	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
-	 *
+	 * 
 	 */
 	public static class InvalidDeletionException extends Exception {
 
@@ -61,7 +67,7 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 * A {@code NodePointerPair} is a pair containing a {@code Node} and a pointer to that {@code Node}.
 	 * 
 	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
-	 *
+	 * 
 	 */
 	public class NodePointerPair {
 
@@ -108,6 +114,155 @@ public class BPlusTree<K extends Comparable<K>, P> {
 
 	}
 
+	/**
+	 * A {@code Path} remembers, for each level from the root, the {@code Node} visited while descending in a
+	 * {@code BPlusTree}, the pointer to that {@code Node}, and the index of that {@code Node} in its parent. A
+	 * {@code BPlusTree} reuses one {@code Path} for all of its operations so that descents do not allocate memory.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 */
+	protected class Path {
+
+		/**
+		 * The visited {@code Node}s.
+		 */
+		Node<K, P>[] nodes;
+
+		/**
+		 * The pointers to the visited {@code Node}s.
+		 */
+		P[] pointers;
+
+		/**
+		 * The index of each visited {@code Node} in its parent.
+		 */
+		int[] indices;
+
+		/**
+		 * The number of visited {@code Node}s.
+		 */
+		int size;
+
+		/**
+		 * Constructs a {@code Path}.
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Path() {
+			nodes = (Node<K, P>[]) new Node[8];
+			pointers = (P[]) new Object[8];
+			indices = new int[8];
+		}
+
+		/**
+		 * Clears this {@code Path}.
+		 */
+		void clear() {
+			Arrays.fill(nodes, 0, size, null);
+			Arrays.fill(pointers, 0, size, null);
+			size = 0;
+		}
+
+		/**
+		 * Appends the specified {@code Node} at the next level of this {@code Path}.
+		 * 
+		 * @param p
+		 *            a pointer to the {@code Node}
+		 * @param n
+		 *            a {@code Node}
+		 * @param i
+		 *            the index of the {@code Node} in its parent; -1 if the {@code Node} is the root
+		 */
+		void push(P p, Node<K, P> n, int i) {
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				pointers = Arrays.copyOf(pointers, size * 2);
+				indices = Arrays.copyOf(indices, size * 2);
+			}
+			pointers[size] = p;
+			nodes[size] = n;
+			indices[size] = i;
+			size++;
+		}
+
+		/**
+		 * Replaces the {@code Node} at the specified level of this {@code Path}.
+		 * 
+		 * @param level
+		 *            a level (0 for the root)
+		 * @param p
+		 *            a pointer to the {@code Node}
+		 * @param n
+		 *            a {@code Node}
+		 */
+		void set(int level, P p, Node<K, P> n) {
+			pointers[level] = p;
+			nodes[level] = n;
+		}
+
+		/**
+		 * Returns the pointer to the {@code Node} at the specified level.
+		 * 
+		 * @param level
+		 *            a level (0 for the root)
+		 * @return the pointer to the {@code Node} at the specified level
+		 */
+		P pointer(int level) {
+			return pointers[level];
+		}
+
+		/**
+		 * Returns the {@code Node} at the specified level.
+		 * 
+		 * @param level
+		 *            a level (0 for the root)
+		 * @return the {@code Node} at the specified level
+		 */
+		Node<K, P> node(int level) {
+			return nodes[level];
+		}
+
+		/**
+		 * Returns the index of the {@code Node} at the specified level in its parent.
+		 * 
+		 * @param level
+		 *            a level (0 for the root)
+		 * @return the index of the {@code Node} at the specified level in its parent; -1 for the root
+		 */
+		int index(int level) {
+			return indices[level];
+		}
+
+		/**
+		 * Determines whether or not the {@code Node} at the specified level is the leftmost or the rightmost
+		 * {@code Node} at that level, that is, whether every {@code Node} on the way to it is the first or the last
+		 * child of its parent.
+		 * 
+		 * @param level
+		 *            a level (0 for the root)
+		 * @param right
+		 *            {@code true} to check for the rightmost {@code Node}; {@code false} for the leftmost {@code Node}
+		 * @return {@code true} if the {@code Node} at the specified level is the rightmost {@code Node} (or the
+		 *         leftmost {@code Node} if {@code right} is {@code false}) at that level; {@code false} otherwise
+		 */
+		boolean atEdge(int level, boolean right) {
+			for (int j = level; j > 0; j--)
+				if (indices[j] != (right ? nodes[j - 1].keyCount() : 0))
+					return false;
+			return true;
+		}
+
+		/**
+		 * Returns the level of the {@code LeafNode} at the end of this {@code Path}.
+		 * 
+		 * @return the level of the {@code LeafNode} at the end of this {@code Path}
+		 */
+		int leafLevel() {
+			return size - 1;
+		}
+
+	}
+
 	/**
 	 * The maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have.
 	 */
@@ -123,6 +278,33 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 */
 	protected int fileID;
 
+	/**
+	 * The {@code Comparator} that orders the keys of this {@code BPlusTree}; {@code null} if the natural ordering of
+	 * keys is used.
+	 */
+	protected Comparator<? super K> comparator;
+
+	/**
+	 * A flag indicating whether or not the keys separating {@code LeafNode}s are truncated to the shortest
+	 * {@code String}s that separate them.
+	 */
+	protected boolean suffixTruncation;
+
+	/**
+	 * The {@code SplitPolicy} that decides where overflowing {@code Node}s are split.
+	 */
+	protected SplitPolicy splitPolicy = new EvenSplitPolicy();
+
+	/**
+	 * The {@code ReadAhead} that prefetches {@code LeafNode}s during range scans; {@code null} if no prefetching.
+	 */
+	protected ReadAhead readAhead;
+
+	/**
+	 * The {@code Path} reused by the operations of this {@code BPlusTree} to remember the visited {@code Node}s.
+	 */
+	protected Path path = new Path();
+
 	/**
 	 * Constructs a {@code BPlusTree}.
 	 * 
@@ -134,9 +316,27 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 *            the name of the file used for this {@code BPlusTree}
 	 */
 	public BPlusTree(int degree, StorageManager<P, Object> sm, String fileName) {
+		this(degree, sm, fileName, null);
+	}
+
+	/**
+	 * Constructs a {@code BPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code BPlusTree} can have
+	 * @param sm
+	 *            {@code StorageManager} used for this {@code BPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code BPlusTree}
+	 * @param comparator
+	 *            the {@code Comparator} that orders the keys of this {@code BPlusTree}; {@code null} if the natural
+	 *            ordering of keys is used
+	 */
+	public BPlusTree(int degree, StorageManager<P, Object> sm, String fileName, Comparator<? super K> comparator) {
 		this.degree = degree;
 		this.sm = sm;
 		this.fileID = sm.fileID(fileName);
+		this.comparator = comparator;
 	}
 
 	/**
@@ -148,6 +348,76 @@ public class BPlusTree<K extends Comparable<K>, P> {
 		return degree;
 	}
 
+	/**
+	 * Returns the {@code Comparator} that orders the keys of this {@code BPlusTree}.
+	 * 
+	 * @return the {@code Comparator} that orders the keys of this {@code BPlusTree}; {@code null} if the natural
+	 *         ordering of keys is used
+	 */
+	public Comparator<? super K> comparator() {
+		return comparator;
+	}
+
+	/**
+	 * Enables or disables suffix truncation. When it is enabled and the keys are {@code String}s ordered by their
+	 * natural ordering, the key separating two adjacent {@code LeafNode}s in their parent is the shortest prefix of the
+	 * first key of the right {@code LeafNode} that is still greater than the last key of the left {@code LeafNode}.
+	 * This raises the fanout of the {@code NonLeafNode}s when keys share long prefixes. Keys already in this
+	 * {@code BPlusTree} are not affected.
+	 * 
+	 * @param suffixTruncation
+	 *            {@code true} to enable suffix truncation; {@code false} to disable it
+	 */
+	public void setSuffixTruncation(boolean suffixTruncation) {
+		this.suffixTruncation = suffixTruncation;
+	}
+
+	/**
+	 * Sets the {@code SplitPolicy} that decides where overflowing {@code Node}s are split. {@code Node}s that overflow
+	 * into more than two {@code Node}s during batched inserts are always divided evenly.
+	 * 
+	 * @param splitPolicy
+	 *            a {@code SplitPolicy}
+	 */
+	public void setSplitPolicy(SplitPolicy splitPolicy) {
+		this.splitPolicy = splitPolicy;
+	}
+
+	/**
+	 * Sets the {@code ReadAhead} that prefetches {@code LeafNode}s during range scans. Prefetching takes place only
+	 * if the {@code StorageManager} of this {@code BPlusTree} is {@code Prefetchable}.
+	 * 
+	 * @param readAhead
+	 *            a {@code ReadAhead}; {@code null} if range scans do not prefetch
+	 */
+	public void setReadAhead(ReadAhead readAhead) {
+		this.readAhead = readAhead;
+	}
+
+	/**
+	 * Returns the fraction of the key slots of the {@code LeafNode}s of this {@code BPlusTree} that are in use.
+	 * 
+	 * @return the fraction of the key slots of the {@code LeafNode}s of this {@code BPlusTree} that are in use; 0 if
+	 *         this {@code BPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public double fillFactor() throws IOException {
+		P root = rootPointer();
+		if (root == null)
+			return 0;
+		Node<K, P> n = node(root);
+		while (n instanceof NonLeafNode) // descend to the first leaf node
+			n = node(n.pointer(0));
+		long keys = 0;
+		long slots = 0;
+		for (LeafNode<K, P> l = (LeafNode<K, P>) n; l != null; l = successor(l)) {
+			keys += l.keyCount();
+			slots += degree - 1;
+		}
+		return (double) keys / slots;
+	}
+
 	/**
 	 * Returns a {@code NodePointerPair} referencing the root {@code Node}.
 	 * 
@@ -156,12 +426,11 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	@SuppressWarnings("unchecked")
 	public NodePointerPair root() throws IOException {
-		Object root = sm.get(fileID, sm.first());
+		P root = rootPointer();
 		if (root == null)
 			return null;
-		return nodePointerPair((P) root);
+		return nodePointerPair(root);
 	}
 
 	/**
@@ -184,6 +453,160 @@ public class BPlusTree<K extends Comparable<K>, P> {
 			return (Node<K, P>) sm.get(fileID, p);
 	}
 
+	/**
+	 * Returns the pointer associated with the specified key in this {@code BPlusTree}. The search descends iteratively
+	 * from the root {@code Node} without remembering the visited {@code Node}s.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the specified key is not contained in
+	 *         this {@code BPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public P search(K k) throws IOException {
+		return search(k, rootPointer());
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key in the version of this {@code BPlusTree} that has the
+	 * specified root {@code Node}.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @param root
+	 *            a pointer to the root {@code Node}; {@code null} if the {@code BPlusTree} is empty
+	 * @return the pointer associated with the specified key; {@code null} if the specified key is not contained in
+	 *         the {@code BPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected P search(K k, P root) throws IOException {
+		if (root == null) // if the tree is empty
+			return null;
+		Node<K, P> n = node(root);
+		while (n instanceof NonLeafNode) // descend to the leaf node that must be responsible for the key
+			n = node(((NonLeafNode<K, P>) n).child(k, comparator));
+		return n == null ? null : ((LeafNode<K, P>) n).get(k, comparator);
+	}
+
+	/**
+	 * Returns a {@code RangeScan} over all of the keys in this {@code BPlusTree}.
+	 * 
+	 * @return a {@code RangeScan} over all of the keys in this {@code BPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public RangeScan<K, P> scan() throws IOException {
+		return scan(null, true, null, true);
+	}
+
+	/**
+	 * Returns a {@code RangeScan} over the keys in this {@code BPlusTree} within the specified range. Only one descent
+	 * from the root {@code Node} is made; the remaining {@code LeafNode}s are read through their successor pointers as
+	 * the {@code RangeScan} advances. If a {@code ReadAhead} is set and the {@code StorageManager} is
+	 * {@code Prefetchable}, the {@code RangeScan} is a {@code ReadAheadScan} that starts from the {@code NonLeafNode}s
+	 * visited in the descent.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @return a {@code RangeScan} over the keys in this {@code BPlusTree} within the specified range
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public RangeScan<K, P> scan(K from, boolean fromInclusive, K to, boolean toInclusive) throws IOException {
+		return scan(rootPointer(), from, fromInclusive, to, toInclusive);
+	}
+
+	/**
+	 * Returns a {@code RangeScan} over the keys within the specified range in the version of this {@code BPlusTree}
+	 * that has the specified root {@code Node}.
+	 * 
+	 * @param root
+	 *            a pointer to the root {@code Node}; {@code null} if the {@code BPlusTree} is empty
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @return a {@code RangeScan} over the keys within the specified range
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected RangeScan<K, P> scan(P root, K from, boolean fromInclusive, K to, boolean toInclusive)
+			throws IOException {
+		Node<K, P> n = root == null ? null : node(root);
+		List<NonLeafNode<K, P>> ancestors = usesCursor() ? new ArrayList<NonLeafNode<K, P>>() : null;
+		int[] indices = ancestors == null ? null : new int[8];
+		while (n instanceof NonLeafNode) { // descend to the leaf node that must contain the lower bound
+			NonLeafNode<K, P> c = (NonLeafNode<K, P>) n;
+			int i = from == null ? 0 : c.childIndex(from, comparator);
+			if (ancestors != null) { // remember the path for the LeafCursor
+				if (ancestors.size() == indices.length)
+					indices = Arrays.copyOf(indices, 2 * indices.length);
+				indices[ancestors.size()] = i;
+				ancestors.add(c);
+			}
+			n = node(c.pointer(i));
+		}
+		LeafNode<K, P> l = (LeafNode<K, P>) n;
+		int i = 0;
+		if (l != null && from != null) { // find the first key not below the lower bound
+			i = l.binarySearch(from, comparator);
+			i = i >= 0 ? (fromInclusive ? i : i + 1) : -i - 1;
+		}
+		return rangeScan(l, i, to, toInclusive,
+				ancestors == null ? null : new LeafCursor<K, P>(this, ancestors, indices, to, toInclusive));
+	}
+
+	/**
+	 * Determines whether or not the {@code RangeScan}s of this {@code BPlusTree} follow a {@code LeafCursor}, so that
+	 * a scan keeps the path to its first {@code LeafNode} only when that path will be used.
+	 * 
+	 * @return {@code true} if a {@code ReadAhead} is set and the {@code StorageManager} is {@code Prefetchable};
+	 *         {@code false} otherwise
+	 */
+	protected boolean usesCursor() {
+		return readAhead != null && sm instanceof Prefetchable;
+	}
+
+	/**
+	 * Constructs a {@code RangeScan} starting from the specified {@code LeafNode}: a {@code ReadAheadScan} if a
+	 * {@code ReadAhead} is set and the {@code StorageManager} is {@code Prefetchable}, and a plain {@code RangeScan}
+	 * otherwise.
+	 * 
+	 * @param l
+	 *            the {@code LeafNode} to start from; {@code null} if the {@code BPlusTree} is empty
+	 * @param i
+	 *            the index of the first key to return in the specified {@code LeafNode}
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @param cursor
+	 *            a {@code LeafCursor} at the specified {@code LeafNode}; {@code null} if {@link #usesCursor()} returned
+	 *            {@code false} before the descent
+	 * @return a {@code RangeScan} starting from the specified {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected RangeScan<K, P> rangeScan(LeafNode<K, P> l, int i, K to, boolean toInclusive, LeafCursor<K, P> cursor)
+			throws IOException {
+		if (cursor != null && readAhead != null && sm instanceof Prefetchable)
+			return new ReadAheadScan<K, P>(this, l, i, to, toInclusive, readAhead, (Prefetchable<P>) sm, cursor);
+		return new RangeScan<K, P>(this, l, i, to, toInclusive);
+	}
+
 	/**
 	 * Inserts the specified key and pointer into this {@code BPlusTree}.
 	 * 
@@ -198,106 +621,314 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 *             if an I/O error occurs
 	 */
 	public void insert(K k, P p) throws InvalidInsertionException, IOException {
-		NodePointerPair root = root();
+		Path path = path();
+		P root = rootPointer();
 		if (root == null) {// if the tree is empty
 			LeafNode<K, P> l = new LeafNode<K, P>(degree); // create an empty root node
-			l.insert(k, p); // insert the specified key and pointer into leaf node l
+			l.insert(k, p, comparator); // insert the specified key and pointer into leaf node l
 			saveAsRoot(l); // save node l as the new root
 
 		} else { // if the tree is not empty
-			HashMap<NodePointerPair, NodePointerPair> node2parent = new HashMap<NodePointerPair, NodePointerPair>();
-			// to remember the parent of each visited node
-			NodePointerPair l = find(k, root, node2parent); // find leaf node l that should contain the specified key
-			LeafNode<K, P> l_node = (LeafNode<K, P>) l.node();
-			if (l_node.contains(k)) // no duplicate keys are allowed in the tree
+			LeafNode<K, P> l_node = find(k, root, path); // find leaf node l that should contain the specified key
+			P l = path.pointer(path.leafLevel());
+			if (l_node.contains(k, comparator)) // no duplicate keys are allowed in the tree
 				throw new InvalidInsertionException("key: " + k);
 			if (!l_node.isFull()) { // if leaf node l has room for the specified key
-				l_node.insert(k, p); // insert the specified key and pointer into leaf node l
-				save(l); // save node l on storage
+				l_node.insert(k, p, comparator); // insert the specified key and pointer into leaf node l
+				save(l, l_node); // save node l on storage
 			} else { // if leaf node l is full and thus needs to be split
 				LeafNode<K, P> t = new LeafNode<K, P>(degree + 1); // create a temporary leaf node t
 				t.append(l_node, 0, degree - 2); // copy everything to temporary node t
-				t.insert(k, p); // insert the key and pointer into temporary node t
+				int i = t.findIndexL(k, comparator) + 1; // the index of the key in temporary node t
+				t.insert(i, k, p); // insert the key and pointer into temporary node t
 				LeafNode<K, P> lp = new LeafNode<K, P>(degree); // create a new leaf node lp
 				lp.setSuccessor(l_node.successor()); // chaining from lp to the next leaf node
 				l_node.clear(); // clear leaf node l
-				int m = (int) Math.ceil(degree / 2.0); // compute the split point
+				int level = path.leafLevel();
+				int m = splitPolicy.splitPoint(degree, true, i, path.atEdge(level, false), path.atEdge(level, true));
 				l_node.append(t, 0, m - 1); // copy the first half to leaf node l
 				lp.append(t, m, degree - 1); // copy the second half to leaf node lp
-				NodePointerPair _lp = save(lp); // save node lp on storage and also get a pointer to node lp
-				l_node.setSuccessor(_lp.pointer()); // chaining from leaf node l to leaf node lp
-				save(l); // save node l on storage
-				insertInParent(l, lp.key(0), _lp, root, node2parent); // use lp's first key as the separating key
+				P _lp = save(lp); // save node lp on storage and also get a pointer to node lp
+				l_node.setSuccessor(_lp); // chaining from leaf node l to leaf node lp
+				save(l, l_node); // save node l on storage
+				insertInParent(level, separator(l_node.key(m - 1), lp.key(0)), _lp);
 			}
 		}
 	}
 
 	/**
-	 * Finds the {@code LeafNode} that is a descendant of the specified {@code Node} and must be responsible for the
-	 * specified key.
+	 * Inserts the specified keys and pointers into this {@code BPlusTree}. The entries are sorted by key and then
+	 * inserted using {@link #insertSorted(Iterator)}.
+	 * 
+	 * @param entries
+	 *            the keys and pointers to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code BPlusTree} or repeated in the specified entries is attempted
+	 *             to be inserted; the entries preceding that key in key order remain inserted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void insertAll(Collection<? extends Map.Entry<K, P>> entries) throws InvalidInsertionException, IOException {
+		List<Map.Entry<K, P>> sorted = new ArrayList<Map.Entry<K, P>>(entries);
+		sorted.sort((e1, e2) -> compare(e1.getKey(), e2.getKey()));
+		insertSorted(sorted.iterator());
+	}
+
+	/**
+	 * Inserts the specified keys and pointers, given in ascending key order, into this {@code BPlusTree}. One descent
+	 * is made for each {@code LeafNode} that receives keys; all of the keys for that {@code LeafNode} are inserted
+	 * before it is saved, and the {@code LeafNode}s resulting from its split are inserted in the parent together.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code BPlusTree} is attempted to be inserted again or a key is not
+	 *             greater than its preceding key; the entries preceding that key remain inserted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void insertSorted(Iterator<? extends Map.Entry<K, P>> entries) throws InvalidInsertionException, IOException {
+		Path path = path();
+		Map.Entry<K, P> e = entries.hasNext() ? entries.next() : null;
+		K last = null; // the key inserted last
+		while (e != null) {
+			P root = rootPointer();
+			if (root == null) { // if the tree is empty
+				insert(e.getKey(), e.getValue());
+				last = e.getKey();
+				e = entries.hasNext() ? entries.next() : null;
+				continue;
+			}
+			LeafNode<K, P> l_node = find(e.getKey(), root, path); // find leaf node l that should contain the key
+			K high = highKey(); // keys below this bound belong to leaf node l
+			List<Map.Entry<K, P>> batch = new ArrayList<Map.Entry<K, P>>();
+			InvalidInsertionException invalid = null; // thrown once the keys collected before it are inserted
+			while (e != null && (high == null || compare(e.getKey(), high) < 0)) { // collect the keys for l
+				K k = e.getKey();
+				if (last != null && compare(last, k) >= 0 || l_node.contains(k, comparator)) {
+					invalid = new InvalidInsertionException("key: " + k);
+					break;
+				}
+				batch.add(e);
+				last = k;
+				e = entries.hasNext() ? entries.next() : null;
+			}
+			if (batch.isEmpty() && invalid != null)
+				throw invalid;
+			LeafNode<K, P> t = new LeafNode<K, P>(l_node.keyCount() + batch.size() + 1); // create a temporary node
+			int i = 0;
+			for (Map.Entry<K, P> b : batch) { // merge the keys of leaf node l and the batch into node t
+				for (; i < l_node.keyCount() && compare(l_node.key(i), b.getKey()) < 0; i++)
+					t.insert(t.keyCount(), l_node.key(i), l_node.pointer(i));
+				t.insert(t.keyCount(), b.getKey(), b.getValue());
+			}
+			if (i < l_node.keyCount())
+				t.append(l_node, i, l_node.keyCount() - 1);
+			insertLeafEntries(l_node, t);
+			if (invalid != null)
+				throw invalid;
+		}
+	}
+
+	/**
+	 * Replaces the entries of the {@code LeafNode} at the end of the current {@code Path} with the entries of the
+	 * specified temporary {@code LeafNode}, splitting it into as many {@code LeafNode}s as needed.
+	 * 
+	 * @param l_node
+	 *            the {@code LeafNode} at the end of the current {@code Path}
+	 * @param t
+	 *            a temporary {@code LeafNode} containing the new entries of the {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void insertLeafEntries(LeafNode<K, P> l_node, LeafNode<K, P> t) throws IOException {
+		Path path = path();
+		int c = t.keyCount();
+		int groups = (c + degree - 2) / (degree - 1); // the number of leaf nodes to hold the entries
+		List<K> separators = new ArrayList<K>(Collections.nCopies(groups - 1, null));
+		List<P> siblings = new ArrayList<P>(Collections.nCopies(groups - 1, null));
+		P next = l_node.successor();
+		int end = c - 1;
+		for (int g = groups - 1; g > 0; g--) { // save new leaf nodes from right to left to chain them
+			int begin = end - (c / groups + (g >= groups - c % groups ? 1 : 0)) + 1;
+			LeafNode<K, P> lp = new LeafNode<K, P>(degree);
+			lp.append(t, begin, end);
+			lp.setSuccessor(next);
+			next = save(lp);
+			separators.set(g - 1, separator(t.key(begin - 1), lp.key(0)));
+			siblings.set(g - 1, next);
+			end = begin - 1;
+		}
+		l_node.clear();
+		l_node.append(t, 0, end);
+		l_node.setSuccessor(next);
+		save(path.pointer(path.leafLevel()), l_node); // save node l on storage
+		if (groups > 1)
+			insertInParent(path.leafLevel(), separators, siblings);
+	}
+
+	/**
+	 * Returns the smallest key in the ancestors of the {@code LeafNode} at the end of the current {@code Path} that
+	 * bounds the keys the {@code LeafNode} is responsible for from above.
+	 * 
+	 * @return the smallest key that bounds the keys the {@code LeafNode} is responsible for from above; {@code null}
+	 *         if the {@code LeafNode} is the last {@code LeafNode}
+	 */
+	protected K highKey() {
+		Path path = path();
+		for (int level = path.leafLevel(); level > 0; level--) {
+			Node<K, P> p = path.node(level - 1);
+			int i = path.index(level);
+			if (i < p.keyCount())
+				return p.key(i);
+		}
+		return null;
+	}
+
+	/**
+	 * Builds this {@code BPlusTree} from the specified keys and pointers using a {@code BulkLoader}. This
+	 * {@code BPlusTree} must be empty.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill
+	 * @throws InvalidInsertionException
+	 *             if a key is not greater than its preceding key
+	 * @throws IllegalStateException
+	 *             if this {@code BPlusTree} is not empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void bulkLoad(Iterator<? extends Map.Entry<K, P>> entries, double fillFactor)
+			throws InvalidInsertionException, IOException {
+		if (root() != null)
+			throw new IllegalStateException("The tree must be empty for bulk loading.");
+		bulkLoader(fillFactor).load(entries);
+	}
+
+	/**
+	 * Returns a {@code BulkLoader} for this {@code BPlusTree}.
+	 * 
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill
+	 * @return a {@code BulkLoader} for this {@code BPlusTree}
+	 */
+	protected BulkLoader<K, P> bulkLoader(double fillFactor) {
+		return new BulkLoader<K, P>(this, fillFactor);
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that must be responsible for the specified key, remembering the {@code Node}s visited
+	 * on the way down from the root {@code Node} in the specified {@code Path}.
 	 * 
 	 * @param k
 	 *            a search key
-	 * @param n
-	 *            a {@code NodePointerPair} referencing a {@code Node}
-	 * @param node2parent
-	 *            a {@code Map} to remember, for each visited {@code Node}, the parent of that {@code Node}
-	 * @return a {@code NodePointerPair} referencing the {@code LeafNode} which is a descendant of the specified
-	 *         {@code Node} and must be responsible for the specified key
+	 * @param root
+	 *            a pointer to the root {@code Node}
+	 * @param path
+	 *            a {@code Path} to remember the visited {@code Node}s
+	 * @return the {@code LeafNode} which must be responsible for the specified key
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	protected NodePointerPair find(K k, NodePointerPair n, Map<NodePointerPair, NodePointerPair> node2parent)
-			throws IOException {
-		if (n.node() instanceof LeafNode)
-			return n;
-		else {
-			BPlusTree<K, P>.NodePointerPair c = nodePointerPair(((NonLeafNode<K, P>) n.node()).child(k));
-			node2parent.put(c, n);
-			return find(k, c, node2parent);
+	protected LeafNode<K, P> find(K k, P root, Path path) throws IOException {
+		path.clear();
+		Node<K, P> n = node(root);
+		path.push(root, n, -1);
+		while (n instanceof NonLeafNode) { // descend one level at a time
+			int i = ((NonLeafNode<K, P>) n).childIndex(k, comparator);
+			P p = n.pointer(i);
+			n = node(p);
+			path.push(p, n, i);
 		}
+		return (LeafNode<K, P>) n;
 	}
 
 	/**
-	 * Inserts the specified key into the parent {@code Node} of the specified {@code Nodes}.
+	 * Inserts the specified key and pointer into the parent of the {@code Node} at the specified level of the current
+	 * {@code Path}, right after the pointer to that {@code Node}.
 	 * 
-	 * @param n
-	 *            a {@code NodePointerPair} referencing a {@code Node}
+	 * @param level
+	 *            the level of a {@code Node} in the current {@code Path}
 	 * @param k
 	 *            the key between the {@code Node}s
 	 * @param np
-	 *            a {@code NodePointerPair} referencing a {@code Node}
-	 * @param root
-	 *            a {@code NodePointerPair} referencing the root {@code Node}
-	 * @param node2parent
-	 *            a {@code Map} remembering, for each visited {@code Node}, the parent of that {@code Node}
+	 *            a pointer to the {@code Node} that follows the {@code Node} at the specified level
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	protected void insertInParent(NodePointerPair n, K k, NodePointerPair np, NodePointerPair root,
-			Map<NodePointerPair, NodePointerPair> node2parent) throws IOException {
-		if (n.equals(root)) { // if n is the root of the tree
-			NonLeafNode<K, P> r = new NonLeafNode<K, P>(degree, n.pointer(), k, np.pointer());
-			saveAsRoot(r); // a new root node r containing n, k, np and save it on storage
-			return;
-		}
-		NodePointerPair p = node2parent.get(n); // find the parent p of n
-		NonLeafNode<K, P> p_node = (NonLeafNode<K, P>) p.node();
-		if (!p_node.isFull()) { // if parent node p has room for a new entry
-			p_node.insertAfter(k, np.pointer(), n.pointer()); // insert k and np right after n
-			save(p); // save node p on storage
-		} else { // if p is full and thus needs to be split
-			NonLeafNode<K, P> t = new NonLeafNode<K, P>(degree + 1); // crate a temporary node
-			t.copy(p_node, 0, p_node.keyCount()); // copy everything of p to the temporary node
-			t.insertAfter(k, np.pointer(), n.pointer()); // insert k and np after n
-			p_node.clear(); // clear p
-			NonLeafNode<K, P> pp = new NonLeafNode<K, P>(degree); // create a new node pp
-			int m = (int) Math.ceil(degree / 2.0); // compute the split point
-			p_node.copy(t, 0, m - 1); // copy the first half to parent node p
-			pp.copy(t, m, degree); // copy the second half to new node pp
-			NodePointerPair _pp = save(pp); // save node pp
-			save(p); // save node p on storage
-			insertInParent(p, t.key(m - 1), _pp, root, node2parent); // use the middle key as the separating key
+	protected void insertInParent(int level, K k, P np) throws IOException {
+		insertInParent(level, Collections.singletonList(k), Collections.singletonList(np));
+	}
+
+	/**
+	 * Inserts the specified keys and pointers into the parent of the {@code Node} at the specified level of the current
+	 * {@code Path}, right after the pointer to that {@code Node}. If the parent {@code Node} overflows, it is split into
+	 * as many {@code Node}s as needed and the keys between them are inserted into the grandparent {@code Node}
+	 * together, repeating upward until no {@code Node} overflows.
+	 * 
+	 * @param level
+	 *            the level of a {@code Node} in the current {@code Path}
+	 * @param keys
+	 *            the keys to insert, each of which precedes the pointer at the same index
+	 * @param pointers
+	 *            pointers to the {@code Node}s that follow the {@code Node} at the specified level, in key order
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void insertInParent(int level, List<K> keys, List<P> pointers) throws IOException {
+		Path path = path();
+		while (true) {
+			NonLeafNode<K, P> p_node = level == 0 ? null : (NonLeafNode<K, P>) path.node(level - 1); // the parent p
+			int i = level == 0 ? 0 : path.index(level); // the index of n in p
+			int c = (p_node == null ? 1 : p_node.childCount()) + pointers.size(); // the number of children of p
+			if (p_node != null && c <= degree) { // if parent node p has room for the new entries
+				for (int j = 0; j < keys.size(); j++) // insert the keys and pointers right after n
+					p_node.insert(keys.get(j), i + j, pointers.get(j), i + j + 1);
+				save(path.pointer(level - 1), p_node); // save node p on storage
+				return;
+			}
+			NonLeafNode<K, P> t = new NonLeafNode<K, P>(c); // crate a temporary node
+			if (p_node == null) // if n is the root of the tree
+				t.pointers[0] = path.pointer(level);
+			else
+				t.copy(p_node, 0, p_node.keyCount()); // copy everything of p to the temporary node
+			for (int j = 0; j < keys.size(); j++) // insert the keys and pointers after n
+				t.insert(keys.get(j), i + j, pointers.get(j), i + j + 1);
+			if (c <= degree) { // if a new root node can hold n and the new entries
+				NonLeafNode<K, P> r = new NonLeafNode<K, P>(degree);
+				r.copy(t, 0, t.keyCount());
+				saveAsRoot(r); // save the new root node r on storage
+				return;
+			}
+			int groups = (c + degree - 1) / degree; // the number of nodes to split the temporary node into
+			List<K> separators = new ArrayList<K>(groups - 1);
+			List<P> siblings = new ArrayList<P>(groups - 1);
+			NonLeafNode<K, P> first = p_node == null ? new NonLeafNode<K, P>(degree) : p_node;
+			int begin = 0;
+			for (int g = 0; g < groups; g++) {
+				int size = c / groups + (g >= groups - c % groups ? 1 : 0); // the number of children
+				if (groups == 2 && keys.size() == 1) // if p overflows by a single entry
+					size = g == 0 ? splitPolicy.splitPoint(degree, false, i, path.atEdge(level - 1, false),
+							path.atEdge(level - 1, true)) : c - begin;
+				int end = begin + size - 1; // the index of the last child
+				NonLeafNode<K, P> node = g == 0 ? first : new NonLeafNode<K, P>(degree);
+				node.copy(t, begin, end);
+				if (g > 0) {
+					separators.add(t.key(begin - 1)); // the key between the nodes moves up
+					siblings.add(save(node)); // save the new node
+				}
+				begin = end + 1;
+			}
+			if (p_node == null) // the first node becomes the root below which the new root is created
+				path.set(0, save(first), first);
+			else {
+				save(path.pointer(level - 1), p_node); // save node p on storage
+				level--;
+			}
+			keys = separators;
+			pointers = siblings;
 		}
 	}
 
@@ -310,20 +941,33 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 *             if an I/O error occurs
 	 */
 	protected void saveAsRoot(Node<K, P> n) throws IOException {
-		P p = sm.add(fileID, n);
+		setRoot(save(n));
+	}
+
+	/**
+	 * Makes the specified {@code Node} the root {@code Node} of this {@code BPlusTree}.
+	 * 
+	 * @param p
+	 *            a pointer to the new root {@code Node}; {@code null} if this {@code BPlusTree} becomes empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void setRoot(P p) throws IOException {
 		sm.put(fileID, sm.first(), p);
 	}
 
 	/**
 	 * Saves the specified {@code Node} on storage.
 	 * 
+	 * @param p
+	 *            a pointer to the {@code Node}
 	 * @param n
-	 *            a {@code NodePointerPair} referencing a {@code Node}
+	 *            a {@code Node}
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	protected void save(NodePointerPair n) throws IOException {
-		sm.put(fileID, n.pointer(), n.node());
+	protected void save(P p, Node<K, P> n) throws IOException {
+		sm.put(fileID, p, n);
 	}
 
 	/**
@@ -331,24 +975,111 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 * 
 	 * @param n
 	 *            a {@code Node}
-	 * @return a {@code NodePointerPair} referencing the {@code Node} after saving it on storage
+	 * @return a pointer to the {@code Node} after saving it on storage
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	protected NodePointerPair save(Node<K, P> n) throws IOException {
-		return new NodePointerPair(n, sm.add(fileID, n));
+	protected P save(Node<K, P> n) throws IOException {
+		return sm.add(fileID, n);
 	}
 
 	/**
 	 * Removes the specified {@code Node} on storage.
 	 * 
-	 * @param n
-	 *            a {@code NodePointerPair} referencing the {@code Node} to remove
+	 * @param p
+	 *            a pointer to the {@code Node} to remove
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void remove(P p) throws IOException {
+		sm.remove(fileID, p);
+	}
+
+	/**
+	 * Returns the {@code Path} to be used by the current operation.
+	 * 
+	 * @return the {@code Path} to be used by the current operation
+	 */
+	protected Path path() {
+		return path;
+	}
+
+	/**
+	 * Returns the pointer to the root {@code Node}.
+	 * 
+	 * @return the pointer to the root {@code Node}; {@code null} if this {@code BPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected P rootPointer() throws IOException {
+		return (P) sm.get(fileID, sm.first());
+	}
+
+	/**
+	 * Returns the specified {@code Node}.
+	 * 
+	 * @param p
+	 *            a pointer to a {@code Node}
+	 * @return the specified {@code Node}
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	protected void remove(NodePointerPair n) throws IOException {
-		sm.remove(fileID, n.pointer());
+	@SuppressWarnings("unchecked")
+	protected Node<K, P> node(P p) throws IOException {
+		return (Node<K, P>) sm.get(fileID, p);
+	}
+
+	/**
+	 * Returns the {@code LeafNode} succeeding the specified {@code LeafNode}.
+	 * 
+	 * @param l
+	 *            a {@code LeafNode}
+	 * @return the {@code LeafNode} succeeding the specified {@code LeafNode}; {@code null} if no such
+	 *         {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	protected LeafNode<K, P> successor(LeafNode<K, P> l) throws IOException {
+		P p = l.successor();
+		return p == null ? null : (LeafNode<K, P>) sm.get(fileID, p);
+	}
+
+	/**
+	 * Returns the key to put between two adjacent {@code LeafNode}s in their parent.
+	 * 
+	 * @param l
+	 *            the last key of the left {@code LeafNode}
+	 * @param r
+	 *            the first key of the right {@code LeafNode}
+	 * @return a key greater than the last key of the left {@code LeafNode} and not greater than the first key of the
+	 *         right {@code LeafNode}; the first key of the right {@code LeafNode} unless suffix truncation applies
+	 */
+	@SuppressWarnings("unchecked")
+	protected K separator(K l, K r) {
+		if (!suffixTruncation || comparator != null || !(r instanceof String))
+			return r;
+		String ls = (String) l;
+		String rs = (String) r;
+		int i = 0;
+		while (i < ls.length() && ls.charAt(i) == rs.charAt(i)) // l < r, so r is longer than any common prefix
+			i++;
+		return (K) rs.substring(0, i + 1);
+	}
+
+	/**
+	 * Compares the specified keys using the ordering of this {@code BPlusTree}.
+	 * 
+	 * @param k1
+	 *            a key
+	 * @param k2
+	 *            a key
+	 * @return a negative integer, zero, or a positive integer if the first key is less than, equal to, or greater than
+	 *         the second key, respectively
+	 */
+	protected int compare(K k1, K k2) {
+		return comparator == null ? k1.compareTo(k2) : comparator.compare(k1, k2);
 	}
 
 	/**
@@ -380,7 +1111,150 @@ public class BPlusTree<K extends Comparable<K>, P> {
 	 *             if an I/O error occurs
 	 */
 	public void delete(K k) throws InvalidDeletionException, IOException {
-		// please implement the body of this method
+		Path path = path();
+		P root = rootPointer();
+		if (root == null) // if the tree is empty
+			throw new InvalidDeletionException("key: " + k);
+		LeafNode<K, P> l = find(k, root, path); // find leaf node l that should contain the specified key
+		l.remove(k, comparator); // remove the key and its pointer from leaf node l
+		deleteEntry(path.leafLevel());
+	}
+
+	/**
+	 * Restores the utilization of the {@code Node} at the specified level of the current {@code Path}, from which an
+	 * entry has been removed, by redistributing entries with or merging it with a sibling {@code Node}. Merging
+	 * removes an entry from the parent {@code Node}, which is then handled in the same way.
+	 * 
+	 * @param level
+	 *            the level of the {@code Node} from which an entry has been removed
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void deleteEntry(int level) throws IOException {
+		Path path = path();
+		for (;; level--) {
+			Node<K, P> n = path.node(level);
+			if (level == 0) { // if n is the root of the tree
+				if (n.keyCount() > 0)
+					save(path.pointer(level), n);
+				else if (n instanceof LeafNode) { // if the tree becomes empty
+					setRoot(null);
+					remove(path.pointer(level));
+				} else { // if the root has only one child, the child becomes the new root
+					setRoot(n.pointer(0));
+					remove(path.pointer(level));
+				}
+				return;
+			}
+			if (!n.isUnderUtilized()) {
+				save(path.pointer(level), n);
+				return;
+			}
+			NonLeafNode<K, P> p_node = (NonLeafNode<K, P>) path.node(level - 1); // the parent p of n
+			int i = path.index(level); // the index of n in p
+			boolean nIsLeft = i == 0; // use the left sibling of n unless n is the first child
+			int iK = nIsLeft ? i : i - 1; // the index of the key between n and its sibling
+			P s = p_node.pointer(nIsLeft ? i + 1 : i - 1);
+			Node<K, P> s_node = node(s);
+			P l = nIsLeft ? path.pointer(level) : s;
+			P r = nIsLeft ? s : path.pointer(level);
+			Node<K, P> l_node = nIsLeft ? n : s_node;
+			Node<K, P> r_node = nIsLeft ? s_node : n;
+			if (l_node.mergeable(r_node)) { // if n and its sibling fit in a single node
+				merge(l_node, p_node.key(iK), r_node); // move everything in r into l
+				save(l, l_node);
+				remove(r);
+				p_node.delete(iK, iK + 1); // remove the key and pointer to r from parent node p
+			} else { // if n needs to borrow entries from its sibling
+				K key = p_node.key(iK);
+				while (n.isUnderUtilized())
+					key = nIsLeft ? borrowFromRight(l_node, key, r_node) : borrowFromLeft(l_node, key, r_node);
+				p_node.changeKey(l, r, key); // update the key between l and r
+				save(l, l_node);
+				save(r, r_node);
+				save(path.pointer(level - 1), p_node);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Moves all of the entries of the specified right {@code Node} into the specified left {@code Node}.
+	 * 
+	 * @param l
+	 *            a {@code Node}
+	 * @param k
+	 *            the key between the {@code Node}s in their parent
+	 * @param r
+	 *            the {@code Node} right after the left {@code Node}
+	 */
+	protected void merge(Node<K, P> l, K k, Node<K, P> r) {
+		if (l instanceof LeafNode) {
+			l.append(r, 0, r.keyCount() - 1);
+			((LeafNode<K, P>) l).setSuccessor(((LeafNode<K, P>) r).successor());
+		} else {
+			NonLeafNode<K, P> nl = (NonLeafNode<K, P>) l;
+			nl.insert(k, nl.keyCount(), r.pointer(0), nl.keyCount() + 1); // the key between l and r moves down
+			for (int i = 0; i < r.keyCount(); i++)
+				nl.insert(r.key(i), nl.keyCount(), r.pointer(i + 1), nl.keyCount() + 1);
+		}
+	}
+
+	/**
+	 * Moves the first entry of the specified right {@code Node} to the end of the specified left {@code Node}.
+	 * 
+	 * @param l
+	 *            a {@code Node}
+	 * @param k
+	 *            the key between the {@code Node}s in their parent
+	 * @param r
+	 *            the {@code Node} right after the left {@code Node}
+	 * @return the new key between the {@code Node}s
+	 */
+	protected K borrowFromRight(Node<K, P> l, K k, Node<K, P> r) {
+		if (l instanceof LeafNode) {
+			LeafNode<K, P> ll = (LeafNode<K, P>) l;
+			LeafNode<K, P> rl = (LeafNode<K, P>) r;
+			ll.insert(ll.keyCount(), rl.key(0), rl.pointer(0));
+			rl.delete(0);
+			return separator(ll.key(ll.keyCount() - 1), rl.key(0));
+		} else {
+			NonLeafNode<K, P> ln = (NonLeafNode<K, P>) l;
+			NonLeafNode<K, P> rn = (NonLeafNode<K, P>) r;
+			ln.insert(k, ln.keyCount(), rn.pointer(0), ln.keyCount() + 1); // the key between l and r moves down
+			K key = rn.key(0); // the first key of r moves up
+			rn.delete(0, 0);
+			return key;
+		}
+	}
+
+	/**
+	 * Moves the last entry of the specified left {@code Node} to the front of the specified right {@code Node}.
+	 * 
+	 * @param l
+	 *            a {@code Node}
+	 * @param k
+	 *            the key between the {@code Node}s in their parent
+	 * @param r
+	 *            the {@code Node} right after the left {@code Node}
+	 * @return the new key between the {@code Node}s
+	 */
+	protected K borrowFromLeft(Node<K, P> l, K k, Node<K, P> r) {
+		int last = l.keyCount() - 1;
+		if (l instanceof LeafNode) {
+			LeafNode<K, P> ll = (LeafNode<K, P>) l;
+			LeafNode<K, P> rl = (LeafNode<K, P>) r;
+			rl.insert(0, ll.key(last), ll.pointer(last));
+			ll.delete(last);
+			return separator(ll.key(last - 1), rl.key(0));
+		} else {
+			NonLeafNode<K, P> ln = (NonLeafNode<K, P>) l;
+			NonLeafNode<K, P> rn = (NonLeafNode<K, P>) r;
+			rn.insert(k, 0, ln.pointer(last + 1), 0); // the key between l and r moves down
+			K key = ln.key(last); // the last key of l moves up
+			ln.delete(last, last + 1);
+			return key;
+		}
 	}
 
 }
\ No newline at end of file
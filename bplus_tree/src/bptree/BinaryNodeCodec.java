@@ -0,0 +1,234 @@
+package bptree;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The {@code BinaryNodeCodec} class encodes {@code LeafNode}s and {@code NonLeafNode}s in a compact binary layout
+ * using a {@code Serializer} for keys and another for pointers. A {@code Node} is encoded as a tag byte, the degree
+ * and the number of keys (each using 1 byte when less than 128), the common prefix of the keys if they are
+ * {@code String}s, the keys (or their suffixes after the common prefix), and then the pointers. A {@code LeafNode}
+ * ends with a byte telling whether it has a successor, followed by the pointer to the successor if any. Objects of the
+ * pointer type, such as the root pointer that a {@code BPlusTree} keeps at {@link StorageManager#first()}, are encoded
+ * using the {@code Serializer} for pointers, and all other objects using Java serialization. A {@code Node} that has a
+ * high key is encoded with a tag of its own and ends with the high key followed, for a {@code NonLeafNode}, by a byte
+ * telling whether it has a right link and the right link if any, so {@code Node}s without high keys keep their
+ * layout. Each thread encodes into a buffer of its own, so a {@code BinaryNodeCodec} whose {@code Serializer}s are
+ * thread-safe can be shared by threads, as a {@code ConcurrentStorageManager} requires.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class BinaryNodeCodec<K extends Comparable<K>, P> implements NodeCodec {
+
+	/**
+	 * The tag of objects encoded using Java serialization.
+	 */
+	protected static final byte OTHER = 0;
+
+	/**
+	 * The tag of {@code LeafNode}s.
+	 */
+	protected static final byte LEAF = 1;
+
+	/**
+	 * The tag of {@code NonLeafNode}s.
+	 */
+	protected static final byte NON_LEAF = 2;
+
+	/**
+	 * The tag of pointers.
+	 */
+	protected static final byte POINTER = 3;
+
+	/**
+	 * The tag of {@code LeafNode}s with a high key.
+	 */
+	protected static final byte LINKED_LEAF = 4;
+
+	/**
+	 * The tag of {@code NonLeafNode}s with a high key.
+	 */
+	protected static final byte LINKED_NON_LEAF = 5;
+
+	/**
+	 * The {@code Serializer} for keys.
+	 */
+	protected Serializer<K> keySerializer;
+
+	/**
+	 * The {@code Serializer} for pointers.
+	 */
+	protected Serializer<P> pointerSerializer;
+
+	/**
+	 * The {@code NodeCodec} for objects other than {@code Node}s and pointers.
+	 */
+	protected NodeCodec fallback = new SerializationCodec();
+
+	/**
+	 * The buffer of each thread into which objects are encoded, which grows as needed.
+	 */
+	protected ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocate(256);
+		}
+
+	};
+
+	/**
+	 * Constructs a {@code BinaryNodeCodec}.
+	 * 
+	 * @param keySerializer
+	 *            the {@code Serializer} for keys
+	 * @param pointerSerializer
+	 *            the {@code Serializer} for pointers
+	 */
+	public BinaryNodeCodec(Serializer<K> keySerializer, Serializer<P> pointerSerializer) {
+		this.keySerializer = keySerializer;
+		this.pointerSerializer = pointerSerializer;
+	}
+
+	@Override
+	public byte[] encode(Object o) throws IOException {
+		if (o == null)
+			return null;
+		if (!(o instanceof Node) && !pointerSerializer.type().isInstance(o)) {
+			byte[] b = fallback.encode(o);
+			byte[] tagged = new byte[b.length + 1];
+			tagged[0] = OTHER;
+			System.arraycopy(b, 0, tagged, 1, b.length);
+			return tagged;
+		}
+		ByteBuffer buffer = buffers.get();
+		while (true) {
+			buffer.clear();
+			try {
+				encode(o, buffer);
+				return Arrays.copyOf(buffer.array(), buffer.position());
+			} catch (BufferOverflowException e) {
+				buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+				buffers.set(buffer);
+			}
+		}
+	}
+
+	@Override
+	public Object decode(ByteBuffer b) throws IOException {
+		byte tag = b.get();
+		switch (tag) {
+		case OTHER:
+			return fallback.decode(b);
+		case POINTER:
+			return pointerSerializer.read(b);
+		case LEAF:
+		case NON_LEAF:
+		case LINKED_LEAF:
+		case LINKED_NON_LEAF:
+			return decodeNode(tag, b);
+		default:
+			throw new IOException("unknown tag: " + tag);
+		}
+	}
+
+	/**
+	 * Encodes the specified {@code Node} or pointer into the specified {@code ByteBuffer}.
+	 * 
+	 * @param o
+	 *            a {@code Node} or a pointer
+	 * @param b
+	 *            a {@code ByteBuffer}
+	 * @throws BufferOverflowException
+	 *             if the {@code ByteBuffer} does not have enough room
+	 */
+	@SuppressWarnings("unchecked")
+	protected void encode(Object o, ByteBuffer b) {
+		if (!(o instanceof Node)) {
+			b.put(POINTER);
+			pointerSerializer.write((P) o, b);
+			return;
+		}
+		Node<K, P> n = (Node<K, P>) o;
+		boolean linked = n.high != null; // only a node with a high key can have a right link
+		if (n instanceof LeafNode)
+			b.put(linked ? LINKED_LEAF : LEAF);
+		else
+			b.put(linked ? LINKED_NON_LEAF : NON_LEAF);
+		Serializer.putVarInt(b, n.pointers.length);
+		Serializer.putVarInt(b, n.keyCount);
+		String prefix = keySerializer.type() == String.class ? n.commonPrefix() : null;
+		if (prefix == null || prefix.isEmpty())
+			b.put((byte) 0);
+		else {
+			b.put((byte) 1);
+			keySerializer.write((K) prefix, b);
+		}
+		for (int i = 0; i < n.keyCount; i++)
+			keySerializer.write(prefix == null || prefix.isEmpty() ? n.keys[i]
+					: (K) ((String) n.keys[i]).substring(prefix.length()), b);
+		if (n instanceof LeafNode) {
+			for (int i = 0; i < n.keyCount; i++)
+				pointerSerializer.write(n.pointers[i], b);
+			P successor = ((LeafNode<K, P>) n).successor();
+			b.put((byte) (successor == null ? 0 : 1));
+			if (successor != null)
+				pointerSerializer.write(successor, b);
+		} else
+			for (int i = 0; i <= n.keyCount; i++)
+				pointerSerializer.write(n.pointers[i], b);
+		if (linked) {
+			keySerializer.write(n.high, b);
+			if (n instanceof NonLeafNode) {
+				P link = ((NonLeafNode<K, P>) n).link();
+				b.put((byte) (link == null ? 0 : 1));
+				if (link != null)
+					pointerSerializer.write(link, b);
+			}
+		}
+	}
+
+	/**
+	 * Decodes a {@code Node} from the specified {@code ByteBuffer}.
+	 * 
+	 * @param tag
+	 *            the tag of the {@code Node}
+	 * @param b
+	 *            a {@code ByteBuffer} positioned after the tag
+	 * @return the decoded {@code Node}
+	 */
+	@SuppressWarnings("unchecked")
+	protected Node<K, P> decodeNode(byte tag, ByteBuffer b) {
+		int degree = Serializer.getVarInt(b);
+		boolean leaf = tag == LEAF || tag == LINKED_LEAF;
+		Node<K, P> n = leaf ? new LeafNode<K, P>(degree) : new NonLeafNode<K, P>(degree);
+		n.keyCount = Serializer.getVarInt(b);
+		String prefix = b.get() == 0 ? null : (String) keySerializer.read(b);
+		for (int i = 0; i < n.keyCount; i++) {
+			K k = keySerializer.read(b);
+			n.keys[i] = prefix == null ? k : (K) (prefix + k);
+		}
+		if (leaf) {
+			for (int i = 0; i < n.keyCount; i++)
+				n.pointers[i] = pointerSerializer.read(b);
+			if (b.get() != 0)
+				((LeafNode<K, P>) n).setSuccessor(pointerSerializer.read(b));
+		} else
+			for (int i = 0; i <= n.keyCount; i++)
+				n.pointers[i] = pointerSerializer.read(b);
+		if (tag == LINKED_LEAF || tag == LINKED_NON_LEAF) {
+			n.high = keySerializer.read(b);
+			if (!leaf && b.get() != 0)
+				((NonLeafNode<K, P>) n).setLink(pointerSerializer.read(b));
+		}
+		return n;
+	}
+
+}
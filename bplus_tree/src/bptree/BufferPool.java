@@ -0,0 +1,429 @@
+package bptree;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@code BufferPool} is a {@code StorageManager} that keeps the most useful objects of another
+ * {@code StorageManager} in a bounded number of frames, each of which accounts for one page of the given size. It
+ * chooses the frames to evict using the CLOCK algorithm and never evicts pinned frames. {@link #put(int, Object, Object)}
+ * only updates the frame of the object and marks it dirty, so repeated {@code put}s of the same object are combined
+ * into a single write to the other {@code StorageManager}, which takes place when the frame is evicted or when this
+ * {@code BufferPool} is flushed. The objects returned by a {@code BufferPool} are shared with the {@code BufferPool}, so
+ * an object modified by the caller must be put back.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <L>
+ *            the type of locations of objects in the {@code BufferPool}
+ * @param <O>
+ *            the type of objects managed by the {@code BufferPool}
+ */
+public class BufferPool<L, O> implements StorageManager<L, O>, Prefetchable<L>, Flushable, Closeable {
+
+	/**
+	 * A {@code PageID} identifies an object by the ID of its file and its location in the file.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 * @param <L>
+	 *            the type of locations
+	 */
+	protected static class PageID<L> {
+
+		/**
+		 * The ID of the file.
+		 */
+		int fileID;
+
+		/**
+		 * The location in the file.
+		 */
+		L loc;
+
+		/**
+		 * Constructs a {@code PageID}.
+		 * 
+		 * @param fileID
+		 *            the ID of the file
+		 * @param loc
+		 *            the location in the file
+		 */
+		PageID(int fileID, L loc) {
+			this.fileID = fileID;
+			this.loc = loc;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof PageID))
+				return false;
+			PageID<?> other = (PageID<?>) o;
+			return fileID == other.fileID && loc.equals(other.loc);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * fileID + loc.hashCode();
+		}
+
+	}
+
+	/**
+	 * A {@code Frame} holds an object of a {@code BufferPool}.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 * @param <L>
+	 *            the type of locations
+	 * @param <O>
+	 *            the type of objects
+	 */
+	protected static class Frame<L, O> {
+
+		/**
+		 * The {@code PageID} of the object in this {@code Frame}; {@code null} if this {@code Frame} is free.
+		 */
+		PageID<L> id;
+
+		/**
+		 * The object in this {@code Frame}.
+		 */
+		O object;
+
+		/**
+		 * A flag indicating whether or not the object has been modified since it was last written.
+		 */
+		boolean dirty;
+
+		/**
+		 * A flag indicating whether or not this {@code Frame} has been used since the clock hand last passed it.
+		 */
+		boolean referenced;
+
+		/**
+		 * The number of times that this {@code Frame} is currently pinned.
+		 */
+		int pins;
+
+	}
+
+	/**
+	 * The {@code StorageManager} whose objects are kept in this {@code BufferPool}.
+	 */
+	protected StorageManager<L, O> sm;
+
+	/**
+	 * The size of pages in bytes.
+	 */
+	protected int pageSize;
+
+	/**
+	 * The frames of this {@code BufferPool}.
+	 */
+	protected Frame<L, O>[] frames;
+
+	/**
+	 * A map that associates the {@code PageID} of each object in this {@code BufferPool} with the {@code Frame}
+	 * holding it.
+	 */
+	protected Map<PageID<L>, Frame<L, O>> pageTable = new HashMap<PageID<L>, Frame<L, O>>();
+
+	/**
+	 * The index of the {@code Frame} that the clock hand points to.
+	 */
+	protected int hand;
+
+	/**
+	 * The number of requests served from this {@code BufferPool}.
+	 */
+	protected long hits;
+
+	/**
+	 * The number of requests forwarded to the other {@code StorageManager}.
+	 */
+	protected long misses;
+
+	/**
+	 * The number of dirty objects written to the other {@code StorageManager}.
+	 */
+	protected long writeBacks;
+
+	/**
+	 * Constructs a {@code BufferPool}.
+	 * 
+	 * @param sm
+	 *            the {@code StorageManager} whose objects are kept in the {@code BufferPool}
+	 * @param budget
+	 *            the number of bytes that the {@code BufferPool} may use
+	 * @param pageSize
+	 *            the size of pages in bytes
+	 * @throws IllegalArgumentException
+	 *             if the budget is smaller than the page size
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public BufferPool(StorageManager<L, O> sm, long budget, int pageSize) {
+		if (pageSize <= 0 || budget < pageSize || budget / pageSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("budget: " + budget + ", page size: " + pageSize);
+		this.sm = sm;
+		this.pageSize = pageSize;
+		this.frames = new Frame[(int) (budget / pageSize)];
+		for (int i = 0; i < frames.length; i++)
+			frames[i] = new Frame<L, O>();
+	}
+
+	@Override
+	public int fileID(String fileName) {
+		return sm.fileID(fileName);
+	}
+
+	@Override
+	public L first() {
+		return sm.first();
+	}
+
+	@Override
+	public O get(int fileID, L loc) throws IOException {
+		Frame<L, O> f = pageTable.get(new PageID<L>(fileID, loc));
+		if (f != null) {
+			hits++;
+			f.referenced = true;
+			return f.object;
+		}
+		misses++;
+		O o = sm.get(fileID, loc);
+		frame(new PageID<L>(fileID, loc), o, false);
+		return o;
+	}
+
+	@Override
+	public O put(int fileID, L loc, O o) throws IOException {
+		PageID<L> id = new PageID<L>(fileID, loc);
+		Frame<L, O> f = pageTable.get(id);
+		if (f == null) {
+			frame(id, o, true);
+			return null;
+		}
+		O old = f.object;
+		f.object = o;
+		f.dirty = true;
+		f.referenced = true;
+		return old;
+	}
+
+	@Override
+	public L add(int fileID, O o) throws IOException {
+		L loc = sm.add(fileID, o);
+		frame(new PageID<L>(fileID, loc), o, false);
+		return loc;
+	}
+
+	@Override
+	public O remove(int fileID, L loc) throws IOException {
+		PageID<L> id = new PageID<L>(fileID, loc);
+		Frame<L, O> f = pageTable.get(id);
+		if (f != null && f.pins > 0)
+			throw new IllegalStateException("removing a pinned object at " + loc + " in file " + fileID);
+		O o = sm.remove(fileID, loc);
+		if (f == null)
+			return o;
+		pageTable.remove(id);
+		O old = f.object;
+		f.id = null;
+		f.object = null;
+		f.dirty = false;
+		return old;
+	}
+
+	/**
+	 * Returns the object at the specified location in the specified file, pinning it in this {@code BufferPool} until
+	 * {@link #unpin(int, Object)} is called for it.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @return the object at the specified location in the specified file
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public O pin(int fileID, L loc) throws IOException {
+		O o = get(fileID, loc);
+		pageTable.get(new PageID<L>(fileID, loc)).pins++;
+		return o;
+	}
+
+	/**
+	 * Unpins the object at the specified location in the specified file.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @throws IllegalStateException
+	 *             if the object is not pinned
+	 */
+	public void unpin(int fileID, L loc) {
+		Frame<L, O> f = pageTable.get(new PageID<L>(fileID, loc));
+		if (f == null || f.pins == 0)
+			throw new IllegalStateException("unpinning an object not pinned at " + loc + " in file " + fileID);
+		f.pins--;
+	}
+
+	/**
+	 * Prefetches the specified object in the other {@code StorageManager} if it is {@code Prefetchable}. The frames of
+	 * this {@code BufferPool} are not touched, so this method may be called from any thread.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void prefetch(int fileID, L loc) throws IOException {
+		if (sm instanceof Prefetchable)
+			((Prefetchable<L>) sm).prefetch(fileID, loc);
+	}
+
+	/**
+	 * Writes all the dirty objects to the other {@code StorageManager} and then flushes that {@code StorageManager}
+	 * if it is {@code Flushable}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void flush() throws IOException {
+		for (Frame<L, O> f : frames)
+			if (f.id != null && f.dirty)
+				writeBack(f);
+		if (sm instanceof Flushable)
+			((Flushable) sm).flush();
+	}
+
+	/**
+	 * Flushes this {@code BufferPool} and then closes the other {@code StorageManager} if it is {@code Closeable}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		if (sm instanceof Closeable)
+			((Closeable) sm).close();
+	}
+
+	/**
+	 * Returns the number of requests served from this {@code BufferPool}.
+	 * 
+	 * @return the number of requests served from this {@code BufferPool}
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of requests forwarded to the other {@code StorageManager}.
+	 * 
+	 * @return the number of requests forwarded to the other {@code StorageManager}
+	 */
+	public long misses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the fraction of the requests served from this {@code BufferPool}.
+	 * 
+	 * @return the fraction of the requests served from this {@code BufferPool}; 0 if no requests have been made
+	 */
+	public double hitRate() {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	/**
+	 * Returns the number of dirty objects written to the other {@code StorageManager}.
+	 * 
+	 * @return the number of dirty objects written to the other {@code StorageManager}
+	 */
+	public long writeBacks() {
+		return writeBacks;
+	}
+
+	/**
+	 * Places the specified object in the {@code Frame} that already holds the object with the specified
+	 * {@code PageID}, or otherwise in a free {@code Frame}, evicting an object if no {@code Frame} is free. A
+	 * {@code Frame} may already hold an object when {@link #get(int, Object)} has cached the empty content of a location
+	 * that {@link #add(int, Object)} then reuses; replacing it keeps one {@code Frame} per {@code PageID}.
+	 * 
+	 * @param id
+	 *            the {@code PageID} of the object
+	 * @param o
+	 *            the object
+	 * @param dirty
+	 *            {@code true} if the object has not been written to the other {@code StorageManager}
+	 * @throws IOException
+	 *             if an I/O error occurs while writing the evicted object
+	 */
+	protected void frame(PageID<L> id, O o, boolean dirty) throws IOException {
+		Frame<L, O> f = pageTable.get(id);
+		if (f == null) {
+			f = victim();
+			if (f.id != null) {
+				if (f.dirty)
+					writeBack(f);
+				pageTable.remove(f.id, f);
+			}
+		}
+		f.id = id;
+		f.object = o;
+		f.dirty = dirty;
+		f.referenced = true;
+		pageTable.put(id, f);
+	}
+
+	/**
+	 * Finds a {@code Frame} to reuse using the CLOCK algorithm. The clock hand skips pinned {@code Frame}s and gives
+	 * each recently used {@code Frame} a second chance.
+	 * 
+	 * @return a {@code Frame} that is free or holds an object to evict
+	 * @throws IllegalStateException
+	 *             if all the {@code Frame}s are pinned
+	 */
+	protected Frame<L, O> victim() {
+		for (int i = 0; i <= 2 * frames.length; i++) {
+			Frame<L, O> f = frames[hand];
+			hand = (hand + 1) % frames.length;
+			if (f.id == null)
+				return f;
+			if (f.pins > 0)
+				continue;
+			if (f.referenced)
+				f.referenced = false;
+			else
+				return f;
+		}
+		throw new IllegalStateException("all of the " + frames.length + " frames are pinned");
+	}
+
+	/**
+	 * Writes the object in the specified {@code Frame} to the other {@code StorageManager}.
+	 * 
+	 * @param f
+	 *            a {@code Frame} holding a dirty object
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void writeBack(Frame<L, O> f) throws IOException {
+		sm.put(f.id.fileID, f.id.loc, f.object);
+		f.dirty = false;
+		writeBacks++;
+	}
+
+}
@@ -0,0 +1,285 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import bptree.BPlusTree.InvalidInsertionException;
+
+/**
+ * A {@code BulkLoader} builds a {@code BPlusTree} bottom-up from keys and pointers given in ascending key order. The
+ * {@code LeafNode}s are packed to a fill factor and chained as they are created, and then each level of
+ * {@code NonLeafNode}s is built from the level below. Each {@code Node} is written on storage exactly once: the
+ * location of a {@code LeafNode} is reserved before the {@code LeafNode} is complete so that its predecessor can point
+ * to it, and reserving a location writes nothing on storage.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class BulkLoader<K extends Comparable<K>, P> {
+
+	/**
+	 * The {@code BPlusTree} to build.
+	 */
+	protected BPlusTree<K, P> tree;
+
+	/**
+	 * The number of keys to put in each {@code LeafNode}.
+	 */
+	protected int leafKeys;
+
+	/**
+	 * The number of children to put in each {@code NonLeafNode}.
+	 */
+	protected int nonLeafChildren;
+
+	/**
+	 * The key bounding the keys of each {@code Node} in the level being built from below.
+	 */
+	protected List<K> lowKeys = new ArrayList<K>();
+
+	/**
+	 * The pointers to the {@code Node}s in the level being built.
+	 */
+	protected List<P> pointers = new ArrayList<P>();
+
+	/**
+	 * The last key of the {@code LeafNode} most recently saved.
+	 */
+	protected K lastKey;
+
+	/**
+	 * The locations reserved or written so far, which are removed if the {@code BPlusTree} cannot be built.
+	 */
+	protected List<P> allocated = new ArrayList<P>();
+
+	/**
+	 * Constructs a {@code BulkLoader}.
+	 * 
+	 * @param tree
+	 *            the {@code BPlusTree} to build
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill, which is raised if needed so that no {@code Node} is
+	 *            under-utilized
+	 * @throws IllegalArgumentException
+	 *             if the fill factor is not in (0, 1]
+	 */
+	public BulkLoader(BPlusTree<K, P> tree, double fillFactor) {
+		if (!(fillFactor > 0 && fillFactor <= 1))
+			throw new IllegalArgumentException("fill factor: " + fillFactor);
+		this.tree = tree;
+		int degree = tree.degree();
+		leafKeys = Math.max(minLeafKeys(), Math.min(degree - 1, (int) Math.round(fillFactor * (degree - 1))));
+		nonLeafChildren = Math.max(minNonLeafChildren(), Math.min(degree, (int) Math.round(fillFactor * degree)));
+	}
+
+	/**
+	 * Builds the {@code BPlusTree} from the specified keys and pointers. If the {@code BPlusTree} cannot be built, the
+	 * locations reserved or written so far are removed, so the {@code BPlusTree} stays empty and no storage is leaked.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @throws InvalidInsertionException
+	 *             if a key is not greater than its preceding key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void load(Iterator<? extends Map.Entry<K, P>> entries) throws InvalidInsertionException, IOException {
+		try {
+			loadLeafNodes(entries);
+			while (pointers.size() > 1) // until the root node is built
+				loadNonLeafNodes();
+		} catch (InvalidInsertionException | IOException | RuntimeException e) {
+			discard(e);
+			throw e;
+		}
+		if (pointers.size() == 1)
+			tree.sm.put(tree.fileID, tree.sm.first(), pointers.get(0));
+	}
+
+	/**
+	 * Removes the locations reserved or written so far.
+	 * 
+	 * @param cause
+	 *            the exception that stopped the building, to which failures of the removals are added as suppressed
+	 *            exceptions
+	 */
+	protected void discard(Exception cause) {
+		for (P loc : allocated)
+			try {
+				tree.sm.remove(tree.fileID, loc);
+			} catch (IOException | RuntimeException e) {
+				cause.addSuppressed(e);
+			}
+		allocated.clear();
+	}
+
+	/**
+	 * Builds the {@code LeafNode}s from the specified keys and pointers. Each completed {@code LeafNode} is kept in
+	 * memory until the next one is completed so that the last two {@code LeafNode}s can be rebalanced at the end.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @throws InvalidInsertionException
+	 *             if a key is not greater than its preceding key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void loadLeafNodes(Iterator<? extends Map.Entry<K, P>> entries)
+			throws InvalidInsertionException, IOException {
+		LeafNode<K, P> prev = null; // the completed leaf node that is not saved yet
+		P prevLoc = null;
+		LeafNode<K, P> cur = null; // the leaf node being filled
+		P curLoc = null;
+		K last = null;
+		while (entries.hasNext()) {
+			Map.Entry<K, P> e = entries.next();
+			K k = e.getKey();
+			if (last != null && tree.compare(last, k) >= 0) // keys must be given in ascending order
+				throw new InvalidInsertionException("key: " + k);
+			last = k;
+			if (cur == null) {
+				cur = new LeafNode<K, P>(tree.degree());
+				curLoc = reserve();
+			} else if (cur.keyCount() == leafKeys) { // if the current leaf node is complete
+				if (prev != null)
+					saveLeafNode(prev, prevLoc);
+				prev = cur;
+				prevLoc = curLoc;
+				cur = new LeafNode<K, P>(tree.degree());
+				curLoc = reserve();
+				prev.setSuccessor(curLoc); // chaining from prev to cur
+			}
+			cur.insert(cur.keyCount(), k, e.getValue());
+		}
+		if (cur == null) // if no keys are given
+			return;
+		if (prev != null && cur.keyCount() < minLeafKeys()) { // if the last leaf node would be under-utilized
+			int total = prev.keyCount() + cur.keyCount();
+			LeafNode<K, P> t = new LeafNode<K, P>(total + 1); // a temporary leaf node
+			t.append(prev, 0, prev.keyCount() - 1);
+			t.append(cur, 0, cur.keyCount() - 1);
+			prev.clear();
+			cur.clear();
+			if (total <= tree.degree() - 1) { // merge the last two leaf nodes
+				prev.append(t, 0, total - 1);
+				tree.sm.remove(tree.fileID, curLoc);
+				allocated.remove(curLoc);
+				cur = prev;
+				curLoc = prevLoc;
+				prev = null;
+			} else { // redistribute the keys between the last two leaf nodes
+				int m = total - total / 2;
+				prev.append(t, 0, m - 1);
+				cur.append(t, m, total - 1);
+				prev.setSuccessor(curLoc);
+			}
+		}
+		if (prev != null)
+			saveLeafNode(prev, prevLoc);
+		saveLeafNode(cur, curLoc);
+	}
+
+	/**
+	 * Builds a level of {@code NonLeafNode}s on top of the level most recently built. The children are divided as
+	 * evenly as possible among the fewest {@code NonLeafNode}s allowed by the fill factor.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void loadNonLeafNodes() throws IOException {
+		List<K> childKeys = lowKeys;
+		List<P> children = pointers;
+		lowKeys = new ArrayList<K>();
+		pointers = new ArrayList<P>();
+		int n = children.size();
+		int groups = (n + nonLeafChildren - 1) / nonLeafChildren;
+		groups = Math.max(1, Math.min(groups, n / minNonLeafChildren())); // no node may be under-utilized
+		int c = 0;
+		for (int g = 0; g < groups; g++) {
+			int size = n / groups + (g < n % groups ? 1 : 0);
+			NonLeafNode<K, P> node = new NonLeafNode<K, P>(tree.degree());
+			node.pointers[0] = children.get(c);
+			for (int i = 1; i < size; i++) {
+				node.keys[i - 1] = childKeys.get(c + i);
+				node.pointers[i] = children.get(c + i);
+			}
+			node.keyCount = size - 1;
+			saveNonLeafNode(node, childKeys.get(c));
+			c += size;
+		}
+	}
+
+	/**
+	 * Saves the specified {@code NonLeafNode} and registers it for the next level.
+	 * 
+	 * @param n
+	 *            a {@code NonLeafNode}
+	 * @param lowKey
+	 *            the key bounding the keys of the {@code NonLeafNode} from below
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void saveNonLeafNode(NonLeafNode<K, P> n, K lowKey) throws IOException {
+		P loc = tree.sm.add(tree.fileID, n);
+		allocated.add(loc);
+		lowKeys.add(lowKey);
+		pointers.add(loc);
+	}
+
+	/**
+	 * Reserves a location for a {@code Node} to be saved later by adding {@code null}, which the
+	 * {@code StorageManager} records without writing on storage.
+	 * 
+	 * @return the reserved location
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected P reserve() throws IOException {
+		P loc = tree.sm.add(tree.fileID, null);
+		allocated.add(loc);
+		return loc;
+	}
+
+	/**
+	 * Saves the specified {@code LeafNode} at the specified location and registers it for the next level.
+	 * 
+	 * @param l
+	 *            a {@code LeafNode}
+	 * @param loc
+	 *            the location reserved for the {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void saveLeafNode(LeafNode<K, P> l, P loc) throws IOException {
+		tree.sm.put(tree.fileID, loc, l);
+		lowKeys.add(lowKeys.isEmpty() ? l.key(0) : tree.separator(lastKey, l.key(0)));
+		lastKey = l.key(l.keyCount() - 1);
+		pointers.add(loc);
+	}
+
+	/**
+	 * Returns the minimum number of keys in each {@code LeafNode}.
+	 * 
+	 * @return the minimum number of keys in each {@code LeafNode}
+	 */
+	protected int minLeafKeys() {
+		return (int) Math.ceil((tree.degree() - 1) / 2.0);
+	}
+
+	/**
+	 * Returns the minimum number of children of each {@code NonLeafNode}.
+	 * 
+	 * @return the minimum number of children of each {@code NonLeafNode}
+	 */
+	protected int minNonLeafChildren() {
+		return Math.max(2, (int) Math.ceil(tree.degree() / 2.0));
+	}
+
+}
@@ -0,0 +1,169 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@code Compactor} rewrites the {@code Node}s of a {@code BPlusTree} in place so that they occupy the locations
+ * right after {@code first()} without holes. The {@code NonLeafNode}s are grouped by level, starting with the root
+ * {@code Node}, and the {@code LeafNode}s follow in key order, so a range scan reads consecutive locations. Each
+ * {@code Node} is moved to its new location along the chain of {@code Node}s it displaces, so at most two
+ * {@code Node}s are held in memory at a time, and the locations that are no longer used are removed so that the
+ * storage can shrink back to the live size of the {@code BPlusTree}. No other operation may be performed on the
+ * {@code BPlusTree} during a compaction.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ */
+public class Compactor<K extends Comparable<K>> {
+
+	/**
+	 * The {@code BPlusTree} to compact.
+	 */
+	protected BPlusTree<K, Integer> tree;
+
+	/**
+	 * The new location of each {@code Node}, keyed by the current location of the {@code Node}.
+	 */
+	protected Map<Integer, Integer> newLocations = new HashMap<Integer, Integer>();
+
+	/**
+	 * The new locations of the {@code Node}s.
+	 */
+	protected Set<Integer> targets = new HashSet<Integer>();
+
+	/**
+	 * The current locations of the {@code Node}s that have not been moved yet.
+	 */
+	protected Set<Integer> pending = new HashSet<Integer>();
+
+	/**
+	 * Constructs a {@code Compactor}.
+	 * 
+	 * @param tree
+	 *            the {@code BPlusTree} to compact
+	 */
+	public Compactor(BPlusTree<K, Integer> tree) {
+		this.tree = tree;
+	}
+
+	/**
+	 * Compacts the {@code BPlusTree}.
+	 * 
+	 * @return the number of {@code Node}s in the {@code BPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public int compact() throws IOException {
+		Integer root = tree.rootPointer();
+		if (root == null)
+			return 0;
+		List<Integer> locations = layout(root);
+		int next = tree.sm.first() + 1;
+		for (Integer loc : locations)
+			newLocations.put(loc, next++);
+		targets.addAll(newLocations.values());
+		pending.addAll(locations);
+		for (Integer loc : locations)
+			if (!targets.contains(loc)) // a chain of moves starts at each location that no Node moves into
+				move(loc);
+		for (Integer loc : locations)
+			if (pending.contains(loc)) // the remaining moves form cycles
+				move(loc);
+		tree.sm.put(tree.fileID, tree.sm.first(), newLocations.get(root));
+		return locations.size();
+	}
+
+	/**
+	 * Returns the locations of the {@code Node}s in their new order: level by level from the root {@code Node} and
+	 * from left to right within each level, which puts the {@code LeafNode}s in key order.
+	 * 
+	 * @param root
+	 *            the location of the root {@code Node}
+	 * @return the locations of the {@code Node}s in their new order
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected List<Integer> layout(Integer root) throws IOException {
+		List<Integer> locations = new ArrayList<Integer>();
+		locations.add(root);
+		for (int i = 0; i < locations.size(); i++) {
+			Node<K, Integer> n = tree.node(locations.get(i));
+			if (n instanceof NonLeafNode)
+				for (int j = 0; j <= n.keyCount(); j++)
+					locations.add(n.pointer(j));
+		}
+		return locations;
+	}
+
+	/**
+	 * Moves the {@code Node} at the specified location to its new location, then moves the {@code Node} displaced
+	 * there, and so on until a location that holds no {@code Node} to move is reached.
+	 * 
+	 * @param loc
+	 *            the location of a {@code Node} to move
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void move(Integer loc) throws IOException {
+		Node<K, Integer> n = tree.node(loc);
+		pending.remove(loc);
+		Integer to = newLocations.get(loc);
+		if (!targets.contains(loc))
+			tree.remove(loc);
+		while (true) {
+			Node<K, Integer> displaced = null;
+			Integer next = null;
+			if (pending.remove(to)) {
+				displaced = tree.node(to);
+				next = newLocations.get(to);
+			}
+			tree.save(to, relocate(n));
+			if (displaced == null)
+				return;
+			n = displaced;
+			to = next;
+		}
+	}
+
+	/**
+	 * Replaces the pointers to other {@code Node}s in the specified {@code Node} with their new locations.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @return the specified {@code Node}
+	 */
+	protected Node<K, Integer> relocate(Node<K, Integer> n) {
+		if (n instanceof NonLeafNode) {
+			for (int i = 0; i <= n.keyCount(); i++)
+				n.setPointer(i, newLocation(n.pointer(i)));
+			NonLeafNode<K, Integer> nl = (NonLeafNode<K, Integer>) n;
+			if (nl.link() != null)
+				nl.setLink(newLocation(nl.link()));
+		} else {
+			LeafNode<K, Integer> l = (LeafNode<K, Integer>) n;
+			if (l.successor() != null)
+				l.setSuccessor(newLocation(l.successor()));
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the new location of the {@code Node} at the specified location.
+	 * 
+	 * @param loc
+	 *            the current location of a {@code Node}
+	 * @return the new location of the {@code Node}
+	 */
+	protected Integer newLocation(Integer loc) {
+		return newLocations.get(loc);
+	}
+
+}
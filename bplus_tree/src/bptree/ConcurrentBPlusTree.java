@@ -0,0 +1,521 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@code ConcurrentBPlusTree} is a {@code BPlusTree} that can be used by many threads at the same time. Each
+ * {@code Node} has a read/write latch, and the pointer to the root {@code Node} is guarded by a latch of its own.
+ * Operations acquire latches top-down while descending, which is called crabbing: the latch of a child is acquired
+ * before the latch of its parent is released, so no two threads ever wait for each other in opposite orders. Readers
+ * hold shared latches and release the parent as soon as the child is latched. A writer first makes an optimistic
+ * descent in the same way, taking an exclusive latch only on the {@code LeafNode}; if that {@code LeafNode} turns out
+ * not to be safe, that is, full for an insertion or about to be under-utilized for a deletion, the writer starts over
+ * with exclusive latches and releases all of the ancestors of each {@code Node} that is safe. A split or a merge thus
+ * only touches {@code Node}s whose latches are held, and most updates hold no more than one exclusive latch below the
+ * root {@code Node}. During a deletion, the sibling of each {@code Node} that is not safe is latched together with it
+ * while the parent is held. Each thread uses a {@code Path} of its own. The {@code StorageManager} must be thread-safe
+ * and return a new object for each {@code get} so that a {@code Node} read under a latch can still be used after the
+ * latch is released. Range scans hold no latch between {@code LeafNode}s and descend again from the root {@code Node}
+ * to reach the next {@code LeafNode}, so each key present throughout a scan is returned exactly once and in order.
+ * {@link #root()}, {@link #fillFactor()}, and {@link #bulkLoad(Iterator, double)} are not meant to run concurrently
+ * with updates.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class ConcurrentBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K, P> {
+
+	/**
+	 * A {@code Restart} is thrown when an optimistic descent reaches a {@code LeafNode} that is not safe.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 */
+	protected static class Restart extends RuntimeException {
+
+		/**
+		 * An automatically generated serial version UID.
+		 */
+		private static final long serialVersionUID = 4107254613957373271L;
+
+		/**
+		 * Constructs a {@code Restart} without a stack trace.
+		 */
+		Restart() {
+			super(null, null, false, false);
+		}
+
+	}
+
+	/**
+	 * The {@code Restart} thrown by all optimistic descents.
+	 */
+	protected static final Restart RESTART = new Restart();
+
+	/**
+	 * A {@code Context} holds the state of the operation that a thread is running on a {@code ConcurrentBPlusTree}.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 */
+	protected class Context {
+
+		/**
+		 * The {@code Path} of the thread.
+		 */
+		Path path = new Path();
+
+		/**
+		 * The latches held by the thread from top to bottom.
+		 */
+		List<Lock> latches = new ArrayList<Lock>();
+
+		/**
+		 * A flag indicating whether or not the operation is a deletion.
+		 */
+		boolean deleting;
+
+		/**
+		 * A flag indicating whether or not the operation is making an optimistic descent.
+		 */
+		boolean optimistic;
+
+	}
+
+	/**
+	 * The latch that guards the pointer to the root {@code Node}.
+	 */
+	protected ReentrantReadWriteLock rootLatch = new ReentrantReadWriteLock();
+
+	/**
+	 * A map that associates the location of each {@code Node} that has been latched with its latch.
+	 */
+	protected ConcurrentHashMap<P, ReentrantReadWriteLock> latches = new ConcurrentHashMap<P, ReentrantReadWriteLock>();
+
+	/**
+	 * The {@code Context} of each thread.
+	 */
+	protected ThreadLocal<Context> contexts = new ThreadLocal<Context>() {
+
+		@Override
+		protected Context initialValue() {
+			return new Context();
+		}
+
+	};
+
+	/**
+	 * Constructs a {@code ConcurrentBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code ConcurrentBPlusTree} can have
+	 * @param sm
+	 *            a thread-safe {@code StorageManager} used for this {@code ConcurrentBPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code ConcurrentBPlusTree}
+	 */
+	public ConcurrentBPlusTree(int degree, StorageManager<P, Object> sm, String fileName) {
+		super(degree, sm, fileName);
+	}
+
+	/**
+	 * Constructs a {@code ConcurrentBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code ConcurrentBPlusTree} can have
+	 * @param sm
+	 *            a thread-safe {@code StorageManager} used for this {@code ConcurrentBPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code ConcurrentBPlusTree}
+	 * @param comparator
+	 *            the {@code Comparator} that orders the keys of this {@code ConcurrentBPlusTree}; {@code null} if the
+	 *            natural ordering of keys is used
+	 */
+	public ConcurrentBPlusTree(int degree, StorageManager<P, Object> sm, String fileName,
+			Comparator<? super K> comparator) {
+		super(degree, sm, fileName, comparator);
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key in this {@code ConcurrentBPlusTree}, descending with
+	 * shared latches.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the specified key is not contained in
+	 *         this {@code ConcurrentBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public P search(K k) throws IOException {
+		LeafNode<K, P> l = findShared(k, path());
+		return l == null ? null : l.get(k, comparator);
+	}
+
+	/**
+	 * Returns a {@code ConcurrentScan} over the keys in this {@code ConcurrentBPlusTree} within the specified range.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @return a {@code ConcurrentScan} over the keys in this {@code ConcurrentBPlusTree} within the specified range
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public RangeScan<K, P> scan(K from, boolean fromInclusive, K to, boolean toInclusive) throws IOException {
+		return new ConcurrentScan<K, P>(this, from, fromInclusive, to, toInclusive);
+	}
+
+	@Override
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		Context c = contexts.get();
+		try {
+			begin(c, false, true);
+			super.insert(k, p);
+			return;
+		} catch (Restart e) { // the leaf node is full
+		} finally {
+			releaseAll(c);
+		}
+		try {
+			begin(c, false, false);
+			super.insert(k, p);
+		} finally {
+			releaseAll(c);
+		}
+	}
+
+	/**
+	 * Inserts the specified keys and pointers, given in ascending key order, into this {@code ConcurrentBPlusTree}
+	 * one at a time so that no latch is held across keys.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code ConcurrentBPlusTree} is attempted to be inserted again or a
+	 *             key is not greater than its preceding key; the entries preceding that key remain inserted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void insertSorted(Iterator<? extends Map.Entry<K, P>> entries) throws InvalidInsertionException, IOException {
+		K last = null; // the key inserted last
+		while (entries.hasNext()) {
+			Map.Entry<K, P> e = entries.next();
+			if (last != null && compare(last, e.getKey()) >= 0)
+				throw new InvalidInsertionException("key: " + e.getKey());
+			insert(e.getKey(), e.getValue());
+			last = e.getKey();
+		}
+	}
+
+	/**
+	 * Builds this {@code ConcurrentBPlusTree} from the specified keys and pointers using a {@code BulkLoader}, holding
+	 * the latch of the root pointer exclusively so that other operations wait until the loading completes.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill
+	 * @throws InvalidInsertionException
+	 *             if a key is not greater than its preceding key
+	 * @throws IllegalStateException
+	 *             if this {@code ConcurrentBPlusTree} is not empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void bulkLoad(Iterator<? extends Map.Entry<K, P>> entries, double fillFactor)
+			throws InvalidInsertionException, IOException {
+		rootLatch.writeLock().lock();
+		try {
+			super.bulkLoad(entries, fillFactor);
+		} finally {
+			rootLatch.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void delete(K k) throws InvalidDeletionException, IOException {
+		Context c = contexts.get();
+		try {
+			begin(c, true, true);
+			super.delete(k);
+			return;
+		} catch (Restart e) { // the leaf node may become under-utilized or the tree empty
+		} finally {
+			releaseAll(c);
+		}
+		try {
+			begin(c, true, false);
+			super.delete(k);
+		} finally {
+			releaseAll(c);
+		}
+	}
+
+	/**
+	 * Returns the {@code Path} of the current thread.
+	 * 
+	 * @return the {@code Path} of the current thread
+	 */
+	@Override
+	protected Path path() {
+		return contexts.get().path;
+	}
+
+	/**
+	 * Returns the pointer to the root {@code Node}. An optimistic descent cannot create the root {@code Node} and thus
+	 * restarts if this {@code ConcurrentBPlusTree} is empty.
+	 * 
+	 * @return the pointer to the root {@code Node}; {@code null} if this {@code ConcurrentBPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected P rootPointer() throws IOException {
+		P root = super.rootPointer();
+		if (root == null && contexts.get().optimistic)
+			throw RESTART;
+		return root;
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that must be responsible for the specified key by latch crabbing. On return, the
+	 * current thread holds an exclusive latch on the {@code LeafNode} and on every {@code Node} in the specified
+	 * {@code Path} that a split or a merge may reach.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @param root
+	 *            a pointer to the root {@code Node}
+	 * @param path
+	 *            a {@code Path} to remember the visited {@code Node}s
+	 * @return the {@code LeafNode} which must be responsible for the specified key
+	 * @throws Restart
+	 *             if an optimistic descent reaches a {@code LeafNode} that is not safe
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected LeafNode<K, P> find(K k, P root, Path path) throws IOException {
+		Context c = contexts.get();
+		path.clear();
+		P p = root;
+		int i = -1;
+		NonLeafNode<K, P> parent = null;
+		while (true) {
+			Node<K, P> n = latch(c, p, !c.optimistic);
+			if (c.optimistic && n instanceof LeafNode) { // upgrade the latch while the parent is still latched
+				c.latches.remove(c.latches.size() - 1).unlock();
+				n = latch(c, p, true);
+				if (!isSafe(n, parent == null, c.deleting))
+					throw RESTART;
+			}
+			path.push(p, n, i);
+			if (c.optimistic || isSafe(n, parent == null, c.deleting))
+				releaseAncestors(c);
+			else if (c.deleting && parent != null) // a merge or redistribution will need the sibling
+				latchSibling(c, parent.pointer(i == 0 ? 1 : i - 1));
+			if (n instanceof LeafNode)
+				return (LeafNode<K, P>) n;
+			parent = (NonLeafNode<K, P>) n;
+			i = parent.childIndex(k, comparator);
+			p = parent.pointer(i);
+		}
+	}
+
+	/**
+	 * Finds the {@code LeafNode} that must be responsible for the specified key, holding a shared latch on at most two
+	 * {@code Node}s at a time and none on return.
+	 * 
+	 * @param k
+	 *            a search key; {@code null} for the first {@code LeafNode}
+	 * @param path
+	 *            a {@code Path} to remember the visited {@code Node}s
+	 * @return the {@code LeafNode} which must be responsible for the specified key; {@code null} if this
+	 *         {@code ConcurrentBPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected LeafNode<K, P> findShared(K k, Path path) throws IOException {
+		path.clear();
+		Lock held = rootLatch.readLock();
+		held.lock();
+		try {
+			P p = super.rootPointer();
+			if (p == null)
+				return null;
+			int i = -1;
+			while (true) {
+				Lock l = latch(p).readLock();
+				l.lock();
+				held.unlock();
+				held = l;
+				Node<K, P> n = node(p);
+				path.push(p, n, i);
+				if (n instanceof LeafNode)
+					return (LeafNode<K, P>) n;
+				i = k == null ? 0 : ((NonLeafNode<K, P>) n).childIndex(k, comparator);
+				p = n.pointer(i);
+			}
+		} finally {
+			held.unlock();
+		}
+	}
+
+	/**
+	 * Determines whether or not the specified {@code Node} is safe, that is, whether the current operation can
+	 * modify it without modifying its parent or the pointer to the root {@code Node}.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @param root
+	 *            {@code true} if the {@code Node} is the root {@code Node}; {@code false} otherwise
+	 * @param deleting
+	 *            {@code true} if the operation is a deletion; {@code false} if it is an insertion
+	 * @return {@code true} if the specified {@code Node} is safe; {@code false} otherwise
+	 */
+	protected boolean isSafe(Node<K, P> n, boolean root, boolean deleting) {
+		if (!deleting)
+			return !n.isFull();
+		if (root) // the root must keep at least one key
+			return n.keyCount() > 1;
+		int min = n instanceof LeafNode ? degree / 2 : (degree + 1) / 2 - 1; // the fewest keys not under-utilized
+		return n.keyCount() > min;
+	}
+
+	/**
+	 * Acquires the latch of the root pointer for the specified operation.
+	 * 
+	 * @param c
+	 *            the {@code Context} of the current thread
+	 * @param deleting
+	 *            {@code true} if the operation is a deletion; {@code false} if it is an insertion
+	 * @param optimistic
+	 *            {@code true} for an optimistic descent; {@code false} for a descent with exclusive latches
+	 */
+	protected void begin(Context c, boolean deleting, boolean optimistic) {
+		c.deleting = deleting;
+		c.optimistic = optimistic;
+		Lock l = optimistic ? rootLatch.readLock() : rootLatch.writeLock();
+		l.lock();
+		c.latches.add(l);
+	}
+
+	/**
+	 * Acquires the latch of the specified {@code Node} and then reads the {@code Node}.
+	 * 
+	 * @param c
+	 *            the {@code Context} of the current thread
+	 * @param p
+	 *            a pointer to a {@code Node}
+	 * @param exclusive
+	 *            {@code true} for an exclusive latch; {@code false} for a shared latch
+	 * @return the specified {@code Node}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected Node<K, P> latch(Context c, P p, boolean exclusive) throws IOException {
+		ReentrantReadWriteLock latch = latch(p);
+		Lock l = exclusive ? latch.writeLock() : latch.readLock();
+		l.lock();
+		c.latches.add(l);
+		return node(p);
+	}
+
+	/**
+	 * Acquires the exclusive latch of the specified sibling of the {@code Node} latched last, keeping that {@code Node}
+	 * the last one among the latches held.
+	 * 
+	 * @param c
+	 *            the {@code Context} of the current thread
+	 * @param s
+	 *            a pointer to the sibling
+	 */
+	protected void latchSibling(Context c, P s) {
+		Lock l = latch(s).writeLock();
+		l.lock();
+		c.latches.add(c.latches.size() - 1, l);
+	}
+
+	/**
+	 * Returns the latch of the {@code Node} at the specified location, creating it if needed.
+	 * 
+	 * @param p
+	 *            a pointer to a {@code Node}
+	 * @return the latch of the {@code Node} at the specified location
+	 */
+	protected ReentrantReadWriteLock latch(P p) {
+		ReentrantReadWriteLock l = latches.get(p);
+		if (l == null) {
+			ReentrantReadWriteLock n = new ReentrantReadWriteLock();
+			l = latches.putIfAbsent(p, n);
+			if (l == null)
+				l = n;
+		}
+		return l;
+	}
+
+	/**
+	 * Releases all of the latches held by the current thread except the one acquired last.
+	 * 
+	 * @param c
+	 *            the {@code Context} of the current thread
+	 */
+	protected void releaseAncestors(Context c) {
+		int last = c.latches.size() - 1;
+		for (int i = 0; i < last; i++)
+			c.latches.get(i).unlock();
+		c.latches.subList(0, last).clear();
+	}
+
+	/**
+	 * Releases all of the latches held by the current thread.
+	 * 
+	 * @param c
+	 *            the {@code Context} of the current thread
+	 */
+	protected void releaseAll(Context c) {
+		for (int i = c.latches.size() - 1; i >= 0; i--)
+			c.latches.get(i).unlock();
+		c.latches.clear();
+		c.optimistic = false;
+	}
+
+	/**
+	 * Removes the specified {@code Node} on storage together with its latch. The latch is dropped before the location
+	 * can be reused so that a new {@code Node} at the same location never shares it; no other thread can be waiting for
+	 * it because the parent or the root pointer is latched exclusively.
+	 * 
+	 * @param p
+	 *            a pointer to the {@code Node} to remove
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void remove(P p) throws IOException {
+		latches.remove(p);
+		super.remove(p);
+	}
+
+}
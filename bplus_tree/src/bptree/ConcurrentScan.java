@@ -0,0 +1,77 @@
+package bptree;
+
+import java.io.IOException;
+
+/**
+ * A {@code ConcurrentScan} is a {@code RangeScan} over a {@code ConcurrentBPlusTree} that holds no latch between
+ * {@code LeafNode}s. Along with each {@code LeafNode}, it remembers the smallest key in the ancestors that bounds the
+ * keys of that {@code LeafNode} from above, and it reaches the next {@code LeafNode} by descending from the root
+ * {@code Node} with that key. Since every key at or above the bound is found in later {@code LeafNode}s whatever
+ * splits and merges take place in between, each key present throughout the scan is returned exactly once and in order.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class ConcurrentScan<K extends Comparable<K>, P> extends RangeScan<K, P> {
+
+	/**
+	 * The smallest key in the ancestors that bounds the keys of the current {@code LeafNode} from above; {@code null}
+	 * if the current {@code LeafNode} is the last one.
+	 */
+	protected K high;
+
+	/**
+	 * Constructs a {@code ConcurrentScan}.
+	 * 
+	 * @param tree
+	 *            a {@code ConcurrentBPlusTree}
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected ConcurrentScan(ConcurrentBPlusTree<K, P> tree, K from, boolean fromInclusive, K to, boolean toInclusive)
+			throws IOException {
+		super(tree, null, 0, to, toInclusive);
+		leaf = tree.findShared(from, tree.path());
+		high = tree.highKey();
+		if (leaf != null && from != null) { // find the first key not below the lower bound
+			index = leaf.binarySearch(from, tree.comparator);
+			index = index >= 0 ? (fromInclusive ? index : index + 1) : -index - 1;
+		}
+	}
+
+	/**
+	 * Moves to the {@code LeafNode} responsible for the upper bound of the current {@code LeafNode}, starting from the
+	 * first key not below that bound.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void advance() throws IOException {
+		if (high == null || to != null && (tree.compare(high, to) > 0 || tree.compare(high, to) == 0 && !toInclusive)) {
+			leaf = null;
+			return;
+		}
+		ConcurrentBPlusTree<K, P> t = (ConcurrentBPlusTree<K, P>) tree;
+		K bound = high;
+		leaf = t.findShared(bound, t.path());
+		high = t.highKey();
+		if (leaf != null) {
+			index = leaf.binarySearch(bound, t.comparator);
+			index = index >= 0 ? index : -index - 1;
+		}
+	}
+
+}
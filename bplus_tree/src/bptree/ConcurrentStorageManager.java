@@ -0,0 +1,184 @@
+package bptree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@code ConcurrentStorageManager} keeps encoded objects in memory and can be used by many threads at the same time
+ * without any lock of its own. Each file has a {@code PageTable}, which maps locations to encoded objects using a
+ * {@code ConcurrentHashMap}, so reads take no lock and writes to different locations rarely contend, and threads
+ * working on different files share nothing but the map from file names to file IDs. New locations come from an atomic
+ * counter per file, and removed locations are reused by {@link #add(int, Object)}, lowest location first. Since
+ * objects are encoded when they are stored and decoded when they are read, every {@code get} returns a new object, as
+ * {@code ConcurrentBPlusTree}s, {@code BLinkBPlusTree}s, and {@code OptimisticBPlusTree}s require.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class ConcurrentStorageManager implements StorageManager<Integer, Object> {
+
+	/**
+	 * A {@code PageTable} holds the encoded objects in a file.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	protected static class PageTable {
+
+		/**
+		 * A map that associates each location in use with the encoded object at that location, or with
+		 * {@link ConcurrentStorageManager#EMPTY} if the location is reserved but holds no object.
+		 */
+		ConcurrentHashMap<Integer, byte[]> pages = new ConcurrentHashMap<Integer, byte[]>();
+
+		/**
+		 * The highest location that has been allocated or written.
+		 */
+		AtomicInteger last = new AtomicInteger();
+
+		/**
+		 * The removed locations that can be reused.
+		 */
+		ConcurrentSkipListSet<Integer> free = new ConcurrentSkipListSet<Integer>();
+
+	}
+
+	/**
+	 * The value kept at a location that is reserved but holds no object.
+	 */
+	protected static final byte[] EMPTY = new byte[0];
+
+	/**
+	 * The {@code NodeCodec} that encodes the objects.
+	 */
+	protected NodeCodec codec;
+
+	/**
+	 * A map that associates the name of each file with the ID of that file.
+	 */
+	protected ConcurrentHashMap<String, Integer> fileName2ID = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * A map that associates the ID of each file with the {@code PageTable} of that file.
+	 */
+	protected ConcurrentHashMap<Integer, PageTable> tables = new ConcurrentHashMap<Integer, PageTable>();
+
+	/**
+	 * The number of files created so far.
+	 */
+	protected AtomicInteger fileCount = new AtomicInteger();
+
+	/**
+	 * Constructs a {@code ConcurrentStorageManager} that encodes objects using Java serialization.
+	 */
+	public ConcurrentStorageManager() {
+		this(new SerializationCodec());
+	}
+
+	/**
+	 * Constructs a {@code ConcurrentStorageManager}.
+	 * 
+	 * @param codec
+	 *            the {@code NodeCodec} that encodes the objects, which must be thread-safe
+	 */
+	public ConcurrentStorageManager(NodeCodec codec) {
+		this.codec = codec;
+	}
+
+	@Override
+	public int fileID(String fileName) {
+		return fileName2ID.computeIfAbsent(fileName, name -> {
+			int fileID = fileCount.getAndIncrement();
+			tables.put(fileID, new PageTable());
+			return fileID;
+		});
+	}
+
+	@Override
+	public Integer first() {
+		return 0;
+	}
+
+	@Override
+	public Object get(int fileID, Integer loc) throws IOException {
+		PageTable t = tables.get(fileID);
+		byte[] b = t == null ? null : t.pages.get(loc);
+		return b == null || b == EMPTY ? null : codec.decode(ByteBuffer.wrap(b));
+	}
+
+	/**
+	 * Puts the specified object at the specified location in the specified file.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @param o
+	 *            the object to put
+	 * @return {@code null}
+	 * @throws IOException
+	 *             if the object cannot be encoded
+	 */
+	@Override
+	public Object put(int fileID, Integer loc, Object o) throws IOException {
+		PageTable t = tables.get(fileID);
+		byte[] b = codec.encode(o);
+		t.pages.put(loc, b == null ? EMPTY : b);
+		t.last.accumulateAndGet(loc, Math::max); // the location will not be allocated again
+		t.free.remove(loc);
+		return null;
+	}
+
+	/**
+	 * Adds the specified object in the specified file, reusing the lowest removed location if there is one.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param o
+	 *            the object to add
+	 * @return the location of the object in the specified file
+	 * @throws IOException
+	 *             if the object cannot be encoded
+	 */
+	@Override
+	public Integer add(int fileID, Object o) throws IOException {
+		PageTable t = tables.get(fileID);
+		byte[] b = codec.encode(o);
+		Integer loc = t.free.pollFirst();
+		if (loc == null)
+			loc = t.last.incrementAndGet();
+		t.pages.put(loc, b == null ? EMPTY : b);
+		return loc;
+	}
+
+	/**
+	 * Removes the object at the specified location in the specified file.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @return {@code null}
+	 */
+	@Override
+	public Object remove(int fileID, Integer loc) {
+		PageTable t = tables.get(fileID);
+		if (t != null && t.pages.remove(loc) != null && !loc.equals(first()))
+			t.free.add(loc);
+		return null;
+	}
+
+	/**
+	 * Returns the number of locations in use in the specified file.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @return the number of locations in use in the specified file
+	 */
+	public int size(int fileID) {
+		PageTable t = tables.get(fileID);
+		return t == null ? 0 : t.pages.size();
+	}
+
+}
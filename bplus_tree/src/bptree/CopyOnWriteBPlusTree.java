@@ -0,0 +1,823 @@
+package bptree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A {@code CopyOnWriteBPlusTree} is a {@code BPlusTree} that never modifies a {@code Node} reachable from the published
+ * root {@code Node}. Each modified {@code Node} is written to a new location, called its shadow, and the
+ * {@code NonLeafNode}s on the path from the root {@code Node} to it are shadowed in turn so that they point to the new
+ * locations. When an operation completes, the location of the new root {@code Node} is written to the first location
+ * of the file, which publishes the new version of the tree in a single write. A {@code Snapshot} taken before that
+ * keeps reading the old version, which stays intact until the {@code Snapshot} is released; the {@code Node}s replaced
+ * by later versions are then reclaimed once no {@code Snapshot} can reach them. Writers are serialized with each other
+ * but never wait for {@code Snapshot}s, and {@code Snapshot}s never wait for writers, so long scans neither block nor
+ * slow down updates. Since the successor pointer of a {@code LeafNode} would require shadowing its predecessor as well,
+ * successor pointers are not maintained and range scans move between {@code LeafNode}s through their parents using
+ * {@code CursorScan}s. A failed operation leaves the published version unchanged and frees the {@code Node}s it wrote.
+ * For {@code Snapshot}s to be read by other threads than the writer, the {@code StorageManager} must be thread-safe and
+ * return a new object for each {@code get}, which rules out {@code ObjectCache}s and {@code BufferPool}s in between.
+ * A {@code Compactor} must not run on a {@code CopyOnWriteBPlusTree} while {@code Snapshot}s are held.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class CopyOnWriteBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K, P> {
+
+	/**
+	 * A {@code Snapshot} is a read-only view of the version of a {@code CopyOnWriteBPlusTree} that was published when
+	 * the {@code Snapshot} was taken. The {@code Node}s of that version are not reclaimed until the {@code Snapshot} is
+	 * closed.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 */
+	public class Snapshot implements Closeable {
+
+		/**
+		 * The pointer to the root {@code Node} of the version; {@code null} if the version is empty.
+		 */
+		protected P root;
+
+		/**
+		 * The number of the version.
+		 */
+		protected long version;
+
+		/**
+		 * A flag indicating whether or not this {@code Snapshot} has been closed.
+		 */
+		protected boolean closed;
+
+		/**
+		 * Constructs a {@code Snapshot}.
+		 * 
+		 * @param root
+		 *            the pointer to the root {@code Node} of the version; {@code null} if the version is empty
+		 * @param version
+		 *            the number of the version
+		 */
+		protected Snapshot(P root, long version) {
+			this.root = root;
+			this.version = version;
+		}
+
+		/**
+		 * Returns the number of the version seen by this {@code Snapshot}.
+		 * 
+		 * @return the number of the version seen by this {@code Snapshot}
+		 */
+		public long version() {
+			return version;
+		}
+
+		/**
+		 * Returns the pointer associated with the specified key in the version seen by this {@code Snapshot}.
+		 * 
+		 * @param k
+		 *            a search key
+		 * @return the pointer associated with the specified key; {@code null} if the specified key is not contained in
+		 *         the version
+		 * @throws IllegalStateException
+		 *             if this {@code Snapshot} has been closed
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		public P search(K k) throws IOException {
+			check();
+			return CopyOnWriteBPlusTree.this.search(k, root);
+		}
+
+		/**
+		 * Returns a {@code RangeScan} over all of the keys in the version seen by this {@code Snapshot}.
+		 * 
+		 * @return a {@code RangeScan} over all of the keys in the version seen by this {@code Snapshot}
+		 * @throws IllegalStateException
+		 *             if this {@code Snapshot} has been closed
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		public RangeScan<K, P> scan() throws IOException {
+			return scan(null, true, null, true);
+		}
+
+		/**
+		 * Returns a {@code RangeScan} over the keys within the specified range in the version seen by this
+		 * {@code Snapshot}. The {@code RangeScan} must not be used after this {@code Snapshot} is closed.
+		 * 
+		 * @param from
+		 *            the lower bound of the keys; {@code null} if there is no lower bound
+		 * @param fromInclusive
+		 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+		 * @param to
+		 *            the upper bound of the keys; {@code null} if there is no upper bound
+		 * @param toInclusive
+		 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+		 * @return a {@code RangeScan} over the keys within the specified range
+		 * @throws IllegalStateException
+		 *             if this {@code Snapshot} has been closed
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		public RangeScan<K, P> scan(K from, boolean fromInclusive, K to, boolean toInclusive) throws IOException {
+			check();
+			return CopyOnWriteBPlusTree.this.scan(root, from, fromInclusive, to, toInclusive);
+		}
+
+		/**
+		 * Releases this {@code Snapshot}, reclaiming the {@code Node}s that no other {@code Snapshot} can reach. Closing
+		 * a closed {@code Snapshot} has no effect.
+		 * 
+		 * @throws IOException
+		 *             if an I/O error occurs while reclaiming {@code Node}s
+		 */
+		@Override
+		public void close() throws IOException {
+			synchronized (snapshots) {
+				if (closed)
+					return;
+				closed = true;
+				Integer count = snapshots.get(version);
+				if (count == 1)
+					snapshots.remove(version);
+				else
+					snapshots.put(version, count - 1);
+				reclaim();
+			}
+		}
+
+		/**
+		 * Verifies that this {@code Snapshot} has not been closed.
+		 * 
+		 * @throws IllegalStateException
+		 *             if this {@code Snapshot} has been closed
+		 */
+		protected void check() {
+			if (closed)
+				throw new IllegalStateException("The snapshot of version " + version + " has been closed.");
+		}
+
+	}
+
+	/**
+	 * A {@code SnapshotScan} is a {@code RangeScan} over the published version of a {@code CopyOnWriteBPlusTree} that
+	 * holds a {@code Snapshot} of that version, so that the {@code Node}s it is yet to visit are not reclaimed while
+	 * writers publish newer versions. The {@code Snapshot} is released when the {@code SnapshotScan} is exhausted or
+	 * closed.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 */
+	public class SnapshotScan extends RangeScan<K, P> implements Closeable {
+
+		/**
+		 * The {@code Snapshot} held by this {@code SnapshotScan}.
+		 */
+		protected Snapshot snapshot;
+
+		/**
+		 * The {@code RangeScan} over the version seen by the {@code Snapshot}.
+		 */
+		protected RangeScan<K, P> scan;
+
+		/**
+		 * Constructs a {@code SnapshotScan}.
+		 * 
+		 * @param snapshot
+		 *            the {@code Snapshot} to hold
+		 * @param scan
+		 *            a {@code RangeScan} over the version seen by the specified {@code Snapshot}
+		 */
+		protected SnapshotScan(Snapshot snapshot, RangeScan<K, P> scan) {
+			super(CopyOnWriteBPlusTree.this, null, 0, null, false);
+			this.snapshot = snapshot;
+			this.scan = scan;
+		}
+
+		/**
+		 * Determines whether or not this {@code SnapshotScan} has more keys to return. The {@code Snapshot} is released
+		 * as soon as there are no more keys or an error occurs.
+		 * 
+		 * @return {@code true} if this {@code SnapshotScan} has more keys to return; {@code false} otherwise
+		 * @throws UncheckedIOException
+		 *             if an I/O error occurs
+		 */
+		@Override
+		public boolean hasNext() {
+			if (snapshot.closed)
+				return false;
+			boolean more;
+			try {
+				more = scan.hasNext();
+			} catch (RuntimeException e) {
+				try {
+					close();
+				} catch (IOException f) { // the failure of the scan is reported instead
+				}
+				throw e;
+			}
+			if (!more)
+				try {
+					close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			return more;
+		}
+
+		@Override
+		public Map.Entry<K, P> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return scan.next();
+		}
+
+		/**
+		 * Releases the {@code Snapshot} held by this {@code SnapshotScan}, after which this {@code SnapshotScan} has no
+		 * more keys to return. Closing a closed {@code SnapshotScan} has no effect.
+		 * 
+		 * @throws IOException
+		 *             if an I/O error occurs while reclaiming {@code Node}s
+		 */
+		@Override
+		public void close() throws IOException {
+			snapshot.close();
+		}
+
+	}
+
+	/**
+	 * The number of the published version.
+	 */
+	protected long version;
+
+	/**
+	 * A map that associates the number of each version seen by {@code Snapshot}s with the number of those
+	 * {@code Snapshot}s. It also serves as the lock for publishing versions and reclaiming {@code Node}s.
+	 */
+	protected TreeMap<Long, Integer> snapshots = new TreeMap<Long, Integer>();
+
+	/**
+	 * A map that associates the number of each version with the locations of the {@code Node}s that the version
+	 * replaced or removed and that are not reclaimed yet.
+	 */
+	protected TreeMap<Long, List<P>> retired = new TreeMap<Long, List<P>>();
+
+	/**
+	 * The number of the operations in progress on the current thread, which are nested when an operation is
+	 * implemented using another.
+	 */
+	protected int depth;
+
+	/**
+	 * The pointer to the root {@code Node} of the version being built by the current operation.
+	 */
+	protected P root;
+
+	/**
+	 * A map that associates the location of each {@code Node} shadowed by the current operation with the location of
+	 * its shadow.
+	 */
+	protected Map<P, P> shadows = new HashMap<P, P>();
+
+	/**
+	 * The locations of the {@code Node}s written by the current operation, which may be updated in place.
+	 */
+	protected Set<P> fresh = new HashSet<P>();
+
+	/**
+	 * The locations of the published {@code Node}s that the current operation replaced or removed.
+	 */
+	protected List<P> replaced = new ArrayList<P>();
+
+	/**
+	 * The locations of the {@code Node}s that the current operation removed from the tree.
+	 */
+	protected Set<P> removed = new HashSet<P>();
+
+	/**
+	 * Constructs a {@code CopyOnWriteBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code CopyOnWriteBPlusTree} can have
+	 * @param sm
+	 *            {@code StorageManager} used for this {@code CopyOnWriteBPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code CopyOnWriteBPlusTree}
+	 */
+	public CopyOnWriteBPlusTree(int degree, StorageManager<P, Object> sm, String fileName) {
+		super(degree, sm, fileName);
+	}
+
+	/**
+	 * Constructs a {@code CopyOnWriteBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code CopyOnWriteBPlusTree} can have
+	 * @param sm
+	 *            {@code StorageManager} used for this {@code CopyOnWriteBPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code CopyOnWriteBPlusTree}
+	 * @param comparator
+	 *            the {@code Comparator} that orders the keys of this {@code CopyOnWriteBPlusTree}; {@code null} if the
+	 *            natural ordering of keys is used
+	 */
+	public CopyOnWriteBPlusTree(int degree, StorageManager<P, Object> sm, String fileName,
+			Comparator<? super K> comparator) {
+		super(degree, sm, fileName, comparator);
+	}
+
+	/**
+	 * Takes a {@code Snapshot} of the published version of this {@code CopyOnWriteBPlusTree}. The {@code Snapshot}
+	 * must be closed when it is no longer needed so that the {@code Node}s of its version can be reclaimed.
+	 * 
+	 * @return a {@code Snapshot} of the published version of this {@code CopyOnWriteBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public Snapshot snapshot() throws IOException {
+		synchronized (snapshots) {
+			Snapshot s = new Snapshot(super.rootPointer(), version);
+			Integer count = snapshots.get(version);
+			snapshots.put(version, count == null ? 1 : count + 1);
+			return s;
+		}
+	}
+
+	/**
+	 * Returns the number of the published version of this {@code CopyOnWriteBPlusTree}.
+	 * 
+	 * @return the number of the published version of this {@code CopyOnWriteBPlusTree}
+	 */
+	public long version() {
+		synchronized (snapshots) {
+			return version;
+		}
+	}
+
+	/**
+	 * Returns the number of {@code Node}s that have been replaced or removed but not reclaimed yet because
+	 * {@code Snapshot}s may still reach them.
+	 * 
+	 * @return the number of {@code Node}s that are waiting to be reclaimed
+	 */
+	public int retiredCount() {
+		synchronized (snapshots) {
+			int count = 0;
+			for (List<P> l : retired.values())
+				count += l.size();
+			return count;
+		}
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key in the published version of this
+	 * {@code CopyOnWriteBPlusTree}. The search holds a {@code Snapshot} so that it can run concurrently with writers.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the specified key is not contained in
+	 *         this {@code CopyOnWriteBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public P search(K k) throws IOException {
+		Snapshot s = snapshot();
+		try {
+			return s.search(k);
+		} finally {
+			s.close();
+		}
+	}
+
+	/**
+	 * Returns a {@code SnapshotScan} over the keys within the specified range in the published version of this
+	 * {@code CopyOnWriteBPlusTree}. The {@code SnapshotScan} holds a {@code Snapshot} until it is exhausted, so a scan
+	 * abandoned before its end must be closed for the {@code Node}s replaced since then to be reclaimed. Within an
+	 * operation on the current thread, the version being built is scanned without a {@code Snapshot}.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @return a {@code RangeScan} over the keys within the specified range
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public RangeScan<K, P> scan(K from, boolean fromInclusive, K to, boolean toInclusive) throws IOException {
+		if (depth > 0 && Thread.holdsLock(this))
+			return super.scan(from, fromInclusive, to, toInclusive);
+		Snapshot s = snapshot();
+		try {
+			return new SnapshotScan(s, s.scan(from, fromInclusive, to, toInclusive));
+		} catch (IOException | RuntimeException e) {
+			s.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the fraction of the key slots of the {@code LeafNode}s of this {@code CopyOnWriteBPlusTree} that are in
+	 * use, visiting the {@code LeafNode}s through their parents.
+	 * 
+	 * @return the fraction of the key slots of the {@code LeafNode}s that are in use; 0 if this
+	 *         {@code CopyOnWriteBPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized double fillFactor() throws IOException {
+		P p = rootPointer();
+		if (p == null)
+			return 0;
+		List<NonLeafNode<K, P>> ancestors = new ArrayList<NonLeafNode<K, P>>();
+		Node<K, P> n = node(p);
+		while (n instanceof NonLeafNode) { // descend to the first leaf node
+			ancestors.add((NonLeafNode<K, P>) n);
+			p = n.pointer(0);
+			n = node(p);
+		}
+		LeafCursor<K, P> cursor = new LeafCursor<K, P>(this, ancestors, new int[ancestors.size()], null, true);
+		long keys = 0;
+		long slots = 0;
+		for (; p != null; p = cursor.next()) {
+			keys += node(p).keyCount();
+			slots += degree - 1;
+		}
+		return (double) keys / slots;
+	}
+
+	@Override
+	public synchronized void insert(K k, P p) throws InvalidInsertionException, IOException {
+		begin();
+		try {
+			super.insert(k, p);
+		} catch (InvalidInsertionException e) {
+			commit();
+			throw e;
+		} catch (IOException | RuntimeException e) {
+			abort();
+			throw e;
+		}
+		commit();
+	}
+
+	@Override
+	public synchronized void insertAll(Collection<? extends Map.Entry<K, P>> entries)
+			throws InvalidInsertionException, IOException {
+		super.insertAll(entries);
+	}
+
+	/**
+	 * Inserts the specified keys and pointers, given in ascending key order, into this {@code CopyOnWriteBPlusTree}
+	 * and publishes them as one version.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code CopyOnWriteBPlusTree} is attempted to be inserted again or a
+	 *             key is not greater than its preceding key; the entries preceding that key are published
+	 * @throws IOException
+	 *             if an I/O error occurs, in which case none of the entries are published
+	 */
+	@Override
+	public synchronized void insertSorted(Iterator<? extends Map.Entry<K, P>> entries)
+			throws InvalidInsertionException, IOException {
+		begin();
+		try {
+			super.insertSorted(entries);
+		} catch (InvalidInsertionException e) {
+			commit();
+			throw e;
+		} catch (IOException | RuntimeException e) {
+			abort();
+			throw e;
+		}
+		commit();
+	}
+
+	/**
+	 * Builds this {@code CopyOnWriteBPlusTree} from the specified keys and pointers using a {@code BulkLoader}. This
+	 * {@code CopyOnWriteBPlusTree} must be empty. Since no version precedes the loaded one, the {@code Node}s are
+	 * written in place and the root {@code Node} is published at the end of the loading.
+	 * 
+	 * @param entries
+	 *            keys and pointers in ascending key order
+	 * @param fillFactor
+	 *            the fraction of each {@code Node} to fill
+	 * @throws InvalidInsertionException
+	 *             if a key is not greater than its preceding key
+	 * @throws IllegalStateException
+	 *             if this {@code CopyOnWriteBPlusTree} is not empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized void bulkLoad(Iterator<? extends Map.Entry<K, P>> entries, double fillFactor)
+			throws InvalidInsertionException, IOException {
+		super.bulkLoad(entries, fillFactor);
+		synchronized (snapshots) {
+			version++;
+		}
+	}
+
+	@Override
+	public synchronized void delete(K k) throws InvalidDeletionException, IOException {
+		begin();
+		try {
+			super.delete(k);
+		} catch (InvalidDeletionException e) {
+			commit();
+			throw e;
+		} catch (IOException | RuntimeException e) {
+			abort();
+			throw e;
+		}
+		commit();
+	}
+
+	/**
+	 * Begins an operation, starting a new version from the published one unless an operation is already in progress.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void begin() throws IOException {
+		if (depth++ > 0)
+			return;
+		root = super.rootPointer();
+		shadows.clear();
+		fresh.clear();
+		replaced.clear();
+		removed.clear();
+		path.clear();
+	}
+
+	/**
+	 * Completes an operation. When the outermost operation completes, the remaining shadows are propagated to the root
+	 * {@code Node}, the new version is published, and the {@code Node}s it replaced are retired.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void commit() throws IOException {
+		if (depth > 1) {
+			depth--;
+			return;
+		}
+		try {
+			propagate();
+			if (fresh.isEmpty() && replaced.isEmpty())
+				return; // nothing has changed
+			synchronized (snapshots) {
+				super.setRoot(root); // the single write that publishes the new version
+				version++;
+				if (!replaced.isEmpty())
+					retired.put(version, new ArrayList<P>(replaced));
+				reclaim();
+			}
+		} catch (IOException | RuntimeException e) {
+			depth = 1;
+			abort();
+			throw e;
+		} finally {
+			depth = 0;
+		}
+	}
+
+	/**
+	 * Abandons an operation. When the outermost operation is abandoned, the {@code Node}s written by it are freed and
+	 * the published version stays the latest one.
+	 */
+	protected void abort() {
+		if (depth-- > 1)
+			return;
+		for (P p : fresh)
+			try {
+				super.remove(p);
+			} catch (IOException e) { // the node is only leaked
+			}
+		shadows.clear();
+		fresh.clear();
+		replaced.clear();
+		removed.clear();
+		path.clear();
+		root = null;
+	}
+
+	/**
+	 * Frees the retired {@code Node}s that no {@code Snapshot} can reach, which are those replaced by versions not
+	 * newer than the oldest version seen by {@code Snapshot}s. The caller must hold the lock of {@link #snapshots}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void reclaim() throws IOException {
+		Map<Long, List<P>> reclaimable = snapshots.isEmpty() ? retired : retired.headMap(snapshots.firstKey(), true);
+		for (Iterator<List<P>> i = reclaimable.values().iterator(); i.hasNext();) {
+			for (P p : i.next())
+				super.remove(p);
+			i.remove();
+		}
+	}
+
+	/**
+	 * Shadows the {@code NonLeafNode}s on the current {@code Path} whose children have been shadowed, from the bottom
+	 * up, and then moves the root of the version being built to the shadow of the root {@code Node}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void propagate() throws IOException {
+		for (int level = path.leafLevel(); level > 0; level--) {
+			P p = path.pointer(level - 1);
+			Node<K, P> n = path.node(level - 1);
+			if (!removed.contains(p) && relocate(n))
+				save(p, n);
+		}
+		P r = root == null ? null : shadows.get(root);
+		if (r != null)
+			root = r;
+		path.clear();
+	}
+
+	/**
+	 * Replaces the pointers of the specified {@code Node} to shadowed {@code Node}s with pointers to their shadows. The
+	 * successor pointer of a {@code LeafNode} is cleared since it is not maintained.
+	 * 
+	 * @param n
+	 *            a {@code Node}
+	 * @return {@code true} if a pointer of the specified {@code NonLeafNode} has been replaced; {@code false}
+	 *         otherwise
+	 */
+	protected boolean relocate(Node<K, P> n) {
+		if (n instanceof LeafNode) {
+			((LeafNode<K, P>) n).setSuccessor(null);
+			return false;
+		}
+		boolean changed = false;
+		for (int i = 0; i <= n.keyCount(); i++) {
+			P q = shadows.get(n.pointer(i));
+			if (q != null) {
+				n.setPointer(i, q);
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Returns the pointer to the root {@code Node} of the version being built if an operation is in progress, after
+	 * propagating the shadows made since the last descent, and the pointer to the published root {@code Node}
+	 * otherwise.
+	 * 
+	 * @return the pointer to the root {@code Node}; {@code null} if the tree is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected P rootPointer() throws IOException {
+		if (depth == 0 || !Thread.holdsLock(this)) // readers see the published version
+			return super.rootPointer();
+		propagate();
+		return root;
+	}
+
+	/**
+	 * Makes the specified {@code Node} the root {@code Node} of the version being built. The version is published when
+	 * the operation completes.
+	 * 
+	 * @param p
+	 *            a pointer to the new root {@code Node}; {@code null} if the tree becomes empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void setRoot(P p) throws IOException {
+		if (depth == 0)
+			super.setRoot(p);
+		else
+			root = p;
+	}
+
+	/**
+	 * Saves the specified {@code Node}. A {@code Node} written by the current operation is updated in place; any other
+	 * {@code Node} is written to its shadow, which is created on the first update.
+	 * 
+	 * @param p
+	 *            a pointer to the {@code Node}
+	 * @param n
+	 *            a {@code Node}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void save(P p, Node<K, P> n) throws IOException {
+		if (depth == 0) {
+			super.save(p, n);
+			return;
+		}
+		relocate(n);
+		P q = shadows.get(p);
+		if (q != null)
+			super.save(q, n);
+		else if (fresh.contains(p))
+			super.save(p, n);
+		else {
+			q = super.save(n);
+			fresh.add(q);
+			shadows.put(p, q);
+			replaced.add(p);
+		}
+	}
+
+	@Override
+	protected P save(Node<K, P> n) throws IOException {
+		if (depth == 0)
+			return super.save(n);
+		relocate(n);
+		P p = super.save(n);
+		fresh.add(p);
+		return p;
+	}
+
+	/**
+	 * Removes the specified {@code Node} from the version being built. A {@code Node} written by the current operation
+	 * is freed at once; a published {@code Node} is retired and reclaimed once no {@code Snapshot} can reach it.
+	 * 
+	 * @param p
+	 *            a pointer to the {@code Node} to remove
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void remove(P p) throws IOException {
+		if (depth == 0) {
+			super.remove(p);
+			return;
+		}
+		removed.add(p);
+		P q = shadows.remove(p);
+		if (q != null) { // the published node has already been retired
+			fresh.remove(q);
+			super.remove(q);
+		} else if (fresh.remove(p))
+			super.remove(p);
+		else
+			replaced.add(p);
+	}
+
+	/**
+	 * Returns {@code true} since the {@code CursorScan}s of this {@code CopyOnWriteBPlusTree} always follow a
+	 * {@code LeafCursor}.
+	 * 
+	 * @return {@code true}
+	 */
+	@Override
+	protected boolean usesCursor() {
+		return true;
+	}
+
+	/**
+	 * Constructs a {@code CursorScan} starting from the specified {@code LeafNode}.
+	 * 
+	 * @param l
+	 *            the {@code LeafNode} to start from; {@code null} if the tree is empty
+	 * @param i
+	 *            the index of the first key to return in the specified {@code LeafNode}
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @param cursor
+	 *            a {@code LeafCursor} at the specified {@code LeafNode}
+	 * @return a {@code CursorScan} starting from the specified {@code LeafNode}
+	 */
+	@Override
+	protected RangeScan<K, P> rangeScan(LeafNode<K, P> l, int i, K to, boolean toInclusive, LeafCursor<K, P> cursor) {
+		return new CursorScan<K, P>(this, l, i, to, toInclusive, cursor);
+	}
+
+}
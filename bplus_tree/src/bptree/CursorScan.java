@@ -0,0 +1,59 @@
+package bptree;
+
+import java.io.IOException;
+
+/**
+ * A {@code CursorScan} is a {@code RangeScan} that moves from one {@code LeafNode} to the next using a
+ * {@code LeafCursor} over their parents instead of the successor pointers of the {@code LeafNode}s. It is used where
+ * successor pointers cannot be kept up to date, such as in a {@code CopyOnWriteBPlusTree}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class CursorScan<K extends Comparable<K>, P> extends RangeScan<K, P> {
+
+	/**
+	 * The {@code LeafCursor} at the current {@code LeafNode}.
+	 */
+	protected LeafCursor<K, P> cursor;
+
+	/**
+	 * Constructs a {@code CursorScan}.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param leaf
+	 *            the {@code LeafNode} to start from; {@code null} if the {@code BPlusTree} is empty
+	 * @param index
+	 *            the index of the first key to return in the specified {@code LeafNode}
+	 * @param to
+	 *            the upper bound of the keys to return; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @param cursor
+	 *            a {@code LeafCursor} at the specified {@code LeafNode}
+	 */
+	protected CursorScan(BPlusTree<K, P> tree, LeafNode<K, P> leaf, int index, K to, boolean toInclusive,
+			LeafCursor<K, P> cursor) {
+		super(tree, leaf, index, to, toInclusive);
+		this.cursor = cursor;
+	}
+
+	/**
+	 * Moves to the {@code LeafNode} that follows the current {@code LeafNode} according to the {@code LeafCursor}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void advance() throws IOException {
+		P p = cursor.next();
+		leaf = p == null ? null : (LeafNode<K, P>) tree.node(p);
+		index = 0;
+	}
+
+}
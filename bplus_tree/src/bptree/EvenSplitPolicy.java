@@ -0,0 +1,16 @@
+package bptree;
+
+/**
+ * The {@code EvenSplitPolicy} class splits each overflowing {@code Node} of a {@code BPlusTree} in half. This is the
+ * default {@code SplitPolicy} of {@code BPlusTree}s.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class EvenSplitPolicy implements SplitPolicy {
+
+	@Override
+	public int splitPoint(int degree, boolean leaf, int index, boolean leftmost, boolean rightmost) {
+		return (int) Math.ceil(degree / 2.0);
+	}
+
+}
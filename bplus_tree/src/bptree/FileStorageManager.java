@@ -0,0 +1,521 @@
+package bptree;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@code FileStorageManager} stores objects in fixed-size pages of files in a directory, one file per file ID. The
+ * location of an object is the index of its page in the file. The page at {@link #first()} is the header page of the
+ * file, which also records the page size of the file. Each page starts with the length of the serialized object in
+ * the page, which is 0 if the page holds no object. Objects are encoded by a {@code NodeCodec}. Pages are read and
+ * written using positional {@code FileChannel} calls. For efficiency, {@link #put(int, Integer, Object)} and
+ * {@link #remove(int, Integer)} do not read previous objects back and thus always return {@code null}. Empty pages are
+ * reused by {@link #add(int, Object)}, lowest page first, and empty pages at the end of a file are cut off when the
+ * file is closed.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class FileStorageManager
+		implements StorageManager<Integer, Object>, Prefetchable<Integer>, Flushable, Closeable {
+
+	/**
+	 * The default size of pages in bytes.
+	 */
+	public static final int DEFAULT_PAGE_SIZE = 4096;
+
+	/**
+	 * The number that the header page of each file starts with.
+	 */
+	protected static final int MAGIC = 0x42505452;
+
+	/**
+	 * The number of bytes at the beginning of the header page that record the magic number and the page size.
+	 */
+	protected static final int HEADER_SIZE = 8;
+
+	/**
+	 * The directory containing the files.
+	 */
+	protected File directory;
+
+	/**
+	 * The size of pages in bytes.
+	 */
+	protected int pageSize;
+
+	/**
+	 * A map that associates the name of each open file with the ID of that file.
+	 */
+	protected Map<String, Integer> fileName2ID = new HashMap<String, Integer>();
+
+	/**
+	 * The {@code FileChannel} of each open file, indexed by file ID. Since {@link #prefetch(int, Integer)} may run on
+	 * other threads, this list is changed only while holding the lock of this list.
+	 */
+	protected List<FileChannel> channels = new ArrayList<FileChannel>();
+
+	/**
+	 * The number of pages in each open file, indexed by file ID.
+	 */
+	protected List<Integer> pageCounts = new ArrayList<Integer>();
+
+	/**
+	 * The empty pages before the last page of each open file, indexed by file ID.
+	 */
+	protected List<BitSet> freePages = new ArrayList<BitSet>();
+
+	/**
+	 * The buffer used for reading and writing pages.
+	 */
+	protected ByteBuffer page;
+
+	/**
+	 * The buffer of each thread used for prefetching pages.
+	 */
+	protected ThreadLocal<ByteBuffer> prefetchBuffers = new ThreadLocal<ByteBuffer>() {
+
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocate(pageSize);
+		}
+
+	};
+
+	/**
+	 * The {@code NodeCodec} that encodes the objects in the pages.
+	 */
+	protected NodeCodec codec;
+
+	/**
+	 * Constructs a {@code FileStorageManager} that uses pages of {@link #DEFAULT_PAGE_SIZE} bytes.
+	 * 
+	 * @param directory
+	 *            the directory containing the files
+	 */
+	public FileStorageManager(File directory) {
+		this(directory, DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * Constructs a {@code FileStorageManager} that encodes objects using Java serialization.
+	 * 
+	 * @param directory
+	 *            the directory containing the files
+	 * @param pageSize
+	 *            the size of pages in bytes
+	 * @throws IllegalArgumentException
+	 *             if the page size is too small to hold the header of a file
+	 */
+	public FileStorageManager(File directory, int pageSize) {
+		this(directory, pageSize, new SerializationCodec());
+	}
+
+	/**
+	 * Constructs a {@code FileStorageManager}.
+	 * 
+	 * @param directory
+	 *            the directory containing the files
+	 * @param pageSize
+	 *            the size of pages in bytes
+	 * @param codec
+	 *            the {@code NodeCodec} that encodes the objects in the pages
+	 * @throws IllegalArgumentException
+	 *             if the page size is too small to hold the header of a file
+	 */
+	public FileStorageManager(File directory, int pageSize, NodeCodec codec) {
+		if (pageSize <= HEADER_SIZE + 4)
+			throw new IllegalArgumentException("page size: " + pageSize);
+		this.directory = directory;
+		this.pageSize = pageSize;
+		this.page = ByteBuffer.allocate(pageSize);
+		this.codec = codec;
+		directory.mkdirs();
+	}
+
+	/**
+	 * Returns the ID of the specified file, opening the file (or creating it if it does not exist) when it is used for
+	 * the first time.
+	 * 
+	 * @param fileName
+	 *            the name of the file
+	 * @return the ID of the specified file
+	 * @throws UncheckedIOException
+	 *             if the file cannot be opened or is not a valid file of this {@code FileStorageManager}
+	 */
+	@Override
+	public int fileID(String fileName) {
+		Integer fileID = fileName2ID.get(fileName);
+		if (fileID == null) {
+			try {
+				fileID = open(new File(directory, fileName));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			fileName2ID.put(fileName, fileID);
+		}
+		return fileID;
+	}
+
+	@Override
+	public Integer first() {
+		return 0;
+	}
+
+	@Override
+	public Object get(int fileID, Integer loc) throws IOException {
+		if (loc >= pageCounts.get(fileID))
+			return null;
+		ByteBuffer b = read(fileID, loc);
+		return b == null ? null : codec.decode(b);
+	}
+
+	@Override
+	public Object put(int fileID, Integer loc, Object o) throws IOException {
+		write(fileID, loc, codec.encode(o));
+		return null;
+	}
+
+	/**
+	 * Adds the specified object in the specified file, reusing the lowest empty page if there is one. If the object is
+	 * {@code null}, the page is only reserved in memory without any I/O; it is empty on storage until an object is put
+	 * there, so a reserved page that is never written is found empty again when the file is reopened.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param o
+	 *            the object to add; {@code null} to only reserve a page for an object to be put later
+	 * @return the location of the object in the specified file
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public Integer add(int fileID, Object o) throws IOException {
+		BitSet free = freePages.get(fileID);
+		int loc = free.isEmpty() ? pageCounts.get(fileID) : free.nextSetBit(0);
+		if (o != null) // an empty page or a page beyond the end of the file already reads as empty
+			write(fileID, loc, codec.encode(o));
+		free.clear(loc);
+		if (loc >= pageCounts.get(fileID))
+			pageCounts.set(fileID, loc + 1);
+		return loc;
+	}
+
+	@Override
+	public Object remove(int fileID, Integer loc) throws IOException {
+		if (loc < pageCounts.get(fileID))
+			write(fileID, loc, null);
+		return null;
+	}
+
+	/**
+	 * Reads the specified page into a buffer of the calling thread so that the page is in the page cache of the
+	 * operating system when it is read by {@link #get(int, Integer)}. Pages of files that are not open are ignored.
+	 * This method may be called from any thread.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the page
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void prefetch(int fileID, Integer loc) throws IOException {
+		FileChannel c;
+		synchronized (channels) {
+			if (fileID >= channels.size())
+				return;
+			c = channels.get(fileID);
+		}
+		ByteBuffer b = prefetchBuffers.get();
+		b.clear();
+		try {
+			readFully(c, b, (long) loc * pageSize);
+		} catch (ClosedChannelException e) { // the file has been closed
+		}
+	}
+
+	/**
+	 * Forces all the pages written so far to be stored on the storage devices.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void flush() throws IOException {
+		for (FileChannel c : channels)
+			c.force(false);
+	}
+
+	/**
+	 * Closes all the files of this {@code FileStorageManager} after cutting off the empty pages at the end of each
+	 * file.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (channels) {
+			for (int i = 0; i < channels.size(); i++) {
+				FileChannel c = channels.get(i);
+				if (c.isOpen()) {
+					c.truncate((long) pageCounts.get(i) * pageSize);
+					c.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the size of pages in bytes.
+	 * 
+	 * @return the size of pages in bytes
+	 */
+	public int pageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Returns the number of pages in the specified file, which does not count the empty pages at the end of the file.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @return the number of pages in the specified file
+	 */
+	public int pageCount(int fileID) {
+		return pageCounts.get(fileID);
+	}
+
+	/**
+	 * Returns the number of empty pages before the last page of the specified file, which will be reused by
+	 * {@link #add(int, Object)}.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @return the number of empty pages before the last page of the specified file
+	 */
+	public int freePageCount(int fileID) {
+		return freePages.get(fileID).cardinality();
+	}
+
+	/**
+	 * Opens the specified file, creating it and its header page if it does not exist. The length of every page is read
+	 * once to find the empty pages, and the empty pages at the end of the file are not counted as pages of the file.
+	 * 
+	 * @param file
+	 *            a file
+	 * @return the ID of the file
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a valid file of this {@code FileStorageManager}
+	 */
+	protected int open(File file) throws IOException {
+		FileChannel c = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		int fileID;
+		synchronized (channels) {
+			fileID = channels.size();
+			channels.add(c);
+		}
+		pageCounts.add((int) ((c.size() + pageSize - 1) / pageSize));
+		freePages.add(new BitSet());
+		if (c.size() == 0) { // if a new file
+			page.clear();
+			page.putInt(MAGIC).putInt(pageSize).putInt(0).flip();
+			writeFully(c, page, 0);
+			pageCounts.set(fileID, 1);
+		} else {
+			page.clear().limit(HEADER_SIZE);
+			readFully(c, page, 0);
+			page.flip();
+			if (page.remaining() < HEADER_SIZE || page.getInt() != MAGIC || page.getInt() != pageSize) {
+				c.close();
+				throw new IOException("not a file with pages of " + pageSize + " bytes: " + file);
+			}
+			int pageCount = pageCounts.get(fileID);
+			for (int loc = 1; loc < pageCount; loc++) {
+				page.clear().limit(4);
+				readFully(c, page, (long) loc * pageSize);
+				page.flip();
+				if (page.remaining() < 4 || page.getInt() == 0)
+					freePages.get(fileID).set(loc);
+			}
+			while (pageCount > 1 && freePages.get(fileID).get(pageCount - 1))
+				freePages.get(fileID).clear(--pageCount);
+			pageCounts.set(fileID, pageCount);
+		}
+		return fileID;
+	}
+
+	/**
+	 * Reads the specified page.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the page
+	 * @return a {@code ByteBuffer} whose remaining bytes are the encoded object in the specified page, which is valid
+	 *         until the next page is read; {@code null} if the page holds no object
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected ByteBuffer read(int fileID, int loc) throws IOException {
+		page.clear();
+		readFully(channels.get(fileID), page, (long) loc * pageSize);
+		page.flip();
+		return content(page, fileID, loc);
+	}
+
+	/**
+	 * Narrows the specified {@code ByteBuffer}, which covers a page from its beginning, to the encoded object in the
+	 * page.
+	 * 
+	 * @param b
+	 *            a {@code ByteBuffer} covering a page
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the page
+	 * @return the specified {@code ByteBuffer} whose remaining bytes are the encoded object in the page; {@code null}
+	 *         if the page holds no object
+	 * @throws IOException
+	 *             if the page is corrupt
+	 */
+	protected ByteBuffer content(ByteBuffer b, int fileID, int loc) throws IOException {
+		int offset = b.position() + (loc == first() ? HEADER_SIZE : 0);
+		if (b.limit() < offset + 4)
+			return null;
+		b.position(offset);
+		int length = b.getInt();
+		if (length == 0)
+			return null;
+		if (length < 0 || length > b.remaining())
+			throw new IOException("corrupt page " + loc + " in file " + fileID);
+		b.limit(b.position() + length);
+		return b;
+	}
+
+	/**
+	 * Verifies that the specified content fits in the page at the specified location.
+	 * 
+	 * @param loc
+	 *            the location of the page
+	 * @param b
+	 *            the content of the page; {@code null} if the page holds no object
+	 * @throws IOException
+	 *             if the content does not fit in the page
+	 */
+	protected void checkFit(int loc, byte[] b) throws IOException {
+		int length = b == null ? 0 : b.length;
+		if ((loc == first() ? HEADER_SIZE : 0) + 4 + length > pageSize)
+			throw new IOException("object of " + length + " bytes does not fit in a page of " + pageSize + " bytes");
+	}
+
+	/**
+	 * Writes the specified content into the specified page.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the page
+	 * @param b
+	 *            the content of the page; {@code null} if the page holds no object
+	 * @throws IOException
+	 *             if an I/O error occurs or the content does not fit in a page
+	 */
+	protected void write(int fileID, int loc, byte[] b) throws IOException {
+		checkFit(loc, b);
+		int offset = loc == first() ? HEADER_SIZE : 0;
+		page.clear();
+		page.putInt(b == null ? 0 : b.length);
+		if (b != null)
+			page.put(b);
+		page.flip();
+		writeFully(channels.get(fileID), page, (long) loc * pageSize + offset);
+		written(fileID, loc, b == null);
+	}
+
+	/**
+	 * Records that the specified page has been written. A page that becomes empty is remembered for reuse, and if it
+	 * is the last page of the file, it is cut off from the file together with the empty pages right before it. A page
+	 * written beyond the last page extends the file, and the pages skipped over are remembered as empty.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the page
+	 * @param empty
+	 *            {@code true} if the page holds no object; {@code false} otherwise
+	 */
+	protected void written(int fileID, int loc, boolean empty) {
+		BitSet free = freePages.get(fileID);
+		int pageCount = pageCounts.get(fileID);
+		if (!empty) {
+			free.clear(loc);
+			if (loc >= pageCount) {
+				free.set(pageCount, loc);
+				pageCounts.set(fileID, loc + 1);
+			}
+		} else if (loc != first() && loc < pageCount) {
+			free.set(loc);
+			if (loc == pageCount - 1) {
+				while (pageCount > 1 && free.get(pageCount - 1))
+					free.clear(--pageCount);
+				pageCounts.set(fileID, pageCount);
+			}
+		}
+	}
+
+	/**
+	 * Reads bytes from the specified {@code FileChannel} at the specified position until the specified buffer is full
+	 * or the end of the file is reached.
+	 * 
+	 * @param c
+	 *            a {@code FileChannel}
+	 * @param b
+	 *            a buffer
+	 * @param position
+	 *            the position in the file
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected static void readFully(FileChannel c, ByteBuffer b, long position) throws IOException {
+		while (b.hasRemaining()) {
+			int n = c.read(b, position);
+			if (n < 0)
+				return;
+			position += n;
+		}
+	}
+
+	/**
+	 * Writes all the remaining bytes of the specified buffer into the specified {@code FileChannel} at the specified
+	 * position.
+	 * 
+	 * @param c
+	 *            a {@code FileChannel}
+	 * @param b
+	 *            a buffer
+	 * @param position
+	 *            the position in the file
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected static void writeFully(FileChannel c, ByteBuffer b, long position) throws IOException {
+		while (b.hasRemaining())
+			position += c.write(b, position);
+	}
+
+}
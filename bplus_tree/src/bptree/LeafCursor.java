@@ -0,0 +1,118 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@code LeafCursor} enumerates the locations of the {@code LeafNode}s of a {@code BPlusTree} in key order using
+ * their parents rather than the successor pointers of the {@code LeafNode}s. It keeps the {@code NonLeafNode}s on the
+ * path from the root {@code Node} to the current {@code LeafNode} and the index of the child taken in each of them,
+ * so the next {@code LeafNode} can be found without reading the current one. A new parent is read from storage only
+ * when the cursor moves past the last child of the current parent.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class LeafCursor<K extends Comparable<K>, P> {
+
+	/**
+	 * The {@code BPlusTree} whose {@code LeafNode}s are enumerated.
+	 */
+	protected BPlusTree<K, P> tree;
+
+	/**
+	 * The {@code NonLeafNode}s from the root down to the parent of the current {@code LeafNode}.
+	 */
+	protected List<NonLeafNode<K, P>> ancestors;
+
+	/**
+	 * The index of the child on the path to the current {@code LeafNode} in each of the {@link #ancestors}.
+	 */
+	protected int[] indices;
+
+	/**
+	 * The upper bound of the keys of interest; {@code null} if there is no upper bound.
+	 */
+	protected K to;
+
+	/**
+	 * A flag indicating whether or not the upper bound is inclusive.
+	 */
+	protected boolean toInclusive;
+
+	/**
+	 * Constructs a {@code LeafCursor}.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param ancestors
+	 *            the {@code NonLeafNode}s from the root down to the parent of the current {@code LeafNode}; empty if
+	 *            the current {@code LeafNode} is the root
+	 * @param indices
+	 *            the index of the child on the path to the current {@code LeafNode} in each of the
+	 *            {@code NonLeafNode}s
+	 * @param to
+	 *            the upper bound of the keys of interest; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 */
+	public LeafCursor(BPlusTree<K, P> tree, List<NonLeafNode<K, P>> ancestors, int[] indices, K to,
+			boolean toInclusive) {
+		this.tree = tree;
+		this.ancestors = ancestors;
+		this.indices = indices;
+		this.to = to;
+		this.toInclusive = toInclusive;
+	}
+
+	/**
+	 * Moves this {@code LeafCursor} to the next {@code LeafNode}, reading the next parent from storage if needed.
+	 * 
+	 * @return the location of the next {@code LeafNode}; {@code null} if there is no such {@code LeafNode} that may
+	 *         contain a key not above the upper bound
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public P next() throws IOException {
+		int level = ancestors.size() - 1;
+		while (level >= 0 && indices[level] >= ancestors.get(level).keyCount()) // climb to a node with a next child
+			level--;
+		if (level < 0)
+			return null;
+		NonLeafNode<K, P> n = ancestors.get(level);
+		if (to != null) { // the next child starts at or after the key between the current and next children
+			int c = tree.compare(n.key(indices[level]), to);
+			if (c > 0 || c == 0 && !toInclusive)
+				return null;
+		}
+		P p = n.pointer(++indices[level]);
+		for (level++; level < ancestors.size(); level++) { // descend along the leftmost children
+			n = (NonLeafNode<K, P>) tree.node(p);
+			ancestors.set(level, n);
+			indices[level] = 0;
+			p = n.pointer(0);
+		}
+		return p;
+	}
+
+	/**
+	 * Returns the location of the {@code NonLeafNode} that follows the parent of the current {@code LeafNode} if the
+	 * current {@code LeafNode} is the last child of its parent and that {@code NonLeafNode} shares the grandparent with
+	 * the parent.
+	 * 
+	 * @return the location of the {@code NonLeafNode} that the next call to {@link #next()} will read; {@code null}
+	 *         if there is no such {@code NonLeafNode} or it is not known from the grandparent
+	 */
+	public P nextParent() {
+		int last = ancestors.size() - 1;
+		if (last < 1 || indices[last] < ancestors.get(last).keyCount())
+			return null;
+		NonLeafNode<K, P> g = ancestors.get(last - 1);
+		return indices[last - 1] < g.keyCount() ? g.pointer(indices[last - 1] + 1) : null;
+	}
+
+}
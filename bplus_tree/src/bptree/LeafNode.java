@@ -1,5 +1,7 @@
 package bptree;
 
+import java.util.Comparator;
+
 import bptree.BPlusTree.InvalidDeletionException;
 
 /**
@@ -50,12 +52,21 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 *            the pointer to insert
 	 */
 	public void insert(K k, P p) {
-		if (keyCount == 0 || k.compareTo(keys[0]) < 0)
-			insert(0, k, p);
-		else {
-			int i = findIndexL(k);
-			insert(i + 1, k, p);
-		}
+		insert(k, p, null);
+	}
+
+	/**
+	 * Inserts the specified key and pointer assuming that this {@code LeafNode} has room for them.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
+	 */
+	public void insert(K k, P p, Comparator<? super K> comparator) {
+		insert(findIndexL(k, comparator) + 1, k, p);
 	}
 
 	/**
@@ -102,11 +113,21 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 * @return the largest index i such that keys[i] < the given key; -1 if there is no such i
 	 */
 	protected int findIndexL(K key) {
-		for (int i = keyCount - 1; i >= 0; i--) {
-			if (keys[i].compareTo(key) < 0)
-				return i;
-		}
-		return -1;
+		return findIndexL(key, null);
+	}
+
+	/**
+	 * Returns the largest index i such that keys[i] < the given key.
+	 * 
+	 * @param key
+	 *            a key
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
+	 * @return the largest index i such that keys[i] < the given key; -1 if there is no such i
+	 */
+	protected int findIndexL(K key, Comparator<? super K> comparator) {
+		int i = binarySearch(key, comparator);
+		return i >= 0 ? i - 1 : -i - 2;
 	}
 
 	/**
@@ -130,10 +151,35 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 * @return {@code true} if the specified key is contained in this {@code LeafNode}; {@code false} otherwise
 	 */
 	public boolean contains(K k) {
-		for (int i = 0; i < keyCount; i++)
-			if (keys[i].compareTo(k) == 0)
-				return true;
-		return false;
+		return contains(k, null);
+	}
+
+	/**
+	 * Determines whether or not the specified key is contained in this {@code LeafNode}.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
+	 * @return {@code true} if the specified key is contained in this {@code LeafNode}; {@code false} otherwise
+	 */
+	public boolean contains(K k, Comparator<? super K> comparator) {
+		return binarySearch(k, comparator) >= 0;
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key in this {@code LeafNode}.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
+	 * @return the pointer associated with the specified key; {@code null} if the specified key is not contained in
+	 *         this {@code LeafNode}
+	 */
+	public P get(K k, Comparator<? super K> comparator) {
+		int i = binarySearch(k, comparator);
+		return i >= 0 ? pointers[i] : null;
 	}
 
 	/**
@@ -141,26 +187,17 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 * 
 	 * @param key
 	 *            a key
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
 	 * @throws InvalidDeletionException
 	 *             if a key non-existent in this {@code LeafNode} is attempted to be removed from this {@code LeafNode}.
 	 */
 	@Override
-	public void remove(K key) throws InvalidDeletionException {
-		int i = 0;
-		for (; i < keyCount; i++) {
-			if (keys[i].compareTo(key) == 0) {
-				for (int j = i; j < keyCount - 1; j++) {
-					keys[j] = keys[j + 1];
-					pointers[j] = pointers[j + 1];
-				}
-				break;
-			}
-		}
-		if (i == keyCount)
+	public void remove(K key, Comparator<? super K> comparator) throws InvalidDeletionException {
+		int i = binarySearch(key, comparator);
+		if (i < 0)
 			throw new InvalidDeletionException("key: " + key);
-		keyCount--;
-		keys[keyCount] = null;
-		pointers[keyCount] = null;
+		delete(i);
 	}
 
 	/**
@@ -172,7 +209,7 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 */
 	@Override
 	public boolean isUnderUtilized() {
-		throw new UnsupportedOperationException();
+		return keyCount < Math.ceil(keys.length / 2.0);
 	}
 
 	/**
@@ -185,7 +222,7 @@ public class LeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 */
 	@Override
 	public boolean mergeable(Node<K, P> other) {
-		throw new UnsupportedOperationException();
+		return keyCount + other.keyCount <= keys.length;
 	}
 
 	/**
@@ -0,0 +1,493 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import bptree.BPlusTree.InvalidDeletionException;
+import bptree.BPlusTree.InvalidInsertionException;
+
+/**
+ * The {@code LongBPlusTree} class implements B+-trees whose keys are {@code long}s and whose pointers are {@code int}s.
+ * It behaves like a {@code BPlusTree<Long, Integer>} but stores its keys and pointers in primitive arrays within
+ * {@code LongNode}s, so searching and updating a {@code LongNode} neither boxes keys nor compares them through
+ * {@code Comparable}. Since a {@code StorageManager} takes {@code Integer} locations, however, each read or write of a
+ * {@code LongNode} still boxes its location.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class LongBPlusTree {
+
+	/**
+	 * A {@code Path} remembers, for each level from the root, the {@code LongNode} visited while descending in a
+	 * {@code LongBPlusTree}, the pointer to that {@code LongNode}, and the index of that {@code LongNode} in its parent.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 *
+	 */
+	protected static class Path {
+
+		/**
+		 * The visited {@code LongNode}s.
+		 */
+		LongNode[] nodes = new LongNode[8];
+
+		/**
+		 * The pointers to the visited {@code LongNode}s.
+		 */
+		int[] pointers = new int[8];
+
+		/**
+		 * The index of each visited {@code LongNode} in its parent.
+		 */
+		int[] indices = new int[8];
+
+		/**
+		 * The number of visited {@code LongNode}s.
+		 */
+		int size;
+
+		/**
+		 * Clears this {@code Path}.
+		 */
+		void clear() {
+			Arrays.fill(nodes, 0, size, null);
+			size = 0;
+		}
+
+		/**
+		 * Appends the specified {@code LongNode} at the next level of this {@code Path}.
+		 * 
+		 * @param p
+		 *            a pointer to the {@code LongNode}
+		 * @param n
+		 *            a {@code LongNode}
+		 * @param i
+		 *            the index of the {@code LongNode} in its parent; -1 if the {@code LongNode} is the root
+		 */
+		void push(int p, LongNode n, int i) {
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				pointers = Arrays.copyOf(pointers, size * 2);
+				indices = Arrays.copyOf(indices, size * 2);
+			}
+			pointers[size] = p;
+			nodes[size] = n;
+			indices[size] = i;
+			size++;
+		}
+
+	}
+
+	/**
+	 * The maximum number of pointers that each {@code LongNode} of this {@code LongBPlusTree} can have.
+	 */
+	protected int degree;
+
+	/**
+	 * The {@code StorageManager} used for this {@code LongBPlusTree}.
+	 */
+	protected StorageManager<Integer, Object> sm;
+
+	/**
+	 * The ID of the file used for this {@code LongBPlusTree}.
+	 */
+	protected int fileID;
+
+	/**
+	 * The {@code Path} reused by the operations of this {@code LongBPlusTree} to remember the visited
+	 * {@code LongNode}s.
+	 */
+	protected Path path = new Path();
+
+	/**
+	 * Constructs a {@code LongBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code LongNode} of this {@code LongBPlusTree} can have
+	 * @param sm
+	 *            {@code StorageManager} used for this {@code LongBPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code LongBPlusTree}
+	 */
+	public LongBPlusTree(int degree, StorageManager<Integer, Object> sm, String fileName) {
+		this.degree = degree;
+		this.sm = sm;
+		this.fileID = sm.fileID(fileName);
+	}
+
+	/**
+	 * Returns the degree of this {@code LongBPlusTree}.
+	 * 
+	 * @return the degree of this {@code LongBPlusTree}
+	 */
+	public int degree() {
+		return degree;
+	}
+
+	/**
+	 * Returns the root {@code LongNode}.
+	 * 
+	 * @return the root {@code LongNode}; {@code null} if this {@code LongBPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public LongNode root() throws IOException {
+		int root = rootPointer();
+		return root == LongNode.NIL ? null : node(root);
+	}
+
+	/**
+	 * Returns the specified child {@code LongNode} of the specified {@code LongNonLeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LongNonLeafNode}
+	 * @param i
+	 *            the index of the child {@code LongNode}
+	 * @return the specified child {@code LongNode} of the specified {@code LongNonLeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public LongNode child(LongNonLeafNode node, int i) throws IOException {
+		int p = node.pointer(i);
+		return p == LongNode.NIL ? null : node(p);
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key in this {@code LongBPlusTree}.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@link LongNode#NIL} if the specified key is not
+	 *         contained in this {@code LongBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public int search(long k) throws IOException {
+		int root = rootPointer();
+		if (root == LongNode.NIL) // if the tree is empty
+			return LongNode.NIL;
+		LongNode n = node(root);
+		while (n instanceof LongNonLeafNode) // descend to the leaf node that must be responsible for the key
+			n = node(((LongNonLeafNode) n).child(k));
+		return ((LongLeafNode) n).get(k);
+	}
+
+	/**
+	 * Inserts the specified key and pointer into this {@code LongBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert, which must not be {@link LongNode#NIL}
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code LongBPlusTree} is attempted to be inserted again in the
+	 *             {@code LongBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void insert(long k, int p) throws InvalidInsertionException, IOException {
+		int root = rootPointer();
+		if (root == LongNode.NIL) {// if the tree is empty
+			LongLeafNode l = new LongLeafNode(degree); // create an empty root node
+			l.insert(k, p); // insert the specified key and pointer into leaf node l
+			saveAsRoot(l); // save node l as the new root
+		} else { // if the tree is not empty
+			LongLeafNode l_node = find(k, root); // find leaf node l that should contain the specified key
+			int l = path.pointers[path.size - 1];
+			if (l_node.contains(k)) // no duplicate keys are allowed in the tree
+				throw new InvalidInsertionException("key: " + k);
+			if (!l_node.isFull()) { // if leaf node l has room for the specified key
+				l_node.insert(k, p); // insert the specified key and pointer into leaf node l
+				save(l, l_node); // save node l on storage
+			} else { // if leaf node l is full and thus needs to be split
+				LongLeafNode t = new LongLeafNode(degree + 1); // create a temporary leaf node t
+				t.append(l_node, 0, degree - 2); // copy everything to temporary node t
+				t.insert(k, p); // insert the key and pointer into temporary node t
+				LongLeafNode lp = new LongLeafNode(degree); // create a new leaf node lp
+				lp.setSuccessor(l_node.successor()); // chaining from lp to the next leaf node
+				l_node.clear(); // clear leaf node l
+				int m = (int) Math.ceil(degree / 2.0); // compute the split point
+				l_node.append(t, 0, m - 1); // copy the first half to leaf node l
+				lp.append(t, m, degree - 1); // copy the second half to leaf node lp
+				int _lp = save(lp); // save node lp on storage and also get a pointer to node lp
+				l_node.setSuccessor(_lp); // chaining from leaf node l to leaf node lp
+				save(l, l_node); // save node l on storage
+				insertInParent(path.size - 1, lp.key(0), _lp); // use lp's first key as the separating key
+			}
+		}
+	}
+
+	/**
+	 * Finds the {@code LongLeafNode} that must be responsible for the specified key, remembering the {@code LongNode}s
+	 * visited on the way down from the root {@code LongNode}.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @param root
+	 *            a pointer to the root {@code LongNode}
+	 * @return the {@code LongLeafNode} which must be responsible for the specified key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected LongLeafNode find(long k, int root) throws IOException {
+		path.clear();
+		LongNode n = node(root);
+		path.push(root, n, -1);
+		while (n instanceof LongNonLeafNode) { // descend one level at a time
+			int i = ((LongNonLeafNode) n).childIndex(k);
+			int p = n.pointer(i);
+			n = node(p);
+			path.push(p, n, i);
+		}
+		return (LongLeafNode) n;
+	}
+
+	/**
+	 * Inserts the specified key and pointer into the parent of the {@code LongNode} at the specified level of the
+	 * current {@code Path}, right after the pointer to that {@code LongNode}, splitting ancestors as needed.
+	 * 
+	 * @param level
+	 *            the level of a {@code LongNode} in the current {@code Path}
+	 * @param k
+	 *            the key between the {@code LongNode}s
+	 * @param np
+	 *            a pointer to the {@code LongNode} that follows the {@code LongNode} at the specified level
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void insertInParent(int level, long k, int np) throws IOException {
+		for (;; level--) {
+			if (level == 0) { // if n is the root of the tree
+				saveAsRoot(new LongNonLeafNode(degree, path.pointers[0], k, np));
+				return;
+			}
+			LongNonLeafNode p_node = (LongNonLeafNode) path.nodes[level - 1]; // the parent p of n
+			int i = path.indices[level]; // the index of n in p
+			if (!p_node.isFull()) { // if parent node p has room for a new entry
+				p_node.insert(k, i, np, i + 1); // insert k and np right after n
+				save(path.pointers[level - 1], p_node); // save node p on storage
+				return;
+			}
+			LongNonLeafNode t = new LongNonLeafNode(degree + 1); // crate a temporary node
+			t.copy(p_node, 0, p_node.keyCount()); // copy everything of p to the temporary node
+			t.insert(k, i, np, i + 1); // insert k and np after n
+			LongNonLeafNode pp = new LongNonLeafNode(degree); // create a new node pp
+			int m = (int) Math.ceil(degree / 2.0); // compute the split point
+			p_node.copy(t, 0, m - 1); // copy the first half to parent node p
+			pp.copy(t, m, degree); // copy the second half to new node pp
+			np = save(pp); // save node pp
+			save(path.pointers[level - 1], p_node); // save node p on storage
+			k = t.key(m - 1); // use the middle key as the separating key
+		}
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code LongBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in a {@code LongBPlusTree} is attempted to be deleted from the
+	 *             {@code LongBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void delete(long k) throws InvalidDeletionException, IOException {
+		int root = rootPointer();
+		if (root == LongNode.NIL) // if the tree is empty
+			throw new InvalidDeletionException("key: " + k);
+		LongLeafNode l = find(k, root); // find leaf node l that should contain the specified key
+		l.remove(k); // remove the key and its pointer from leaf node l
+		deleteEntry(path.size - 1);
+	}
+
+	/**
+	 * Restores the utilization of the {@code LongNode} at the specified level of the current {@code Path}, from which
+	 * an entry has been removed, by redistributing entries with or merging it with a sibling {@code LongNode}.
+	 * 
+	 * @param level
+	 *            the level of the {@code LongNode} from which an entry has been removed
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void deleteEntry(int level) throws IOException {
+		for (;; level--) {
+			LongNode n = path.nodes[level];
+			if (level == 0) { // if n is the root of the tree
+				if (n.keyCount() > 0)
+					save(path.pointers[level], n);
+				else { // the only child becomes the new root or the tree becomes empty
+					sm.put(fileID, sm.first(), n instanceof LongLeafNode ? null : n.pointer(0));
+					sm.remove(fileID, path.pointers[level]);
+				}
+				return;
+			}
+			if (!n.isUnderUtilized()) {
+				save(path.pointers[level], n);
+				return;
+			}
+			LongNonLeafNode p_node = (LongNonLeafNode) path.nodes[level - 1]; // the parent p of n
+			int i = path.indices[level]; // the index of n in p
+			boolean nIsLeft = i == 0; // use the left sibling of n unless n is the first child
+			int iK = nIsLeft ? i : i - 1; // the index of the key between n and its sibling
+			int s = p_node.pointer(nIsLeft ? i + 1 : i - 1);
+			LongNode s_node = node(s);
+			int l = nIsLeft ? path.pointers[level] : s;
+			int r = nIsLeft ? s : path.pointers[level];
+			LongNode l_node = nIsLeft ? n : s_node;
+			LongNode r_node = nIsLeft ? s_node : n;
+			if (l_node.mergeable(r_node)) { // if n and its sibling fit in a single node
+				merge(l_node, p_node.key(iK), r_node); // move everything in r into l
+				save(l, l_node);
+				sm.remove(fileID, r);
+				p_node.delete(iK, iK + 1); // remove the key and pointer to r from parent node p
+			} else { // if n needs to borrow entries from its sibling
+				long key = p_node.key(iK);
+				while (n.isUnderUtilized())
+					key = nIsLeft ? borrowFromRight(l_node, key, r_node) : borrowFromLeft(l_node, key, r_node);
+				p_node.keys[iK] = key; // update the key between l and r
+				save(l, l_node);
+				save(r, r_node);
+				save(path.pointers[level - 1], p_node);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Moves all of the entries of the specified right {@code LongNode} into the specified left {@code LongNode}.
+	 * 
+	 * @param l
+	 *            a {@code LongNode}
+	 * @param k
+	 *            the key between the {@code LongNode}s in their parent
+	 * @param r
+	 *            the {@code LongNode} right after the left {@code LongNode}
+	 */
+	protected void merge(LongNode l, long k, LongNode r) {
+		if (l instanceof LongLeafNode) {
+			l.append(r, 0, r.keyCount() - 1);
+			((LongLeafNode) l).setSuccessor(((LongLeafNode) r).successor());
+		} else {
+			LongNonLeafNode nl = (LongNonLeafNode) l;
+			nl.insert(k, nl.keyCount(), r.pointer(0), nl.keyCount() + 1); // the key between l and r moves down
+			for (int i = 0; i < r.keyCount(); i++)
+				nl.insert(r.key(i), nl.keyCount(), r.pointer(i + 1), nl.keyCount() + 1);
+		}
+	}
+
+	/**
+	 * Moves the first entry of the specified right {@code LongNode} to the end of the specified left {@code LongNode}.
+	 * 
+	 * @param l
+	 *            a {@code LongNode}
+	 * @param k
+	 *            the key between the {@code LongNode}s in their parent
+	 * @param r
+	 *            the {@code LongNode} right after the left {@code LongNode}
+	 * @return the new key between the {@code LongNode}s
+	 */
+	protected long borrowFromRight(LongNode l, long k, LongNode r) {
+		if (l instanceof LongLeafNode) {
+			((LongLeafNode) l).insert(l.keyCount(), r.key(0), r.pointer(0));
+			((LongLeafNode) r).delete(0);
+			return r.key(0);
+		} else {
+			LongNonLeafNode ln = (LongNonLeafNode) l;
+			ln.insert(k, ln.keyCount(), r.pointer(0), ln.keyCount() + 1); // the key between l and r moves down
+			long key = r.key(0); // the first key of r moves up
+			((LongNonLeafNode) r).delete(0, 0);
+			return key;
+		}
+	}
+
+	/**
+	 * Moves the last entry of the specified left {@code LongNode} to the front of the specified right {@code LongNode}.
+	 * 
+	 * @param l
+	 *            a {@code LongNode}
+	 * @param k
+	 *            the key between the {@code LongNode}s in their parent
+	 * @param r
+	 *            the {@code LongNode} right after the left {@code LongNode}
+	 * @return the new key between the {@code LongNode}s
+	 */
+	protected long borrowFromLeft(LongNode l, long k, LongNode r) {
+		int last = l.keyCount() - 1;
+		if (l instanceof LongLeafNode) {
+			((LongLeafNode) r).insert(0, l.key(last), l.pointer(last));
+			((LongLeafNode) l).delete(last);
+			return r.key(0);
+		} else {
+			((LongNonLeafNode) r).insert(k, 0, l.pointer(last + 1), 0); // the key between l and r moves down
+			long key = l.key(last); // the last key of l moves up
+			((LongNonLeafNode) l).delete(last, last + 1);
+			return key;
+		}
+	}
+
+	/**
+	 * Saves the specified {@code LongNode} as the new root {@code LongNode} on storage.
+	 * 
+	 * @param n
+	 *            a {@code LongNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void saveAsRoot(LongNode n) throws IOException {
+		sm.put(fileID, sm.first(), save(n));
+	}
+
+	/**
+	 * Saves the specified {@code LongNode} on storage.
+	 * 
+	 * @param p
+	 *            a pointer to the {@code LongNode}
+	 * @param n
+	 *            a {@code LongNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void save(int p, LongNode n) throws IOException {
+		sm.put(fileID, p, n);
+	}
+
+	/**
+	 * Saves the specified {@code LongNode} on storage.
+	 * 
+	 * @param n
+	 *            a {@code LongNode}
+	 * @return a pointer to the {@code LongNode} after saving it on storage
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected int save(LongNode n) throws IOException {
+		return sm.add(fileID, n);
+	}
+
+	/**
+	 * Returns the pointer to the root {@code LongNode}.
+	 * 
+	 * @return the pointer to the root {@code LongNode}; {@link LongNode#NIL} if this {@code LongBPlusTree} is empty
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected int rootPointer() throws IOException {
+		Integer root = (Integer) sm.get(fileID, sm.first());
+		return root == null ? LongNode.NIL : root;
+	}
+
+	/**
+	 * Returns the specified {@code LongNode}.
+	 * 
+	 * @param p
+	 *            a pointer to a {@code LongNode}
+	 * @return the specified {@code LongNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected LongNode node(int p) throws IOException {
+		return (LongNode) sm.get(fileID, p);
+	}
+
+}
@@ -0,0 +1,149 @@
+package bptree;
+
+import bptree.BPlusTree.InvalidDeletionException;
+import bptree.BPlusTree.InvalidInsertionException;
+
+/**
+ * The {@code LongLeafNode} class implements leaf nodes in a {@code LongBPlusTree}. As in {@code LeafNode}, the last
+ * pointer of each {@code LongLeafNode} points to its successor.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class LongLeafNode extends LongNode {
+
+	/**
+	 * An automatically generated serial version UID.
+	 */
+	private static final long serialVersionUID = -7150446178916203538L;
+
+	/**
+	 * Constructs a {@code LongLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongLeafNode}
+	 */
+	public LongLeafNode(int degree) {
+		super(degree);
+	}
+
+	/**
+	 * Inserts the specified key and pointer assuming that this {@code LongLeafNode} has room for them.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if the specified key is already contained in this {@code LongLeafNode}
+	 */
+	public void insert(long k, int p) throws InvalidInsertionException {
+		int i = binarySearch(k);
+		if (i >= 0)
+			throw new InvalidInsertionException("key: " + k);
+		insert(-i - 1, k, p);
+	}
+
+	/**
+	 * Inserts the specified key and pointer at the specified index.
+	 * 
+	 * @param i
+	 *            the index at which the key and pointer are inserted
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            a pointer
+	 */
+	public void insert(int i, long k, int p) {
+		System.arraycopy(keys, i, keys, i + 1, keyCount - i);
+		System.arraycopy(pointers, i, pointers, i + 1, keyCount - i);
+		keys[i] = k;
+		pointers[i] = p;
+		keyCount++;
+	}
+
+	/**
+	 * Removes a key and a pointer at the specified index.
+	 * 
+	 * @param i
+	 *            the index at which the key and pointer are deleted
+	 */
+	public void delete(int i) {
+		System.arraycopy(keys, i + 1, keys, i, keyCount - i - 1);
+		System.arraycopy(pointers, i + 1, pointers, i, keyCount - i - 1);
+		keyCount--;
+		pointers[keyCount] = NIL;
+	}
+
+	/**
+	 * Determines whether or not the specified key is contained in this {@code LongLeafNode}.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return {@code true} if the specified key is contained in this {@code LongLeafNode}; {@code false} otherwise
+	 */
+	public boolean contains(long k) {
+		return binarySearch(k) >= 0;
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key in this {@code LongLeafNode}.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the pointer associated with the specified key; {@link #NIL} if the specified key is not contained in this
+	 *         {@code LongLeafNode}
+	 */
+	public int get(long k) {
+		int i = binarySearch(k);
+		return i >= 0 ? pointers[i] : NIL;
+	}
+
+	/**
+	 * Removes the specified key and a relevant pointer from this {@code LongLeafNode}.
+	 * 
+	 * @param key
+	 *            a key
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code LongLeafNode} is attempted to be removed from this
+	 *             {@code LongLeafNode}.
+	 */
+	public void remove(long key) throws InvalidDeletionException {
+		int i = binarySearch(key);
+		if (i < 0)
+			throw new InvalidDeletionException("key: " + key);
+		delete(i);
+	}
+
+	/**
+	 * Sets the pointer to the successor of this {@code LongLeafNode}.
+	 * 
+	 * @param p
+	 *            a pointer to the new successor of this {@code LongLeafNode}
+	 * @return a pointer to the previous successor of this {@code LongLeafNode}
+	 */
+	public int setSuccessor(int p) {
+		int s = pointers[pointers.length - 1];
+		pointers[pointers.length - 1] = p;
+		return s;
+	}
+
+	/**
+	 * Returns a pointer to the succeeding {@code LongLeafNode}.
+	 * 
+	 * @return a pointer to the succeeding {@code LongLeafNode}; {@link #NIL} if no succeeding {@code LongLeafNode}
+	 */
+	public int successor() {
+		return pointers[pointers.length - 1];
+	}
+
+	@Override
+	public boolean isUnderUtilized() {
+		return keyCount < Math.ceil(keys.length / 2.0);
+	}
+
+	@Override
+	public boolean mergeable(LongNode other) {
+		return keyCount + other.keyCount <= keys.length;
+	}
+
+}
@@ -0,0 +1,161 @@
+package bptree;
+
+import java.util.Arrays;
+
+/**
+ * The {@code LongNode} class implements nodes that constitute a {@code LongBPlusTree}. Unlike {@code Node}, a
+ * {@code LongNode} keeps its keys in a {@code long} array and its pointers in an {@code int} array so that neither keys
+ * nor pointers are boxed and keys are compared without calling {@code compareTo}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public abstract class LongNode implements java.io.Serializable {
+
+	/**
+	 * An automatically generated serial version UID.
+	 */
+	private static final long serialVersionUID = 3412087536201349823L;
+
+	/**
+	 * The value representing the absence of a pointer.
+	 */
+	public static final int NIL = -1;
+
+	/**
+	 * The number of keys that this {@code LongNode} currently maintains.
+	 */
+	protected int keyCount;
+
+	/**
+	 * The keys that this {@code LongNode} maintains.
+	 */
+	protected long[] keys;
+
+	/**
+	 * The pointers that this {@code LongNode} maintains.
+	 */
+	protected int[] pointers;
+
+	/**
+	 * Constructs a {@code LongNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongNode}
+	 */
+	public LongNode(int degree) {
+		keyCount = 0;
+		keys = new long[degree - 1];
+		pointers = new int[degree];
+		Arrays.fill(pointers, NIL);
+	}
+
+	/**
+	 * Returns a string representation of this {@code LongNode}.
+	 */
+	public String toString() {
+		String s = "(";
+		for (int i = 0; i < keys.length; i++)
+			s += ((i == 0 ? "" : ", ") + pointer(i) + ", " + (i < keyCount ? "" + keys[i] : null));
+		return s + ", " + pointer(keys.length) + ")";
+	}
+
+	/**
+	 * Returns the number of keys in this {@code LongNode}.
+	 * 
+	 * @return the number of keys in this {@code LongNode}
+	 */
+	public int keyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * Returns the key at the specified index.
+	 * 
+	 * @param i
+	 *            the index of the key
+	 * @return the key at the specified index
+	 */
+	public long key(int i) {
+		return keys[i];
+	}
+
+	/**
+	 * Returns the pointer at the specified index.
+	 * 
+	 * @param i
+	 *            the index of the pointer
+	 * @return the pointer at the specified index; {@link #NIL} if no such pointer
+	 */
+	public int pointer(int i) {
+		return pointers[i];
+	}
+
+	/**
+	 * Appends the specified keys and their pointers of the specified {@code LongNode} into this {@code LongNode}.
+	 * 
+	 * @param node
+	 *            a {@code LongNode}
+	 * @param beginIndex
+	 *            the beginning index of the keys, inclusive
+	 * @param endIndex
+	 *            the ending index of the keys, inclusive
+	 */
+	public void append(LongNode node, int beginIndex, int endIndex) {
+		int n = endIndex - beginIndex + 1;
+		if (n <= 0)
+			return;
+		System.arraycopy(node.keys, beginIndex, keys, keyCount, n);
+		System.arraycopy(node.pointers, beginIndex, pointers, keyCount, n);
+		keyCount += n;
+	}
+
+	/**
+	 * Clears this {@code LongNode}.
+	 */
+	public void clear() {
+		keyCount = 0;
+		Arrays.fill(pointers, NIL);
+	}
+
+	/**
+	 * Determines whether or not this {@code LongNode} is full and thus cannot contain more keys.
+	 * 
+	 * @return {@code true} if this {@code LongNode} is full and thus cannot contain more keys; {@code false} otherwise
+	 */
+	public boolean isFull() {
+		return keyCount >= keys.length;
+	}
+
+	/**
+	 * Searches the keys of this {@code LongNode} for the specified key using binary search.
+	 * 
+	 * @param key
+	 *            a key
+	 * @return the index of the specified key if it is contained in this {@code LongNode}; otherwise,
+	 *         <code>(-(<i>insertion point</i>) - 1)</code> where the insertion point is the index of the first key
+	 *         greater than the specified key (or {@code keyCount()} if no such key)
+	 */
+	protected int binarySearch(long key) {
+		return Arrays.binarySearch(keys, 0, keyCount, key);
+	}
+
+	/**
+	 * Determines whether or not this {@code LongNode} is under-utilized and thus some action such as merging or
+	 * redistribution is needed.
+	 * 
+	 * @return {@code true} if this {@code LongNode} is under-utilized and thus some action such as merging or
+	 *         redistribution is needed; {@code false} otherwise
+	 */
+	public abstract boolean isUnderUtilized();
+
+	/**
+	 * Determines whether or not this {@code LongNode} can be merged with the specified {@code LongNode}.
+	 * 
+	 * @param other
+	 *            another {@code LongNode}
+	 * @return {@code true} if this {@code LongNode} can be merged with the specified {@code LongNode}; {@code false}
+	 *         otherwise
+	 */
+	public abstract boolean mergeable(LongNode other);
+
+}
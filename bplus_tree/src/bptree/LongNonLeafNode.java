@@ -0,0 +1,143 @@
+package bptree;
+
+/**
+ * The {@code LongNonLeafNode} class implements non-leaf nodes in a {@code LongBPlusTree}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class LongNonLeafNode extends LongNode {
+
+	/**
+	 * An automatically generated serial version UID.
+	 */
+	private static final long serialVersionUID = 5902617334598128441L;
+
+	/**
+	 * Constructs a {@code LongNonLeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongNonLeafNode}
+	 */
+	public LongNonLeafNode(int degree) {
+		super(degree);
+	}
+
+	/**
+	 * Constructs a {@code LongNonLeafNode} while adding the specified key and pointers.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongNonLeafNode}
+	 * @param n
+	 *            a pointer to a {@code LongNode}
+	 * @param key
+	 *            a key
+	 * @param nn
+	 *            a pointer to a {@code LongNode}
+	 */
+	public LongNonLeafNode(int degree, int n, long key, int nn) {
+		this(degree);
+		pointers[0] = n;
+		keys[0] = key;
+		pointers[1] = nn;
+		keyCount = 1;
+	}
+
+	/**
+	 * Returns the index of the child {@code LongNode} of this {@code LongNonLeafNode} that must be responsible for the
+	 * specified key.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the index of the child {@code LongNode} of this {@code LongNonLeafNode} that must be responsible for the
+	 *         specified key
+	 */
+	public int childIndex(long k) {
+		int i = binarySearch(k);
+		return i >= 0 ? i + 1 : -i - 1;
+	}
+
+	/**
+	 * Returns a pointer to the child {@code LongNode} of this {@code LongNonLeafNode} that must be responsible for the
+	 * specified key.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return a pointer to the child {@code LongNode} of this {@code LongNonLeafNode} that must be responsible for the
+	 *         specified key
+	 */
+	public int child(long k) {
+		return pointers[childIndex(k)];
+	}
+
+	/**
+	 * Returns the number of children that this {@code LongNonLeafNode} has.
+	 * 
+	 * @return the number of children that this {@code LongNonLeafNode} has
+	 */
+	public int childCount() {
+		return keyCount + 1;
+	}
+
+	/**
+	 * Copies the specified keys and pointers of the specified {@code LongNonLeafNode} into this
+	 * {@code LongNonLeafNode}.
+	 * 
+	 * @param node
+	 *            a {@code LongNonLeafNode}
+	 * @param beginIndex
+	 *            the beginning index of the keys, inclusive
+	 * @param endIndex
+	 *            the ending index of the pointers, inclusive
+	 */
+	public void copy(LongNonLeafNode node, int beginIndex, int endIndex) {
+		clear();
+		super.append(node, beginIndex, endIndex - 1);
+		this.pointers[keyCount] = node.pointers[keyCount + beginIndex];
+	}
+
+	/**
+	 * Inserts a key and pointer at the specified indices.
+	 * 
+	 * @param k
+	 *            a key
+	 * @param iK
+	 *            the index at which the key is inserted
+	 * @param p
+	 *            a pointer to a {@code LongNode}
+	 * @param iP
+	 *            the index at which the pointer is inserted
+	 */
+	public void insert(long k, int iK, int p, int iP) {
+		System.arraycopy(keys, iK, keys, iK + 1, keyCount - iK);
+		keys[iK] = k;
+		System.arraycopy(pointers, iP, pointers, iP + 1, keyCount + 1 - iP);
+		pointers[iP] = p;
+		keyCount++;
+	}
+
+	/**
+	 * Removes the key and pointer at the specified indices.
+	 * 
+	 * @param iK
+	 *            the index at which the key is deleted
+	 * @param iP
+	 *            the index at which the pointer is deleted
+	 */
+	public void delete(int iK, int iP) {
+		System.arraycopy(keys, iK + 1, keys, iK, keyCount - iK - 1);
+		System.arraycopy(pointers, iP + 1, pointers, iP, keyCount - iP);
+		pointers[keyCount] = NIL;
+		keyCount--;
+	}
+
+	@Override
+	public boolean isUnderUtilized() {
+		return childCount() < Math.ceil(pointers.length / 2.0);
+	}
+
+	@Override
+	public boolean mergeable(LongNode other) {
+		return keyCount + other.keyCount + 1 <= keys.length; // the separating key also moves into the merged node
+	}
+
+}
@@ -0,0 +1,242 @@
+package bptree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@code MappedStorageManager} is a {@code FileStorageManager} that memory-maps its files. Each file is mapped in
+ * chunks of a fixed number of pages, and a new chunk is mapped whenever a page beyond the chunks mapped so far is
+ * written. Pages are read and written through the mappings, so {@link #get(int, Integer)}
+ * decodes an object directly from the mapped page without a system call or a copy into a heap byte array. The
+ * files use the same format as those of {@code FileStorageManager}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class MappedStorageManager extends FileStorageManager {
+
+	/**
+	 * The default number of pages in each mapped chunk.
+	 */
+	public static final int DEFAULT_PAGES_PER_CHUNK = 4096;
+
+	/**
+	 * The number of pages in each mapped chunk.
+	 */
+	protected int pagesPerChunk;
+
+	/**
+	 * The mapped chunks of each open file, indexed by file ID. Since {@link #prefetch(int, Integer)} may run on other
+	 * threads, this list and the lists in it are changed only while holding the lock of this list.
+	 */
+	protected List<List<MappedByteBuffer>> chunks = new ArrayList<List<MappedByteBuffer>>();
+
+	/**
+	 * Constructs a {@code MappedStorageManager} that uses pages of {@link #DEFAULT_PAGE_SIZE} bytes and chunks of
+	 * {@link #DEFAULT_PAGES_PER_CHUNK} pages.
+	 * 
+	 * @param directory
+	 *            the directory containing the files
+	 */
+	public MappedStorageManager(File directory) {
+		this(directory, DEFAULT_PAGE_SIZE, DEFAULT_PAGES_PER_CHUNK);
+	}
+
+	/**
+	 * Constructs a {@code MappedStorageManager}.
+	 * 
+	 * @param directory
+	 *            the directory containing the files
+	 * @param pageSize
+	 *            the size of pages in bytes
+	 * @param pagesPerChunk
+	 *            the number of pages in each mapped chunk
+	 * @throws IllegalArgumentException
+	 *             if the page size is too small to hold the header of a file or a chunk would exceed 2 GB
+	 */
+	public MappedStorageManager(File directory, int pageSize, int pagesPerChunk) {
+		this(directory, pageSize, pagesPerChunk, new SerializationCodec());
+	}
+
+	/**
+	 * Constructs a {@code MappedStorageManager}.
+	 * 
+	 * @param directory
+	 *            the directory containing the files
+	 * @param pageSize
+	 *            the size of pages in bytes
+	 * @param pagesPerChunk
+	 *            the number of pages in each mapped chunk
+	 * @param codec
+	 *            the {@code NodeCodec} that encodes the objects in the pages
+	 * @throws IllegalArgumentException
+	 *             if the page size is too small to hold the header of a file or a chunk would exceed 2 GB
+	 */
+	public MappedStorageManager(File directory, int pageSize, int pagesPerChunk, NodeCodec codec) {
+		super(directory, pageSize, codec);
+		if (pagesPerChunk < 1 || (long) pageSize * pagesPerChunk > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("pages per chunk: " + pagesPerChunk);
+		this.pagesPerChunk = pagesPerChunk;
+	}
+
+	/**
+	 * Forces all the pages written so far to be stored on the storage devices.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void flush() throws IOException {
+		for (List<MappedByteBuffer> l : chunks)
+			for (MappedByteBuffer c : l)
+				c.force();
+	}
+
+	/**
+	 * Closes all the files of this {@code MappedStorageManager} after cutting off the unused pages at the end of the
+	 * last chunk of each file.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		synchronized (chunks) {
+			chunks.clear();
+		}
+		super.close();
+	}
+
+	/**
+	 * Opens the specified file, creating it and its header page if it does not exist, and maps the pages of the file.
+	 * Empty pages at the end of the file, which may be left by a mapped chunk that was not cut off, are not counted as
+	 * pages of the file by {@link FileStorageManager#open(File)}.
+	 * 
+	 * @param file
+	 *            a file
+	 * @return the ID of the file
+	 * @throws IOException
+	 *             if an I/O error occurs or the file is not a valid file of this {@code MappedStorageManager}
+	 */
+	@Override
+	protected int open(File file) throws IOException {
+		int fileID = super.open(file);
+		synchronized (chunks) {
+			chunks.add(new ArrayList<MappedByteBuffer>());
+		}
+		map(fileID, pageCounts.get(fileID) - 1);
+		return fileID;
+	}
+
+	/**
+	 * Touches the specified page in its mapping so that the page is brought into memory before it is read by
+	 * {@link #get(int, Integer)}. Pages beyond the chunks mapped so far and pages of closed files are ignored. The
+	 * view of the page is taken while holding the lock of {@link #chunks}, so this method may be called from any
+	 * thread.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the page
+	 */
+	@Override
+	public void prefetch(int fileID, Integer loc) {
+		ByteBuffer b;
+		synchronized (chunks) {
+			if (fileID >= chunks.size() || loc / pagesPerChunk >= chunks.get(fileID).size())
+				return;
+			b = page(fileID, loc);
+		}
+		for (int i = b.position(); i < b.limit(); i += 4096) // one byte in every memory page of the page
+			b.get(i);
+	}
+
+	/**
+	 * Returns a view of the specified page in its mapping.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the page
+	 * @return a {@code ByteBuffer} whose remaining bytes are the encoded object in the specified page; {@code null} if
+	 *         the page holds no object
+	 * @throws IOException
+	 *             if the page is corrupt
+	 */
+	@Override
+	protected ByteBuffer read(int fileID, int loc) throws IOException {
+		if (loc / pagesPerChunk >= chunks.get(fileID).size()) // a page reserved but not written yet
+			return null;
+		return content(page(fileID, loc), fileID, loc);
+	}
+
+	/**
+	 * Writes the specified content into the specified page, mapping a new chunk if the page is beyond the chunks
+	 * mapped so far.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the page
+	 * @param b
+	 *            the content of the page; {@code null} if the page holds no object
+	 * @throws IOException
+	 *             if an I/O error occurs or the content does not fit in a page
+	 */
+	@Override
+	protected void write(int fileID, int loc, byte[] b) throws IOException {
+		checkFit(loc, b);
+		int length = b == null ? 0 : b.length;
+		map(fileID, loc);
+		ByteBuffer p = page(fileID, loc);
+		if (loc == first())
+			p.position(p.position() + HEADER_SIZE);
+		p.putInt(length);
+		if (b != null)
+			p.put(b);
+		written(fileID, loc, b == null);
+	}
+
+	/**
+	 * Returns a {@code ByteBuffer} that covers the specified page.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the page, which must be mapped
+	 * @return a {@code ByteBuffer} that covers the specified page
+	 */
+	protected ByteBuffer page(int fileID, int loc) {
+		ByteBuffer b = chunks.get(fileID).get(loc / pagesPerChunk).duplicate();
+		int offset = loc % pagesPerChunk * pageSize;
+		b.limit(offset + pageSize).position(offset);
+		return b;
+	}
+
+	/**
+	 * Maps chunks of the specified file until the specified page is mapped.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of a page
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void map(int fileID, int loc) throws IOException {
+		List<MappedByteBuffer> l = chunks.get(fileID);
+		while (l.size() <= loc / pagesPerChunk) {
+			MappedByteBuffer c = channels.get(fileID).map(FileChannel.MapMode.READ_WRITE,
+					(long) l.size() * pagesPerChunk * pageSize, (long) pagesPerChunk * pageSize);
+			synchronized (chunks) {
+				l.add(c);
+			}
+		}
+	}
+
+}
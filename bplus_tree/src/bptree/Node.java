@@ -1,5 +1,11 @@
 package bptree;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
 import bptree.BPlusTree.InvalidDeletionException;
 
 /**
@@ -14,9 +20,11 @@ import bptree.BPlusTree.InvalidDeletionException;
 public abstract class Node<K extends Comparable<K>, P> implements java.io.Serializable {
 
 	/**
-	 * An automatically generated serial version UID.
+	 * The serial version UID, which was changed when {@link #writeObject(ObjectOutputStream)} started to write the
+	 * common prefix of {@code String} keys once, so that {@code Node}s serialized in the earlier format are rejected
+	 * rather than misread.
 	 */
-	private static final long serialVersionUID = -4653032690694061325L;
+	private static final long serialVersionUID = 2707417358937519512L;
 
 	/**
 	 * The number of keys that this {@code Node} currently maintains.
@@ -24,15 +32,27 @@ public abstract class Node<K extends Comparable<K>, P> implements java.io.Serial
 	protected int keyCount;
 
 	/**
-	 * The keys that this {@code Node} maintains.
+	 * The keys that this {@code Node} maintains. The keys are serialized by {@link #writeObject(ObjectOutputStream)}.
 	 */
-	protected K[] keys;
+	protected transient K[] keys;
 
 	/**
 	 * The pointers that this {@code Node} maintains.
 	 */
 	protected P[] pointers;
 
+	/**
+	 * The smallest key that this {@code Node} is not responsible for; {@code null} if there is no such bound. High keys
+	 * are kept only by {@code BLinkBPlusTree}s, which set them when {@code Node}s split.
+	 */
+	protected K high;
+
+	/**
+	 * The version of this {@code Node}, which is used only by {@code OptimisticBPlusTree}s: even while this
+	 * {@code Node} is current and odd once it has been replaced or removed.
+	 */
+	protected transient volatile long version;
+
 	/**
 	 * Constructs a {@code Node}.
 	 * 
@@ -87,6 +107,37 @@ public abstract class Node<K extends Comparable<K>, P> implements java.io.Serial
 		return pointers[i];
 	}
 
+	/**
+	 * Sets the pointer at the specified index.
+	 * 
+	 * @param i
+	 *            the index of the pointer
+	 * @param p
+	 *            a pointer
+	 */
+	protected void setPointer(int i, P p) {
+		pointers[i] = p;
+	}
+
+	/**
+	 * Returns the high key of this {@code Node}.
+	 * 
+	 * @return the smallest key that this {@code Node} is not responsible for; {@code null} if there is no such bound
+	 */
+	public K highKey() {
+		return high;
+	}
+
+	/**
+	 * Sets the high key of this {@code Node}.
+	 * 
+	 * @param high
+	 *            the smallest key that this {@code Node} is not responsible for; {@code null} if there is no such bound
+	 */
+	public void setHighKey(K high) {
+		this.high = high;
+	}
+
 	/**
 	 * Appends the specified keys and their pointers of the specified {@code Node} into this {@code Node}.
 	 * 
@@ -125,15 +176,103 @@ public abstract class Node<K extends Comparable<K>, P> implements java.io.Serial
 		return keyCount >= keys.length;
 	}
 
+	/**
+	 * Returns the longest common prefix of the keys of this {@code Node}.
+	 * 
+	 * @return the longest common prefix of the keys of this {@code Node}; {@code null} if this {@code Node} has no
+	 *         keys or its keys are not {@code String}s
+	 */
+	protected String commonPrefix() {
+		if (keyCount == 0 || !(keys[0] instanceof String))
+			return null;
+		String prefix = (String) keys[0];
+		for (int i = 1; i < keyCount && prefix.length() > 0; i++) {
+			String k = (String) keys[i];
+			int j = 0;
+			while (j < prefix.length() && j < k.length() && prefix.charAt(j) == k.charAt(j))
+				j++;
+			prefix = prefix.substring(0, j);
+		}
+		return prefix;
+	}
+
+	/**
+	 * Writes this {@code Node} to the specified {@code ObjectOutputStream}. If the keys are {@code String}s, their
+	 * common prefix is written only once, followed by the remaining suffix of each key.
+	 * 
+	 * @param out
+	 *            an {@code ObjectOutputStream}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		String prefix = commonPrefix();
+		out.writeObject(prefix);
+		for (int i = 0; i < keyCount; i++)
+			out.writeObject(prefix == null ? keys[i] : ((String) keys[i]).substring(prefix.length()));
+	}
+
+	/**
+	 * Reads a {@code Node} written by {@link #writeObject(ObjectOutputStream)} from the specified
+	 * {@code ObjectInputStream}.
+	 * 
+	 * @param in
+	 *            an {@code ObjectInputStream}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @throws ClassNotFoundException
+	 *             if the class of a key cannot be found
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		keys = (K[]) new Comparable[pointers.length - 1];
+		String prefix = (String) in.readObject();
+		for (int i = 0; i < keyCount; i++) {
+			Object k = in.readObject();
+			keys[i] = (K) (prefix == null ? k : prefix + k);
+		}
+	}
+
+	/**
+	 * Searches the keys of this {@code Node} for the specified key using binary search.
+	 * 
+	 * @param key
+	 *            a key
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
+	 * @return the index of the specified key if it is contained in this {@code Node}; otherwise,
+	 *         <code>(-(<i>insertion point</i>) - 1)</code> where the insertion point is the index of the first key
+	 *         greater than the specified key (or {@code keyCount()} if no such key)
+	 */
+	protected int binarySearch(K key, Comparator<? super K> comparator) {
+		return Arrays.binarySearch(keys, 0, keyCount, key, comparator);
+	}
+
+	/**
+	 * Removes the specified key and a relevant pointer from this {@code Node}.
+	 * 
+	 * @param key
+	 *            a key
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code Node} is attempted to be removed from this {@code Node}.
+	 */
+	public void remove(K key) throws InvalidDeletionException {
+		remove(key, null);
+	}
+
 	/**
 	 * Removes the specified key and a relevant pointer from this {@code Node}.
 	 * 
 	 * @param key
 	 *            a key
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
 	 * @throws InvalidDeletionException
 	 *             if a key non-existent in this {@code Node} is attempted to be removed from this {@code Node}.
 	 */
-	public abstract void remove(K key) throws InvalidDeletionException;
+	public abstract void remove(K key, Comparator<? super K> comparator) throws InvalidDeletionException;
 
 	/**
 	 * Determines whether or not this {@code Node} is under-utilized and thus some action such as merging or
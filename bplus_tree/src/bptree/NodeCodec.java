@@ -0,0 +1,35 @@
+package bptree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@code NodeCodec} converts the objects kept by a {@code StorageManager}, mostly {@code Node}s, into bytes and back.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public interface NodeCodec {
+
+	/**
+	 * Encodes the specified object.
+	 * 
+	 * @param o
+	 *            an object
+	 * @return the bytes representing the specified object; {@code null} if the specified object is {@code null}
+	 * @throws IOException
+	 *             if the specified object cannot be encoded
+	 */
+	byte[] encode(Object o) throws IOException;
+
+	/**
+	 * Decodes an object from the remaining bytes of the specified {@code ByteBuffer}.
+	 * 
+	 * @param b
+	 *            a {@code ByteBuffer} containing the bytes produced by {@link #encode(Object)}
+	 * @return the decoded object
+	 * @throws IOException
+	 *             if the bytes cannot be decoded
+	 */
+	Object decode(ByteBuffer b) throws IOException;
+
+}
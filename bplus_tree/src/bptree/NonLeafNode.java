@@ -1,5 +1,7 @@
 package bptree;
 
+import java.util.Comparator;
+
 import bptree.BPlusTree.InvalidDeletionException;
 
 /**
@@ -18,6 +20,12 @@ public class NonLeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 */
 	private static final long serialVersionUID = -5878186273639744395L;
 
+	/**
+	 * A pointer to the right sibling of this {@code NonLeafNode}; {@code null} if there is no such sibling or it is not
+	 * tracked. Right links are kept only by {@code BLinkBPlusTree}s.
+	 */
+	protected P link;
+
 	/**
 	 * Constructs a {@code NonLeafNode}.
 	 * 
@@ -58,15 +66,38 @@ public class NonLeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 *         specified key
 	 */
 	P child(K k) {
-		int i = 0;
-		for (; i < keyCount; i++) {
-			int c = k.compareTo(keys[i]);
-			if (c == 0)
-				return pointers[i + 1];
-			else if (c < 0)
-				return pointers[i];
-		}
-		return pointers[i];
+		return child(k, null);
+	}
+
+	/**
+	 * Returns a pointer to the child {@code Node} of this {@code NonLeafNode} that must be responsible for this
+	 * specified key.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
+	 * @return a pointer to the child {@code Node} of this {@code NonLeafNode} that must be responsible for this
+	 *         specified key
+	 */
+	P child(K k, Comparator<? super K> comparator) {
+		return pointers[childIndex(k, comparator)];
+	}
+
+	/**
+	 * Returns the index of the child {@code Node} of this {@code NonLeafNode} that must be responsible for this
+	 * specified key.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
+	 * @return the index of the child {@code Node} of this {@code NonLeafNode} that must be responsible for this
+	 *         specified key
+	 */
+	public int childIndex(K k, Comparator<? super K> comparator) {
+		int i = binarySearch(k, comparator);
+		return i >= 0 ? i + 1 : -i - 1;
 	}
 
 	/**
@@ -91,6 +122,25 @@ public class NonLeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 		keyCount++;
 	}
 
+	/**
+	 * Returns a pointer to the right sibling of this {@code NonLeafNode}.
+	 * 
+	 * @return a pointer to the right sibling of this {@code NonLeafNode}; {@code null} if no such sibling is linked
+	 */
+	public P link() {
+		return link;
+	}
+
+	/**
+	 * Sets the pointer to the right sibling of this {@code NonLeafNode}.
+	 * 
+	 * @param link
+	 *            a pointer to the right sibling of this {@code NonLeafNode}; {@code null} if no such sibling is linked
+	 */
+	public void setLink(P link) {
+		this.link = link;
+	}
+
 	/**
 	 * Returns the number of children that this {@code NonLeafNode} has.
 	 * 
@@ -161,27 +211,18 @@ public class NonLeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 * 
 	 * @param key
 	 *            a key
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
 	 * @throws InvalidDeletionException
 	 *             if a key non-existent in this {@code NonLeafNode} is attempted to be removed from this
 	 *             {@code NonLeafNode}.
 	 */
 	@Override
-	public void remove(K key) throws InvalidDeletionException {
-		int i = 0;
-		for (; i < keyCount; i++) {
-			if (keys[i].compareTo(key) == 0) {
-				for (int j = i; j < keyCount - 1; j++) {
-					keys[j] = keys[j + 1];
-					pointers[j + 1] = pointers[j + 2];
-				}
-				break;
-			}
-		}
-		if (i == keyCount)
+	public void remove(K key, Comparator<? super K> comparator) throws InvalidDeletionException {
+		int i = binarySearch(key, comparator);
+		if (i < 0)
 			throw new InvalidDeletionException("key: " + key);
-		keyCount--;
-		keys[keyCount] = null;
-		pointers[keyCount + 1] = null;
+		delete(i, i + 1);
 	}
 
 	/**
@@ -212,7 +253,7 @@ public class NonLeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 */
 	@Override
 	public boolean isUnderUtilized() {
-		throw new UnsupportedOperationException();
+		return childCount() < Math.ceil(pointers.length / 2.0);
 	}
 
 	/**
@@ -225,7 +266,7 @@ public class NonLeafNode<K extends Comparable<K>, P> extends Node<K, P> {
 	 */
 	@Override
 	public boolean mergeable(Node<K, P> other) {
-		throw new UnsupportedOperationException();
+		return keyCount + other.keyCount + 1 <= keys.length; // the separating key also moves into the merged node
 	}
 
 }
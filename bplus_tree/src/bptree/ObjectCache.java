@@ -0,0 +1,212 @@
+package bptree;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An {@code ObjectCache} is a {@code StorageManager} that keeps up to a given number of the most recently used objects
+ * of another {@code StorageManager} in their decoded form, so that a {@code BPlusTree} is handed already built
+ * {@code Node}s instead of {@code Node}s decoded again on every {@code get}. Unlike a {@code BufferPool}, an
+ * {@code ObjectCache} writes every {@code put} through to the other {@code StorageManager} right away. The objects
+ * returned by an {@code ObjectCache} are shared with the {@code ObjectCache}, so an object modified by the caller must
+ * be put back, and until then the {@code ObjectCache} holds a change that is not in the other {@code StorageManager}.
+ * Since a {@code BPlusTree} modifies several cached objects before putting them back, any of them may differ from the
+ * other {@code StorageManager} when a write fails. If writing through to the other {@code StorageManager} fails, all
+ * the objects are therefore evicted, so that every later {@code get} reads the object that the other
+ * {@code StorageManager} still has.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <L>
+ *            the type of locations of objects in the {@code ObjectCache}
+ * @param <O>
+ *            the type of objects managed by the {@code ObjectCache}
+ */
+public class ObjectCache<L, O> implements StorageManager<L, O>, Prefetchable<L>, Flushable, Closeable {
+
+	/**
+	 * The {@code StorageManager} whose objects are cached.
+	 */
+	protected StorageManager<L, O> sm;
+
+	/**
+	 * The cached objects in the order of their last use, from the least recently used.
+	 */
+	protected LinkedHashMap<BufferPool.PageID<L>, O> objects;
+
+	/**
+	 * The number of requests served from this {@code ObjectCache}.
+	 */
+	protected long hits;
+
+	/**
+	 * The number of requests forwarded to the other {@code StorageManager}.
+	 */
+	protected long misses;
+
+	/**
+	 * Constructs an {@code ObjectCache}.
+	 * 
+	 * @param sm
+	 *            the {@code StorageManager} whose objects are cached
+	 * @param capacity
+	 *            the maximum number of objects that the {@code ObjectCache} keeps
+	 * @throws IllegalArgumentException
+	 *             if the capacity is not positive
+	 */
+	public ObjectCache(StorageManager<L, O> sm, final int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity: " + capacity);
+		this.sm = sm;
+		this.objects = new LinkedHashMap<BufferPool.PageID<L>, O>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<BufferPool.PageID<L>, O> eldest) {
+				return size() > capacity;
+			}
+
+		};
+	}
+
+	@Override
+	public int fileID(String fileName) {
+		return sm.fileID(fileName);
+	}
+
+	@Override
+	public L first() {
+		return sm.first();
+	}
+
+	@Override
+	public O get(int fileID, L loc) throws IOException {
+		BufferPool.PageID<L> id = new BufferPool.PageID<L>(fileID, loc);
+		O o = objects.get(id);
+		if (o != null) {
+			hits++;
+			return o;
+		}
+		misses++;
+		o = sm.get(fileID, loc);
+		if (o != null)
+			objects.put(id, o);
+		return o;
+	}
+
+	@Override
+	public O put(int fileID, L loc, O o) throws IOException {
+		BufferPool.PageID<L> id = new BufferPool.PageID<L>(fileID, loc);
+		O old;
+		try {
+			old = sm.put(fileID, loc, o);
+		} catch (IOException | RuntimeException e) { // the cached objects may have been modified by the caller
+			objects.clear();
+			throw e;
+		}
+		O cached = o == null ? objects.remove(id) : objects.put(id, o);
+		return cached != null ? cached : old;
+	}
+
+	@Override
+	public L add(int fileID, O o) throws IOException {
+		L loc;
+		try {
+			loc = sm.add(fileID, o);
+		} catch (IOException | RuntimeException e) {
+			objects.clear();
+			throw e;
+		}
+		if (o != null)
+			objects.put(new BufferPool.PageID<L>(fileID, loc), o);
+		return loc;
+	}
+
+	@Override
+	public O remove(int fileID, L loc) throws IOException {
+		O cached = objects.remove(new BufferPool.PageID<L>(fileID, loc));
+		O old;
+		try {
+			old = sm.remove(fileID, loc);
+		} catch (IOException | RuntimeException e) {
+			objects.clear();
+			throw e;
+		}
+		return cached != null ? cached : old;
+	}
+
+	/**
+	 * Prefetches the specified object in the other {@code StorageManager} if it is {@code Prefetchable}. The cached
+	 * objects of this {@code ObjectCache} are not touched, so this method may be called from any thread.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void prefetch(int fileID, L loc) throws IOException {
+		if (sm instanceof Prefetchable)
+			((Prefetchable<L>) sm).prefetch(fileID, loc);
+	}
+
+	/**
+	 * Flushes the other {@code StorageManager} if it is {@code Flushable}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (sm instanceof Flushable)
+			((Flushable) sm).flush();
+	}
+
+	/**
+	 * Closes the other {@code StorageManager} if it is {@code Closeable}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		objects.clear();
+		if (sm instanceof Closeable)
+			((Closeable) sm).close();
+	}
+
+	/**
+	 * Returns the number of requests served from this {@code ObjectCache}.
+	 * 
+	 * @return the number of requests served from this {@code ObjectCache}
+	 */
+	public long hits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of requests forwarded to the other {@code StorageManager}.
+	 * 
+	 * @return the number of requests forwarded to the other {@code StorageManager}
+	 */
+	public long misses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the fraction of the requests served from this {@code ObjectCache}.
+	 * 
+	 * @return the fraction of the requests served from this {@code ObjectCache}; 0 if no requests have been made
+	 */
+	public double hitRate() {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+}
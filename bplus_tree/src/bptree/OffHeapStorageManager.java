@@ -0,0 +1,444 @@
+package bptree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@code OffHeapStorageManager} keeps objects in memory outside the Java heap, so that a large index does not
+ * lengthen garbage collection. The encoded objects are stored in slots carved out of slabs of direct memory. Each slot
+ * belongs to a size class, which is a power of two, and freed slots are reused by later objects of the same size
+ * class. The location of each object is mapped to its slot by a table of primitive {@code long}s per file, and the
+ * memory allocated for slabs is accounted for against an optional limit. Empty locations are reused by
+ * {@link #add(int, Object)}, lowest location first.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class OffHeapStorageManager implements StorageManager<Integer, Object> {
+
+	/**
+	 * A {@code LocationTable} maps the locations in a file to the addresses of the slots holding the objects.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	protected static class LocationTable {
+
+		/**
+		 * The address of the slot for each location; {@link OffHeapStorageManager#NONE} if no object is at the
+		 * location.
+		 */
+		long[] addresses = new long[1024];
+
+		/**
+		 * The number of locations up to the last location in use.
+		 */
+		int size = 1; // the first location is always in use
+
+		/**
+		 * The empty locations before the last location in use.
+		 */
+		BitSet free = new BitSet();
+
+		/**
+		 * Constructs a {@code LocationTable}.
+		 */
+		LocationTable() {
+			Arrays.fill(addresses, NONE);
+		}
+
+	}
+
+	/**
+	 * The address indicating that no object is at a location.
+	 */
+	protected static final long NONE = -1;
+
+	/**
+	 * The size class of the smallest slots, whose size is 2<sup>{@value}</sup> bytes.
+	 */
+	protected static final int MIN_SIZE_CLASS = 5;
+
+	/**
+	 * The size class of the largest slots, whose size is 2<sup>{@value}</sup> bytes.
+	 */
+	protected static final int MAX_SIZE_CLASS = 30;
+
+	/**
+	 * The default size of slabs in bytes.
+	 */
+	public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+	/**
+	 * The {@code NodeCodec} that encodes the objects.
+	 */
+	protected NodeCodec codec;
+
+	/**
+	 * The size of slabs in bytes, except for slabs holding a single slot larger than this size.
+	 */
+	protected int slabSize;
+
+	/**
+	 * The maximum number of bytes that can be allocated for slabs.
+	 */
+	protected long limit;
+
+	/**
+	 * A map that associates the name of each file with the ID of that file.
+	 */
+	protected Map<String, Integer> fileName2ID = new HashMap<String, Integer>();
+
+	/**
+	 * The {@code LocationTable} of each file, indexed by file ID.
+	 */
+	protected List<LocationTable> tables = new ArrayList<LocationTable>();
+
+	/**
+	 * The slabs allocated so far.
+	 */
+	protected List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+
+	/**
+	 * The addresses of the free slots of each size class, used as a stack.
+	 */
+	protected long[][] freeSlots = new long[MAX_SIZE_CLASS + 1][16];
+
+	/**
+	 * The number of free slots of each size class.
+	 */
+	protected int[] freeSlotCounts = new int[MAX_SIZE_CLASS + 1];
+
+	/**
+	 * The number of bytes allocated for slabs.
+	 */
+	protected long allocatedBytes;
+
+	/**
+	 * The number of bytes in the slots in use.
+	 */
+	protected long usedBytes;
+
+	/**
+	 * Constructs an {@code OffHeapStorageManager} that uses slabs of {@link #DEFAULT_SLAB_SIZE} bytes, encodes objects
+	 * using Java serialization, and has no memory limit.
+	 */
+	public OffHeapStorageManager() {
+		this(new SerializationCodec(), DEFAULT_SLAB_SIZE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Constructs an {@code OffHeapStorageManager}.
+	 * 
+	 * @param codec
+	 *            the {@code NodeCodec} that encodes the objects
+	 * @param slabSize
+	 *            the size of slabs in bytes, which must be a power of two
+	 * @param limit
+	 *            the maximum number of bytes that can be allocated for slabs
+	 * @throws IllegalArgumentException
+	 *             if the slab size is not a power of two or is smaller than the smallest slot
+	 */
+	public OffHeapStorageManager(NodeCodec codec, int slabSize, long limit) {
+		if (Integer.bitCount(slabSize) != 1 || slabSize < 1 << MIN_SIZE_CLASS)
+			throw new IllegalArgumentException("slab size: " + slabSize);
+		this.codec = codec;
+		this.slabSize = slabSize;
+		this.limit = limit;
+	}
+
+	@Override
+	public int fileID(String fileName) {
+		Integer fileID = fileName2ID.get(fileName);
+		if (fileID == null) {
+			fileID = tables.size();
+			tables.add(new LocationTable());
+			fileName2ID.put(fileName, fileID);
+		}
+		return fileID;
+	}
+
+	@Override
+	public Integer first() {
+		return 0;
+	}
+
+	@Override
+	public Object get(int fileID, Integer loc) throws IOException {
+		LocationTable t = tables.get(fileID);
+		if (loc >= t.size || t.addresses[loc] == NONE)
+			return null;
+		return codec.decode(slot(t.addresses[loc]));
+	}
+
+	/**
+	 * Puts the specified object at the specified location in the specified file.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @param o
+	 *            the object to put
+	 * @return {@code null}
+	 * @throws IOException
+	 *             if the object cannot be encoded, does not fit in the largest slot, or the memory limit is reached
+	 */
+	@Override
+	public Object put(int fileID, Integer loc, Object o) throws IOException {
+		store(tables.get(fileID), loc, codec.encode(o));
+		return null;
+	}
+
+	/**
+	 * Adds the specified object in the specified file, reusing the lowest empty location if there is one.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param o
+	 *            the object to add
+	 * @return the location of the object in the specified file
+	 * @throws IOException
+	 *             if the object cannot be encoded, does not fit in the largest slot, or the memory limit is reached
+	 */
+	@Override
+	public Integer add(int fileID, Object o) throws IOException {
+		LocationTable t = tables.get(fileID);
+		int loc = t.free.isEmpty() ? t.size : t.free.nextSetBit(0);
+		store(t, loc, codec.encode(o));
+		t.free.clear(loc);
+		if (loc >= t.size)
+			t.size = loc + 1;
+		return loc;
+	}
+
+	/**
+	 * Removes the object at the specified location in the specified file.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @return {@code null}
+	 */
+	@Override
+	public Object remove(int fileID, Integer loc) {
+		LocationTable t = tables.get(fileID);
+		if (loc < t.size)
+			clear(t, loc);
+		return null;
+	}
+
+	/**
+	 * Returns the number of bytes allocated for slabs.
+	 * 
+	 * @return the number of bytes allocated for slabs
+	 */
+	public long allocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Returns the number of bytes in the slots in use.
+	 * 
+	 * @return the number of bytes in the slots in use
+	 */
+	public long usedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * Stores the specified encoded object at the specified location, reusing the slot at the location if the encoded
+	 * object fits in it.
+	 * 
+	 * @param t
+	 *            the {@code LocationTable} of a file
+	 * @param loc
+	 *            a location
+	 * @param b
+	 *            an encoded object; {@code null} if no object is stored
+	 * @throws IOException
+	 *             if the encoded object does not fit in the largest slot or the memory limit is reached
+	 */
+	protected void store(LocationTable t, int loc, byte[] b) throws IOException {
+		if (b != null && b.length > (1 << MAX_SIZE_CLASS) - 4) // the length of the object precedes it in its slot
+			throw new IOException("object of " + b.length + " bytes exceeds the largest slot");
+		if (loc >= t.addresses.length) {
+			int length = t.addresses.length;
+			t.addresses = Arrays.copyOf(t.addresses, Math.max(length * 2, loc + 1));
+			Arrays.fill(t.addresses, length, t.addresses.length, NONE);
+		}
+		if (b == null) {
+			clear(t, loc);
+			return;
+		}
+		long address = t.addresses[loc];
+		t.free.clear(loc);
+		if (loc >= t.size) {
+			t.free.set(t.size, loc);
+			t.size = loc + 1;
+		}
+		int sizeClass = sizeClass(4 + b.length);
+		if (address == NONE || sizeClass(address) != sizeClass) {
+			long a = allocate(sizeClass); // allocate first so that the old slot survives a failure
+			if (address != NONE)
+				free(address);
+			address = a;
+			t.addresses[loc] = address;
+		}
+		ByteBuffer s = slab(address).duplicate();
+		s.position(offset(address));
+		s.putInt(b.length).put(b);
+	}
+
+	/**
+	 * Frees the slot at the specified location. The location is remembered for reuse, and if it is the last location
+	 * in use, the table is cut back to the last location still in use.
+	 * 
+	 * @param t
+	 *            the {@code LocationTable} of a file
+	 * @param loc
+	 *            a location within the table
+	 */
+	protected void clear(LocationTable t, int loc) {
+		if (t.addresses[loc] != NONE)
+			free(t.addresses[loc]);
+		t.addresses[loc] = NONE;
+		if (loc != first() && loc < t.size) {
+			t.free.set(loc);
+			if (loc == t.size - 1)
+				while (t.size > 1 && t.free.get(t.size - 1))
+					t.free.clear(--t.size);
+		}
+	}
+
+	/**
+	 * Returns a {@code ByteBuffer} whose remaining bytes are the encoded object in the slot at the specified address.
+	 * 
+	 * @param address
+	 *            the address of a slot
+	 * @return a {@code ByteBuffer} whose remaining bytes are the encoded object in the slot
+	 */
+	protected ByteBuffer slot(long address) {
+		ByteBuffer s = slab(address).duplicate();
+		int offset = offset(address);
+		int length = s.getInt(offset);
+		s.limit(offset + 4 + length).position(offset + 4);
+		return s;
+	}
+
+	/**
+	 * Allocates a slot of the specified size class, carving a new slab if no free slot of that size class exists.
+	 * 
+	 * @param sizeClass
+	 *            a size class
+	 * @return the address of the allocated slot
+	 * @throws IOException
+	 *             if the memory limit is reached
+	 */
+	protected long allocate(int sizeClass) throws IOException {
+		if (freeSlotCounts[sizeClass] == 0) {
+			int size = Math.max(slabSize, 1 << sizeClass);
+			if (allocatedBytes + size > limit)
+				throw new IOException("off-heap memory limit of " + limit + " bytes reached");
+			int slab = slabs.size();
+			slabs.add(ByteBuffer.allocateDirect(size));
+			allocatedBytes += size;
+			for (int offset = size - (1 << sizeClass); offset >= 0; offset -= 1 << sizeClass)
+				push(sizeClass, address(slab, offset, sizeClass));
+		}
+		usedBytes += 1 << sizeClass;
+		return freeSlots[sizeClass][--freeSlotCounts[sizeClass]];
+	}
+
+	/**
+	 * Frees the slot at the specified address.
+	 * 
+	 * @param address
+	 *            the address of a slot
+	 */
+	protected void free(long address) {
+		int sizeClass = sizeClass(address);
+		usedBytes -= 1 << sizeClass;
+		push(sizeClass, address);
+	}
+
+	/**
+	 * Pushes the specified address onto the stack of free slots of the specified size class.
+	 * 
+	 * @param sizeClass
+	 *            a size class
+	 * @param address
+	 *            the address of a free slot
+	 */
+	protected void push(int sizeClass, long address) {
+		if (freeSlotCounts[sizeClass] == freeSlots[sizeClass].length)
+			freeSlots[sizeClass] = Arrays.copyOf(freeSlots[sizeClass], freeSlotCounts[sizeClass] * 2);
+		freeSlots[sizeClass][freeSlotCounts[sizeClass]++] = address;
+	}
+
+	/**
+	 * Returns the address of the specified slot, which encodes the index of the slab in the upper 27 bits, the size
+	 * class in the next 5 bits, and the offset within the slab in the lower 32 bits.
+	 * 
+	 * @param slab
+	 *            the index of a slab
+	 * @param offset
+	 *            the offset of the slot within the slab
+	 * @param sizeClass
+	 *            the size class of the slot
+	 * @return the address of the specified slot
+	 */
+	protected static long address(int slab, int offset, int sizeClass) {
+		return (long) slab << 37 | (long) sizeClass << 32 | offset & 0xffffffffL;
+	}
+
+	/**
+	 * Returns the slab containing the slot at the specified address.
+	 * 
+	 * @param address
+	 *            the address of a slot
+	 * @return the slab containing the slot at the specified address
+	 */
+	protected ByteBuffer slab(long address) {
+		return slabs.get((int) (address >>> 37));
+	}
+
+	/**
+	 * Returns the offset of the slot at the specified address within its slab.
+	 * 
+	 * @param address
+	 *            the address of a slot
+	 * @return the offset of the slot at the specified address within its slab
+	 */
+	protected static int offset(long address) {
+		return (int) address;
+	}
+
+	/**
+	 * Returns the size class of the slot at the specified address.
+	 * 
+	 * @param address
+	 *            the address of a slot
+	 * @return the size class of the slot at the specified address
+	 */
+	protected static int sizeClass(long address) {
+		return (int) (address >>> 32) & 0x1f;
+	}
+
+	/**
+	 * Returns the size class of the smallest slots that can hold the specified number of bytes.
+	 * 
+	 * @param size
+	 *            a number of bytes
+	 * @return the size class of the smallest slots that can hold the specified number of bytes
+	 */
+	protected static int sizeClass(int size) {
+		return Math.max(MIN_SIZE_CLASS, 32 - Integer.numberOfLeadingZeros(size - 1));
+	}
+
+}
@@ -0,0 +1,309 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An {@code OptimisticBPlusTree} is a {@code BPlusTree} whose readers use optimistic lock coupling and thus never
+ * write to memory shared with other threads. All of the {@code Node}s of an {@code OptimisticBPlusTree} are kept in an
+ * in-memory node store, a map from locations to {@code Node}s, from which readers read without taking any latch.
+ * The {@code Node}s in the node store are never modified. Each of them carries a version, which is even while the
+ * {@code Node} is current and becomes odd when the {@code Node} is replaced or removed. A reader records the version
+ * of each {@code Node} it visits and, after reading the child, validates that the version of the parent has not
+ * changed; otherwise, it restarts from the root {@code Node}. Writers are serialized by a single latch, read and write
+ * {@code Node}s through the {@code StorageManager} as a {@code BPlusTree} does, and publish the {@code Node}s they
+ * saved only when the update completes: they first make the versions of all of the replaced and removed {@code Node}s
+ * odd, then change the pointer to the root {@code Node}, and finally install the new {@code Node}s with fresh even
+ * versions. A reader that mixes {@code Node}s from before and after an update thus always fails a validation. Since
+ * versions come from a counter that only grows, a location reused for another {@code Node} never shows an old
+ * version again. The {@code StorageManager} must be thread-safe and return a new object for each {@code get}, and
+ * {@link #root()}, {@link #fillFactor()}, and {@link #child(NonLeafNode, int)}, which read through the
+ * {@code StorageManager}, are not meant to run concurrently with updates.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class OptimisticBPlusTree<K extends Comparable<K>, P> extends BPlusTree<K, P> {
+
+	/**
+	 * The node store, which associates the location of each {@code Node} of this {@code OptimisticBPlusTree} with the
+	 * {@code Node}.
+	 */
+	protected ConcurrentHashMap<P, Node<K, P>> nodes = new ConcurrentHashMap<P, Node<K, P>>();
+
+	/**
+	 * The pointer to the root {@code Node} that readers start from; {@code null} if this {@code OptimisticBPlusTree}
+	 * is empty.
+	 */
+	protected volatile P root;
+
+	/**
+	 * The latch that serializes writers.
+	 */
+	protected ReentrantLock writeLatch = new ReentrantLock();
+
+	/**
+	 * The last version given to a {@code Node}.
+	 */
+	protected long clock;
+
+	/**
+	 * The {@code Node}s saved by the current update, which are not yet published, associated with their locations; a
+	 * location is associated with {@code null} if its {@code Node} has been removed.
+	 */
+	protected Map<P, Node<K, P>> dirty = new LinkedHashMap<P, Node<K, P>>();
+
+	/**
+	 * A flag indicating whether or not the current update has changed the pointer to the root {@code Node}.
+	 */
+	protected boolean rootChanged;
+
+	/**
+	 * Constructs an {@code OptimisticBPlusTree}, reading all of its {@code Node}s into the node store.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code OptimisticBPlusTree} can have
+	 * @param sm
+	 *            a thread-safe {@code StorageManager} used for this {@code OptimisticBPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code OptimisticBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public OptimisticBPlusTree(int degree, StorageManager<P, Object> sm, String fileName) throws IOException {
+		this(degree, sm, fileName, null);
+	}
+
+	/**
+	 * Constructs an {@code OptimisticBPlusTree}, reading all of its {@code Node}s into the node store.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of this {@code OptimisticBPlusTree} can have
+	 * @param sm
+	 *            a thread-safe {@code StorageManager} used for this {@code OptimisticBPlusTree}
+	 * @param fileName
+	 *            the name of the file used for this {@code OptimisticBPlusTree}
+	 * @param comparator
+	 *            the {@code Comparator} that orders the keys of this {@code OptimisticBPlusTree}; {@code null} if the
+	 *            natural ordering of keys is used
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public OptimisticBPlusTree(int degree, StorageManager<P, Object> sm, String fileName,
+			Comparator<? super K> comparator) throws IOException {
+		super(degree, sm, fileName, comparator);
+		load();
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key in this {@code OptimisticBPlusTree}, reading only the
+	 * node store.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the specified key is not contained in
+	 *         this {@code OptimisticBPlusTree}
+	 */
+	@Override
+	public P search(K k) {
+		LeafNode<K, P> l = findOptimistic(k);
+		return l == null ? null : l.get(k, comparator);
+	}
+
+	/**
+	 * Returns an {@code OptimisticScan} over the keys in this {@code OptimisticBPlusTree} within the specified range.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @return an {@code OptimisticScan} over the keys in this {@code OptimisticBPlusTree} within the specified range
+	 */
+	@Override
+	public RangeScan<K, P> scan(K from, boolean fromInclusive, K to, boolean toInclusive) {
+		return new OptimisticScan<K, P>(this, from, fromInclusive, to, toInclusive);
+	}
+
+	@Override
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		writeLatch.lock();
+		try {
+			super.insert(k, p);
+		} finally {
+			publish();
+		}
+	}
+
+	@Override
+	public void insertSorted(Iterator<? extends Map.Entry<K, P>> entries) throws InvalidInsertionException, IOException {
+		writeLatch.lock();
+		try {
+			super.insertSorted(entries);
+		} finally {
+			publish();
+		}
+	}
+
+	@Override
+	public void bulkLoad(Iterator<? extends Map.Entry<K, P>> entries, double fillFactor)
+			throws InvalidInsertionException, IOException {
+		writeLatch.lock();
+		try {
+			super.bulkLoad(entries, fillFactor);
+			load(); // a BulkLoader writes to the StorageManager directly
+		} finally {
+			publish();
+		}
+	}
+
+	@Override
+	public void delete(K k) throws InvalidDeletionException, IOException {
+		writeLatch.lock();
+		try {
+			super.delete(k);
+		} finally {
+			publish();
+		}
+	}
+
+	/**
+	 * Finds the {@code LeafNode} in the node store that must be responsible for the specified key, validating the
+	 * version of each {@code Node} after reading its child and restarting from the root {@code Node} whenever a
+	 * validation fails.
+	 * 
+	 * @param k
+	 *            a search key; {@code null} to find the first {@code LeafNode}
+	 * @return the {@code LeafNode} that was responsible for the specified key when the last validation succeeded;
+	 *         {@code null} if this {@code OptimisticBPlusTree} was empty
+	 */
+	protected LeafNode<K, P> findOptimistic(K k) {
+		restart: while (true) {
+			P p = root;
+			if (p == null)
+				return null;
+			Node<K, P> n = nodes.get(p);
+			if (n == null)
+				continue;
+			long v = n.version;
+			if ((v & 1) != 0 || root != p) // if n is being replaced or no longer the root
+				continue;
+			while (n instanceof NonLeafNode) {
+				NonLeafNode<K, P> nl = (NonLeafNode<K, P>) n;
+				Node<K, P> c = nodes.get(nl.pointer(k == null ? 0 : nl.childIndex(k, comparator)));
+				if (c == null)
+					continue restart;
+				long cv = c.version;
+				if ((cv & 1) != 0 || n.version != v) // if the child or its parent is no longer current
+					continue restart;
+				n = c;
+				v = cv;
+			}
+			return (LeafNode<K, P>) n;
+		}
+	}
+
+	@Override
+	protected void setRoot(P p) throws IOException {
+		super.setRoot(p);
+		rootChanged = true;
+	}
+
+	@Override
+	protected void save(P p, Node<K, P> n) throws IOException {
+		super.save(p, n);
+		dirty.put(p, n);
+	}
+
+	@Override
+	protected P save(Node<K, P> n) throws IOException {
+		P p = super.save(n);
+		dirty.put(p, n);
+		return p;
+	}
+
+	@Override
+	protected void remove(P p) throws IOException {
+		super.remove(p);
+		dirty.put(p, null);
+	}
+
+	/**
+	 * Publishes the {@code Node}s saved by the current update and releases the latch of the writers if the outermost
+	 * update completes. The versions of the replaced and removed {@code Node}s are made odd before the pointer to the
+	 * root {@code Node} is changed and the new {@code Node}s are installed with fresh versions.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void publish() throws IOException {
+		if (writeLatch.getHoldCount() > 1) { // a nested update leaves its nodes to the outermost update
+			writeLatch.unlock();
+			return;
+		}
+		try {
+			for (P p : dirty.keySet()) { // invalidate the replaced and removed nodes
+				Node<K, P> old = nodes.get(p);
+				if (old != null)
+					old.version++;
+			}
+			if (rootChanged)
+				root = super.rootPointer();
+			clock += 2;
+			for (Map.Entry<P, Node<K, P>> e : dirty.entrySet()) {
+				Node<K, P> n = e.getValue();
+				if (n == null)
+					nodes.remove(e.getKey());
+				else {
+					n.version = clock;
+					nodes.put(e.getKey(), n);
+				}
+			}
+		} finally {
+			dirty.clear();
+			rootChanged = false;
+			writeLatch.unlock();
+		}
+	}
+
+	/**
+	 * Reads all of the {@code Node}s of this {@code OptimisticBPlusTree} into the node store and then makes readers
+	 * start from the root {@code Node}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void load() throws IOException {
+		P r = super.rootPointer();
+		List<P> level = new ArrayList<P>();
+		if (r != null)
+			level.add(r);
+		while (!level.isEmpty()) { // read one level at a time
+			List<P> next = new ArrayList<P>();
+			for (P p : level) {
+				Node<K, P> n = node(p);
+				nodes.put(p, n);
+				if (n instanceof NonLeafNode)
+					for (int i = 0; i <= n.keyCount(); i++)
+						next.add(n.pointer(i));
+			}
+			level = next;
+		}
+		root = r;
+	}
+
+}
@@ -0,0 +1,99 @@
+package bptree;
+
+/**
+ * An {@code OptimisticScan} is a {@code RangeScan} over an {@code OptimisticBPlusTree} that reads only the node store
+ * and takes no latch. Since the {@code Node}s in the node store are never modified, the keys of the current
+ * {@code LeafNode} can be returned even after the {@code LeafNode} has been replaced. To move to the next
+ * {@code LeafNode}, an {@code OptimisticScan} reads the successor of the current {@code LeafNode} and then validates
+ * the version of the current {@code LeafNode}. If the validation fails, it descends again from the root {@code Node}
+ * to the first key above the last key of the current {@code LeafNode}, so each key present throughout the scan is
+ * returned exactly once and in order.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class OptimisticScan<K extends Comparable<K>, P> extends RangeScan<K, P> {
+
+	/**
+	 * The version of the current {@code LeafNode} when it was reached.
+	 */
+	protected long version;
+
+	/**
+	 * The lower bound of the keys; {@code null} if there is no lower bound.
+	 */
+	protected K from;
+
+	/**
+	 * A flag indicating whether or not the lower bound is inclusive.
+	 */
+	protected boolean fromInclusive;
+
+	/**
+	 * Constructs an {@code OptimisticScan}.
+	 * 
+	 * @param tree
+	 *            an {@code OptimisticBPlusTree}
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 */
+	protected OptimisticScan(OptimisticBPlusTree<K, P> tree, K from, boolean fromInclusive, K to,
+			boolean toInclusive) {
+		super(tree, null, 0, to, toInclusive);
+		this.from = from;
+		this.fromInclusive = fromInclusive;
+		descend(from, fromInclusive);
+	}
+
+	/**
+	 * Moves to the successor of the current {@code LeafNode} if the current {@code LeafNode} is still current after
+	 * the successor is read, and descends again from the root {@code Node} otherwise.
+	 */
+	@Override
+	protected void advance() {
+		OptimisticBPlusTree<K, P> t = (OptimisticBPlusTree<K, P>) tree;
+		P s = leaf.successor();
+		Node<K, P> n = s == null ? null : t.nodes.get(s);
+		long v = n == null ? 0 : n.version;
+		if ((version & 1) == 0 && leaf.version == version && (s == null || n != null && (v & 1) == 0)) {
+			leaf = (LeafNode<K, P>) n;
+			version = v;
+			index = 0;
+		} else if (leaf.keyCount() > 0 && (from == null || tree.compare(leaf.key(leaf.keyCount() - 1), from) >= 0))
+			descend(leaf.key(leaf.keyCount() - 1), false);
+		else
+			descend(from, fromInclusive);
+	}
+
+	/**
+	 * Moves to the first key within the specified lower bound, descending from the root {@code Node}.
+	 * 
+	 * @param bound
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param inclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 */
+	protected void descend(K bound, boolean inclusive) {
+		OptimisticBPlusTree<K, P> t = (OptimisticBPlusTree<K, P>) tree;
+		leaf = t.findOptimistic(bound);
+		index = 0;
+		if (leaf == null)
+			return;
+		version = leaf.version;
+		if (bound != null) {
+			index = leaf.binarySearch(bound, t.comparator);
+			index = index >= 0 ? (inclusive ? index : index + 1) : -index - 1;
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+package bptree;
+
+import java.io.IOException;
+
+/**
+ * A {@code Prefetchable} storage can bring the object at a location closer to memory ahead of a read of the object,
+ * for example into the page cache of the operating system. Prefetching is only a hint: it never changes the objects
+ * in the storage, and it may be called from any thread while other threads read and write the storage.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <L>
+ *            the type of locations of objects in the storage
+ */
+public interface Prefetchable<L> {
+
+	/**
+	 * Brings the object at the specified location closer to memory so that a subsequent read of the object is faster.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	void prefetch(int fileID, L loc) throws IOException;
+
+}
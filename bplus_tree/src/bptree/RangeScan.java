@@ -0,0 +1,127 @@
+package bptree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@code RangeScan} is a forward cursor over the keys and pointers of a {@code BPlusTree} within a range of keys. A
+ * {@code RangeScan} holds only one {@code LeafNode} at a time and reads the succeeding {@code LeafNode} from the
+ * {@code StorageManager} only when the current {@code LeafNode} is exhausted.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class RangeScan<K extends Comparable<K>, P> implements Iterator<Map.Entry<K, P>> {
+
+	/**
+	 * The {@code BPlusTree} that this {@code RangeScan} traverses.
+	 */
+	protected BPlusTree<K, P> tree;
+
+	/**
+	 * The current {@code LeafNode}; {@code null} if this {@code RangeScan} is exhausted.
+	 */
+	protected LeafNode<K, P> leaf;
+
+	/**
+	 * The index of the next key in the current {@code LeafNode}.
+	 */
+	protected int index;
+
+	/**
+	 * The upper bound of the keys to return; {@code null} if there is no upper bound.
+	 */
+	protected K to;
+
+	/**
+	 * A flag indicating whether or not the upper bound is inclusive.
+	 */
+	protected boolean toInclusive;
+
+	/**
+	 * Constructs a {@code RangeScan}.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param leaf
+	 *            the {@code LeafNode} to start from; {@code null} if the {@code BPlusTree} is empty
+	 * @param index
+	 *            the index of the first key to return in the specified {@code LeafNode}
+	 * @param to
+	 *            the upper bound of the keys to return; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 */
+	protected RangeScan(BPlusTree<K, P> tree, LeafNode<K, P> leaf, int index, K to, boolean toInclusive) {
+		this.tree = tree;
+		this.leaf = leaf;
+		this.index = index;
+		this.to = to;
+		this.toInclusive = toInclusive;
+	}
+
+	/**
+	 * Determines whether or not this {@code RangeScan} has more keys to return.
+	 * 
+	 * @return {@code true} if this {@code RangeScan} has more keys to return; {@code false} otherwise
+	 * @throws UncheckedIOException
+	 *             if an I/O error occurs while reading the next {@code LeafNode}
+	 */
+	@Override
+	public boolean hasNext() {
+		try {
+			while (leaf != null && index >= leaf.keyCount()) // if the current leaf node is exhausted
+				advance();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (leaf == null)
+			return false;
+		if (to != null) {
+			int c = tree.compare(leaf.key(index), to);
+			if (c > 0 || c == 0 && !toInclusive) { // if the upper bound is passed
+				leaf = null;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Moves to the {@code LeafNode} succeeding the current {@code LeafNode}.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void advance() throws IOException {
+		leaf = tree.successor(leaf);
+		index = 0;
+	}
+
+	/**
+	 * Returns the next key and its pointer.
+	 * 
+	 * @return the next key and its pointer
+	 * @throws NoSuchElementException
+	 *             if this {@code RangeScan} has no more keys to return
+	 * @throws UncheckedIOException
+	 *             if an I/O error occurs while reading the next {@code LeafNode}
+	 */
+	@Override
+	public Map.Entry<K, P> next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		Map.Entry<K, P> e = new AbstractMap.SimpleImmutableEntry<K, P>(leaf.key(index), leaf.pointer(index));
+		index++;
+		return e;
+	}
+
+}
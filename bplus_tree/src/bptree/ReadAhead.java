@@ -0,0 +1,135 @@
+package bptree;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code ReadAhead} is a pool of background threads that prefetch the {@code LeafNode}s ahead of the range scans of
+ * {@code BPlusTree}s, so that the pages of the next {@code LeafNode}s are read from storage while the caller is still
+ * processing the current {@code LeafNode}. One {@code ReadAhead} can be shared by many {@code BPlusTree}s. The number
+ * of {@code LeafNode}s prefetched ahead of each scan, called the window, adapts to how fast the scan consumes
+ * {@code LeafNode}s compared to how long a prefetch takes, within the bounds given to the {@code ReadAhead}.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @see BPlusTree#setReadAhead(ReadAhead)
+ * @see ReadAheadScan
+ */
+public class ReadAhead implements Closeable {
+
+	/**
+	 * The {@code ExecutorService} that runs the prefetches.
+	 */
+	protected ExecutorService executor;
+
+	/**
+	 * The minimum number of {@code LeafNode}s to prefetch ahead of a scan.
+	 */
+	protected int minWindow;
+
+	/**
+	 * The maximum number of {@code LeafNode}s to prefetch ahead of a scan.
+	 */
+	protected int maxWindow;
+
+	/**
+	 * A flag indicating whether or not this {@code ReadAhead} is closed.
+	 */
+	protected volatile boolean closed;
+
+	/**
+	 * Constructs a {@code ReadAhead} which uses 4 threads and windows of 2 to 64 {@code LeafNode}s.
+	 */
+	public ReadAhead() {
+		this(4, 2, 64);
+	}
+
+	/**
+	 * Constructs a {@code ReadAhead}.
+	 * 
+	 * @param threads
+	 *            the number of threads that prefetch {@code LeafNode}s
+	 * @param minWindow
+	 *            the minimum number of {@code LeafNode}s to prefetch ahead of a scan
+	 * @param maxWindow
+	 *            the maximum number of {@code LeafNode}s to prefetch ahead of a scan
+	 * @throws IllegalArgumentException
+	 *             if the number of threads is not positive or the window bounds are invalid
+	 */
+	public ReadAhead(int threads, int minWindow, int maxWindow) {
+		if (threads < 1 || minWindow < 1 || maxWindow < minWindow)
+			throw new IllegalArgumentException("threads: " + threads + ", window: " + minWindow + "-" + maxWindow);
+		this.minWindow = minWindow;
+		this.maxWindow = maxWindow;
+		this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ReadAhead");
+				t.setDaemon(true);
+				return t;
+			}
+
+		});
+	}
+
+	/**
+	 * Returns the minimum number of {@code LeafNode}s to prefetch ahead of a scan.
+	 * 
+	 * @return the minimum number of {@code LeafNode}s to prefetch ahead of a scan
+	 */
+	public int minWindow() {
+		return minWindow;
+	}
+
+	/**
+	 * Returns the maximum number of {@code LeafNode}s to prefetch ahead of a scan.
+	 * 
+	 * @return the maximum number of {@code LeafNode}s to prefetch ahead of a scan
+	 */
+	public int maxWindow() {
+		return maxWindow;
+	}
+
+	/**
+	 * Runs the specified prefetch in the background. The prefetch is dropped if this {@code ReadAhead} is closed.
+	 * 
+	 * @param prefetch
+	 *            a prefetch
+	 */
+	protected void execute(final Runnable prefetch) {
+		try {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					if (!closed)
+						prefetch.run();
+				}
+
+			});
+		} catch (RejectedExecutionException e) { // prefetching is only a hint
+		}
+	}
+
+	/**
+	 * Stops the threads of this {@code ReadAhead}, dropping the prefetches not started yet and waiting for those in
+	 * progress to complete. The threads are not interrupted since interrupting a thread blocked in a read from a
+	 * {@code FileChannel} closes that {@code FileChannel}, which is shared with the {@code BPlusTree}s.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+package bptree;
+
+import java.io.IOException;
+
+/**
+ * A {@code ReadAheadScan} is a {@code RangeScan} that prefetches the {@code LeafNode}s ahead of the current
+ * {@code LeafNode} using a {@code ReadAhead}. Since the location of a {@code LeafNode} is known from the successor
+ * pointer of its predecessor only after the predecessor is read, a {@code ReadAheadScan} finds the locations of the
+ * next {@code LeafNode}s from their parents instead: it keeps a {@code LeafCursor} at the last {@code LeafNode}
+ * prefetched and moves it forward one {@code LeafNode} at a time. When the cursor reaches the last child of a parent,
+ * the next parent is prefetched as well so that moving the cursor into it rarely waits for storage. No {@code LeafNode}
+ * beyond the upper bound of the scan is prefetched. The window, which is the number of {@code LeafNode}s prefetched
+ * ahead of the current {@code LeafNode}, is the average time of a prefetch divided by the average time that the caller
+ * spends on a {@code LeafNode}, plus one, within the bounds of the {@code ReadAhead}. A fast consumer thus gets a deep
+ * window that hides the latency of storage, while a slow consumer does not fill the caches with {@code LeafNode}s that
+ * it will not reach for a long time. Prefetching never changes what a {@code ReadAheadScan} returns, which still
+ * follows the successor pointers.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class ReadAheadScan<K extends Comparable<K>, P> extends RangeScan<K, P> {
+
+	/**
+	 * The weight of a new sample in the moving averages of times.
+	 */
+	protected static final double ALPHA = 0.2;
+
+	/**
+	 * The {@code ReadAhead} that runs the prefetches.
+	 */
+	protected ReadAhead readAhead;
+
+	/**
+	 * The storage from which {@code Node}s are prefetched.
+	 */
+	protected Prefetchable<P> storage;
+
+	/**
+	 * The {@code LeafCursor} at the last {@code LeafNode} prefetched.
+	 */
+	protected LeafCursor<K, P> cursor;
+
+	/**
+	 * The number of {@code LeafNode}s prefetched ahead of the current {@code LeafNode}.
+	 */
+	protected int ahead;
+
+	/**
+	 * A flag indicating whether or not the cursor has passed the last {@code LeafNode} to prefetch.
+	 */
+	protected boolean done;
+
+	/**
+	 * The current window.
+	 */
+	protected int window;
+
+	/**
+	 * The time in nanoseconds at which the current {@code LeafNode} was reached.
+	 */
+	protected long reached;
+
+	/**
+	 * The moving average of the time in nanoseconds that the caller spends on a {@code LeafNode}; 0 if unknown.
+	 */
+	protected double consumeNanos;
+
+	/**
+	 * The moving average of the time in nanoseconds that a prefetch takes; 0 if unknown.
+	 */
+	protected volatile double prefetchNanos;
+
+	/**
+	 * Constructs a {@code ReadAheadScan} and starts prefetching.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param leaf
+	 *            the {@code LeafNode} to start from; {@code null} if the {@code BPlusTree} is empty
+	 * @param index
+	 *            the index of the first key to return in the specified {@code LeafNode}
+	 * @param to
+	 *            the upper bound of the keys to return; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @param readAhead
+	 *            the {@code ReadAhead} that runs the prefetches
+	 * @param storage
+	 *            the storage from which {@code Node}s are prefetched
+	 * @param cursor
+	 *            a {@code LeafCursor} at the specified {@code LeafNode}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected ReadAheadScan(BPlusTree<K, P> tree, LeafNode<K, P> leaf, int index, K to, boolean toInclusive,
+			ReadAhead readAhead, Prefetchable<P> storage, LeafCursor<K, P> cursor) throws IOException {
+		super(tree, leaf, index, to, toInclusive);
+		this.readAhead = readAhead;
+		this.storage = storage;
+		this.cursor = cursor;
+		this.window = readAhead.minWindow();
+		this.done = leaf == null;
+		prefetch();
+		reached = System.nanoTime();
+	}
+
+	/**
+	 * Moves to the succeeding {@code LeafNode}, updating the time spent on the previous {@code LeafNode} and then
+	 * prefetching more {@code LeafNode}s to fill the window.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	protected void advance() throws IOException {
+		long now = System.nanoTime();
+		consumeNanos = consumeNanos == 0 ? now - reached : (1 - ALPHA) * consumeNanos + ALPHA * (now - reached);
+		if (ahead > 0)
+			ahead--;
+		super.advance();
+		if (leaf != null)
+			prefetch();
+		else
+			done = true;
+		reached = System.nanoTime(); // the time spent reading the LeafNode is not counted as consumption
+	}
+
+	/**
+	 * Prefetches {@code LeafNode}s until the window is filled.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs while moving the cursor into the next parent
+	 */
+	protected void prefetch() throws IOException {
+		window = window();
+		while (!done && ahead < window) {
+			P p = cursor.next();
+			if (p == null)
+				done = true;
+			else {
+				prefetch(p);
+				ahead++;
+				P parent = cursor.nextParent();
+				if (parent != null) // the cursor will move into the next parent
+					prefetch(parent);
+			}
+		}
+	}
+
+	/**
+	 * Returns the current window.
+	 * 
+	 * @return the average time of a prefetch divided by the average time spent on a {@code LeafNode}, plus one, within
+	 *         the bounds of the {@code ReadAhead}; the previous window if either time is not known yet
+	 */
+	protected int window() {
+		double prefetchNanos = this.prefetchNanos;
+		if (prefetchNanos == 0 || consumeNanos == 0)
+			return window;
+		double w = Math.ceil(prefetchNanos / consumeNanos) + 1;
+		return (int) Math.max(readAhead.minWindow(), Math.min(readAhead.maxWindow(), w));
+	}
+
+	/**
+	 * Prefetches the {@code Node} at the specified location in the background, updating the average time of a
+	 * prefetch when it completes.
+	 * 
+	 * @param p
+	 *            the location of a {@code Node}
+	 */
+	protected void prefetch(final P p) {
+		readAhead.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				long start = System.nanoTime();
+				try {
+					storage.prefetch(tree.fileID, p);
+				} catch (Exception e) { // prefetching is only a hint
+					return;
+				}
+				long t = System.nanoTime() - start;
+				prefetchNanos = prefetchNanos == 0 ? t : (1 - ALPHA) * prefetchNanos + ALPHA * t;
+			}
+
+		});
+	}
+
+}
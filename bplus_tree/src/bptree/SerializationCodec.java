@@ -0,0 +1,81 @@
+package bptree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code SerializationCodec} class encodes objects using Java serialization. It can encode any
+ * {@code Serializable} object.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class SerializationCodec implements NodeCodec {
+
+	/**
+	 * An {@code InputStream} that reads the remaining bytes of a {@code ByteBuffer}.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	protected static class ByteBufferInputStream extends InputStream {
+
+		/**
+		 * The {@code ByteBuffer} to read.
+		 */
+		ByteBuffer b;
+
+		/**
+		 * Constructs a {@code ByteBufferInputStream}.
+		 * 
+		 * @param b
+		 *            the {@code ByteBuffer} to read
+		 */
+		ByteBufferInputStream(ByteBuffer b) {
+			this.b = b;
+		}
+
+		@Override
+		public int read() {
+			return b.hasRemaining() ? b.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			if (len == 0)
+				return 0;
+			if (!b.hasRemaining())
+				return -1;
+			len = Math.min(len, b.remaining());
+			b.get(bytes, off, len);
+			return len;
+		}
+
+		@Override
+		public int available() {
+			return b.remaining();
+		}
+
+	}
+
+	@Override
+	public byte[] encode(Object o) throws IOException {
+		if (o == null)
+			return null;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ObjectOutputStream(out).writeObject(o);
+		return out.toByteArray();
+	}
+
+	@Override
+	public Object decode(ByteBuffer b) throws IOException {
+		try {
+			return new ObjectInputStream(new ByteBufferInputStream(b)).readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+package bptree;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@code Serializer} writes values of a certain type into {@code ByteBuffer}s and reads them back. A
+ * {@code BinaryNodeCodec} uses a {@code Serializer} for keys and another for pointers.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <T>
+ *            the type of values
+ */
+public interface Serializer<T> {
+
+	/**
+	 * A {@code Serializer} for {@code String}s, which writes the length of the UTF-8 encoding followed by the encoding.
+	 */
+	Serializer<String> STRING = new Serializer<String>() {
+
+		@Override
+		public Class<String> type() {
+			return String.class;
+		}
+
+		@Override
+		public void write(String s, ByteBuffer b) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			putVarInt(b, bytes.length);
+			b.put(bytes);
+		}
+
+		@Override
+		public String read(ByteBuffer b) {
+			int length = getVarInt(b);
+			String s;
+			if (b.hasArray())
+				s = new String(b.array(), b.arrayOffset() + b.position(), length, StandardCharsets.UTF_8);
+			else { // a direct or memory-mapped buffer
+				byte[] bytes = new byte[length];
+				b.duplicate().get(bytes);
+				s = new String(bytes, StandardCharsets.UTF_8);
+			}
+			b.position(b.position() + length);
+			return s;
+		}
+
+	};
+
+	/**
+	 * A {@code Serializer} for {@code Integer}s, which writes 4 bytes per {@code Integer}.
+	 */
+	Serializer<Integer> INTEGER = new Serializer<Integer>() {
+
+		@Override
+		public Class<Integer> type() {
+			return Integer.class;
+		}
+
+		@Override
+		public void write(Integer i, ByteBuffer b) {
+			b.putInt(i);
+		}
+
+		@Override
+		public Integer read(ByteBuffer b) {
+			return b.getInt();
+		}
+
+	};
+
+	/**
+	 * A {@code Serializer} for {@code Long}s, which writes 8 bytes per {@code Long}.
+	 */
+	Serializer<Long> LONG = new Serializer<Long>() {
+
+		@Override
+		public Class<Long> type() {
+			return Long.class;
+		}
+
+		@Override
+		public void write(Long l, ByteBuffer b) {
+			b.putLong(l);
+		}
+
+		@Override
+		public Long read(ByteBuffer b) {
+			return b.getLong();
+		}
+
+	};
+
+	/**
+	 * A {@code Serializer} for byte arrays, which writes the length of each byte array followed by its content.
+	 */
+	Serializer<byte[]> BYTES = new Serializer<byte[]>() {
+
+		@Override
+		public Class<byte[]> type() {
+			return byte[].class;
+		}
+
+		@Override
+		public void write(byte[] bytes, ByteBuffer b) {
+			putVarInt(b, bytes.length);
+			b.put(bytes);
+		}
+
+		@Override
+		public byte[] read(ByteBuffer b) {
+			byte[] bytes = new byte[getVarInt(b)];
+			b.get(bytes);
+			return bytes;
+		}
+
+	};
+
+	/**
+	 * Returns the type of values that this {@code Serializer} writes.
+	 * 
+	 * @return the type of values that this {@code Serializer} writes
+	 */
+	Class<T> type();
+
+	/**
+	 * Writes the specified value into the specified {@code ByteBuffer}.
+	 * 
+	 * @param t
+	 *            a value
+	 * @param b
+	 *            a {@code ByteBuffer}
+	 * @throws java.nio.BufferOverflowException
+	 *             if the {@code ByteBuffer} does not have enough room for the value
+	 */
+	void write(T t, ByteBuffer b);
+
+	/**
+	 * Reads a value from the specified {@code ByteBuffer}.
+	 * 
+	 * @param b
+	 *            a {@code ByteBuffer}
+	 * @return the value read from the specified {@code ByteBuffer}
+	 */
+	T read(ByteBuffer b);
+
+	/**
+	 * Writes the specified non-negative {@code int} using 7 bits per byte, so small values take fewer bytes.
+	 * 
+	 * @param b
+	 *            a {@code ByteBuffer}
+	 * @param i
+	 *            a non-negative {@code int}
+	 */
+	static void putVarInt(ByteBuffer b, int i) {
+		while ((i & ~0x7f) != 0) {
+			b.put((byte) (i & 0x7f | 0x80));
+			i >>>= 7;
+		}
+		b.put((byte) i);
+	}
+
+	/**
+	 * Reads an {@code int} written by {@link #putVarInt(ByteBuffer, int)}.
+	 * 
+	 * @param b
+	 *            a {@code ByteBuffer}
+	 * @return the {@code int} read from the specified {@code ByteBuffer}
+	 */
+	static int getVarInt(ByteBuffer b) {
+		int i = 0;
+		for (int shift = 0;; shift += 7) {
+			byte v = b.get();
+			i |= (v & 0x7f) << shift;
+			if (v >= 0)
+				return i;
+		}
+	}
+
+}
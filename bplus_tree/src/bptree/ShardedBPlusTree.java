@@ -0,0 +1,583 @@
+package bptree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import bptree.BPlusTree.InvalidDeletionException;
+import bptree.BPlusTree.InvalidInsertionException;
+
+/**
+ * A {@code ShardedBPlusTree} splits the key space into ranges, each of which is stored in a {@code BPlusTree} of its
+ * own, called a shard, with a file of its own in a shared {@code StorageManager}. Each key is routed to the shard
+ * whose range contains it, and range scans visit the shards in the order of their ranges. Each shard has a read/write
+ * latch, so operations on different shards run in parallel while each shard stays small and shallow; the ranges are
+ * guarded by another read/write latch that only rebalancing acquires exclusively. Initially, a single shard covers all
+ * keys and the other shards are spares. When a shard grows beyond a given size, the upper half of its keys are moved
+ * to a spare shard if there is one; otherwise, keys are moved to the smaller of its neighbors if that neighbor has less
+ * than half as many keys. The ranges are not stored: when a {@code ShardedBPlusTree} is opened again, the range of
+ * each non-empty shard starts from its smallest key and the empty shards become spares. Range scans hold no latch
+ * between batches of keys and find the next batch by routing the last key returned, so each key present throughout a
+ * scan is returned exactly once and in order. The {@code StorageManager} must be thread-safe.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <P>
+ *            the type of pointers
+ */
+public class ShardedBPlusTree<K extends Comparable<K>, P> {
+
+	/**
+	 * A {@code Shard} is a {@code BPlusTree} responsible for a range of keys.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 * 
+	 */
+	protected class Shard {
+
+		/**
+		 * The {@code BPlusTree} of this {@code Shard}.
+		 */
+		BPlusTree<K, P> tree;
+
+		/**
+		 * The smallest key of the range of this {@code Shard}; {@code null} if the range has no lower bound.
+		 */
+		K low;
+
+		/**
+		 * The number of keys in this {@code Shard}.
+		 */
+		volatile long size;
+
+		/**
+		 * The latch of this {@code Shard}.
+		 */
+		ReentrantReadWriteLock latch = new ReentrantReadWriteLock();
+
+		/**
+		 * Constructs a {@code Shard}.
+		 * 
+		 * @param tree
+		 *            the {@code BPlusTree} of the {@code Shard}
+		 */
+		Shard(BPlusTree<K, P> tree) {
+			this.tree = tree;
+		}
+
+	}
+
+	/**
+	 * The maximum number of keys that a range scan reads from the shards at a time.
+	 */
+	protected static final int BATCH = 256;
+
+	/**
+	 * The fraction of each {@code Node} to fill when keys are moved to a spare shard.
+	 */
+	protected static final double FILL_FACTOR = 0.7;
+
+	/**
+	 * The degree of the shards.
+	 */
+	protected int degree;
+
+	/**
+	 * The {@code StorageManager} used for the shards.
+	 */
+	protected StorageManager<P, Object> sm;
+
+	/**
+	 * The {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used.
+	 */
+	protected Comparator<? super K> comparator;
+
+	/**
+	 * The number of keys beyond which a shard is rebalanced.
+	 */
+	protected long maxShardSize;
+
+	/**
+	 * The shards that are responsible for ranges of keys, in the order of their ranges.
+	 */
+	protected List<Shard> shards = new ArrayList<Shard>();
+
+	/**
+	 * The shards that are not responsible for any key.
+	 */
+	protected List<Shard> spares = new ArrayList<Shard>();
+
+	/**
+	 * The latch that guards the ranges of the shards.
+	 */
+	protected ReentrantReadWriteLock rangeLatch = new ReentrantReadWriteLock();
+
+	/**
+	 * Constructs a {@code ShardedBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of the shards can have
+	 * @param sm
+	 *            a thread-safe {@code StorageManager} used for the shards
+	 * @param fileName
+	 *            the name of the file used for this {@code ShardedBPlusTree}; shard {@code i} uses the file named
+	 *            {@code fileName + "." + i}
+	 * @param shardCount
+	 *            the number of shards
+	 * @param maxShardSize
+	 *            the number of keys beyond which a shard is rebalanced
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @throws IllegalArgumentException
+	 *             if the number of shards or the number of keys beyond which a shard is rebalanced is not positive
+	 */
+	public ShardedBPlusTree(int degree, StorageManager<P, Object> sm, String fileName, int shardCount,
+			long maxShardSize) throws IOException {
+		this(degree, sm, fileName, shardCount, maxShardSize, null);
+	}
+
+	/**
+	 * Constructs a {@code ShardedBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the maximum number of pointers that each {@code Node} of the shards can have
+	 * @param sm
+	 *            a thread-safe {@code StorageManager} used for the shards
+	 * @param fileName
+	 *            the name of the file used for this {@code ShardedBPlusTree}; shard {@code i} uses the file named
+	 *            {@code fileName + "." + i}
+	 * @param shardCount
+	 *            the number of shards
+	 * @param maxShardSize
+	 *            the number of keys beyond which a shard is rebalanced
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @throws IllegalArgumentException
+	 *             if the number of shards or the number of keys beyond which a shard is rebalanced is not positive
+	 */
+	public ShardedBPlusTree(int degree, StorageManager<P, Object> sm, String fileName, int shardCount,
+			long maxShardSize, Comparator<? super K> comparator) throws IOException {
+		if (shardCount < 1)
+			throw new IllegalArgumentException("shard count: " + shardCount);
+		if (maxShardSize < 1) // a shard with a single key could not be split
+			throw new IllegalArgumentException("max shard size: " + maxShardSize);
+		this.degree = degree;
+		this.sm = sm;
+		this.maxShardSize = maxShardSize;
+		this.comparator = comparator;
+		for (int i = 0; i < shardCount; i++) {
+			Shard s = new Shard(createShard(fileName + "." + i));
+			for (RangeScan<K, P> scan = s.tree.scan(); scan.hasNext();) { // count the keys and find the smallest
+				K k = scan.next().getKey();
+				if (s.size++ == 0)
+					s.low = k;
+			}
+			if (s.size == 0)
+				spares.add(s);
+			else
+				shards.add(s);
+		}
+		shards.sort((s1, s2) -> compare(s1.low, s2.low));
+		if (shards.isEmpty())
+			shards.add(spares.remove(0));
+		shards.get(0).low = null;
+	}
+
+	/**
+	 * Returns the number of keys in this {@code ShardedBPlusTree}.
+	 * 
+	 * @return the number of keys in this {@code ShardedBPlusTree}
+	 */
+	public long size() {
+		rangeLatch.readLock().lock();
+		try {
+			long size = 0;
+			for (Shard s : shards)
+				size += s.size;
+			return size;
+		} finally {
+			rangeLatch.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the pointer associated with the specified key in this {@code ShardedBPlusTree}.
+	 * 
+	 * @param k
+	 *            a search key
+	 * @return the pointer associated with the specified key; {@code null} if the specified key is not contained in
+	 *         this {@code ShardedBPlusTree}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public P search(K k) throws IOException {
+		rangeLatch.readLock().lock();
+		try {
+			Shard s = shard(k);
+			s.latch.readLock().lock();
+			try {
+				return s.tree.search(k);
+			} finally {
+				s.latch.readLock().unlock();
+			}
+		} finally {
+			rangeLatch.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns an {@code Iterator} over all of the keys in this {@code ShardedBPlusTree}.
+	 * 
+	 * @return an {@code Iterator} over all of the keys in this {@code ShardedBPlusTree}
+	 */
+	public Iterator<Map.Entry<K, P>> scan() {
+		return scan(null, true, null, true);
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the keys in this {@code ShardedBPlusTree} within the specified range. The
+	 * {@code Iterator} throws an {@code UncheckedIOException} if an I/O error occurs while reading the shards.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @return an {@code Iterator} over the keys in this {@code ShardedBPlusTree} within the specified range
+	 */
+	public Iterator<Map.Entry<K, P>> scan(final K from, final boolean fromInclusive, final K to,
+			final boolean toInclusive) {
+		return new Iterator<Map.Entry<K, P>>() {
+
+			List<Map.Entry<K, P>> batch = new ArrayList<Map.Entry<K, P>>();
+
+			int index = 0;
+
+			boolean last = false;
+
+			@Override
+			public boolean hasNext() {
+				if (index < batch.size())
+					return true;
+				if (last)
+					return false;
+				try {
+					K bound = batch.isEmpty() ? from : batch.get(batch.size() - 1).getKey();
+					batch = read(bound, batch.isEmpty() ? fromInclusive : false, to, toInclusive);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				index = 0;
+				last = batch.size() < BATCH;
+				return !batch.isEmpty();
+			}
+
+			@Override
+			public Map.Entry<K, P> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return batch.get(index++);
+			}
+
+		};
+	}
+
+	/**
+	 * Inserts the specified key and pointer into the shard responsible for the key, and then rebalances that shard if
+	 * it has grown too large.
+	 * 
+	 * @param k
+	 *            the key to insert
+	 * @param p
+	 *            the pointer to insert
+	 * @throws InvalidInsertionException
+	 *             if a key already existent in this {@code ShardedBPlusTree} is attempted to be inserted again
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void insert(K k, P p) throws InvalidInsertionException, IOException {
+		boolean rebalance;
+		rangeLatch.readLock().lock();
+		try {
+			Shard s = shard(k);
+			s.latch.writeLock().lock();
+			try {
+				s.tree.insert(k, p);
+				s.size++;
+			} finally {
+				s.latch.writeLock().unlock();
+			}
+			rebalance = needsRebalancing(s);
+		} finally {
+			rangeLatch.readLock().unlock();
+		}
+		if (rebalance)
+			rebalance(k);
+	}
+
+	/**
+	 * Removes the specified key and the corresponding pointer from this {@code ShardedBPlusTree}.
+	 * 
+	 * @param k
+	 *            the key to delete
+	 * @throws InvalidDeletionException
+	 *             if a key non-existent in this {@code ShardedBPlusTree} is attempted to be deleted
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void delete(K k) throws InvalidDeletionException, IOException {
+		rangeLatch.readLock().lock();
+		try {
+			Shard s = shard(k);
+			s.latch.writeLock().lock();
+			try {
+				s.tree.delete(k);
+				s.size--;
+			} finally {
+				s.latch.writeLock().unlock();
+			}
+		} finally {
+			rangeLatch.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Constructs the {@code BPlusTree} of a shard.
+	 * 
+	 * @param fileName
+	 *            the name of the file used for the shard
+	 * @return the {@code BPlusTree} of a shard
+	 */
+	protected BPlusTree<K, P> createShard(String fileName) {
+		return new BPlusTree<K, P>(degree, sm, fileName, comparator);
+	}
+
+	/**
+	 * Returns the index of the shard responsible for the specified key.
+	 * 
+	 * @param k
+	 *            a key; {@code null} for the first shard
+	 * @return the index of the shard responsible for the specified key
+	 */
+	protected int shardIndex(K k) {
+		if (k == null)
+			return 0;
+		int lo = 1;
+		int hi = shards.size() - 1;
+		while (lo <= hi) { // find the last shard whose range starts at or below the key
+			int mid = (lo + hi) >>> 1;
+			if (compare(shards.get(mid).low, k) <= 0)
+				lo = mid + 1;
+			else
+				hi = mid - 1;
+		}
+		return hi < 1 ? 0 : hi;
+	}
+
+	/**
+	 * Returns the shard responsible for the specified key.
+	 * 
+	 * @param k
+	 *            a key
+	 * @return the shard responsible for the specified key
+	 */
+	protected Shard shard(K k) {
+		return shards.get(shardIndex(k));
+	}
+
+	/**
+	 * Reads keys and pointers within the specified range from the shards, visiting the shards in the order of their
+	 * ranges.
+	 * 
+	 * @param from
+	 *            the lower bound of the keys; {@code null} if there is no lower bound
+	 * @param fromInclusive
+	 *            {@code true} if the lower bound is inclusive; {@code false} otherwise
+	 * @param to
+	 *            the upper bound of the keys; {@code null} if there is no upper bound
+	 * @param toInclusive
+	 *            {@code true} if the upper bound is inclusive; {@code false} otherwise
+	 * @return the first {@link #BATCH} keys and pointers within the specified range, or all of them if there are
+	 *         fewer
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected List<Map.Entry<K, P>> read(K from, boolean fromInclusive, K to, boolean toInclusive)
+			throws IOException {
+		List<Map.Entry<K, P>> batch = new ArrayList<Map.Entry<K, P>>();
+		rangeLatch.readLock().lock();
+		try {
+			for (int i = shardIndex(from); i < shards.size() && batch.size() < BATCH; i++) {
+				Shard s = shards.get(i);
+				if (i > 0 && to != null && compare(s.low, to) > 0) // if the range of the shard is beyond the bound
+					break;
+				s.latch.readLock().lock();
+				try {
+					RangeScan<K, P> scan = s.tree.scan(from, fromInclusive, to, toInclusive);
+					while (batch.size() < BATCH && scan.hasNext()) {
+						Map.Entry<K, P> e = scan.next();
+						batch.add(new AbstractMap.SimpleImmutableEntry<K, P>(e.getKey(), e.getValue()));
+					}
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
+				} finally {
+					s.latch.readLock().unlock();
+				}
+			}
+			return batch;
+		} finally {
+			rangeLatch.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Determines whether or not the specified shard needs rebalancing, that is, it has more than
+	 * {@link #maxShardSize} keys and either a spare shard or a neighbor with less than half as many keys exists.
+	 * 
+	 * @param s
+	 *            a shard
+	 * @return {@code true} if the specified shard needs rebalancing; {@code false} otherwise
+	 */
+	protected boolean needsRebalancing(Shard s) {
+		if (s.size <= maxShardSize)
+			return false;
+		return !spares.isEmpty() || neighbor(s) != null;
+	}
+
+	/**
+	 * Returns the neighbor of the specified shard to which keys can be moved.
+	 * 
+	 * @param s
+	 *            a shard
+	 * @return the smaller neighbor of the specified shard if that neighbor has less than half as many keys as the
+	 *         shard; {@code null} otherwise
+	 */
+	protected Shard neighbor(Shard s) {
+		int i = shards.indexOf(s);
+		Shard n = null;
+		if (i > 0)
+			n = shards.get(i - 1);
+		if (i + 1 < shards.size() && (n == null || shards.get(i + 1).size < n.size))
+			n = shards.get(i + 1);
+		return n != null && n.size * 2 < s.size ? n : null;
+	}
+
+	/**
+	 * Rebalances the shard responsible for the specified key if it still needs rebalancing. The upper half of its
+	 * keys are moved to a spare shard if there is one, and otherwise the keys are evened out with the smaller
+	 * neighbor.
+	 * 
+	 * @param k
+	 *            a key
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void rebalance(K k) throws IOException {
+		rangeLatch.writeLock().lock();
+		try {
+			Shard s = shard(k);
+			if (!needsRebalancing(s))
+				return;
+			int i = shards.indexOf(s);
+			if (!spares.isEmpty()) { // split the shard at its median key
+				Shard t = spares.remove(spares.size() - 1);
+				List<Map.Entry<K, P>> moved = entries(s, s.size / 2, s.size);
+				t.tree.bulkLoad(moved.iterator(), FILL_FACTOR);
+				move(moved, s, t);
+				t.low = moved.get(0).getKey();
+				shards.add(i + 1, t);
+				return;
+			}
+			Shard n = neighbor(s);
+			long count = (s.size - n.size) / 2;
+			boolean left = shards.indexOf(n) < i;
+			List<Map.Entry<K, P>> moved = left ? entries(s, 0, count) : entries(s, s.size - count, s.size);
+			n.tree.insertSorted(moved.iterator());
+			move(moved, s, n);
+			if (left) // the range of the shard now starts after the moved keys
+				s.low = entries(s, 0, 1).get(0).getKey();
+			else
+				n.low = moved.get(0).getKey();
+		} catch (InvalidInsertionException e) { // the ranges of the shards are disjoint
+			throw new IllegalStateException(e);
+		} finally {
+			rangeLatch.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the keys and pointers of the specified shard within the specified range of positions.
+	 * 
+	 * @param s
+	 *            a shard
+	 * @param begin
+	 *            the position of the first key to return
+	 * @param end
+	 *            the position after the last key to return
+	 * @return the keys and pointers of the specified shard within the specified range of positions
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected List<Map.Entry<K, P>> entries(Shard s, long begin, long end) throws IOException {
+		List<Map.Entry<K, P>> entries = new ArrayList<Map.Entry<K, P>>();
+		RangeScan<K, P> scan = s.tree.scan();
+		for (long i = 0; i < end && scan.hasNext(); i++) {
+			Map.Entry<K, P> e = scan.next();
+			if (i >= begin)
+				entries.add(e);
+		}
+		return entries;
+	}
+
+	/**
+	 * Deletes the specified keys, which have been inserted into the target shard, from the source shard.
+	 * 
+	 * @param moved
+	 *            the keys and pointers moved
+	 * @param source
+	 *            the shard from which the keys are moved
+	 * @param target
+	 *            the shard to which the keys are moved
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void move(List<Map.Entry<K, P>> moved, Shard source, Shard target) throws IOException {
+		try {
+			for (Map.Entry<K, P> e : moved)
+				source.tree.delete(e.getKey());
+		} catch (InvalidDeletionException e) { // the keys have just been read from the source shard
+			throw new IllegalStateException(e);
+		}
+		source.size -= moved.size();
+		target.size += moved.size();
+	}
+
+	/**
+	 * Compares the specified keys using the ordering of this {@code ShardedBPlusTree}.
+	 * 
+	 * @param k1
+	 *            a key
+	 * @param k2
+	 *            a key
+	 * @return a negative integer, zero, or a positive integer if the first key is less than, equal to, or greater than
+	 *         the second key, respectively
+	 */
+	protected int compare(K k1, K k2) {
+		return comparator == null ? k1.compareTo(k2) : comparator.compare(k1, k2);
+	}
+
+}
@@ -0,0 +1,34 @@
+package bptree;
+
+/**
+ * A {@code SplitPolicy} decides where an overflowing {@code Node} of a {@code BPlusTree} is split.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public interface SplitPolicy {
+
+	/**
+	 * Returns the split point of an overflowing {@code Node} that temporarily holds {@code degree} keys after a new
+	 * key has been inserted. For a {@code LeafNode}, the split point is the number of keys that remain in the
+	 * {@code Node}; for a {@code NonLeafNode}, it is the number of pointers that remain in the {@code Node}, and the
+	 * key right before the remaining pointers moves up. Every split point must leave at least one key in each of the
+	 * resulting {@code Node}s.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param leaf
+	 *            {@code true} if the overflowing {@code Node} is a {@code LeafNode}; {@code false} otherwise
+	 * @param index
+	 *            the index of the new key among the {@code degree} keys
+	 * @param leftmost
+	 *            {@code true} if the overflowing {@code Node} is known to be the leftmost {@code Node} at its level;
+	 *            {@code false} otherwise
+	 * @param rightmost
+	 *            {@code true} if the overflowing {@code Node} is known to be the rightmost {@code Node} at its level;
+	 *            {@code false} otherwise
+	 * @return the split point; at least 1 and at most {@code degree - 1} for a {@code LeafNode} and at least 2 and at
+	 *         most {@code degree - 1} for a {@code NonLeafNode}
+	 */
+	int splitPoint(int degree, boolean leaf, int index, boolean leftmost, boolean rightmost);
+
+}
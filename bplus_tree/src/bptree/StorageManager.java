@@ -53,7 +53,8 @@ public interface StorageManager<L, O> {
 	 * @param o
 	 *            the object to put
 	 * @return the object stored previously at the specified location in the specified file; {@code null} if no such
-	 *         object
+	 *         object or if the {@code StorageManager} does not read previous objects back (e.g., to avoid an extra
+	 *         read on storage)
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
@@ -65,7 +66,8 @@ public interface StorageManager<L, O> {
 	 * @param fileID
 	 *            the ID of the file
 	 * @param o
-	 *            the object to add
+	 *            the object to add; {@code null} to only reserve a location for an object to be put later, which
+	 *            should not require writing on storage
 	 * @return the location of the object in the specified file
 	 * @throws IOException
 	 *             if an I/O error occurs
@@ -80,7 +82,8 @@ public interface StorageManager<L, O> {
 	 * @param loc
 	 *            the location of the object
 	 * @return the object stored previously at the specified location in the specified file; {@code null} if no such
-	 *         object
+	 *         object or if the {@code StorageManager} does not read previous objects back (e.g., to avoid an extra
+	 *         read on storage)
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
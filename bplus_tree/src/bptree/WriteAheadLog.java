@@ -0,0 +1,625 @@
+package bptree;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A {@code WriteAheadLog} is a {@code StorageManager} that makes the changes to a {@code FileStorageManager} durable
+ * and atomic per logical operation, such as a {@link BPlusTree#insert(Comparable, Object)} that splits several
+ * {@code Node}s. The changes made by a thread are kept aside, visible only to that thread, until the thread calls
+ * {@link #commit()}, which appends them to the log followed by a commit record and waits until the log is forced to
+ * disk. Other threads see the committed changes from then on, as fresh copies decoded from the log records, so no
+ * thread sees the objects that another thread is still modifying. A background thread forces
+ * the log once per group commit window, so the commits of concurrent operations share a single {@code force}. Only
+ * after the log is forced are the changes written to the {@code FileStorageManager}, without forcing it. When a
+ * {@code WriteAheadLog} is constructed, the operations committed in the log are redone on the
+ * {@code FileStorageManager}, and operations whose commit records did not reach the log are ignored. The log is
+ * truncated at checkpoints, after the {@code FileStorageManager} has been forced.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class WriteAheadLog implements StorageManager<Integer, Object>, Flushable, Closeable {
+
+	/**
+	 * A {@code Change} records an object put at, added at, or removed from a location.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	protected static class Change {
+
+		/**
+		 * The ID of the file.
+		 */
+		int fileID;
+
+		/**
+		 * The location in the file.
+		 */
+		int loc;
+
+		/**
+		 * The object at the location; {@code null} if the object is removed.
+		 */
+		Object object;
+
+		/**
+		 * The encoded object; {@code null} if the object is removed.
+		 */
+		byte[] bytes;
+
+		/**
+		 * Constructs a {@code Change}.
+		 * 
+		 * @param fileID
+		 *            the ID of the file
+		 * @param loc
+		 *            the location in the file
+		 * @param object
+		 *            the object at the location; {@code null} if the object is removed
+		 * @param bytes
+		 *            the encoded object; {@code null} if the object is removed
+		 */
+		Change(int fileID, int loc, Object object, byte[] bytes) {
+			this.fileID = fileID;
+			this.loc = loc;
+			this.object = object;
+			this.bytes = bytes;
+		}
+
+	}
+
+	/**
+	 * The type of log records that contain a {@code Change}.
+	 */
+	protected static final byte PAGE = 1;
+
+	/**
+	 * The type of log records that mark the end of an operation.
+	 */
+	protected static final byte COMMIT = 2;
+
+	/**
+	 * The {@code FileStorageManager} whose changes are logged.
+	 */
+	protected FileStorageManager sm;
+
+	/**
+	 * The {@code FileChannel} of the log.
+	 */
+	protected FileChannel log;
+
+	/**
+	 * The maximum time in nanoseconds that a commit waits for other commits to share a {@code force} of the log.
+	 */
+	protected long windowNanos;
+
+	/**
+	 * The number of bytes of log records that triggers a {@code force} of the log before the window elapses.
+	 */
+	protected int windowBytes;
+
+	/**
+	 * The size of the log in bytes that triggers a checkpoint.
+	 */
+	protected long checkpointBytes;
+
+	/**
+	 * A map that associates the ID of each file with the name of the file.
+	 */
+	protected Map<Integer, String> fileNames = new HashMap<Integer, String>();
+
+	/**
+	 * The latest committed {@code Change} at each location that is not yet written to the {@code FileStorageManager}.
+	 */
+	protected Map<BufferPool.PageID<Integer>, Change> changes = new HashMap<BufferPool.PageID<Integer>, Change>();
+
+	/**
+	 * The latest {@code Change} at each location that the current operation of each thread has made, which only that
+	 * thread sees until the operation is committed.
+	 */
+	protected ThreadLocal<Map<BufferPool.PageID<Integer>, Change>> operation =
+			new ThreadLocal<Map<BufferPool.PageID<Integer>, Change>>() {
+
+				@Override
+				protected Map<BufferPool.PageID<Integer>, Change> initialValue() {
+					return new LinkedHashMap<BufferPool.PageID<Integer>, Change>();
+				}
+
+			};
+
+	/**
+	 * The locations that the current operation of each thread has reserved in the {@code FileStorageManager}, which
+	 * are removed if the operation is aborted.
+	 */
+	protected ThreadLocal<List<BufferPool.PageID<Integer>>> reserved =
+			new ThreadLocal<List<BufferPool.PageID<Integer>>>() {
+
+				@Override
+				protected List<BufferPool.PageID<Integer>> initialValue() {
+					return new ArrayList<BufferPool.PageID<Integer>>();
+				}
+
+			};
+
+	/**
+	 * The log records appended but not yet written to the log.
+	 */
+	protected ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+	/**
+	 * The {@code Change}s of the operations whose commit records are in {@link #buffer}.
+	 */
+	protected List<Change> committed = new ArrayList<Change>();
+
+	/**
+	 * The number of operations whose commit records have been appended.
+	 */
+	protected long appended;
+
+	/**
+	 * The number of operations whose commit records have been forced to disk.
+	 */
+	protected long durable;
+
+	/**
+	 * The time in nanoseconds at which the first commit record in {@link #buffer} was appended.
+	 */
+	protected long windowStart;
+
+	/**
+	 * The size of the log in bytes.
+	 */
+	protected long logSize;
+
+	/**
+	 * The {@code IOException} that stopped the background thread; {@code null} if no such exception.
+	 */
+	protected IOException failure;
+
+	/**
+	 * A flag indicating whether or not this {@code WriteAheadLog} is closed.
+	 */
+	protected boolean closed;
+
+	/**
+	 * The background thread that forces the log.
+	 */
+	protected Thread flusher;
+
+	/**
+	 * Constructs a {@code WriteAheadLog} which uses a group commit window of 2 milliseconds or 256 KB and checkpoints
+	 * every 64 MB of log.
+	 * 
+	 * @param sm
+	 *            the {@code FileStorageManager} whose changes are logged
+	 * @param logFile
+	 *            the log file
+	 * @throws IOException
+	 *             if an I/O error occurs while opening the log or redoing the operations in the log
+	 */
+	public WriteAheadLog(FileStorageManager sm, File logFile) throws IOException {
+		this(sm, logFile, 2, 256 * 1024, 64L * 1024 * 1024);
+	}
+
+	/**
+	 * Constructs a {@code WriteAheadLog}, redoing the operations committed in the specified log file on the specified
+	 * {@code FileStorageManager}.
+	 * 
+	 * @param sm
+	 *            the {@code FileStorageManager} whose changes are logged
+	 * @param logFile
+	 *            the log file
+	 * @param windowMillis
+	 *            the maximum time in milliseconds that a commit waits for other commits to share a {@code force} of
+	 *            the log
+	 * @param windowBytes
+	 *            the number of bytes of log records that triggers a {@code force} of the log before the window
+	 *            elapses
+	 * @param checkpointBytes
+	 *            the size of the log in bytes that triggers a checkpoint
+	 * @throws IOException
+	 *             if an I/O error occurs while opening the log or redoing the operations in the log
+	 */
+	public WriteAheadLog(FileStorageManager sm, File logFile, long windowMillis, int windowBytes, long checkpointBytes)
+			throws IOException {
+		this.sm = sm;
+		this.windowNanos = windowMillis * 1000000;
+		this.windowBytes = windowBytes;
+		this.checkpointBytes = checkpointBytes;
+		this.log = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		recover();
+		flusher = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				forceLog();
+			}
+
+		}, "WriteAheadLog " + logFile.getName());
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	@Override
+	public synchronized int fileID(String fileName) {
+		int fileID = sm.fileID(fileName);
+		fileNames.put(fileID, fileName);
+		return fileID;
+	}
+
+	@Override
+	public Integer first() {
+		return sm.first();
+	}
+
+	/**
+	 * Returns the object at the specified location in the specified file as the calling thread sees it: the object
+	 * that its current operation has put there if any, and otherwise the object that was committed last.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @return the object at the specified location in the specified file; {@code null} if no such object
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized Object get(int fileID, Integer loc) throws IOException {
+		BufferPool.PageID<Integer> id = new BufferPool.PageID<Integer>(fileID, loc);
+		Change c = operation.get().get(id);
+		if (c != null)
+			return c.object;
+		c = changes.get(id);
+		if (c == null)
+			return sm.get(fileID, loc);
+		return c.bytes == null ? null : sm.codec.decode(ByteBuffer.wrap(c.bytes)); // a copy of the committed object
+	}
+
+	/**
+	 * Puts the specified object at the specified location in the specified file as part of the current operation of
+	 * the calling thread.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @param o
+	 *            the object to put
+	 * @return {@code null}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized Object put(int fileID, Integer loc, Object o) throws IOException {
+		record(fileID, loc, o);
+		return null;
+	}
+
+	/**
+	 * Adds the specified object in the specified file as part of the current operation of the calling thread. The
+	 * location is reserved in the {@code FileStorageManager} right away and removed again if the operation is aborted.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param o
+	 *            the object to add
+	 * @return the location of the object in the specified file
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized Integer add(int fileID, Object o) throws IOException {
+		int loc = sm.add(fileID, null);
+		try {
+			record(fileID, loc, o);
+		} catch (IOException e) {
+			sm.remove(fileID, loc);
+			throw e;
+		}
+		reserved.get().add(new BufferPool.PageID<Integer>(fileID, loc));
+		return loc;
+	}
+
+	/**
+	 * Removes the object at the specified location in the specified file as part of the current operation of the
+	 * calling thread.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @return {@code null}
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized Object remove(int fileID, Integer loc) throws IOException {
+		record(fileID, loc, null);
+		return null;
+	}
+
+	/**
+	 * Commits the current operation of the calling thread, returning once its changes are durable.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs while writing the log
+	 */
+	public void commit() throws IOException {
+		Map<BufferPool.PageID<Integer>, Change> m = operation.get();
+		if (m.isEmpty())
+			return;
+		synchronized (this) {
+			if (closed)
+				throw new IOException("closed");
+			for (Map.Entry<BufferPool.PageID<Integer>, Change> e : m.entrySet()) {
+				append(e.getValue());
+				changes.put(e.getKey(), e.getValue());
+			}
+			append(null);
+			committed.addAll(m.values());
+			m.clear();
+			reserved.get().clear(); // the locations are used by the committed changes
+			if (appended == durable)
+				windowStart = System.nanoTime();
+			long ticket = ++appended;
+			notifyAll();
+			try {
+				while (durable < ticket && failure == null)
+					wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted while waiting for commit");
+			}
+			if (durable < ticket)
+				throw new IOException("writing the log failed", failure);
+		}
+	}
+
+	/**
+	 * Discards the changes that the current operation of the calling thread has made and removes the locations that it
+	 * has reserved in the {@code FileStorageManager}. Since no other thread has seen the changes, the committed changes
+	 * are not affected.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs while removing a reserved location
+	 */
+	public synchronized void abort() throws IOException {
+		operation.get().clear();
+		List<BufferPool.PageID<Integer>> l = reserved.get();
+		try {
+			for (BufferPool.PageID<Integer> id : l)
+				sm.remove(id.fileID, id.loc);
+		} finally {
+			l.clear();
+		}
+	}
+
+	/**
+	 * Writes all the committed changes to the {@code FileStorageManager}, forces it, and truncates the log.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		try {
+			while (durable < appended && failure == null)
+				wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting for commits");
+		}
+		if (failure != null)
+			throw new IOException("writing the log failed", failure);
+		checkpoint();
+	}
+
+	/**
+	 * Closes this {@code WriteAheadLog} after a checkpoint, and then closes the {@code FileStorageManager}. Changes of
+	 * operations that are not committed are discarded.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		try {
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while closing");
+		}
+		synchronized (this) {
+			if (failure == null)
+				checkpoint();
+			log.close();
+			sm.close();
+		}
+	}
+
+	/**
+	 * Records the specified object at the specified location as a {@code Change} of the current operation of the
+	 * calling thread.
+	 * 
+	 * @param fileID
+	 *            the ID of the file
+	 * @param loc
+	 *            the location of the object
+	 * @param o
+	 *            the object; {@code null} if the object is removed
+	 * @throws IOException
+	 *             if the object cannot be encoded or does not fit in a page, in which case nothing is recorded
+	 */
+	protected void record(int fileID, int loc, Object o) throws IOException {
+		byte[] bytes = sm.codec.encode(o);
+		sm.checkFit(loc, bytes); // a change that the flusher cannot apply must never reach the log
+		Change c = new Change(fileID, loc, o, bytes);
+		operation.get().put(new BufferPool.PageID<Integer>(fileID, loc), c);
+	}
+
+	/**
+	 * Appends a log record for the specified {@code Change} to {@link #buffer}. A log record consists of its length,
+	 * the CRC-32 of its content, and its content.
+	 * 
+	 * @param c
+	 *            a {@code Change}; {@code null} to append a commit record
+	 */
+	protected void append(Change c) {
+		byte[] name = c == null ? null : fileNames.get(c.fileID).getBytes(StandardCharsets.UTF_8);
+		int length = c == null ? 1 : 1 + 4 + name.length + 4 + 4 + (c.bytes == null ? 0 : c.bytes.length);
+		if (buffer.remaining() < 8 + length) {
+			ByteBuffer b = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + 8 + length));
+			buffer.flip();
+			buffer = b.put(buffer);
+		}
+		int start = buffer.position();
+		buffer.putInt(length).putInt(0);
+		if (c == null)
+			buffer.put(COMMIT);
+		else {
+			buffer.put(PAGE).putInt(name.length).put(name).putInt(c.loc);
+			if (c.bytes == null)
+				buffer.putInt(-1);
+			else
+				buffer.putInt(c.bytes.length).put(c.bytes);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), start + 8, length);
+		buffer.putInt(start + 4, (int) crc.getValue());
+	}
+
+	/**
+	 * Forces the log repeatedly, each time when the group commit window elapses or enough log records are appended,
+	 * and then writes the committed changes to the {@code FileStorageManager}, taking a checkpoint whenever the log
+	 * grows beyond its limit. This method runs in the background thread until this {@code WriteAheadLog} is closed.
+	 */
+	protected void forceLog() {
+		while (true) {
+			ByteBuffer b;
+			List<Change> batch;
+			long upTo;
+			synchronized (this) {
+				try {
+					while (true) {
+						if (appended > durable) {
+							long remaining = windowNanos - (System.nanoTime() - windowStart);
+							if (closed || remaining <= 0 || buffer.position() >= windowBytes)
+								break;
+							wait(remaining / 1000000, (int) (remaining % 1000000));
+						} else if (closed)
+							return;
+						else
+							wait();
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+				buffer.flip();
+				b = ByteBuffer.allocate(buffer.remaining()).put(buffer);
+				b.flip();
+				buffer.clear();
+				batch = committed;
+				committed = new ArrayList<Change>();
+				upTo = appended;
+			}
+			try {
+				FileStorageManager.writeFully(log, b, logSize);
+				log.force(false);
+				synchronized (this) {
+					logSize += b.limit();
+					for (Change c : batch) {
+						sm.write(c.fileID, c.loc, c.bytes);
+						BufferPool.PageID<Integer> id = new BufferPool.PageID<Integer>(c.fileID, c.loc);
+						if (changes.get(id) == c)
+							changes.remove(id);
+					}
+					durable = upTo;
+					notifyAll();
+					if (logSize >= checkpointBytes)
+						checkpoint();
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					failure = e;
+					notifyAll();
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Forces the {@code FileStorageManager} and then truncates the log. Must be called while holding the lock of this
+	 * {@code WriteAheadLog} and only when all the log records written to the log have been applied.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void checkpoint() throws IOException {
+		sm.flush();
+		log.truncate(0);
+		log.force(false);
+		logSize = 0;
+	}
+
+	/**
+	 * Redoes the operations committed in the log on the {@code FileStorageManager}, and then takes a checkpoint. The log
+	 * is read up to the first incomplete or corrupt log record, and the changes after the last commit record are
+	 * ignored.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	protected void recover() throws IOException {
+		ByteBuffer b = ByteBuffer.allocate((int) log.size());
+		FileStorageManager.readFully(log, b, 0);
+		b.flip();
+		List<Change> pending = new ArrayList<Change>();
+		CRC32 crc = new CRC32();
+		while (b.remaining() >= 8) {
+			int length = b.getInt();
+			int checksum = b.getInt();
+			if (length <= 0 || length > b.remaining())
+				break;
+			crc.reset();
+			crc.update(b.array(), b.position(), length);
+			if ((int) crc.getValue() != checksum)
+				break;
+			if (b.get() == COMMIT) {
+				for (Change c : pending)
+					sm.write(c.fileID, c.loc, c.bytes);
+				pending.clear();
+			} else {
+				byte[] name = new byte[b.getInt()];
+				b.get(name);
+				int loc = b.getInt();
+				int size = b.getInt();
+				byte[] bytes = size < 0 ? null : new byte[size];
+				if (bytes != null)
+					b.get(bytes);
+				pending.add(new Change(fileID(new String(name, StandardCharsets.UTF_8)), loc, null, bytes));
+			}
+		}
+		checkpoint();
+	}
+
+}
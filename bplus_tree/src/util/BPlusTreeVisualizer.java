@@ -12,6 +12,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import javax.swing.JFrame;
 import bptree.BPlusTree;
@@ -169,6 +170,8 @@ public class BPlusTreeVisualizer extends util.ZoomView implements java.awt.event
 
 			Map<Integer, TreeMap<Integer, byte[]>> buffer = new HashMap<Integer, TreeMap<Integer, byte[]>>();
 
+			Map<Integer, TreeSet<Integer>> freeLocations = new HashMap<Integer, TreeSet<Integer>>();
+
 			@Override
 			public int fileID(String fileName) {
 				Integer fileID = fileName2ID.get(fileName);
@@ -199,6 +202,7 @@ public class BPlusTreeVisualizer extends util.ZoomView implements java.awt.event
 					buffer.put(fileID, m);
 				}
 				byte[] b = m.put(loc, toByteArray(o));
+				freeLocations(fileID).remove(loc);
 				out.println("@" + loc + " saved " + o);
 				return toObject(b);
 			}
@@ -210,7 +214,9 @@ public class BPlusTreeVisualizer extends util.ZoomView implements java.awt.event
 					m = new TreeMap<Integer, byte[]>();
 					buffer.put(fileID, m);
 				}
-				int loc = m.isEmpty() ? first() + 1 : m.lastKey() + 1;
+				Integer loc = freeLocations(fileID).pollFirst(); // reuse the lowest removed location if any
+				if (loc == null)
+					loc = m.isEmpty() ? first() + 1 : m.lastKey() + 1;
 				m.put(loc, toByteArray(o));
 				out.println("@" + loc + " saved " + o);
 				return loc;
@@ -221,11 +227,29 @@ public class BPlusTreeVisualizer extends util.ZoomView implements java.awt.event
 				TreeMap<Integer, byte[]> m = buffer.get(fileID);
 				if (m == null)
 					return null;
+				if (m.containsKey(loc) && !loc.equals(first()))
+					freeLocations(fileID).add(loc);
 				Object o = toObject(m.remove(loc));
 				out.println("@" + loc + " removed " + o);
 				return o;
 			}
 
+			/**
+			 * Returns the removed locations in the specified file that can be reused.
+			 * 
+			 * @param fileID
+			 *            the ID of the file
+			 * @return the removed locations in the specified file that can be reused
+			 */
+			TreeSet<Integer> freeLocations(int fileID) {
+				TreeSet<Integer> s = freeLocations.get(fileID);
+				if (s == null) {
+					s = new TreeSet<Integer>();
+					freeLocations.put(fileID, s);
+				}
+				return s;
+			}
+
 			/**
 			 * Serializes the specified object into a byte array.
 			 * 
@@ -0,0 +1,306 @@
+package bptree;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code BLinkBPlusTreeTest} checks that a bulk-loaded {@code BLinkBPlusTree} has high keys and right links in every
+ * {@code Node} except the rightmost one at each level, so that an {@code AdaptiveSplitPolicy} splits the other
+ * {@code Node}s evenly, and that readers, which take no latches, always find the keys that concurrent writers do not
+ * touch and scan keys in ascending order. It is run as a Java application and throws an {@code AssertionError} on the
+ * first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BLinkBPlusTreeTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (int degree : new int[] { 3, 4, 5, 16 }) {
+			for (int n : new int[] { 1, 2, 3, 10, 500 }) {
+				BLinkBPlusTree<Integer, Integer> tree = tree(degree);
+				tree.bulkLoad(entries(0, n, 1).iterator(), 1.0);
+				checkLinks(tree, false, "bulkLoad of " + n + " keys, degree " + degree);
+				compare(tree, expected(entries(0, n, 1)), "bulkLoad of " + n + " keys, degree " + degree);
+			}
+			checkSplits(degree, 2000);
+			runConcurrently(degree, 2000, 3, 5000);
+		}
+		System.out.println("BLinkBPlusTreeTest passed");
+	}
+
+	/**
+	 * Bulk loads full {@code Node}s, inserts a key after the last key of each {@code LeafNode} except the rightmost
+	 * one, and checks that all the {@code Node}s except the rightmost one at each level are still at least half full.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BLinkBPlusTree}
+	 * @param n
+	 *            the number of keys to bulk load
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkSplits(int degree, int n) throws Exception {
+		BLinkBPlusTree<Integer, Integer> tree = tree(degree);
+		tree.setSplitPolicy(new AdaptiveSplitPolicy());
+		List<Map.Entry<Integer, Integer>> entries = entries(0, n, 2);
+		tree.bulkLoad(entries.iterator(), 1.0);
+		List<List<Node<Integer, Integer>>> levels = checkLinks(tree, false, "bulkLoad, degree " + degree);
+		List<Node<Integer, Integer>> leaves = levels.get(levels.size() - 1);
+		for (Node<Integer, Integer> l : leaves.subList(0, leaves.size() - 1)) { // the new key becomes the last one
+			int k = l.key(l.keyCount() - 1) + 1;
+			tree.insert(k, -k);
+			entries.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(k, -k));
+		}
+		checkLinks(tree, true, "insertions after bulkLoad, degree " + degree);
+		compare(tree, expected(entries), "insertions after bulkLoad, degree " + degree);
+	}
+
+	/**
+	 * Runs reader threads that search and scan a bulk-loaded {@code BLinkBPlusTree} while writer threads insert and
+	 * delete odd keys, each writer its own, and checks that every even key is always found, that scans return keys in
+	 * ascending order, and that the {@code BLinkBPlusTree} ends up with the keys of the last updates.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BLinkBPlusTree}
+	 * @param keys
+	 *            the number of even keys to bulk load
+	 * @param writers
+	 *            the number of writer threads
+	 * @param n
+	 *            the number of updates by each writer
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void runConcurrently(int degree, int keys, int writers, int n) throws Exception {
+		BLinkBPlusTree<Integer, Integer> tree = tree(degree);
+		tree.setSplitPolicy(new AdaptiveSplitPolicy());
+		List<Map.Entry<Integer, Integer>> even = entries(0, keys, 2);
+		tree.bulkLoad(even.iterator(), 1.0);
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		AtomicBoolean stop = new AtomicBoolean();
+		Thread[] readers = new Thread[2];
+		for (int r = 0; r < readers.length; r++) {
+			int seed = r;
+			readers[r] = new Thread(() -> {
+				try {
+					Random random = new Random(seed);
+					while (!stop.get()) {
+						for (int i = 0; i < 100; i++) {
+							int k = random.nextInt(keys);
+							Integer p = tree.search(2 * k);
+							check(p != null && p == -2 * k, "key " + 2 * k + " not found, degree " + degree);
+						}
+						int next = 0;
+						Integer previous = null;
+						for (RangeScan<Integer, Integer> s = tree.scan(); s.hasNext();) {
+							int k = s.next().getKey();
+							check(previous == null || previous < k, "key " + k + " after " + previous);
+							previous = k;
+							if (k % 2 == 0) {
+								check(k == next, "scan missed key " + next + ", degree " + degree);
+								next += 2;
+							}
+						}
+						check(next == 2 * keys, "scan ended before key " + next + ", degree " + degree);
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			readers[r].start();
+		}
+		List<TreeMap<Integer, Integer>> odd = new ArrayList<TreeMap<Integer, Integer>>();
+		Thread[] threads = new Thread[writers];
+		for (int w = 0; w < writers; w++) {
+			int seed = w;
+			TreeMap<Integer, Integer> mine = new TreeMap<Integer, Integer>();
+			odd.add(mine);
+			threads[w] = new Thread(() -> {
+				try {
+					Random random = new Random(degree * writers + seed);
+					for (int i = 0; i < n && failure.get() == null; i++) {
+						int k = 2 * (random.nextInt(keys / writers) * writers + seed) + 1; // keys of this writer only
+						if (mine.containsKey(k)) {
+							tree.delete(k);
+							mine.remove(k);
+						} else {
+							tree.insert(k, -k);
+							mine.put(k, -k);
+						}
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			threads[w].start();
+		}
+		for (Thread t : threads)
+			t.join();
+		stop.set(true);
+		for (Thread t : readers)
+			t.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		TreeMap<Integer, Integer> expected = expected(even);
+		for (TreeMap<Integer, Integer> m : odd)
+			expected.putAll(m);
+		checkLinks(tree, false, "after concurrent updates, degree " + degree);
+		compare(tree, expected, "after concurrent updates, degree " + degree);
+	}
+
+	/**
+	 * Collects the {@code Node}s of the specified {@code BLinkBPlusTree} level by level through the child pointers and
+	 * checks that each {@code Node} except the rightmost one at each level has a high key above its keys and a right
+	 * link to the next {@code Node} at the same level, and that the rightmost {@code Node}s have neither.
+	 * 
+	 * @param tree
+	 *            a {@code BLinkBPlusTree} that no thread is updating
+	 * @param halfFull
+	 *            {@code true} to also check that the {@code Node}s except the rightmost one at each level are at least
+	 *            half full
+	 * @param where
+	 *            a description of the case
+	 * @return the {@code Node}s of each level from the root {@code Node} down to the {@code LeafNode}s
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static List<List<Node<Integer, Integer>>> checkLinks(BLinkBPlusTree<Integer, Integer> tree, boolean halfFull,
+			String where) throws Exception {
+		List<List<Node<Integer, Integer>>> levels = new ArrayList<List<Node<Integer, Integer>>>();
+		List<Integer> pointers = Collections.singletonList(tree.rootPointer());
+		while (!pointers.isEmpty()) {
+			List<Node<Integer, Integer>> level = new ArrayList<Node<Integer, Integer>>();
+			List<Integer> children = new ArrayList<Integer>();
+			for (Integer p : pointers) {
+				Node<Integer, Integer> n = tree.node(p);
+				level.add(n);
+				if (n instanceof NonLeafNode)
+					for (int i = 0; i <= n.keyCount(); i++)
+						children.add(n.pointer(i));
+			}
+			for (int i = 0; i < level.size(); i++) {
+				Node<Integer, Integer> n = level.get(i);
+				String node = "node " + i + " of " + level.size() + " at level " + levels.size() + ", " + where;
+				if (i == level.size() - 1) {
+					check(n.highKey() == null && tree.link(n) == null, "high key or link in the rightmost " + node);
+					continue;
+				}
+				check(n.highKey() != null && (n.keyCount() == 0 || n.highKey() > n.key(n.keyCount() - 1)),
+						"no high key above the keys of " + node);
+				check(pointers.get(i + 1).equals(tree.link(n)), "no link to the right sibling of " + node);
+				if (halfFull && n instanceof LeafNode)
+					check(n.keyCount() >= (tree.degree() - 1) / 2, n.keyCount() + " keys in " + node);
+				else if (halfFull && levels.size() > 0)
+					check(n.keyCount() + 1 >= (tree.degree() + 1) / 2, n.keyCount() + 1 + " children of " + node);
+			}
+			levels.add(level);
+			pointers = children;
+		}
+		return levels;
+	}
+
+	/**
+	 * Returns an empty {@code BLinkBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BLinkBPlusTree}
+	 * @return an empty {@code BLinkBPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static BLinkBPlusTree<Integer, Integer> tree(int degree) throws Exception {
+		return new BLinkBPlusTree<Integer, Integer>(degree, new ConcurrentStorageManager(), "t");
+	}
+
+	/**
+	 * Returns the keys with the indices in the specified range, where the key with index i is i times the specified
+	 * step, each associated with its negation.
+	 * 
+	 * @param from
+	 *            the index of the first key
+	 * @param to
+	 *            the index after the last key
+	 * @param step
+	 *            the difference between consecutive keys
+	 * @return the keys, each associated with its negation
+	 */
+	static List<Map.Entry<Integer, Integer>> entries(int from, int to, int step) {
+		List<Map.Entry<Integer, Integer>> l = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int i = from; i < to; i++)
+			l.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(i * step, -i * step));
+		return l;
+	}
+
+	/**
+	 * Returns a {@code TreeMap} containing the specified keys and pointers.
+	 * 
+	 * @param entries
+	 *            keys and pointers
+	 * @return a {@code TreeMap} containing the specified keys and pointers
+	 */
+	static TreeMap<Integer, Integer> expected(List<Map.Entry<Integer, Integer>> entries) {
+		TreeMap<Integer, Integer> m = new TreeMap<Integer, Integer>();
+		for (Map.Entry<Integer, Integer> e : entries)
+			m.put(e.getKey(), e.getValue());
+		return m;
+	}
+
+	/**
+	 * Checks that the specified {@code BLinkBPlusTree} finds and scans exactly the keys and pointers in the specified
+	 * {@code TreeMap}.
+	 * 
+	 * @param tree
+	 *            a {@code BLinkBPlusTree}
+	 * @param expected
+	 *            the expected keys and pointers
+	 * @param where
+	 *            a description of the case
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void compare(BLinkBPlusTree<Integer, Integer> tree, TreeMap<Integer, Integer> expected, String where)
+			throws Exception {
+		int max = expected.isEmpty() ? 0 : expected.lastKey();
+		for (int k = -1; k <= max + 1; k++)
+			check(Objects.equals(tree.search(k), expected.get(k)),
+					"key " + k + " found with " + tree.search(k) + " instead of " + expected.get(k) + ", " + where);
+		RangeScan<Integer, Integer> s = tree.scan();
+		for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+			check(s.hasNext(), "scan ended before key " + e.getKey() + ", " + where);
+			Map.Entry<Integer, Integer> f = s.next();
+			check(f.getKey().equals(e.getKey()) && f.getValue().equals(e.getValue()),
+					"scan returned " + f + " instead of " + e + ", " + where);
+		}
+		check(!s.hasNext(), "scan returned extra keys, " + where);
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
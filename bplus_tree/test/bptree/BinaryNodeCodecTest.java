@@ -0,0 +1,95 @@
+package bptree;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code BinaryNodeCodecTest} checks that {@code LeafNode}s encoded and decoded by a {@code BinaryNodeCodec} shared by
+ * several threads come back unchanged, including {@code LeafNode}s whose keys are long enough to make the buffer of
+ * a thread grow. It is run as a Java application and throws an {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BinaryNodeCodecTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		BinaryNodeCodec<String, Integer> codec = new BinaryNodeCodec<String, Integer>(Serializer.STRING,
+				Serializer.INTEGER);
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++) {
+			int seed = t;
+			threads.add(new Thread(() -> {
+				try {
+					run(codec, new Random(seed), 20000);
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			}));
+		}
+		for (Thread t : threads)
+			t.start();
+		for (Thread t : threads)
+			t.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		System.out.println("BinaryNodeCodecTest passed");
+	}
+
+	/**
+	 * Encodes and decodes the specified number of random {@code LeafNode}s and compares each decoded
+	 * {@code LeafNode} with the original.
+	 * 
+	 * @param codec
+	 *            a {@code BinaryNodeCodec}
+	 * @param random
+	 *            a {@code Random}
+	 * @param n
+	 *            the number of {@code LeafNode}s
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	static void run(BinaryNodeCodec<String, Integer> codec, Random random, int n) throws Exception {
+		for (int i = 0; i < n; i++) {
+			int degree = 3 + random.nextInt(30);
+			LeafNode<String, Integer> l = new LeafNode<String, Integer>(degree);
+			int length = random.nextInt(10) == 0 ? 2000 : 10; // some keys need a larger buffer
+			int count = 1 + random.nextInt(degree - 1);
+			for (int j = 0; j < count; j++)
+				l.insert(j, String.format("%0" + length + "d", random.nextInt(1000000) * 100 + j), random.nextInt());
+			l.setSuccessor(random.nextBoolean() ? null : random.nextInt(1000));
+			LeafNode<String, Integer> d = (LeafNode<String, Integer>) codec.decode(ByteBuffer.wrap(codec.encode(l)));
+			check(d.keyCount() == l.keyCount() && ((Node<?, ?>) d).pointers.length == degree, "node " + i + " resized");
+			for (int j = 0; j < l.keyCount(); j++)
+				check(d.key(j).equals(l.key(j)) && d.pointer(j).equals(l.pointer(j)), "entry " + j + " changed");
+			check(l.successor() == null ? d.successor() == null : l.successor().equals(d.successor()),
+					"successor changed");
+		}
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,283 @@
+package bptree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * {@code BufferPoolTest} checks that a {@code BufferPool} combines repeated {@code put}s of an object into a single
+ * write-back, counts hits, misses and write-backs, keeps one frame per location when a location read while empty is
+ * reused, never evicts pinned objects, rejects requests that need a frame
+ * when every frame is pinned and the removal of pinned objects, and keeps a {@code BPlusTree} driven through a few
+ * frames intact across {@code close()} and reopening. It is run as a Java application and throws an
+ * {@code AssertionError} on the first failure.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BufferPoolTest {
+
+	/**
+	 * An {@code OffHeapStorageManager} that counts the objects read and written.
+	 *
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	static class CountingStorageManager extends OffHeapStorageManager {
+
+		/**
+		 * The number of objects read.
+		 */
+		int reads;
+
+		/**
+		 * The number of objects written.
+		 */
+		int writes;
+
+		@Override
+		public Object get(int fileID, Integer loc) throws IOException {
+			reads++;
+			return super.get(fileID, loc);
+		}
+
+		@Override
+		public Object put(int fileID, Integer loc, Object o) throws IOException {
+			writes++;
+			return super.put(fileID, loc, o);
+		}
+
+	}
+
+	/**
+	 * The size of pages in bytes.
+	 */
+	static final int PAGE_SIZE = 1024;
+
+	/**
+	 * Runs the test.
+	 *
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		checkWriteBack();
+		checkPinning();
+		for (int before = 0; before < 12; before++)
+			for (int after = 0; after < 12; after++)
+				checkReusedLocation(before, after);
+		for (int frames : new int[] { 4, 16 })
+			checkTree(frames);
+		System.out.println("BufferPoolTest passed");
+	}
+
+	/**
+	 * Checks that repeated {@code put}s of one location produce a single write-back when the {@code BufferPool} is
+	 * flushed, and that hits and misses are counted.
+	 *
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkWriteBack() throws Exception {
+		CountingStorageManager sm = new CountingStorageManager();
+		BufferPool<Integer, Object> pool = new BufferPool<Integer, Object>(sm, 4 * PAGE_SIZE, PAGE_SIZE);
+		int fileID = pool.fileID("f");
+		int loc = pool.add(fileID, "v0");
+		for (int i = 1; i <= 100; i++)
+			pool.put(fileID, loc, "v" + i);
+		check(sm.writes == 0 && pool.writeBacks() == 0, sm.writes + " writes before the flush");
+		check("v100".equals(pool.get(fileID, loc)) && pool.hits() == 1 && pool.misses() == 0, "put object not kept");
+		pool.flush();
+		check(sm.writes == 1 && pool.writeBacks() == 1, sm.writes + " writes after the flush");
+		check("v100".equals(sm.get(fileID, loc)), "last object not written back");
+		pool.flush();
+		check(sm.writes == 1 && pool.writeBacks() == 1, "clean object written back again");
+		int other = sm.add(fileID, "w");
+		int reads = sm.reads;
+		check("w".equals(pool.get(fileID, other)) && pool.misses() == 1 && sm.reads == reads + 1, "miss not counted");
+		check("w".equals(pool.get(fileID, other)) && pool.hits() == 2 && sm.reads == reads + 1, "hit not counted");
+		check(pool.hitRate() == 2.0 / 3, "hit rate " + pool.hitRate());
+		for (int i = 0; i < 10; i++) // evicts the dirty object
+			pool.get(fileID, sm.add(fileID, "x" + i));
+		pool.put(fileID, loc, "dirty");
+		for (int i = 0; i < 10; i++)
+			pool.get(fileID, sm.add(fileID, "y" + i));
+		check("dirty".equals(sm.get(fileID, loc)) && pool.writeBacks() == 2, "evicted dirty object not written back");
+	}
+
+	/**
+	 * Checks that pinned objects are never evicted, that an {@code IllegalStateException} is thrown when a frame is
+	 * needed while every frame is pinned, and that removing a pinned object is rejected.
+	 *
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkPinning() throws Exception {
+		CountingStorageManager sm = new CountingStorageManager();
+		BufferPool<Integer, Object> pool = new BufferPool<Integer, Object>(sm, 4 * PAGE_SIZE, PAGE_SIZE);
+		int fileID = pool.fileID("f");
+		List<Integer> pinned = new ArrayList<Integer>();
+		for (int i = 0; i < 3; i++) {
+			pinned.add(sm.add(fileID, "p" + i));
+			pool.pin(fileID, pinned.get(i));
+		}
+		pool.put(fileID, pinned.get(0), "p0'"); // a dirty pinned object
+		for (int i = 0; i < 100; i++)
+			pool.get(fileID, sm.add(fileID, "o" + i)); // all through the one unpinned frame
+		int reads = sm.reads;
+		for (int i = 0; i < 3; i++)
+			check(pool.get(fileID, pinned.get(i)).equals(i == 0 ? "p0'" : "p" + i), "pinned object " + i + " lost");
+		check(sm.reads == reads, "pinned object evicted");
+		check(sm.writes == 0, "dirty pinned object written back");
+		int fourth = sm.add(fileID, "p3");
+		pool.pin(fileID, fourth);
+		int other = sm.add(fileID, "q");
+		try {
+			pool.get(fileID, other);
+			throw new AssertionError("frame found while every frame is pinned");
+		} catch (IllegalStateException e) {
+		}
+		try {
+			pool.remove(fileID, pinned.get(1));
+			throw new AssertionError("pinned object removed");
+		} catch (IllegalStateException e) {
+		}
+		check("p1".equals(sm.get(fileID, pinned.get(1))), "object removed despite the rejection");
+		pool.pin(fileID, fourth); // pinned twice
+		pool.unpin(fileID, fourth);
+		try {
+			pool.get(fileID, other);
+			throw new AssertionError("frame pinned twice evicted after one unpin");
+		} catch (IllegalStateException e) {
+		}
+		pool.unpin(fileID, fourth);
+		check("q".equals(pool.get(fileID, other)), "unpinned frame not reused");
+		reads = sm.reads;
+		check("p1".equals(pool.get(fileID, pinned.get(1))) && sm.reads == reads, "pinned object evicted");
+		try {
+			pool.unpin(fileID, fourth);
+			throw new AssertionError("object unpinned more often than pinned");
+		} catch (IllegalStateException e) {
+		}
+		pool.unpin(fileID, pinned.get(1));
+		pool.remove(fileID, pinned.get(1));
+		check(pool.get(fileID, pinned.get(1)) == null, "unpinned object not removed");
+	}
+
+	/**
+	 * Caches the empty content of a removed location, adds an object that reuses the location, updates it, evicts some
+	 * of the objects, updates it again, and checks that only the last update survives a flush.
+	 *
+	 * @param before
+	 *            the number of other objects read between the two updates
+	 * @param after
+	 *            the number of other objects read after the second update
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkReusedLocation(int before, int after) throws Exception {
+		CountingStorageManager sm = new CountingStorageManager();
+		BufferPool<Integer, Object> pool = new BufferPool<Integer, Object>(sm, 4 * PAGE_SIZE, PAGE_SIZE);
+		int fileID = pool.fileID("f");
+		List<Integer> others = new ArrayList<Integer>();
+		for (int i = 0; i < 8; i++)
+			others.add(sm.add(fileID, "o" + i));
+		int loc = sm.add(fileID, "removed");
+		sm.remove(fileID, loc);
+		check(pool.get(fileID, loc) == null, "removed object found");
+		check(pool.add(fileID, "added") == loc, "removed location not reused");
+		pool.put(fileID, loc, "older");
+		for (int i = 0; i < before; i++)
+			pool.get(fileID, others.get(i % others.size()));
+		pool.put(fileID, loc, "newer");
+		for (int i = 0; i < after; i++)
+			pool.get(fileID, others.get((i + 3) % others.size()));
+		String where = before + " reads before and " + after + " after the second update";
+		check("newer".equals(pool.get(fileID, loc)), "newer object not cached, " + where);
+		pool.flush();
+		check("newer".equals(sm.get(fileID, loc)), sm.get(fileID, loc) + " written back last, " + where);
+	}
+
+	/**
+	 * Drives a {@code BPlusTree} on a {@code FileStorageManager} through a {@code BufferPool} of the specified number
+	 * of frames, closes the {@code BufferPool}, and checks the {@code BPlusTree} against a reference map before and
+	 * after reopening the file without a {@code BufferPool}.
+	 *
+	 * @param frames
+	 *            the number of frames of the {@code BufferPool}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkTree(int frames) throws Exception {
+		File dir = Files.createTempDirectory("pool").toFile();
+		FileStorageManager fsm = new FileStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE);
+		BufferPool<Integer, Object> pool = new BufferPool<Integer, Object>(fsm,
+				(long) frames * FileStorageManager.DEFAULT_PAGE_SIZE, FileStorageManager.DEFAULT_PAGE_SIZE);
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(8, pool, "t");
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		Random random = new Random(frames);
+		for (int i = 0; i < 20000; i++) {
+			int k = random.nextInt(5000);
+			if (expected.containsKey(k) && random.nextInt(3) == 0) {
+				tree.delete(k);
+				expected.remove(k);
+			} else if (!expected.containsKey(k)) {
+				tree.insert(k, -k);
+				expected.put(k, -k);
+			}
+		}
+		String where = frames + " frames";
+		check(pool.misses() > 0 && pool.hits() > 0 && pool.writeBacks() > 0, "pool not exercised, " + where);
+		checkTree(tree, expected, where);
+		pool.close();
+		fsm = new FileStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE);
+		checkTree(new BPlusTree<Integer, Integer>(8, fsm, "t"), expected, where + ", reopened");
+		fsm.close();
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	/**
+	 * Checks that the specified {@code BPlusTree} has exactly the specified entries.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param expected
+	 *            the entries that the {@code BPlusTree} must have
+	 * @param where
+	 *            a description of the {@code BPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkTree(BPlusTree<Integer, Integer> tree, TreeMap<Integer, Integer> expected, String where)
+			throws Exception {
+		for (int k = 0; k < 5000; k++)
+			check(Objects.equals(expected.get(k), tree.search(k)), "wrong pointer for " + k + ", " + where);
+		List<Map.Entry<Integer, Integer>> scanned = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (RangeScan<Integer, Integer> s = tree.scan(); s.hasNext();)
+			scanned.add(s.next());
+		check(new ArrayList<Map.Entry<Integer, Integer>>(expected.entrySet()).equals(scanned),
+				"scan differs from the expected entries, " + where);
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 *
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
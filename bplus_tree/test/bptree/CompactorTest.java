@@ -0,0 +1,292 @@
+package bptree;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * {@code CompactorTest} churns {@code BPlusTree}s and {@code BLinkBPlusTree}s on a {@code FileStorageManager} and a
+ * {@code MappedStorageManager} until their files have holes, compacts them, and checks that every key is still found
+ * and scanned in order, that the {@code Node}s sit at contiguous locations level by level with the {@code LeafNode}s
+ * last and in key order, that the links between {@code Node}s follow them, that the files shrink to the live
+ * {@code Node}s plus the header page, and that all of this holds after the files are reopened. It also checks that the
+ * {@code StorageManager}s reuse freed locations, lowest first. It is run as a Java application and throws an
+ * {@code AssertionError} on the first failure.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class CompactorTest {
+
+	/**
+	 * Runs the test.
+	 *
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (boolean mapped : new boolean[] { false, true })
+			for (boolean blink : new boolean[] { false, true })
+				for (int degree : new int[] { 3, 4, 16 })
+					checkCompaction(mapped, blink, degree, 3000);
+		for (boolean mapped : new boolean[] { false, true })
+			checkReuse(mapped);
+		checkReuse(new OffHeapStorageManager());
+		System.out.println("CompactorTest passed");
+	}
+
+	/**
+	 * Creates a {@code FileStorageManager} or a {@code MappedStorageManager} on the specified directory.
+	 *
+	 * @param mapped
+	 *            {@code true} for a {@code MappedStorageManager}; {@code false} for a {@code FileStorageManager}
+	 * @param dir
+	 *            a directory
+	 * @return a new {@code FileStorageManager} or {@code MappedStorageManager}
+	 */
+	static FileStorageManager storageManager(boolean mapped, File dir) {
+		return mapped ? new MappedStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE, 16)
+				: new FileStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * Creates a {@code BPlusTree} or a {@code BLinkBPlusTree}.
+	 *
+	 * @param blink
+	 *            {@code true} for a {@code BLinkBPlusTree}; {@code false} for a {@code BPlusTree}
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param sm
+	 *            the {@code StorageManager} of the {@code BPlusTree}
+	 * @return a new {@code BPlusTree} or {@code BLinkBPlusTree}
+	 */
+	static BPlusTree<Integer, Integer> tree(boolean blink, int degree, FileStorageManager sm) {
+		return blink ? new BLinkBPlusTree<Integer, Integer>(degree, sm, "t")
+				: new BPlusTree<Integer, Integer>(degree, sm, "t");
+	}
+
+	/**
+	 * Churns a {@code BPlusTree} until its file has holes, compacts it, and checks it before and after reopening its
+	 * file. Since the {@code Node}s of a {@code BLinkBPlusTree} are never merged, holes are made in its file by
+	 * removing pages added among its {@code Node}s.
+	 *
+	 * @param mapped
+	 *            {@code true} for a {@code MappedStorageManager}; {@code false} for a {@code FileStorageManager}
+	 * @param blink
+	 *            {@code true} for a {@code BLinkBPlusTree}; {@code false} for a {@code BPlusTree}
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param n
+	 *            the number of keys inserted
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkCompaction(boolean mapped, boolean blink, int degree, int n) throws Exception {
+		File dir = Files.createTempDirectory("compact").toFile();
+		FileStorageManager sm = storageManager(mapped, dir);
+		BPlusTree<Integer, Integer> tree = tree(blink, degree, sm);
+		int fileID = tree.fileID;
+		String where = tree.getClass().getSimpleName() + " of degree " + degree + ", mapped " + mapped;
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		List<Integer> keys = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++)
+			keys.add(i);
+		Random random = new Random(degree);
+		Collections.shuffle(keys, random);
+		List<Integer> fillers = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++) {
+			tree.insert(keys.get(i), -keys.get(i));
+			expected.put(keys.get(i), -keys.get(i));
+			if (i % 50 == 0)
+				fillers.add(sm.add(fileID, "filler"));
+		}
+		for (Integer loc : fillers)
+			sm.remove(fileID, loc);
+		Collections.shuffle(keys, random);
+		for (Integer k : keys.subList(0, n * 2 / 3)) {
+			tree.delete(k);
+			expected.remove(k);
+		}
+		check(sm.freePageCount(fileID) > 0, "no holes to compact, " + where);
+		int nodes = new Compactor<Integer>(tree).compact();
+		check(sm.pageCount(fileID) == nodes + 1, sm.pageCount(fileID) + " pages for " + nodes + " nodes, " + where);
+		check(sm.freePageCount(fileID) == 0, sm.freePageCount(fileID) + " free pages after compaction, " + where);
+		checkTree(tree, blink, expected, where);
+		sm.close();
+		sm = storageManager(mapped, dir);
+		tree = tree(blink, degree, sm);
+		where += ", reopened";
+		check(sm.pageCount(tree.fileID) == nodes + 1, sm.pageCount(tree.fileID) + " pages, " + where);
+		check(sm.freePageCount(tree.fileID) == 0, sm.freePageCount(tree.fileID) + " free pages, " + where);
+		checkTree(tree, blink, expected, where);
+		for (int k = n; k < n + 1000; k++) { // the compacted tree still accepts updates
+			tree.insert(k, -k);
+			expected.put(k, -k);
+		}
+		checkSearches(tree, expected, where);
+		sm.close();
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	/**
+	 * Checks that the specified compacted {@code BPlusTree} has the specified entries and that its {@code Node}s sit
+	 * at contiguous locations right after {@code first()} level by level from the root {@code Node}, with each
+	 * {@code LeafNode} followed by its successor and, in a {@code BLinkBPlusTree}, each {@code NonLeafNode} followed by
+	 * its right link.
+	 *
+	 * @param tree
+	 *            a compacted {@code BPlusTree}
+	 * @param blink
+	 *            {@code true} if the {@code BPlusTree} is a {@code BLinkBPlusTree}; {@code false} otherwise
+	 * @param expected
+	 *            the entries that the {@code BPlusTree} must have
+	 * @param where
+	 *            a description of the {@code BPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkTree(BPlusTree<Integer, Integer> tree, boolean blink, TreeMap<Integer, Integer> expected,
+			String where) throws Exception {
+		checkSearches(tree, expected, where);
+		List<Map.Entry<Integer, Integer>> scanned = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (RangeScan<Integer, Integer> s = tree.scan(); s.hasNext();)
+			scanned.add(s.next());
+		check(new ArrayList<Map.Entry<Integer, Integer>>(expected.entrySet()).equals(scanned),
+				"scan differs from the expected entries, " + where);
+		int next = tree.sm.first() + 1;
+		List<Integer> level = Collections.singletonList(tree.rootPointer());
+		while (!level.isEmpty()) {
+			List<Integer> below = new ArrayList<Integer>();
+			for (int i = 0; i < level.size(); i++) {
+				Integer loc = level.get(i);
+				check(loc == next++, "node at " + loc + " instead of " + (next - 1) + ", " + where);
+				Integer right = i + 1 < level.size() ? level.get(i + 1) : null;
+				Node<Integer, Integer> n = tree.node(loc);
+				if (n instanceof LeafNode)
+					check(equal(right, ((LeafNode<Integer, Integer>) n).successor()),
+							"leaf at " + loc + " not followed by its successor, " + where);
+				else {
+					NonLeafNode<Integer, Integer> nl = (NonLeafNode<Integer, Integer>) n;
+					check(equal(blink ? right : null, nl.link()), "wrong link at " + loc + ", " + where);
+					for (int j = 0; j <= nl.keyCount(); j++)
+						below.add(nl.pointer(j));
+				}
+			}
+			level = below;
+		}
+	}
+
+	/**
+	 * Checks that every key of the specified entries is found in the specified {@code BPlusTree} with its pointer.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param expected
+	 *            the entries that the {@code BPlusTree} must have
+	 * @param where
+	 *            a description of the {@code BPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkSearches(BPlusTree<Integer, Integer> tree, TreeMap<Integer, Integer> expected, String where)
+			throws Exception {
+		for (Map.Entry<Integer, Integer> e : expected.entrySet())
+			check(e.getValue().equals(tree.search(e.getKey())), "key " + e.getKey() + " lost, " + where);
+		check(tree.search(-1) == null, "key -1 found, " + where);
+	}
+
+	/**
+	 * Checks that a {@code FileStorageManager} or a {@code MappedStorageManager} reuses freed pages lowest first, drops
+	 * the empty pages at the end of a file, and finds the empty pages again when the file is reopened.
+	 *
+	 * @param mapped
+	 *            {@code true} for a {@code MappedStorageManager}; {@code false} for a {@code FileStorageManager}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkReuse(boolean mapped) throws Exception {
+		File dir = Files.createTempDirectory("reuse").toFile();
+		FileStorageManager sm = storageManager(mapped, dir);
+		checkReuse(sm);
+		int fileID = sm.fileID("reuse");
+		String where = "mapped " + mapped;
+		check(sm.pageCount(fileID) == 21 && sm.freePageCount(fileID) == 0, "pages not filled again, " + where);
+		for (int loc : new int[] { 20, 19, 12, 5 })
+			sm.remove(fileID, loc);
+		check(sm.pageCount(fileID) == 19, sm.pageCount(fileID) + " pages after removing the last ones, " + where);
+		check(sm.freePageCount(fileID) == 2, sm.freePageCount(fileID) + " free pages, " + where);
+		sm.close();
+		check(new File(dir, "reuse").length() == 19L * sm.pageSize(), "empty pages not cut off, " + where);
+		sm = storageManager(mapped, dir);
+		fileID = sm.fileID("reuse");
+		where += ", reopened";
+		check(sm.pageCount(fileID) == 19 && sm.freePageCount(fileID) == 2, "free pages not found again, " + where);
+		check(sm.add(fileID, "a") == 5 && sm.add(fileID, "b") == 12, "free pages not reused lowest first, " + where);
+		check(sm.add(fileID, "c") == 19, "page not appended after the free pages are used, " + where);
+		check("a".equals(sm.get(fileID, 5)) && Integer.valueOf(6).equals(sm.get(fileID, 6)), "page lost, " + where);
+		sm.close();
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	/**
+	 * Adds 20 objects to a file of the specified {@code StorageManager}, removes some of them, and checks that the
+	 * removed locations are reused lowest first before new locations are used, leaving locations 1 to 20 filled.
+	 *
+	 * @param sm
+	 *            a {@code StorageManager}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkReuse(StorageManager<Integer, Object> sm) throws Exception {
+		int fileID = sm.fileID("reuse");
+		String where = sm.getClass().getSimpleName();
+		for (int i = 1; i <= 20; i++)
+			check(sm.add(fileID, i) == i, "object " + i + " not appended, " + where);
+		for (int loc : new int[] { 17, 3, 11, 8 })
+			sm.remove(fileID, loc);
+		check(sm.get(fileID, 3) == null, "removed object still found, " + where);
+		for (int loc : new int[] { 3, 8, 11, 17 })
+			check(sm.add(fileID, loc) == loc, "location " + loc + " not reused in order, " + where);
+		check(sm.add(fileID, 21) == 21, "location 21 not appended, " + where);
+		sm.remove(fileID, 21);
+		for (int i = 1; i <= 20; i++)
+			check(Integer.valueOf(i).equals(sm.get(fileID, i)), "object " + i + " lost, " + where);
+	}
+
+	/**
+	 * Determines whether or not the specified objects are equal.
+	 *
+	 * @param a
+	 *            an object; may be {@code null}
+	 * @param b
+	 *            an object; may be {@code null}
+	 * @return {@code true} if the specified objects are equal or both {@code null}; {@code false} otherwise
+	 */
+	static boolean equal(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 *
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,158 @@
+package bptree;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code ConcurrentBPlusTreeStressTest} runs writer threads that insert and delete disjoint sets of keys in a
+ * {@code ConcurrentBPlusTree} while reader threads scan it, and checks that every writer finds its own keys, that
+ * every scan returns keys in ascending order within its range, and that the final tree holds exactly the keys that the
+ * writers left. It is run as a Java application and throws an {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class ConcurrentBPlusTreeStressTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (int degree : new int[] { 4, 5, 16 })
+			run(degree, 4, 2, 30000);
+		System.out.println("ConcurrentBPlusTreeStressTest passed");
+	}
+
+	/**
+	 * Runs writer and reader threads on a {@code ConcurrentBPlusTree} and checks the result.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code ConcurrentBPlusTree}
+	 * @param writerCount
+	 *            the number of writer threads
+	 * @param readerCount
+	 *            the number of reader threads
+	 * @param n
+	 *            the number of operations of each writer thread
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void run(int degree, int writerCount, int readerCount, int n) throws Exception {
+		ConcurrentBPlusTree<Integer, Integer> tree = new ConcurrentBPlusTree<Integer, Integer>(degree,
+				new ConcurrentStorageManager(), "t");
+		List<TreeMap<Integer, Integer>> expected = new ArrayList<TreeMap<Integer, Integer>>();
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		AtomicBoolean stop = new AtomicBoolean();
+		String where = "degree " + degree;
+		Thread[] writers = new Thread[writerCount];
+		for (int w = 0; w < writerCount; w++) {
+			TreeMap<Integer, Integer> keys = new TreeMap<Integer, Integer>();
+			expected.add(keys);
+			int id = w;
+			writers[w] = new Thread(() -> { // uses the keys congruent to its ID modulo the number of writers
+				try {
+					Random random = new Random(id);
+					for (int i = 0; i < n && failure.get() == null; i++) {
+						int k = random.nextInt(n / 10) * writerCount + id;
+						if (random.nextInt(10) == 0)
+							check(Objects.equals(tree.search(k), keys.get(k)), "key " + k + ", " + where);
+						else if (keys.containsKey(k)) {
+							tree.delete(k);
+							keys.remove(k);
+						} else {
+							tree.insert(k, i);
+							keys.put(k, i);
+						}
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+		}
+		Thread[] readers = new Thread[readerCount];
+		for (int r = 0; r < readerCount; r++) {
+			readers[r] = new Thread(() -> {
+				try {
+					while (!stop.get() && failure.get() == null) {
+						Integer previous = null;
+						for (RangeScan<Integer, Integer> scan = tree.scan(); scan.hasNext();) {
+							int k = scan.next().getKey();
+							check(previous == null || previous < k, "key " + k + " after " + previous + ", " + where);
+							previous = k;
+						}
+						previous = null;
+						for (RangeScan<Integer, Integer> scan = tree.scan(1000, true, 2000, false); scan.hasNext();) {
+							int k = scan.next().getKey();
+							check(k >= 1000 && k < 2000 && (previous == null || previous < k),
+									"key " + k + " after " + previous + " in [1000, 2000), " + where);
+							previous = k;
+						}
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+		}
+		for (Thread t : writers)
+			t.start();
+		for (Thread t : readers)
+			t.start();
+		for (Thread t : writers)
+			t.join();
+		stop.set(true);
+		for (Thread t : readers)
+			t.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		TreeMap<Integer, Integer> all = new TreeMap<Integer, Integer>();
+		for (TreeMap<Integer, Integer> keys : expected)
+			all.putAll(keys);
+		check(entries(tree.scan()).equals(new ArrayList<Map.Entry<Integer, Integer>>(all.entrySet())),
+				"tree differs from the writers' keys, " + where);
+		check(entries(tree.scan(5, false, 900, true)).equals(new ArrayList<Map.Entry<Integer, Integer>>(
+				all.subMap(5, false, 900, true).entrySet())), "range (5, 900] differs, " + where);
+		for (int k = -1; k <= n / 10 * writerCount; k++)
+			check(Objects.equals(tree.search(k), all.get(k)), "key " + k + ", " + where);
+	}
+
+	/**
+	 * Returns the keys and pointers returned by the specified {@code RangeScan}.
+	 * 
+	 * @param scan
+	 *            a {@code RangeScan}
+	 * @return the keys and pointers returned by the specified {@code RangeScan}
+	 */
+	static List<Map.Entry<Integer, Integer>> entries(RangeScan<Integer, Integer> scan) {
+		List<Map.Entry<Integer, Integer>> l = new ArrayList<Map.Entry<Integer, Integer>>();
+		while (scan.hasNext()) {
+			Map.Entry<Integer, Integer> e = scan.next();
+			l.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(e.getKey(), e.getValue()));
+		}
+		return l;
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,306 @@
+package bptree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code CopyOnWriteBPlusTreeStressTest} applies random insertions, deletions, batch insertions, and operations that
+ * fail in the middle to a {@code CopyOnWriteBPlusTree} and a {@code TreeMap}, takes and releases {@code Snapshot}s
+ * along the way, and checks that every {@code Snapshot} keeps seeing the version it was taken from, that failed
+ * operations publish nothing, and that all replaced {@code Node}s are reclaimed once the {@code Snapshot}s are
+ * released. It also runs a reader thread that takes {@code Snapshot}s while a writer updates the tree. It is run as a
+ * Java application and throws an {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class CopyOnWriteBPlusTreeStressTest {
+
+	/**
+	 * A thread-safe {@code StorageManager} that forwards requests to another {@code StorageManager} and can be made to
+	 * fail on a given {@code add}.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	static class FailingStorageManager implements StorageManager<Integer, Object> {
+
+		/**
+		 * The {@code StorageManager} to which requests are forwarded.
+		 */
+		StorageManager<Integer, Object> sm;
+
+		/**
+		 * The number of {@code add}s made so far.
+		 */
+		int adds;
+
+		/**
+		 * The number of the {@code add} that fails; -1 if no {@code add} fails.
+		 */
+		int failAt = -1;
+
+		/**
+		 * Constructs a {@code FailingStorageManager}.
+		 * 
+		 * @param sm
+		 *            the {@code StorageManager} to which requests are forwarded
+		 */
+		FailingStorageManager(StorageManager<Integer, Object> sm) {
+			this.sm = sm;
+		}
+
+		@Override
+		public synchronized int fileID(String fileName) {
+			return sm.fileID(fileName);
+		}
+
+		@Override
+		public Integer first() {
+			return sm.first();
+		}
+
+		@Override
+		public synchronized Object get(int fileID, Integer loc) throws IOException {
+			return sm.get(fileID, loc);
+		}
+
+		@Override
+		public synchronized Object put(int fileID, Integer loc, Object o) throws IOException {
+			return sm.put(fileID, loc, o);
+		}
+
+		@Override
+		public synchronized Integer add(int fileID, Object o) throws IOException {
+			if (++adds == failAt)
+				throw new IOException("injected failure");
+			return sm.add(fileID, o);
+		}
+
+		@Override
+		public synchronized Object remove(int fileID, Integer loc) throws IOException {
+			return sm.remove(fileID, loc);
+		}
+
+	}
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		File dir = Files.createTempDirectory("cow").toFile();
+		FileStorageManager fsm = new FileStorageManager(dir, 1024,
+				new BinaryNodeCodec<Integer, Integer>(Serializer.INTEGER, Serializer.INTEGER));
+		run(new FailingStorageManager(fsm), 8, 40000);
+		fsm.close();
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+		run(new FailingStorageManager(new ConcurrentStorageManager()), 4, 40000);
+		runConcurrently(new ConcurrentStorageManager(), 16, 100000);
+		System.out.println("CopyOnWriteBPlusTreeStressTest passed");
+	}
+
+	/**
+	 * Applies random operations to a {@code CopyOnWriteBPlusTree} and a {@code TreeMap} and compares them, along with
+	 * the {@code Snapshot}s taken during the operations and copies of the {@code TreeMap} made at the same times.
+	 * 
+	 * @param sm
+	 *            the {@code StorageManager} for the {@code CopyOnWriteBPlusTree}
+	 * @param degree
+	 *            the degree of the {@code CopyOnWriteBPlusTree}
+	 * @param n
+	 *            the number of operations
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void run(FailingStorageManager sm, int degree, int n) throws Exception {
+		CopyOnWriteBPlusTree<Integer, Integer> tree = new CopyOnWriteBPlusTree<Integer, Integer>(degree, sm, "t");
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		List<CopyOnWriteBPlusTree<Integer, Integer>.Snapshot> snapshots = new ArrayList<
+				CopyOnWriteBPlusTree<Integer, Integer>.Snapshot>();
+		List<TreeMap<Integer, Integer>> copies = new ArrayList<TreeMap<Integer, Integer>>();
+		Random random = new Random(degree);
+		int keys = n / 8;
+		for (int i = 0; i < n; i++) {
+			int op = random.nextInt(100);
+			int k = random.nextInt(keys);
+			if (op < 2) {
+				snapshots.add(tree.snapshot());
+				copies.add(new TreeMap<Integer, Integer>(expected));
+			} else if (op < 4 && !snapshots.isEmpty()) {
+				int j = random.nextInt(snapshots.size());
+				snapshots.remove(j).close();
+				copies.remove(j);
+			} else if (op < 5) { // a batch published as one version
+				TreeMap<Integer, Integer> batch = new TreeMap<Integer, Integer>();
+				for (int j = 0; j < 50; j++) {
+					int b = random.nextInt(keys);
+					if (!expected.containsKey(b))
+						batch.put(b, i);
+				}
+				tree.insertAll(batch.entrySet());
+				expected.putAll(batch);
+			} else if (op < 7) { // an operation that fails after writing a few nodes
+				sm.failAt = sm.adds + 1 + random.nextInt(3);
+				long version = tree.version();
+				try {
+					update(tree, expected, k, i);
+				} catch (IOException e) {
+					check(tree.version() == version, "failed operation published version " + tree.version());
+				}
+				sm.failAt = -1;
+			} else
+				update(tree, expected, k, i);
+			if (i % 2000 == 0)
+				for (int j = 0; j < snapshots.size(); j++) {
+					CopyOnWriteBPlusTree<Integer, Integer>.Snapshot s = snapshots.get(j);
+					List<Map.Entry<Integer, Integer>> copy = new ArrayList<Map.Entry<Integer, Integer>>(
+							copies.get(j).entrySet());
+					check(entries(s.scan()).equals(copy), "snapshot of version " + s.version() + " changed");
+				}
+		}
+		for (int j = 0; j < snapshots.size(); j++) {
+			CopyOnWriteBPlusTree<Integer, Integer>.Snapshot s = snapshots.get(j);
+			check(entries(s.scan(100, true, 2000, false)).equals(new ArrayList<Map.Entry<Integer, Integer>>(
+					copies.get(j).subMap(100, 2000).entrySet())), "range of version " + s.version() + " changed");
+			for (int k = 0; k < 100; k++)
+				check(Objects.equals(s.search(k), copies.get(j).get(k)), "key " + k + " of version " + s.version());
+			s.close();
+		}
+		check(tree.retiredCount() == 0, tree.retiredCount() + " nodes not reclaimed after all snapshots were closed");
+		check(entries(tree.scan()).equals(new ArrayList<Map.Entry<Integer, Integer>>(expected.entrySet())),
+				"tree differs from the reference map, degree " + degree);
+		for (int k = -1; k <= keys; k++)
+			check(Objects.equals(tree.search(k), expected.get(k)), "key " + k + ", degree " + degree);
+	}
+
+	/**
+	 * Inserts the specified key if it is not in the specified {@code TreeMap} and deletes it otherwise, in both the
+	 * {@code CopyOnWriteBPlusTree} and the {@code TreeMap}. The {@code TreeMap} is updated only if the
+	 * {@code CopyOnWriteBPlusTree} is.
+	 * 
+	 * @param tree
+	 *            a {@code CopyOnWriteBPlusTree}
+	 * @param expected
+	 *            a {@code TreeMap} with the same keys as the {@code CopyOnWriteBPlusTree}
+	 * @param k
+	 *            a key
+	 * @param p
+	 *            the pointer to insert with the key
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void update(CopyOnWriteBPlusTree<Integer, Integer> tree, TreeMap<Integer, Integer> expected, int k, int p)
+			throws Exception {
+		if (expected.containsKey(k)) {
+			tree.delete(k);
+			expected.remove(k);
+		} else {
+			tree.insert(k, p);
+			expected.put(k, p);
+		}
+	}
+
+	/**
+	 * Runs a reader thread that repeatedly scans {@code Snapshot}s of a {@code CopyOnWriteBPlusTree} while the current
+	 * thread inserts and deletes odd keys, and checks that every scan returns all of the even keys in order.
+	 * 
+	 * @param sm
+	 *            the {@code StorageManager} for the {@code CopyOnWriteBPlusTree}
+	 * @param degree
+	 *            the degree of the {@code CopyOnWriteBPlusTree}
+	 * @param n
+	 *            the number of updates
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void runConcurrently(StorageManager<Integer, Object> sm, int degree, int n) throws Exception {
+		CopyOnWriteBPlusTree<Integer, Integer> tree = new CopyOnWriteBPlusTree<Integer, Integer>(degree, sm, "c");
+		int keys = 20000;
+		for (int i = 0; i < keys; i++)
+			tree.insert(2 * i, i);
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		AtomicBoolean stop = new AtomicBoolean();
+		Thread reader = new Thread(() -> {
+			try {
+				while (!stop.get()) {
+					try (CopyOnWriteBPlusTree<Integer, Integer>.Snapshot s = tree.snapshot()) {
+						int next = 0;
+						Integer previous = null;
+						for (RangeScan<Integer, Integer> scan = s.scan(); scan.hasNext();) {
+							int k = scan.next().getKey();
+							check(previous == null || previous < k, "key " + k + " after " + previous);
+							previous = k;
+							if (k % 2 == 0) {
+								check(k == next, "key " + next + " missing in version " + s.version());
+								next += 2;
+							}
+						}
+						check(next == 2 * keys, "scan of version " + s.version() + " ended before key " + next);
+					}
+				}
+			} catch (Throwable e) {
+				failure.set(e);
+			}
+		});
+		reader.start();
+		Random random = new Random(degree);
+		for (int i = 0; i < n && failure.get() == null; i++) {
+			int k = 2 * random.nextInt(2 * keys) + 1;
+			try {
+				tree.insert(k, i);
+			} catch (BPlusTree.InvalidInsertionException e) {
+				tree.delete(k);
+			}
+		}
+		stop.set(true);
+		reader.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		check(tree.retiredCount() == 0, tree.retiredCount() + " nodes not reclaimed after the reader stopped");
+	}
+
+	/**
+	 * Returns the keys and pointers returned by the specified {@code RangeScan}.
+	 * 
+	 * @param scan
+	 *            a {@code RangeScan}
+	 * @return the keys and pointers returned by the specified {@code RangeScan}
+	 */
+	static List<Map.Entry<Integer, Integer>> entries(RangeScan<Integer, Integer> scan) {
+		List<Map.Entry<Integer, Integer>> l = new ArrayList<Map.Entry<Integer, Integer>>();
+		while (scan.hasNext()) {
+			Map.Entry<Integer, Integer> e = scan.next();
+			l.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(e.getKey(), e.getValue()));
+		}
+		return l;
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
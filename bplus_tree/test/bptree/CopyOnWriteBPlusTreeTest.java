@@ -0,0 +1,101 @@
+package bptree;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code CopyOnWriteBPlusTreeTest} checks that a scan of a {@code CopyOnWriteBPlusTree} keeps seeing the version that
+ * was published when it started while writers publish newer versions, and that the {@code Node}s those versions
+ * replaced are reclaimed once the scan is exhausted or closed. It is run as a Java application and throws an
+ * {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class CopyOnWriteBPlusTreeTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		int n = 5000;
+		CopyOnWriteBPlusTree<Integer, Integer> tree = new CopyOnWriteBPlusTree<Integer, Integer>(8,
+				new ConcurrentStorageManager(), "t");
+		for (int i = 0; i < n; i++)
+			tree.insert(2 * i, i);
+
+		RangeScan<Integer, Integer> scan = tree.scan();
+		for (int i = 0; i < n / 2; i++)
+			check(scan.next().getKey() == 2 * i, "key " + 2 * i + " not returned");
+		for (int i = 0; i < n; i++) // replaces every leaf node while the scan is in progress
+			tree.delete(2 * i);
+		check(tree.retiredCount() > 0, "nodes seen by the scan reclaimed");
+		for (int i = n / 2; i < n; i++)
+			check(scan.next().getKey() == 2 * i, "key " + 2 * i + " not returned after the tree changed");
+		check(!scan.hasNext(), "scan returned extra keys");
+		check(tree.retiredCount() == 0, tree.retiredCount() + " nodes not reclaimed after the scan ended");
+
+		for (int i = 0; i < n; i++)
+			tree.insert(2 * i, i);
+		scan = tree.scan(10, true, 20, false);
+		check(scan.next().getKey() == 10, "range scan started at the wrong key");
+		tree.delete(10);
+		((CopyOnWriteBPlusTree<Integer, Integer>.SnapshotScan) scan).close();
+		check(!scan.hasNext(), "closed scan returned keys");
+		check(tree.retiredCount() == 0, tree.retiredCount() + " nodes not reclaimed after the scan was closed");
+		tree.insert(10, 5);
+
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		AtomicBoolean stop = new AtomicBoolean();
+		Thread reader = new Thread(() -> { // the writer below only changes odd keys
+			try {
+				while (!stop.get()) {
+					int next = 0;
+					for (RangeScan<Integer, Integer> s = tree.scan(); s.hasNext();) {
+						Map.Entry<Integer, Integer> e = s.next();
+						if (e.getKey() % 2 == 0) {
+							check(e.getKey() == next && e.getValue() == next / 2, "scan returned " + e);
+							next += 2;
+						}
+					}
+					check(next == 2 * n, "scan ended before key " + next);
+				}
+			} catch (Throwable e) {
+				failure.set(e);
+			}
+		});
+		reader.start();
+		for (int i = 0; i < 20000 && failure.get() == null; i++) {
+			int k = 2 * ((i * 7919) % n) + 1;
+			if (tree.search(k) == null)
+				tree.insert(k, i);
+			else
+				tree.delete(k);
+		}
+		stop.set(true);
+		reader.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		check(tree.retiredCount() == 0, tree.retiredCount() + " nodes not reclaimed after the scans ended");
+		System.out.println("CopyOnWriteBPlusTreeTest passed");
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
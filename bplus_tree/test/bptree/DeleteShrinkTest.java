@@ -0,0 +1,122 @@
+package bptree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * {@code DeleteShrinkTest} checks that deleting most of the keys of a {@code BPlusTree} lowers its height, reduces its
+ * {@code Node}s in proportion, and keeps every {@code LeafNode} at least half full, and that deleting the rest empties
+ * the {@code BPlusTree}. It is run as a Java application and throws an {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class DeleteShrinkTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (int degree : new int[] { 3, 4, 5, 8, 16 })
+			run(degree, 20000);
+		System.out.println("DeleteShrinkTest passed");
+	}
+
+	/**
+	 * Inserts the specified number of keys in random order, deletes 99% of them in random order, and then deletes the
+	 * rest.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param n
+	 *            the number of keys
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void run(int degree, int n) throws Exception {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree, new OffHeapStorageManager(), "t");
+		List<Integer> keys = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++)
+			keys.add(i);
+		Random random = new Random(degree);
+		Collections.shuffle(keys, random);
+		for (Integer k : keys)
+			tree.insert(k, -k);
+		int height = height(tree);
+		int nodes = nodeCount(tree, tree.root().node());
+		double fill = tree.fillFactor();
+		Collections.shuffle(keys, random);
+		int kept = n / 100;
+		for (Integer k : keys.subList(kept, n))
+			tree.delete(k);
+		String where = "degree " + degree;
+		check(height(tree) < height, "height did not shrink from " + height + ", " + where);
+		int after = nodeCount(tree, tree.root().node());
+		check(after <= nodes / 50, "node count shrank only from " + nodes + " to " + after + ", " + where);
+		double minFill = Math.ceil((degree - 1) / 2.0) / (degree - 1);
+		check(tree.fillFactor() >= minFill, "fill factor " + tree.fillFactor() + " below " + minFill + ", " + where);
+		check(tree.fillFactor() >= fill * 0.5, "fill factor collapsed from " + fill + ", " + where);
+		for (Integer k : keys.subList(0, kept))
+			check(Integer.valueOf(-k).equals(tree.search(k)), "key " + k + " lost, " + where);
+		for (Integer k : keys.subList(kept, kept + 100))
+			check(tree.search(k) == null, "key " + k + " not deleted, " + where);
+		for (Integer k : keys.subList(0, kept))
+			tree.delete(k);
+		check(tree.root() == null && tree.fillFactor() == 0, "tree not empty, " + where);
+	}
+
+	/**
+	 * Returns the height of the specified {@code BPlusTree}.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @return the number of levels of the specified {@code BPlusTree}; 0 if it is empty
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static int height(BPlusTree<Integer, Integer> tree) throws Exception {
+		int height = 0;
+		for (Node<Integer, Integer> n = tree.root() == null ? null : tree.root().node(); n != null; height++)
+			n = n instanceof NonLeafNode ? tree.child((NonLeafNode<Integer, Integer>) n, 0) : null;
+		return height;
+	}
+
+	/**
+	 * Returns the number of {@code Node}s in the specified subtree.
+	 * 
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param n
+	 *            the root of a subtree
+	 * @return the number of {@code Node}s in the specified subtree
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static int nodeCount(BPlusTree<Integer, Integer> tree, Node<Integer, Integer> n) throws Exception {
+		int count = 1;
+		if (n instanceof NonLeafNode)
+			for (int i = 0; i <= n.keyCount(); i++)
+				count += nodeCount(tree, tree.child((NonLeafNode<Integer, Integer>) n, i));
+		return count;
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,254 @@
+package bptree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code FileStorageManagerTest} checks that pages of a {@code FileStorageManager} can be prefetched by other threads
+ * while new files are opened and pages are added, and after the {@code FileStorageManager} is closed, and that pages
+ * are reserved without being written, so that a bulk load writes each page at most once and a bulk load stopped by an
+ * out-of-order key leaves no pages behind. It is run as a Java
+ * application and throws an {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class FileStorageManagerTest {
+
+	/**
+	 * A {@code FileStorageManager} that counts how many times each page is written.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	static class CountingStorageManager extends FileStorageManager {
+
+		/**
+		 * A map that associates each page written with the number of times it has been written.
+		 */
+		TreeMap<Integer, Integer> writes = new TreeMap<Integer, Integer>();
+
+		/**
+		 * Constructs a {@code CountingStorageManager}.
+		 * 
+		 * @param directory
+		 *            the directory containing the files
+		 * @param pageSize
+		 *            the size of pages in bytes
+		 */
+		CountingStorageManager(File directory, int pageSize) {
+			super(directory, pageSize);
+		}
+
+		@Override
+		protected void write(int fileID, int loc, byte[] b) throws IOException {
+			writes.merge(loc, 1, Integer::sum);
+			super.write(fileID, loc, b);
+		}
+
+	}
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		checkPrefetch();
+		for (int degree : new int[] { 3, 4, 16 })
+			for (int n : new int[] { 1, 10, 1000, 1001 }) {
+				checkBulkLoad(false, degree, n);
+				checkBulkLoad(true, degree, n);
+			}
+		for (int degree : new int[] { 3, 4, 16 })
+			for (int bad : new int[] { 1, 2, 7, 100, 999 }) {
+				checkFailedBulkLoad(false, degree, bad);
+				checkFailedBulkLoad(true, degree, bad);
+			}
+		checkReservation();
+		System.out.println("FileStorageManagerTest passed");
+	}
+
+	/**
+	 * Checks that pages can be prefetched by other threads while new files are opened and pages are added, and after
+	 * the {@code FileStorageManager} is closed.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkPrefetch() throws Exception {
+		File dir = Files.createTempDirectory("file").toFile();
+		FileStorageManager sm = new FileStorageManager(dir, 256);
+		int files = 200;
+		int n = 50;
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		AtomicBoolean closed = new AtomicBoolean();
+		Thread[] prefetchers = new Thread[4];
+		for (int i = 0; i < prefetchers.length; i++) {
+			int seed = i;
+			prefetchers[i] = new Thread(() -> {
+				try {
+					for (int j = 0; !closed.get(); j++)
+						sm.prefetch((j * 7 + seed) % files, j % n);
+					for (int j = 0; j < files; j++) // pages of closed files are ignored
+						sm.prefetch(j, 1);
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			prefetchers[i].start();
+		}
+		for (int f = 0; f < files; f++) { // each new file grows the list of channels that prefetchers read
+			int fileID = sm.fileID("f" + f);
+			check(fileID == f, "file " + f + " given ID " + fileID);
+			for (int i = 1; i < n; i++)
+				check(sm.add(fileID, i) == i, "page " + i + " of file " + f + " not appended");
+		}
+		for (int f = 0; f < files; f += 17)
+			check(Integer.valueOf(n - 1).equals(sm.get(f, n - 1)), "page " + (n - 1) + " of file " + f + " lost");
+		sm.close();
+		closed.set(true);
+		for (Thread t : prefetchers)
+			t.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	/**
+	 * Bulk loads a {@code BPlusTree} into a {@code FileStorageManager} and checks that each page is written at most
+	 * once.
+	 * 
+	 * @param blink
+	 *            {@code true} to bulk load a {@code BLinkBPlusTree}; {@code false} to bulk load a {@code BPlusTree}
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param n
+	 *            the number of keys
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkBulkLoad(boolean blink, int degree, int n) throws Exception {
+		File dir = Files.createTempDirectory("bulk").toFile();
+		CountingStorageManager sm = new CountingStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE);
+		BPlusTree<Integer, Integer> tree = blink ? new BLinkBPlusTree<Integer, Integer>(degree, sm, "t")
+				: new BPlusTree<Integer, Integer>(degree, sm, "t");
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int i = 0; i < n; i++)
+			entries.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(i, -i));
+		tree.bulkLoad(entries.iterator(), 1.0);
+		String where = tree.getClass().getSimpleName() + " of degree " + degree + " with " + n + " keys";
+		for (Map.Entry<Integer, Integer> e : sm.writes.entrySet())
+			check(e.getValue() == 1, "page " + e.getKey() + " written " + e.getValue() + " times, " + where);
+		for (int i = 0; i < n; i++)
+			check(Integer.valueOf(-i).equals(tree.search(i)), "key " + i + " not found, " + where);
+		sm.close();
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	/**
+	 * Bulk loads keys of which one is out of order into a {@code BPlusTree} on a {@code FileStorageManager}, and checks
+	 * that the pages reserved and written before the key was found are removed, leaving the file with only its header
+	 * page and the {@code BPlusTree} empty and ready for another bulk load.
+	 * 
+	 * @param blink
+	 *            {@code true} to bulk load a {@code BLinkBPlusTree}; {@code false} to bulk load a {@code BPlusTree}
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param bad
+	 *            the index of the key that repeats its predecessor
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkFailedBulkLoad(boolean blink, int degree, int bad) throws Exception {
+		File dir = Files.createTempDirectory("bulk").toFile();
+		FileStorageManager sm = new FileStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE);
+		BPlusTree<Integer, Integer> tree = blink ? new BLinkBPlusTree<Integer, Integer>(degree, sm, "t")
+				: new BPlusTree<Integer, Integer>(degree, sm, "t");
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int i = 0; i < 1000; i++)
+			entries.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(i == bad ? i - 1 : i, -i));
+		String where = tree.getClass().getSimpleName() + " of degree " + degree + ", key " + bad + " out of order";
+		try {
+			tree.bulkLoad(entries.iterator(), 1.0);
+			throw new AssertionError("out-of-order key accepted, " + where);
+		} catch (BPlusTree.InvalidInsertionException e) {
+		}
+		check(tree.root() == null, "tree not empty, " + where);
+		check(sm.pageCount(tree.fileID) == 1, sm.pageCount(tree.fileID) + " pages left behind, " + where);
+		check(sm.freePageCount(tree.fileID) == 0, sm.freePageCount(tree.fileID) + " free pages, " + where);
+		entries.set(bad, new AbstractMap.SimpleImmutableEntry<Integer, Integer>(bad, -bad));
+		tree.bulkLoad(entries.iterator(), 1.0);
+		for (int i = 0; i < 1000; i++)
+			check(Integer.valueOf(-i).equals(tree.search(i)), "key " + i + " not found after reloading, " + where);
+		sm.close();
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	/**
+	 * Checks that a page reserved by adding {@code null} to a {@code FileStorageManager} or a
+	 * {@code MappedStorageManager} reads as empty, is not handed out again, and holds the object put there later, also
+	 * after the file is reopened.
+	 * 
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkReservation() throws Exception {
+		for (boolean mapped : new boolean[] { false, true }) {
+			File dir = Files.createTempDirectory("reserve").toFile();
+			FileStorageManager sm = mapped ? new MappedStorageManager(dir, 256, 4)
+					: new CountingStorageManager(dir, 256);
+			int fileID = sm.fileID("f");
+			int reserved = sm.add(fileID, null);
+			check(sm.get(fileID, reserved) == null, "reserved page " + reserved + " not empty, mapped " + mapped);
+			if (sm instanceof CountingStorageManager)
+				check(((CountingStorageManager) sm).writes.isEmpty(), "reserving page " + reserved + " wrote a page");
+			for (int i = 0; i < 10; i++) // pages beyond the chunks mapped so far
+				check(sm.add(fileID, null) != reserved, "reserved page " + reserved + " handed out again");
+			check(sm.get(fileID, reserved + 10) == null, "page reserved beyond the mapped chunks not empty");
+			check(sm.add(fileID, "o") == reserved + 11, "page after the reserved pages not appended, mapped " + mapped);
+			sm.put(fileID, reserved, "r");
+			check("r".equals(sm.get(fileID, reserved)), "object lost at reserved page, mapped " + mapped);
+			check(sm.get(fileID, reserved + 10) == null, "reserved page not empty, mapped " + mapped);
+			sm.close();
+			sm = mapped ? new MappedStorageManager(dir, 256, 4) : new FileStorageManager(dir, 256);
+			fileID = sm.fileID("f");
+			check("r".equals(sm.get(fileID, reserved)), "object lost after reopening, mapped " + mapped);
+			check(sm.freePageCount(fileID) == 10, sm.freePageCount(fileID) + " free pages after reopening");
+			check(sm.add(fileID, "a") == reserved + 1, "reserved page not reused after reopening, mapped " + mapped);
+			sm.close();
+			for (File f : dir.listFiles())
+				f.delete();
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,81 @@
+package bptree;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import bptree.BPlusTree.InvalidInsertionException;
+
+/**
+ * {@code InsertSortedTest} checks that {@link BPlusTree#insertSorted(java.util.Iterator)} keeps the entries preceding
+ * an invalid key inserted when that key, a duplicate of a stored key or a key out of order, falls in the middle of the
+ * batch of keys collected for a {@code LeafNode}, both for {@code BPlusTree}s and for {@code CopyOnWriteBPlusTree}s.
+ * It is run as a Java application and throws an {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class InsertSortedTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (int degree : new int[] { 3, 4, 8, 32 })
+			for (int kind = 0; kind < 2; kind++)
+				for (boolean duplicate : new boolean[] { true, false })
+					run(degree, kind, duplicate);
+		System.out.println("InsertSortedTest passed");
+	}
+
+	/**
+	 * Stores the multiples of 10 from 0 to 990 and then inserts, in ascending order, the keys from 501 to 519 that are
+	 * not multiples of 10 with an invalid key in the middle.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param kind
+	 *            0 for a {@code BPlusTree} and 1 for a {@code CopyOnWriteBPlusTree}
+	 * @param duplicate
+	 *            {@code true} to use a stored key as the invalid key; {@code false} to repeat the preceding key
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void run(int degree, int kind, boolean duplicate) throws Exception {
+		OffHeapStorageManager sm = new OffHeapStorageManager();
+		BPlusTree<Integer, Integer> tree = kind == 0 ? new BPlusTree<Integer, Integer>(degree, sm, "t")
+				: new CopyOnWriteBPlusTree<Integer, Integer>(degree, sm, "t");
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		for (int k = 0; k < 1000; k += 10) {
+			tree.insert(k, k);
+			expected.put(k, k);
+		}
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int k = 501; k < 520; k++)
+			if (k % 10 != 0)
+				entries.add(new AbstractMap.SimpleEntry<Integer, Integer>(k, -k));
+		int middle = entries.size() / 2; // the keys around 510 fall into the same leaf node as 510
+		int invalid = duplicate ? 510 : entries.get(middle - 1).getKey();
+		entries.add(middle, new AbstractMap.SimpleEntry<Integer, Integer>(invalid, 0));
+		try {
+			tree.insertSorted(entries.iterator());
+			throw new AssertionError("no exception for key " + invalid);
+		} catch (InvalidInsertionException e) {
+		}
+		for (Map.Entry<Integer, Integer> e : entries.subList(0, middle))
+			expected.put(e.getKey(), e.getValue());
+		List<Map.Entry<Integer, Integer>> actual = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (RangeScan<Integer, Integer> s = tree.scan(); s.hasNext();)
+			actual.add(s.next());
+		String where = "degree " + degree + ", " + tree.getClass().getSimpleName() + ", invalid key " + invalid;
+		if (!actual.equals(new ArrayList<Map.Entry<Integer, Integer>>(expected.entrySet())))
+			throw new AssertionError("entries differ, " + where + ": " + actual);
+	}
+
+}
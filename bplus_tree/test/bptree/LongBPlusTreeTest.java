@@ -0,0 +1,111 @@
+package bptree;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import bptree.BPlusTree.InvalidInsertionException;
+
+/**
+ * {@code LongBPlusTreeTest} checks that a {@code LongLeafNode} rejects a key it already contains without changing, and
+ * that a {@code LongBPlusTree} agrees with a {@code TreeMap} under random insertions, duplicate insertions, and
+ * deletions. It is run as a Java application and throws an {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class LongBPlusTreeTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (int degree : new int[] { 3, 4, 5, 8, 32 }) {
+			checkLeaf(degree);
+			run(degree, 5000);
+		}
+		System.out.println("LongBPlusTreeTest passed");
+	}
+
+	/**
+	 * Inserts every key of a {@code LongLeafNode} that has room for one more key again and checks that each insertion
+	 * is rejected and leaves the {@code LongLeafNode} unchanged.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongLeafNode}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkLeaf(int degree) throws Exception {
+		LongLeafNode l = new LongLeafNode(degree);
+		for (int i = 0; i < degree - 2; i++)
+			l.insert(2L * i, i);
+		for (int i = 0; i < degree - 2; i++) {
+			try {
+				l.insert(2L * i, -1);
+				throw new AssertionError("key " + 2L * i + " inserted twice, degree " + degree);
+			} catch (InvalidInsertionException e) {
+			}
+			check(l.keyCount() == degree - 2, "key count changed, degree " + degree);
+			for (int j = 0; j < degree - 2; j++)
+				check(l.key(j) == 2L * j && l.pointer(j) == j, "entry " + j + " changed, degree " + degree);
+		}
+	}
+
+	/**
+	 * Applies random insertions and deletions to a {@code LongBPlusTree} and a {@code TreeMap} and compares them.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code LongBPlusTree}
+	 * @param n
+	 *            the number of operations
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void run(int degree, int n) throws Exception {
+		LongBPlusTree tree = new LongBPlusTree(degree, new OffHeapStorageManager(), "t");
+		TreeMap<Long, Integer> expected = new TreeMap<Long, Integer>();
+		Random random = new Random(degree);
+		for (int i = 0; i < n; i++) {
+			long k = random.nextInt(n) - n / 2;
+			if (random.nextInt(4) == 0) {
+				if (expected.remove(k) != null)
+					tree.delete(k);
+			} else if (expected.containsKey(k)) {
+				try {
+					tree.insert(k, i);
+					throw new AssertionError("key " + k + " inserted twice, degree " + degree);
+				} catch (InvalidInsertionException e) {
+				}
+			} else {
+				tree.insert(k, i);
+				expected.put(k, i);
+			}
+		}
+		for (long k = -n / 2 - 1; k <= n / 2; k++) {
+			Integer p = expected.get(k);
+			check(tree.search(k) == (p == null ? LongNode.NIL : p), "key " + k + ", degree " + degree);
+		}
+		for (Map.Entry<Long, Integer> e : expected.entrySet())
+			tree.delete(e.getKey());
+		check(tree.root() == null, "not empty after deleting every key, degree " + degree);
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            the message of the {@code AssertionError}
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,76 @@
+package bptree;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code MappedStorageManagerTest} checks that pages of a {@code MappedStorageManager} can be prefetched by other
+ * threads while new chunks are mapped and after the {@code MappedStorageManager} is closed. It is run as a Java
+ * application and throws an {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class MappedStorageManagerTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		File dir = Files.createTempDirectory("mapped").toFile();
+		MappedStorageManager sm = new MappedStorageManager(dir, 256, 4); // a new chunk every 4 pages
+		int fileID = sm.fileID("t");
+		int n = 20000;
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		AtomicBoolean closed = new AtomicBoolean();
+		Thread[] prefetchers = new Thread[4];
+		for (int i = 0; i < prefetchers.length; i++) {
+			int seed = i;
+			prefetchers[i] = new Thread(() -> {
+				try {
+					for (int j = 0; !closed.get(); j++)
+						sm.prefetch(fileID, (j * 31 + seed) % n);
+					for (int j = 0; j < n; j++) // pages of a closed file are ignored
+						sm.prefetch(fileID, j);
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			prefetchers[i].start();
+		}
+		for (int i = 1; i < n; i++)
+			check(sm.add(fileID, i) == i, "page " + i + " not appended");
+		for (int i = 1; i < n; i += 97)
+			check(Integer.valueOf(i).equals(sm.get(fileID, i)), "page " + i + " lost");
+		sm.close();
+		closed.set(true);
+		for (Thread t : prefetchers)
+			t.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+		System.out.println("MappedStorageManagerTest passed");
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,93 @@
+package bptree;
+
+import java.util.Comparator;
+
+/**
+ * {@code NodeSearchTest} checks the binary searches of {@code LeafNode}s and {@code NonLeafNode}s against linear
+ * searches over the same keys, for every number of keys that a {@code Node} of each degree from 3 to 64 can hold, with
+ * and without a {@code Comparator}. It is run as a Java application and throws an {@code AssertionError} on the first
+ * mismatch.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class NodeSearchTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 */
+	public static void main(String[] args) {
+		Comparator<Integer> reverse = Comparator.reverseOrder();
+		for (int degree = 3; degree <= 64; degree++)
+			for (int count = 0; count < degree; count++) {
+				check(degree, count, null);
+				check(degree, count, reverse);
+			}
+		System.out.println("NodeSearchTest passed");
+	}
+
+	/**
+	 * Checks {@code findIndexL}, {@code contains}, {@code get}, and {@code childIndex} on {@code Node}s holding the
+	 * specified number of keys 0, 2, 4, ... in the specified order, probing every key and every gap.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code Node}s
+	 * @param count
+	 *            the number of keys in the {@code Node}s
+	 * @param comparator
+	 *            the {@code Comparator} that orders keys; {@code null} if the natural ordering of keys is used
+	 */
+	static void check(int degree, int count, Comparator<Integer> comparator) {
+		Integer[] keys = new Integer[count];
+		for (int i = 0; i < count; i++)
+			keys[i] = comparator == null ? 2 * i : 2 * (count - 1 - i);
+		LeafNode<Integer, Integer> leaf = new LeafNode<Integer, Integer>(degree);
+		for (int i = 0; i < count; i++)
+			leaf.insert(i, keys[i], -keys[i]);
+		NonLeafNode<Integer, Integer> nonLeaf = null;
+		if (count > 0) {
+			nonLeaf = new NonLeafNode<Integer, Integer>(degree, 0, keys[0], 1);
+			for (int i = 1; i < count; i++)
+				nonLeaf.insertAfter(keys[i], i + 1, i);
+		}
+		for (int k = -1; k <= 2 * count; k++) {
+			int less = 0; // the number of keys less than k, computed linearly
+			int notGreater = 0; // the number of keys not greater than k
+			int found = -1;
+			for (int i = 0; i < count; i++) {
+				int c = comparator == null ? keys[i].compareTo(k) : comparator.compare(keys[i], k);
+				if (c < 0)
+					less++;
+				if (c <= 0)
+					notGreater++;
+				if (c == 0)
+					found = i;
+			}
+			String where = "degree " + degree + ", count " + count + ", key " + k
+					+ (comparator == null ? "" : ", reversed");
+			assertEquals(less - 1, leaf.findIndexL(k, comparator), "findIndexL, " + where);
+			assertEquals(found >= 0, leaf.contains(k, comparator), "contains, " + where);
+			assertEquals(found >= 0 ? -k : null, leaf.get(k, comparator), "get, " + where);
+			if (nonLeaf != null)
+				assertEquals(notGreater, nonLeaf.childIndex(k, comparator), "childIndex, " + where);
+		}
+	}
+
+	/**
+	 * Throws an {@code AssertionError} if the specified values are not equal.
+	 * 
+	 * @param expected
+	 *            the expected value
+	 * @param actual
+	 *            the actual value
+	 * @param what
+	 *            a description of the value
+	 */
+	static void assertEquals(Object expected, Object actual, String what) {
+		if (expected == null ? actual != null : !expected.equals(actual))
+			throw new AssertionError(what + ": expected " + expected + " but was " + actual);
+	}
+
+}
@@ -0,0 +1,150 @@
+package bptree;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * {@code ObjectCacheTest} checks that an {@code ObjectCache} evicts the objects modified by the caller when writing
+ * through to the other {@code StorageManager} fails, so that the next {@code get} returns the object that the other
+ * {@code StorageManager} still has, also when a {@code BPlusTree} fails in the middle of a split after modifying
+ * {@code Node}s other than the one being written. It is run as a Java application and throws an {@code AssertionError}
+ * on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class ObjectCacheTest {
+
+	/**
+	 * An {@code OffHeapStorageManager} whose writes can be made to fail.
+	 * 
+	 * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+	 */
+	static class FailingStorageManager extends OffHeapStorageManager {
+
+		/**
+		 * A flag indicating whether or not writes fail.
+		 */
+		boolean failing;
+
+		/**
+		 * The number of writes to let succeed before writes fail; negative if writes do not fail after a count.
+		 */
+		int failAfter = -1;
+
+		@Override
+		public Object put(int fileID, Integer loc, Object o) throws IOException {
+			write();
+			return super.put(fileID, loc, o);
+		}
+
+		@Override
+		public Integer add(int fileID, Object o) throws IOException {
+			write();
+			return super.add(fileID, o);
+		}
+
+		/**
+		 * Throws an {@code IOException} if the current write must fail.
+		 * 
+		 * @throws IOException
+		 *             if the current write must fail
+		 */
+		void write() throws IOException {
+			if (failAfter == 0)
+				failing = true;
+			if (failAfter > 0)
+				failAfter--;
+			if (failing)
+				throw new IOException("injected failure");
+		}
+
+	}
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		FailingStorageManager sm = new FailingStorageManager();
+		ObjectCache<Integer, Object> cache = new ObjectCache<Integer, Object>(sm, 16);
+		int fileID = cache.fileID("t");
+		Integer loc = cache.add(fileID, new int[] { 1, 2, 3 });
+		int[] a = (int[]) cache.get(fileID, loc);
+		check(cache.get(fileID, loc) == a, "object not cached");
+		a[1] = 20; // modify the cached object as a BPlusTree modifies a Node before putting it back
+		sm.failing = true;
+		try {
+			cache.put(fileID, loc, a);
+			throw new AssertionError("failure not reported");
+		} catch (IOException e) {
+		}
+		sm.failing = false;
+		int[] b = (int[]) cache.get(fileID, loc);
+		check(b != a && b[1] == 2, "modified object still cached after a failed put");
+		b[1] = 20;
+		cache.put(fileID, loc, b);
+		check(((int[]) sm.get(fileID, loc))[1] == 20 && cache.get(fileID, loc) == b, "successful put not applied");
+		for (int degree : new int[] { 3, 4, 5 })
+			for (int failAfter = 0; failAfter < 8; failAfter++)
+				checkSplit(degree, failAfter);
+		System.out.println("ObjectCacheTest passed");
+	}
+
+	/**
+	 * Fills a {@code BPlusTree} with ascending keys so that inserting a key into its first {@code LeafNode} splits that
+	 * {@code LeafNode}, makes a write of that insertion fail, and checks that the {@code BPlusTree} seen through the {@code ObjectCache} then matches the
+	 * {@code BPlusTree} in the other {@code StorageManager}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param failAfter
+	 *            the number of writes of the insertion to let succeed before writes fail
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkSplit(int degree, int failAfter) throws Exception {
+		FailingStorageManager sm = new FailingStorageManager();
+		ObjectCache<Integer, Object> cache = new ObjectCache<Integer, Object>(sm, 1000);
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree, cache, "t");
+		int n = (degree - 1) * degree;
+		int k = 0;
+		for (; k < n; k++)
+			tree.insert(2 * k, -2 * k);
+		sm.failAfter = failAfter;
+		boolean failed = false;
+		try {
+			tree.insert(1, -1); // splits the first leaf
+		} catch (IOException e) {
+			failed = true;
+		}
+		sm.failing = false;
+		sm.failAfter = -1;
+		String where = "degree " + degree + ", failure after " + failAfter + " writes";
+		BPlusTree<Integer, Integer> stored = new BPlusTree<Integer, Integer>(degree, sm, "t");
+		for (int i = -1; i <= 2 * n; i++)
+			check(Objects.equals(stored.search(i), tree.search(i)), "key " + i + " differs from storage, " + where);
+		if (failed)
+			return;
+		for (int i = 0; i < n; i++)
+			check(Integer.valueOf(-2 * i).equals(tree.search(2 * i)), "key " + 2 * i + " lost, " + where);
+		check(Integer.valueOf(-1).equals(tree.search(1)), "key 1 not inserted, " + where);
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
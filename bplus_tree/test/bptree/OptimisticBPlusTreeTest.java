@@ -0,0 +1,216 @@
+package bptree;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code OptimisticBPlusTreeTest} checks that readers of an {@code OptimisticBPlusTree} see the keys inserted by
+ * updates implemented using other updates, such as {@code insertSorted}, {@code insertAll}, and {@code bulkLoad}, and
+ * that readers running concurrently with a writer always find the keys that the writer does not touch and scan keys
+ * in ascending order. It is run as a Java application and throws an {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class OptimisticBPlusTreeTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (int degree : new int[] { 3, 4, 8 }) {
+			for (int n : new int[] { 1, 2, 3, 10, 500 }) {
+				OptimisticBPlusTree<Integer, Integer> tree = tree(degree);
+				tree.insertSorted(entries(0, n).iterator()); // inserts the first key into the empty tree using insert
+				compare(tree, expected(0, n), "insertSorted of " + n + " keys, degree " + degree);
+				tree = tree(degree);
+				List<Map.Entry<Integer, Integer>> shuffled = entries(0, n);
+				Collections.shuffle(shuffled, new Random(n));
+				tree.insertAll(shuffled);
+				compare(tree, expected(0, n), "insertAll of " + n + " keys, degree " + degree);
+				tree.insertAll(entries(n, 2 * n));
+				compare(tree, expected(0, 2 * n), "insertAll of " + n + " more keys, degree " + degree);
+				tree = tree(degree);
+				tree.bulkLoad(entries(0, n).iterator(), 1.0);
+				compare(tree, expected(0, n), "bulkLoad of " + n + " keys, degree " + degree);
+				tree.insertSorted(entries(n, 2 * n).iterator());
+				compare(tree, expected(0, 2 * n), "insertSorted after bulkLoad of " + n + " keys, degree " + degree);
+			}
+			runConcurrently(degree, 20000);
+		}
+		System.out.println("OptimisticBPlusTreeTest passed");
+	}
+
+	/**
+	 * Runs reader threads that search and scan an {@code OptimisticBPlusTree} while the current thread inserts and
+	 * deletes odd keys, and checks that every even key is always found and that scans return keys in ascending order.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code OptimisticBPlusTree}
+	 * @param n
+	 *            the number of updates
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void runConcurrently(int degree, int n) throws Exception {
+		OptimisticBPlusTree<Integer, Integer> tree = tree(degree);
+		int keys = 2000;
+		List<Map.Entry<Integer, Integer>> even = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int i = 0; i < keys; i++)
+			even.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(2 * i, i));
+		tree.insertAll(even);
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		AtomicBoolean stop = new AtomicBoolean();
+		Thread[] readers = new Thread[2];
+		for (int r = 0; r < readers.length; r++) {
+			int seed = r;
+			readers[r] = new Thread(() -> {
+				try {
+					Random random = new Random(seed);
+					while (!stop.get()) {
+						for (int i = 0; i < 100; i++) {
+							int k = random.nextInt(keys);
+							Integer p = tree.search(2 * k);
+							check(p != null && p == k, "key " + 2 * k + " not found, degree " + degree);
+						}
+						int next = 0;
+						Integer previous = null;
+						for (RangeScan<Integer, Integer> s = tree.scan(); s.hasNext();) {
+							int k = s.next().getKey();
+							check(previous == null || previous < k, "key " + k + " after " + previous);
+							previous = k;
+							if (k % 2 == 0) {
+								check(k == next, "scan missed key " + next + ", degree " + degree);
+								next += 2;
+							}
+						}
+						check(next == 2 * keys, "scan ended before key " + next + ", degree " + degree);
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			readers[r].start();
+		}
+		TreeMap<Integer, Integer> odd = new TreeMap<Integer, Integer>();
+		Random random = new Random(degree);
+		for (int i = 0; i < n && failure.get() == null; i++) {
+			int k = 2 * random.nextInt(keys) + 1;
+			if (odd.containsKey(k)) {
+				tree.delete(k);
+				odd.remove(k);
+			} else {
+				tree.insert(k, i);
+				odd.put(k, i);
+			}
+		}
+		stop.set(true);
+		for (Thread t : readers)
+			t.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		for (Map.Entry<Integer, Integer> e : even)
+			odd.put(e.getKey(), e.getValue());
+		compare(tree, odd, "after concurrent updates, degree " + degree);
+	}
+
+	/**
+	 * Returns an empty {@code OptimisticBPlusTree}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code OptimisticBPlusTree}
+	 * @return an empty {@code OptimisticBPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static OptimisticBPlusTree<Integer, Integer> tree(int degree) throws Exception {
+		return new OptimisticBPlusTree<Integer, Integer>(degree, new ConcurrentStorageManager(), "t");
+	}
+
+	/**
+	 * Returns the keys in the specified range, each associated with its negation.
+	 * 
+	 * @param from
+	 *            the first key
+	 * @param to
+	 *            the key after the last key
+	 * @return the keys in the specified range, each associated with its negation
+	 */
+	static List<Map.Entry<Integer, Integer>> entries(int from, int to) {
+		List<Map.Entry<Integer, Integer>> l = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int k = from; k < to; k++)
+			l.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(k, -k));
+		return l;
+	}
+
+	/**
+	 * Returns a {@code TreeMap} containing the keys in the specified range, each associated with its negation.
+	 * 
+	 * @param from
+	 *            the first key
+	 * @param to
+	 *            the key after the last key
+	 * @return a {@code TreeMap} containing the keys in the specified range
+	 */
+	static TreeMap<Integer, Integer> expected(int from, int to) {
+		TreeMap<Integer, Integer> m = new TreeMap<Integer, Integer>();
+		for (Map.Entry<Integer, Integer> e : entries(from, to))
+			m.put(e.getKey(), e.getValue());
+		return m;
+	}
+
+	/**
+	 * Checks that the specified {@code OptimisticBPlusTree} finds and scans exactly the keys and pointers in the
+	 * specified {@code TreeMap}.
+	 * 
+	 * @param tree
+	 *            an {@code OptimisticBPlusTree}
+	 * @param expected
+	 *            the expected keys and pointers
+	 * @param where
+	 *            a description of the case
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void compare(OptimisticBPlusTree<Integer, Integer> tree, TreeMap<Integer, Integer> expected, String where)
+			throws Exception {
+		int max = expected.isEmpty() ? 0 : expected.lastKey();
+		for (int k = -1; k <= max + 1; k++)
+			check(Objects.equals(tree.search(k), expected.get(k)),
+					"key " + k + " found with " + tree.search(k) + " instead of " + expected.get(k) + ", " + where);
+		RangeScan<Integer, Integer> s = tree.scan();
+		for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+			check(s.hasNext(), "scan ended before key " + e.getKey() + ", " + where);
+			Map.Entry<Integer, Integer> f = s.next();
+			check(f.getKey().equals(e.getKey()) && f.getValue().equals(e.getValue()),
+					"scan returned " + f + " instead of " + e + ", " + where);
+		}
+		check(!s.hasNext(), "scan returned extra keys, " + where);
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,186 @@
+package bptree;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code ReadAheadTest} checks that a {@code ReadAheadScan} returns exactly the same keys as a plain
+ * {@code RangeScan} on a {@code FileStorageManager} and a {@code MappedStorageManager} for bounded and open ranges and
+ * several windows, and that closing a {@code ReadAhead} during or after a scan leaves the {@code BPlusTree} readable.
+ * It is run as a Java application and throws an {@code AssertionError} on the first failure.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class ReadAheadTest {
+
+	/**
+	 * Runs the test.
+	 *
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (boolean mapped : new boolean[] { false, true }) {
+			checkScans(mapped);
+			checkClose(mapped);
+		}
+		System.out.println("ReadAheadTest passed");
+	}
+
+	/**
+	 * Creates a {@code FileStorageManager} or a {@code MappedStorageManager} in a new temporary directory.
+	 *
+	 * @param mapped
+	 *            {@code true} for a {@code MappedStorageManager}; {@code false} for a {@code FileStorageManager}
+	 * @return a new {@code FileStorageManager} or {@code MappedStorageManager}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static FileStorageManager storageManager(boolean mapped) throws Exception {
+		File dir = Files.createTempDirectory("readahead").toFile();
+		return mapped ? new MappedStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE, 64)
+				: new FileStorageManager(dir, FileStorageManager.DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * Closes the specified {@code FileStorageManager} and deletes its directory.
+	 *
+	 * @param sm
+	 *            a {@code FileStorageManager}
+	 * @param dir
+	 *            the directory of the {@code FileStorageManager}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void delete(FileStorageManager sm, File dir) throws Exception {
+		sm.close();
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	/**
+	 * Bulk loads the even keys from 0 to {@code 2 * (n - 1)} into a {@code BPlusTree}.
+	 *
+	 * @param sm
+	 *            the {@code StorageManager} of the {@code BPlusTree}
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param n
+	 *            the number of keys
+	 * @return the {@code BPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static BPlusTree<Integer, Integer> tree(FileStorageManager sm, int degree, int n) throws Exception {
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree, sm, "t");
+		List<Map.Entry<Integer, Integer>> entries = new ArrayList<Map.Entry<Integer, Integer>>();
+		for (int i = 0; i < n; i++)
+			entries.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(2 * i, -2 * i));
+		tree.bulkLoad(entries.iterator(), 0.7);
+		return tree;
+	}
+
+	/**
+	 * Checks that scans with {@code ReadAhead}s of several windows return the same entries as plain scans.
+	 *
+	 * @param mapped
+	 *            {@code true} for a {@code MappedStorageManager}; {@code false} for a {@code FileStorageManager}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkScans(boolean mapped) throws Exception {
+		FileStorageManager sm = storageManager(mapped);
+		int n = 20000;
+		BPlusTree<Integer, Integer> tree = tree(sm, 8, n);
+		Integer[][] ranges = { { null, null }, { null, 1001 }, { 1001, null }, { 0, 2 * n }, { 17, 9000 },
+				{ 500, 500 }, { 500, 502 }, { 9000, 17 }, { -10, -1 }, { 2 * n, 3 * n } };
+		int[][] windows = { { 1, 1, 1 }, { 2, 2, 2 }, { 4, 2, 64 }, { 8, 16, 256 } };
+		for (Integer[] r : ranges)
+			for (boolean inclusive : new boolean[] { false, true }) {
+				tree.setReadAhead(null);
+				List<Map.Entry<Integer, Integer>> expected = entries(tree.scan(r[0], inclusive, r[1], inclusive));
+				for (int[] w : windows)
+					try (ReadAhead readAhead = new ReadAhead(w[0], w[1], w[2])) {
+						tree.setReadAhead(readAhead);
+						RangeScan<Integer, Integer> scan = tree.scan(r[0], inclusive, r[1], inclusive);
+						String where = "range " + r[0] + "-" + r[1] + ", inclusive " + inclusive + ", window " + w[1]
+								+ "-" + w[2] + ", mapped " + mapped;
+						check(scan instanceof ReadAheadScan, "no ReadAheadScan, " + where);
+						check(expected.equals(entries(scan)), "entries differ from a plain scan, " + where);
+					}
+			}
+		delete(sm, sm.directory);
+	}
+
+	/**
+	 * Checks that closing a {@code ReadAhead} in the middle of a scan and after a scan does not close the files of the
+	 * {@code BPlusTree}, so that the rest of the scan and later searches still succeed.
+	 *
+	 * @param mapped
+	 *            {@code true} for a {@code MappedStorageManager}; {@code false} for a {@code FileStorageManager}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkClose(boolean mapped) throws Exception {
+		FileStorageManager sm = storageManager(mapped);
+		int n = 50000;
+		BPlusTree<Integer, Integer> tree = tree(sm, 16, n);
+		for (int trial = 0; trial < 30; trial++) {
+			String where = "trial " + trial + ", mapped " + mapped;
+			ReadAhead readAhead = new ReadAhead(4, 8, 64);
+			tree.setReadAhead(readAhead);
+			RangeScan<Integer, Integer> scan = tree.scan();
+			int i = 0;
+			boolean middle = trial % 2 == 0;
+			for (; scan.hasNext(); i++) {
+				if (middle && i == n / 10)
+					readAhead.close(); // while prefetches are in progress
+				check(Integer.valueOf(2 * i).equals(scan.next().getKey()), "key " + 2 * i + " missed, " + where);
+			}
+			check(i == n, i + " keys scanned, " + where);
+			if (!middle)
+				readAhead.close();
+			tree.setReadAhead(null);
+			for (int j = trial; j < n; j += 97)
+				check(Integer.valueOf(-2 * j).equals(tree.search(2 * j)), "key " + 2 * j + " lost, " + where);
+		}
+		delete(sm, sm.directory);
+	}
+
+	/**
+	 * Returns the entries that the specified {@code RangeScan} returns.
+	 *
+	 * @param scan
+	 *            a {@code RangeScan}
+	 * @return the entries that the specified {@code RangeScan} returns
+	 */
+	static List<Map.Entry<Integer, Integer>> entries(RangeScan<Integer, Integer> scan) {
+		List<Map.Entry<Integer, Integer>> l = new ArrayList<Map.Entry<Integer, Integer>>();
+		while (scan.hasNext()) {
+			Map.Entry<Integer, Integer> e = scan.next();
+			l.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(e.getKey(), e.getValue()));
+		}
+		return l;
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 *
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,93 @@
+package bptree;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * {@code ShardedBPlusTreeTest} checks that a {@code ShardedBPlusTree} rejects shard counts and shard sizes that are not
+ * positive, and that it agrees with a {@code TreeMap} under random insertions and deletions even when its shards are
+ * rebalanced after every few keys. It is run as a Java application and throws an {@code AssertionError} on the first
+ * failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class ShardedBPlusTreeTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (int[] invalid : new int[][] { { 0, 10 }, { 4, 0 }, { 4, -1 } })
+			try {
+				new ShardedBPlusTree<Integer, Integer>(4, new ConcurrentStorageManager(), "t", invalid[0], invalid[1]);
+				throw new AssertionError("shard count " + invalid[0] + " and shard size " + invalid[1] + " accepted");
+			} catch (IllegalArgumentException e) {
+			}
+		for (int maxShardSize : new int[] { 1, 2, 3, 50 })
+			run(maxShardSize, 8, 3000);
+		System.out.println("ShardedBPlusTreeTest passed");
+	}
+
+	/**
+	 * Applies random insertions and deletions to a {@code ShardedBPlusTree} and a {@code TreeMap} and compares them.
+	 * 
+	 * @param maxShardSize
+	 *            the number of keys beyond which a shard is rebalanced
+	 * @param shardCount
+	 *            the number of shards
+	 * @param n
+	 *            the number of operations
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void run(int maxShardSize, int shardCount, int n) throws Exception {
+		ShardedBPlusTree<Integer, Integer> tree = new ShardedBPlusTree<Integer, Integer>(4,
+				new ConcurrentStorageManager(), "t", shardCount, maxShardSize);
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		Random random = new Random(maxShardSize);
+		String where = "max shard size " + maxShardSize;
+		for (int i = 0; i < n; i++) {
+			int k = random.nextInt(n / 2);
+			if (expected.containsKey(k) && random.nextInt(3) == 0) {
+				tree.delete(k);
+				expected.remove(k);
+			} else if (!expected.containsKey(k)) {
+				tree.insert(k, i);
+				expected.put(k, i);
+			}
+		}
+		check(tree.size() == expected.size(), "size " + tree.size() + " instead of " + expected.size() + ", " + where);
+		for (int k = -1; k <= n / 2; k++)
+			check(Objects.equals(tree.search(k), expected.get(k)), "key " + k + ", " + where);
+		Iterator<Map.Entry<Integer, Integer>> scan = tree.scan();
+		for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+			check(scan.hasNext(), "scan ended before key " + e.getKey() + ", " + where);
+			Map.Entry<Integer, Integer> s = scan.next();
+			check(s.getKey().equals(e.getKey()) && s.getValue().equals(e.getValue()),
+					"scan returned " + s + " instead of " + e + ", " + where);
+		}
+		check(!scan.hasNext(), "scan returned extra keys, " + where);
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,147 @@
+package bptree;
+
+/**
+ * {@code SplitPolicyTest} checks that an {@code AdaptiveSplitPolicy} splits near the edge only the leftmost and
+ * rightmost {@code Node}s of a {@code BPlusTree}, so that ascending and descending insertions leave the
+ * {@code LeafNode}s almost full, while an ascending run of keys inserted in the middle of the key space produces the
+ * same {@code LeafNode}s as an {@code EvenSplitPolicy}. It is run as a Java application and throws an
+ * {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class SplitPolicyTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		for (int degree : new int[] { 3, 4, 5, 8, 16, 64 }) {
+			checkPolicy(degree);
+			checkEdges(degree, 20000);
+			checkMiddle(degree, 20000);
+		}
+		System.out.println("SplitPolicyTest passed");
+	}
+
+	/**
+	 * Checks the split points of an {@code AdaptiveSplitPolicy} for every index of the new key.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 */
+	static void checkPolicy(int degree) {
+		SplitPolicy even = new EvenSplitPolicy();
+		SplitPolicy adaptive = new AdaptiveSplitPolicy();
+		for (boolean leaf : new boolean[] { true, false })
+			for (int i = 0; i < degree; i++)
+				for (int edges = 0; edges < 4; edges++) {
+					boolean leftmost = (edges & 1) != 0;
+					boolean rightmost = (edges & 2) != 0;
+					int m = adaptive.splitPoint(degree, leaf, i, leftmost, rightmost);
+					int e = even.splitPoint(degree, leaf, i, leftmost, rightmost);
+					String where = "degree " + degree + ", leaf " + leaf + ", index " + i + ", edges " + edges;
+					check(m >= (leaf ? 1 : 2) && m <= degree - 1, "split point " + m + " out of range, " + where);
+					if (!(rightmost && i == degree - 1 || leftmost && i == 0))
+						check(m == e, "uneven split point " + m + " for an inner node, " + where);
+					else if (rightmost && i == degree - 1)
+						check(m >= e, "split point " + m + " below " + e + " for the rightmost node, " + where);
+					else
+						check(m <= e, "split point " + m + " above " + e + " for the leftmost node, " + where);
+				}
+	}
+
+	/**
+	 * Inserts keys in ascending and in descending order and checks that the {@code LeafNode}s stay almost full.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param n
+	 *            the number of keys
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkEdges(int degree, int n) throws Exception {
+		for (boolean ascending : new boolean[] { true, false }) {
+			BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(degree, new OffHeapStorageManager(),
+					"t");
+			tree.setSplitPolicy(new AdaptiveSplitPolicy());
+			for (int i = 0; i < n; i++) {
+				int k = ascending ? i : n - i;
+				tree.insert(k, -k);
+			}
+			double fill = tree.fillFactor();
+			check(fill >= 0.8, "fill factor " + fill + ", degree " + degree + ", ascending " + ascending);
+		}
+	}
+
+	/**
+	 * Inserts an ascending run of keys between two groups of existing keys and checks that an
+	 * {@code AdaptiveSplitPolicy} produces the same {@code LeafNode}s as an {@code EvenSplitPolicy}, since none of the
+	 * {@code LeafNode}s receiving the run is the leftmost or the rightmost {@code LeafNode}.
+	 * 
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param n
+	 *            the number of keys in the run
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkMiddle(int degree, int n) throws Exception {
+		BPlusTree<Integer, Integer> even = new BPlusTree<Integer, Integer>(degree, new OffHeapStorageManager(), "t");
+		BPlusTree<Integer, Integer> adaptive = new BPlusTree<Integer, Integer>(degree, new OffHeapStorageManager(),
+				"t");
+		for (int i = 1; i <= 1000; i++) { // keys below and above the run
+			for (int k : new int[] { -i, n + i }) {
+				even.insert(k, -k);
+				adaptive.insert(k, -k);
+			}
+		}
+		adaptive.setSplitPolicy(new AdaptiveSplitPolicy());
+		for (int k = 0; k < n; k++) {
+			even.insert(k, -k);
+			adaptive.insert(k, -k);
+		}
+		LeafNode<Integer, Integer> e = first(even);
+		LeafNode<Integer, Integer> a = first(adaptive);
+		for (int i = 0; e != null || a != null; i++) {
+			check(e != null && a != null && e.keyCount() == a.keyCount(), "leaf " + i + " differs, degree " + degree);
+			e = even.successor(e);
+			a = adaptive.successor(a);
+		}
+	}
+
+	/**
+	 * Returns the first {@code LeafNode} of the specified {@code BPlusTree}.
+	 * 
+	 * @param tree
+	 *            a non-empty {@code BPlusTree}
+	 * @return the first {@code LeafNode} of the specified {@code BPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static LeafNode<Integer, Integer> first(BPlusTree<Integer, Integer> tree) throws Exception {
+		Node<Integer, Integer> n = tree.root().node();
+		while (n instanceof NonLeafNode)
+			n = tree.child((NonLeafNode<Integer, Integer>) n, 0);
+		return (LeafNode<Integer, Integer>) n;
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
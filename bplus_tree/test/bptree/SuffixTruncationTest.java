@@ -0,0 +1,255 @@
+package bptree;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * {@code SuffixTruncationTest} checks that a {@code BPlusTree} of {@code String} keys sharing long prefixes with suffix
+ * truncation turned on finds, scans and deletes every key across splits and merges, that its separators are shorter
+ * than the keys yet still separate the subtrees, and that {@code Node}s whose keys are written with their common
+ * prefix once are read back with the same keys. It is run as a Java application and throws an {@code AssertionError}
+ * on the first failure.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class SuffixTruncationTest {
+
+	/**
+	 * Runs the test.
+	 *
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		checkRoundTrips();
+		for (int degree : new int[] { 3, 4, 5, 16 })
+			checkTree(degree, 3000);
+		System.out.println("SuffixTruncationTest passed");
+	}
+
+	/**
+	 * Returns the key of the specified number, which shares a long prefix with the other keys and ends with a suffix
+	 * that separators can leave out.
+	 *
+	 * @param i
+	 *            a number
+	 * @return the key of the specified number
+	 */
+	static String key(int i) {
+		return "/usr/share/doc/package-" + (i / 100) + "/file-" + (i % 100) + ".html";
+	}
+
+	/**
+	 * Inserts keys in random order, deletes most of them in random order, and then deletes the rest, checking the
+	 * {@code BPlusTree} against a reference map along the way.
+	 *
+	 * @param degree
+	 *            the degree of the {@code BPlusTree}
+	 * @param n
+	 *            the number of keys
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkTree(int degree, int n) throws Exception {
+		BPlusTree<String, Integer> tree = new BPlusTree<String, Integer>(degree, new OffHeapStorageManager(), "t");
+		tree.setSuffixTruncation(true);
+		TreeMap<String, Integer> expected = new TreeMap<String, Integer>();
+		List<Integer> numbers = new ArrayList<Integer>();
+		for (int i = 0; i < n; i++)
+			numbers.add(i);
+		Random random = new Random(degree);
+		Collections.shuffle(numbers, random);
+		for (int i : numbers) {
+			tree.insert(key(i), i);
+			expected.put(key(i), i);
+		}
+		String where = "degree " + degree;
+		checkTree(tree, expected, where + ", after insertions");
+		List<String> separators = separators(tree, tree.root().node(), new ArrayList<String>());
+		double length = separators.stream().mapToInt(String::length).average().getAsDouble();
+		check(length < key(0).length(), "separators of " + length + " characters on average, " + where);
+		Collections.shuffle(numbers, random);
+		for (int i : numbers.subList(0, n * 9 / 10)) {
+			tree.delete(key(i));
+			expected.remove(key(i));
+		}
+		checkTree(tree, expected, where + ", after deletions");
+		for (int i : numbers.subList(n * 9 / 10, n))
+			tree.delete(key(i));
+		check(tree.root() == null, "tree not empty, " + where);
+	}
+
+	/**
+	 * Checks that the specified {@code BPlusTree} has exactly the specified entries and that its separators separate
+	 * the keys of its subtrees.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param expected
+	 *            the entries that the {@code BPlusTree} must have
+	 * @param where
+	 *            a description of the {@code BPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkTree(BPlusTree<String, Integer> tree, TreeMap<String, Integer> expected, String where)
+			throws Exception {
+		for (Map.Entry<String, Integer> e : expected.entrySet())
+			check(e.getValue().equals(tree.search(e.getKey())), "key " + e.getKey() + " lost, " + where);
+		check(tree.search("/usr/share/doc/package-") == null, "prefix found as a key, " + where);
+		List<Map.Entry<String, Integer>> scanned = new ArrayList<Map.Entry<String, Integer>>();
+		for (RangeScan<String, Integer> s = tree.scan(); s.hasNext();)
+			scanned.add(s.next());
+		check(new ArrayList<Map.Entry<String, Integer>>(expected.entrySet()).equals(scanned),
+				"scan differs from the expected entries, " + where);
+		String from = key(1234), to = key(2345);
+		scanned.clear();
+		for (RangeScan<String, Integer> s = tree.scan(from, true, to, false); s.hasNext();)
+			scanned.add(s.next());
+		check(new ArrayList<Map.Entry<String, Integer>>(expected.subMap(from, true, to, false).entrySet())
+				.equals(scanned), "bounded scan differs from the expected entries, " + where);
+		checkSeparators(tree, tree.root().node(), null, null, where);
+	}
+
+	/**
+	 * Checks that every key in the subtree rooted at the specified {@code Node} is at least the specified lower bound
+	 * and below the specified upper bound, and that the separators in the subtree separate the keys of their children.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param n
+	 *            the root {@code Node} of a subtree
+	 * @param low
+	 *            the lower bound; {@code null} if there is no lower bound
+	 * @param high
+	 *            the upper bound; {@code null} if there is no upper bound
+	 * @param where
+	 *            a description of the {@code BPlusTree}
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkSeparators(BPlusTree<String, Integer> tree, Node<String, Integer> n, String low, String high,
+			String where) throws Exception {
+		for (int i = 0; i < n.keyCount(); i++) {
+			String k = n.key(i);
+			check(low == null || k.compareTo(low) >= 0, k + " below " + low + ", " + where);
+			check(high == null || k.compareTo(high) < 0, k + " not below " + high + ", " + where);
+		}
+		if (n instanceof NonLeafNode) {
+			NonLeafNode<String, Integer> nl = (NonLeafNode<String, Integer>) n;
+			for (int i = 0; i <= nl.keyCount(); i++)
+				checkSeparators(tree, tree.child(nl, i), i == 0 ? low : nl.key(i - 1),
+						i == nl.keyCount() ? high : nl.key(i), where);
+		}
+	}
+
+	/**
+	 * Adds the separators in the subtree rooted at the specified {@code Node} to the specified list.
+	 *
+	 * @param tree
+	 *            a {@code BPlusTree}
+	 * @param n
+	 *            the root {@code Node} of a subtree
+	 * @param separators
+	 *            a list of separators
+	 * @return the specified list of separators
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static List<String> separators(BPlusTree<String, Integer> tree, Node<String, Integer> n, List<String> separators)
+			throws Exception {
+		if (n instanceof NonLeafNode) {
+			NonLeafNode<String, Integer> nl = (NonLeafNode<String, Integer>) n;
+			for (int i = 0; i < nl.keyCount(); i++)
+				separators.add(nl.key(i));
+			for (int i = 0; i <= nl.keyCount(); i++)
+				separators(tree, tree.child(nl, i), separators);
+		}
+		return separators;
+	}
+
+	/**
+	 * Serializes and deserializes {@code LeafNode}s and {@code NonLeafNode}s whose keys share a prefix, share none,
+	 * include the common prefix itself, are not {@code String}s, or are absent, and checks that the keys, pointers,
+	 * successors and high keys are read back unchanged.
+	 *
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	static void checkRoundTrips() throws Exception {
+		String[][] keySets = { {}, { "abc" }, { "abc", "abcd", "abce" }, { "a", "b", "c" }, { "", "x" },
+				{ key(1), key(2), key(3) } };
+		for (String[] keys : keySets) {
+			LeafNode<String, Integer> l = new LeafNode<String, Integer>(5);
+			for (int i = 0; i < keys.length; i++)
+				l.insert(keys[i], i);
+			l.setSuccessor(42);
+			l.setHighKey(keys.length == 0 ? null : keys[keys.length - 1] + "z");
+			LeafNode<String, Integer> lc = roundTrip(l);
+			check(lc.toString().equals(l.toString()) && lc.keyCount() == l.keyCount(), "leaf changed: " + lc);
+			check(Integer.valueOf(42).equals(lc.successor()), "successor lost: " + lc);
+			check(Objects.equals(l.highKey(), lc.highKey()), "high key lost: " + lc);
+			if (keys.length > 0) {
+				NonLeafNode<String, Integer> nl = new NonLeafNode<String, Integer>(5, 0, keys[0], 1);
+				for (int i = 1; i < keys.length; i++)
+					nl.insert(keys[i], i, i + 1, i + 1);
+				NonLeafNode<String, Integer> nc = roundTrip(nl);
+				check(nc.toString().equals(nl.toString()) && nc.keyCount() == nl.keyCount(), "node changed: " + nc);
+				for (int i = 0; i < keys.length; i++)
+					check(nc.key(i).equals(keys[i]), "key " + keys[i] + " changed to " + nc.key(i));
+			}
+		}
+		LeafNode<Integer, Integer> l = new LeafNode<Integer, Integer>(4);
+		l.insert(7, 70);
+		l.insert(3, 30);
+		LeafNode<Integer, Integer> lc = roundTrip(l);
+		check(lc.toString().equals(l.toString()), "leaf of Integer keys changed: " + lc);
+	}
+
+	/**
+	 * Serializes and then deserializes the specified {@code Node}.
+	 *
+	 * @param <N>
+	 *            the type of the {@code Node}
+	 * @param n
+	 *            a {@code Node}
+	 * @return a copy of the specified {@code Node} read back from its serialized form
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	static <N extends Node<?, ?>> N roundTrip(N n) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(n);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (N) in.readObject();
+		}
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 *
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
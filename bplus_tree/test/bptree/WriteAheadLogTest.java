@@ -0,0 +1,146 @@
+package bptree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@code WriteAheadLogTest} checks that the changes made by a thread through a {@code WriteAheadLog} are seen only by
+ * that thread until they are committed, that aborting an operation keeps the changes committed before it and frees
+ * the locations that the operation added, that only committed changes survive a crash, and that an object too large
+ * for a page is rejected before it reaches the log. It is run as a Java application and throws an
+ * {@code AssertionError} on the first failure.
+ * 
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class WriteAheadLogTest {
+
+	/**
+	 * Runs the test.
+	 * 
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		File dir = Files.createTempDirectory("wal").toFile();
+		File logFile = new File(dir, "log");
+		FileStorageManager fsm = new FileStorageManager(dir, 4096);
+		WriteAheadLog wal = new WriteAheadLog(fsm, logFile);
+		int fileID = wal.fileID("t");
+		int loc = wal.add(fileID, "v1");
+		wal.commit();
+
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		CountDownLatch put = new CountDownLatch(1);
+		CountDownLatch checked = new CountDownLatch(1);
+		Thread writer = new Thread(() -> { // puts v2 and commits it once the main thread has checked
+			try {
+				wal.put(fileID, loc, "v2");
+				check("v2".equals(wal.get(fileID, loc)), "own change not seen");
+				put.countDown();
+				checked.await();
+				wal.commit();
+			} catch (Throwable e) {
+				failure.set(e);
+				put.countDown();
+			}
+		});
+		writer.start();
+		put.await();
+		check("v1".equals(wal.get(fileID, loc)), "uncommitted change of another thread seen");
+		checked.countDown();
+		writer.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		check("v2".equals(wal.get(fileID, loc)), "committed change of another thread not seen");
+
+		wal.put(fileID, loc, "v3");
+		wal.abort();
+		check("v2".equals(wal.get(fileID, loc)), "abort discarded a committed change");
+
+		int pages = fsm.pageCount(fileID);
+		int aborted = wal.add(fileID, "a1");
+		wal.add(fileID, "a2");
+		wal.remove(fileID, aborted);
+		wal.add(fileID, "a3");
+		wal.abort();
+		check(fsm.pageCount(fileID) == pages && fsm.freePageCount(fileID) == 0, "aborted additions left pages behind");
+		check(wal.get(fileID, aborted) == null, "aborted addition seen");
+		int kept = wal.add(fileID, "k");
+		wal.commit();
+		wal.abort(); // nothing to abort
+		check(kept == aborted && "k".equals(wal.get(fileID, kept)), "committed addition removed by a later abort");
+
+		int[] a = new int[] { 1 };
+		int arrays = wal.add(fileID, a);
+		wal.commit();
+		Thread reader = new Thread(() -> {
+			try {
+				Object o = wal.get(fileID, arrays);
+				check(o != a && ((int[]) o)[0] == 1, "object of another thread shared");
+			} catch (Throwable e) {
+				failure.set(e);
+			}
+		});
+		reader.start();
+		reader.join();
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+
+		wal.put(fileID, loc, "v4"); // never committed
+		WriteAheadLog recovered = new WriteAheadLog(new FileStorageManager(dir, 4096), logFile); // as after a crash
+		int id = recovered.fileID("t");
+		check("v2".equals(recovered.get(id, loc)), "recovered " + recovered.get(id, loc) + " instead of v2");
+		recovered.close();
+		for (File f : dir.listFiles())
+			f.delete();
+
+		WriteAheadLog small = new WriteAheadLog(new FileStorageManager(dir, 128), logFile);
+		int smallID = small.fileID("t");
+		int smallLoc = small.add(smallID, "v1");
+		small.commit();
+		char[] large = new char[500];
+		Arrays.fill(large, 'x');
+		try {
+			small.put(smallID, smallLoc, new String(large));
+			throw new AssertionError("object larger than a page accepted");
+		} catch (IOException e) {
+		}
+		try {
+			small.add(smallID, new String(large));
+			throw new AssertionError("object larger than a page accepted");
+		} catch (IOException e) {
+		}
+		small.commit();
+		small.put(smallID, smallLoc, "v2");
+		small.commit();
+		small.close();
+		recovered = new WriteAheadLog(new FileStorageManager(dir, 128), logFile);
+		smallID = recovered.fileID("t");
+		check("v2".equals(recovered.get(smallID, smallLoc)), "log not recovered after an object was rejected");
+		recovered.close();
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+		System.out.println("WriteAheadLogTest passed");
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 * 
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
@@ -0,0 +1,79 @@
+package util;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+
+import bptree.BPlusTree;
+import bptree.StorageManager;
+
+/**
+ * {@code BPlusTreeVisualizerTest} checks that the in-memory {@code StorageManager} of the {@code BPlusTreeVisualizer}
+ * reuses removed locations lowest first before appending, never hands out {@code first()}, and keeps a churned
+ * {@code BPlusTree} intact. It is run as a Java application and throws an {@code AssertionError} on the first failure.
+ *
+ * @author Jeong-Hyon Hwang (jhh@cs.albany.edu)
+ */
+public class BPlusTreeVisualizerTest {
+
+	/**
+	 * Runs the test.
+	 *
+	 * @param args
+	 *            ignored
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public static void main(String[] args) throws Exception {
+		PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+		StorageManager<Integer, Object> sm = BPlusTreeVisualizer.getStorageManager(out);
+		int fileID = sm.fileID("reuse");
+		for (int i = 1; i <= 10; i++)
+			check(sm.add(fileID, "o" + i) == i, "object " + i + " not appended");
+		sm.remove(fileID, sm.first()); // the first location is never reused
+		for (int loc : new int[] { 9, 2, 6 })
+			sm.remove(fileID, loc);
+		check(sm.get(fileID, 6) == null, "removed object still found");
+		for (int loc : new int[] { 2, 6, 9 })
+			check(sm.add(fileID, "r" + loc) == loc, "location " + loc + " not reused in order");
+		check(sm.add(fileID, "o11") == 11, "location 11 not appended");
+		sm.remove(fileID, 5);
+		sm.put(fileID, 5, "p5"); // a location put again is no longer free
+		check(sm.add(fileID, "a") == 12, "location put again handed out");
+		check("r6".equals(sm.get(fileID, 6)) && "p5".equals(sm.get(fileID, 5)), "object lost");
+
+		BPlusTree<Integer, Integer> tree = new BPlusTree<Integer, Integer>(4,
+				BPlusTreeVisualizer.getStorageManager(out), "t");
+		TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+		Random random = new Random(0);
+		for (int i = 0; i < 20000; i++) {
+			int k = random.nextInt(500);
+			if (expected.containsKey(k)) {
+				tree.delete(k);
+				expected.remove(k);
+			} else {
+				tree.insert(k, -k);
+				expected.put(k, -k);
+			}
+		}
+		for (int k = 0; k < 500; k++)
+			check(Objects.equals(expected.get(k), tree.search(k)), "key " + k + " lost");
+		System.out.println("BPlusTreeVisualizerTest passed");
+	}
+
+	/**
+	 * Throws an {@code AssertionError} with the specified message if the specified condition does not hold.
+	 *
+	 * @param condition
+	 *            a condition
+	 * @param message
+	 *            a message
+	 */
+	static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}